@@ -4,8 +4,9 @@ import android.app.Application;
 
 import androidx.room.Room;
 
-import com.github.dedis.popstellar.repository.database.AppDatabase;
-import com.github.dedis.popstellar.repository.database.CustomTypeConverters;
+import com.github.dedis.popstellar.model.network.method.message.data.DataRegistry;
+import com.github.dedis.popstellar.repository.database.*;
+import com.google.gson.Gson;
 
 import javax.inject.Singleton;
 
@@ -33,10 +34,13 @@ public class AppDatabaseModule {
     In order to avoid overcomplicated solutions here it's created a DataRegistry with null handlers,
     as the only function needed is the one to get the object's type for the Gson serializer
      */
+    DataRegistry dataRegistry = DataRegistryModule.provideDataRegistryForGson();
+    Gson gson = JsonModule.provideGson(dataRegistry);
+    EntityCodec codec = new EntityCodec(gson, dataRegistry);
+
     return Room.databaseBuilder(application, AppDatabase.class, DATABASE_NAME)
-        .addTypeConverter(
-            new CustomTypeConverters(
-                JsonModule.provideGson(DataRegistryModule.provideDataRegistryForGson())))
+        .addTypeConverter(new CustomTypeConverters(gson, codec))
+        .addMigrations(new BinaryEncodingMigration(gson, codec))
         .fallbackToDestructiveMigration()
         .allowMainThreadQueries()
         .build();
@@ -1,11 +1,15 @@
 package com.github.dedis.popstellar.model.network.serializer;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParseException;
+import com.fasterxml.jackson.databind.node.*;
+import com.github.dedis.popstellar.model.network.method.message.data.Action;
+import com.github.dedis.popstellar.model.network.method.message.data.Objects;
+import com.google.gson.*;
 import com.networknt.schema.*;
 
+import java.math.BigInteger;
 import java.net.URI;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -22,6 +26,7 @@ public final class JsonUtils {
 
   private static final String TAG = JsonUtils.class.getSimpleName();
   private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final JsonNodeFactory NODE_FACTORY = JsonNodeFactory.instance;
   private static final JsonSchemaFactory FACTORY =
       JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7);
 
@@ -32,6 +37,9 @@ public final class JsonUtils {
   public static final String POP_TOKEN_SCHEME = "protocol/qrcode/pop_token.json";
   public static final String MAIN_PK_SCHEME = "protocol/qrcode/main_public_key.json";
 
+  private static final String DATA_OBJECT = "object";
+  private static final String DATA_ACTION = "action";
+
   private static final Map<String, JsonSchema> schemas = new ConcurrentHashMap<>();
 
   private JsonUtils() {}
@@ -86,6 +94,120 @@ public final class JsonUtils {
     }
   }
 
+  /**
+   * Verify the json tree against the given schema.
+   *
+   * <p>The tree is validated as is, without being serialized and parsed again
+   *
+   * @param schemaPath the path of the schema resource
+   * @param json the json tree
+   * @throws JsonParseException if the json is invalid
+   */
+  public static void verifyJson(String schemaPath, JsonElement json) throws JsonParseException {
+    Timber.tag(TAG).d("verifyJson against %s", schemaPath);
+    verifyJson(loadSchema(schemaPath), json);
+  }
+
+  /**
+   * Verify the data json tree against the schema of its (object, action) pair.
+   *
+   * <p>Only the matching schema is evaluated instead of every branch of the data schema. If the
+   * pair is unknown, the data is verified against the whole data schema, which reports the error.
+   *
+   * @param data the json tree of the data
+   * @throws JsonParseException if the data is invalid
+   */
+  public static void verifyData(JsonObject data) throws JsonParseException {
+    JsonSchema schema = findDataSchema(data);
+    verifyJson(schema != null ? schema : loadSchema(DATA_SCHEMA), data);
+  }
+
+  private static void verifyJson(JsonSchema schema, JsonElement json) throws JsonParseException {
+    Set<ValidationMessage> errors = schema.validate(toJsonNode(json));
+    if (!errors.isEmpty()) {
+      throw new JsonParseException(
+          "Json : " + json + "\nValidationMessage errors : " + Arrays.toString(errors.toArray()));
+    }
+  }
+
+  /**
+   * Load the schemas of every data type, so that the first messages do not pay for their
+   * compilation
+   */
+  public static void loadDataSchemas() {
+    DataSchemas.load();
+  }
+
+  private static JsonSchema findDataSchema(JsonObject data) {
+    Objects object = Objects.find(getStringOrNull(data, DATA_OBJECT));
+    Action action = Action.find(getStringOrNull(data, DATA_ACTION));
+    if (object == null || action == null) {
+      return null;
+    }
+
+    Map<Action, JsonSchema> actions = DataSchemas.BY_OBJECT.get(object);
+    return actions == null ? null : actions.get(action);
+  }
+
+  private static String getStringOrNull(JsonObject object, String member) {
+    JsonElement element = object.get(member);
+    return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+  }
+
+  /**
+   * Convert a Gson tree to the Jackson tree used by the schema validator
+   *
+   * <p>Numbers are mapped to the same node types Jackson would produce when parsing the text
+   *
+   * @param element the Gson tree
+   * @return the equivalent Jackson tree
+   */
+  static JsonNode toJsonNode(JsonElement element) {
+    if (element == null || element.isJsonNull()) {
+      return NODE_FACTORY.nullNode();
+    }
+
+    if (element.isJsonObject()) {
+      ObjectNode node = NODE_FACTORY.objectNode();
+      for (Map.Entry<String, JsonElement> member : element.getAsJsonObject().entrySet()) {
+        node.set(member.getKey(), toJsonNode(member.getValue()));
+      }
+      return node;
+    }
+
+    if (element.isJsonArray()) {
+      ArrayNode node = NODE_FACTORY.arrayNode();
+      for (JsonElement item : element.getAsJsonArray()) {
+        node.add(toJsonNode(item));
+      }
+      return node;
+    }
+
+    JsonPrimitive primitive = element.getAsJsonPrimitive();
+    if (primitive.isBoolean()) {
+      return NODE_FACTORY.booleanNode(primitive.getAsBoolean());
+    } else if (primitive.isString()) {
+      return NODE_FACTORY.textNode(primitive.getAsString());
+    } else {
+      return toNumberNode(primitive.getAsString());
+    }
+  }
+
+  private static JsonNode toNumberNode(String number) {
+    if (number.indexOf('.') >= 0 || number.indexOf('e') >= 0 || number.indexOf('E') >= 0) {
+      return NODE_FACTORY.numberNode(Double.parseDouble(number));
+    }
+
+    BigInteger value = new BigInteger(number);
+    if (value.bitLength() < Integer.SIZE) {
+      return NODE_FACTORY.numberNode(value.intValue());
+    } else if (value.bitLength() < Long.SIZE) {
+      return NODE_FACTORY.numberNode(value.longValue());
+    } else {
+      return NODE_FACTORY.numberNode(value);
+    }
+  }
+
   /**
    * Load a json schema from the resources directory
    *
@@ -96,4 +218,60 @@ public final class JsonUtils {
     return schemas.computeIfAbsent(
         resourcePath, k -> FACTORY.getSchema(URI.create("resource:/" + resourcePath)));
   }
+
+  /**
+   * Schemas of the data types, compiled once per (object, action) pair.
+   *
+   * <p>The pairs are read from the object and action constants of each schema referenced by the
+   * data schema, so that the map always follows the protocol definition.
+   */
+  private static final class DataSchemas {
+
+    private static final Map<Objects, Map<Action, JsonSchema>> BY_OBJECT = build();
+
+    private DataSchemas() {}
+
+    private static void load() {
+      Timber.tag(TAG).d("%d data objects loaded", BY_OBJECT.size());
+    }
+
+    private static Map<Objects, Map<Action, JsonSchema>> build() {
+      String directory = DATA_SCHEMA.substring(0, DATA_SCHEMA.lastIndexOf('/') + 1);
+      Map<Objects, Map<Action, JsonSchema>> byObject = new EnumMap<>(Objects.class);
+
+      for (JsonNode reference : loadSchema(DATA_SCHEMA).getSchemaNode().path("oneOf")) {
+        JsonSchema schema = loadSchema(directory + reference.path("$ref").asText());
+        JsonNode properties = schema.getSchemaNode().path("properties");
+
+        Objects object = Objects.find(properties.path(DATA_OBJECT).path("const").asText());
+        if (object == null) {
+          // The object is not supported by this client, the whole data schema will be used
+          continue;
+        }
+
+        Map<Action, JsonSchema> byAction =
+            byObject.computeIfAbsent(object, k -> new EnumMap<>(Action.class));
+        for (String actionName : constValues(properties.path(DATA_ACTION))) {
+          Action action = Action.find(actionName);
+          if (action != null) {
+            byAction.put(action, schema);
+          }
+        }
+      }
+
+      return byObject;
+    }
+
+    /** Values allowed by a property, defined either as a const or as an enum */
+    private static List<String> constValues(JsonNode property) {
+      List<String> values = new ArrayList<>();
+      if (property.has("const")) {
+        values.add(property.get("const").asText());
+      }
+      for (JsonNode value : property.path("enum")) {
+        values.add(value.asText());
+      }
+      return values;
+    }
+  }
 }
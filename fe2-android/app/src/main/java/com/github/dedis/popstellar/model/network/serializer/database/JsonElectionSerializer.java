@@ -4,8 +4,6 @@ import com.github.dedis.popstellar.model.network.method.message.data.election.*;
 import com.github.dedis.popstellar.model.objects.Channel;
 import com.github.dedis.popstellar.model.objects.Election;
 import com.github.dedis.popstellar.model.objects.event.EventState;
-import com.github.dedis.popstellar.model.objects.security.MessageID;
-import com.github.dedis.popstellar.model.objects.security.PublicKey;
 import com.google.gson.*;
 
 import java.lang.reflect.Type;
@@ -45,29 +43,6 @@ public class JsonElectionSerializer
           context.deserialize(electionQuestionJsonElement, ElectionQuestion.class));
     }
 
-    // Deserialize the map votesBySender
-    Map<PublicKey, List<Vote>> votesBySender = new HashMap<>();
-    JsonObject votesBySenderObject = jsonObject.get("votesBySender").getAsJsonObject();
-    for (Map.Entry<String, JsonElement> entry : votesBySenderObject.entrySet()) {
-      PublicKey senderPublicKey = new PublicKey(entry.getKey());
-      JsonArray votesBySenderJsonArray = entry.getValue().getAsJsonArray();
-      // Deserialize the value of the map (list of votes)
-      List<Vote> votesBySenderPk = new ArrayList<>();
-      for (JsonElement element : votesBySenderJsonArray) {
-        votesBySenderPk.add(context.deserialize(element, Vote.class));
-      }
-      votesBySender.put(senderPublicKey, votesBySenderPk);
-    }
-
-    // Deserialize the map messageMap
-    Map<PublicKey, MessageID> messageMap = new HashMap<>();
-    JsonObject messageMapObject = jsonObject.get("messageMap").getAsJsonObject();
-    for (Map.Entry<String, JsonElement> entry : messageMapObject.entrySet()) {
-      PublicKey senderPublicKey = new PublicKey(entry.getKey());
-      MessageID messageId = new MessageID(entry.getValue().getAsString());
-      messageMap.put(senderPublicKey, messageId);
-    }
-
     // Deserialize the map results
     Map<String, Set<QuestionResult>> results = new HashMap<>();
     JsonObject resultsObject = jsonObject.get("results").getAsJsonObject();
@@ -92,8 +67,6 @@ public class JsonElectionSerializer
         electionQuestions,
         electionKey,
         electionVersion,
-        votesBySender,
-        messageMap,
         state,
         results);
   }
@@ -126,29 +99,6 @@ public class JsonElectionSerializer
     }
     jsonObject.add("electionQuestions", electionQuestionsJsonArray);
 
-    // Serialize the map of votesBySender into a JsonObject
-    JsonObject votesBySenderJsonObject = new JsonObject();
-    for (Map.Entry<PublicKey, List<Vote>> entry : election.getVotesBySender().entrySet()) {
-      String pk = entry.getKey().getEncoded();
-      // Serialize the list of votes into a JsonArray
-      JsonArray votesBySenderJsonArray = new JsonArray();
-      for (Vote vote : entry.getValue()) {
-        votesBySenderJsonArray.add(context.serialize(vote, Vote.class));
-      }
-      votesBySenderJsonObject.add(pk, votesBySenderJsonArray);
-    }
-    jsonObject.add("votesBySender", votesBySenderJsonObject);
-
-    // Serialize the messageMap into a JsonObject
-    JsonObject messageMapJsonObject = new JsonObject();
-    for (Map.Entry<PublicKey, MessageID> entry : election.getMessageMap().entrySet()) {
-      String pk = entry.getKey().getEncoded();
-      String messageID = entry.getValue().getEncoded();
-      JsonElement jsonElement = new JsonPrimitive(messageID);
-      messageMapJsonObject.add(pk, jsonElement);
-    }
-    jsonObject.add("messageMap", messageMapJsonObject);
-
     // Serialize the results map into a JsonObject
     JsonObject resultsJsonObject = new JsonObject();
     for (Map.Entry<String, Set<QuestionResult>> entry : election.getResults().entrySet()) {
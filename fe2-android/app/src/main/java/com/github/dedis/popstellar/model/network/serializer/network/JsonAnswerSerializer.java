@@ -18,7 +18,7 @@ public class JsonAnswerSerializer implements JsonSerializer<Answer>, JsonDeseria
       throws JsonParseException {
     JsonObject obj = json.getAsJsonObject();
     JsonUtils.testRPCVersion(obj);
-    JsonUtils.verifyJson(JsonUtils.ROOT_SCHEMA, json.toString());
+    JsonUtils.verifyJson(JsonUtils.ROOT_SCHEMA, json);
 
     if (obj.has(RESULT)) {
       return context.deserialize(json, Result.class);
@@ -33,7 +33,7 @@ public class JsonAnswerSerializer implements JsonSerializer<Answer>, JsonDeseria
   public JsonElement serialize(Answer src, Type typeOfSrc, JsonSerializationContext context) {
     JsonObject obj = context.serialize(src).getAsJsonObject();
     obj.addProperty(JsonUtils.JSON_RPC, JsonUtils.JSON_RPC_VERSION);
-    JsonUtils.verifyJson(JsonUtils.ROOT_SCHEMA, obj.toString());
+    JsonUtils.verifyJson(JsonUtils.ROOT_SCHEMA, obj);
     return obj;
   }
 }
@@ -45,7 +45,7 @@ public class JsonMessageGeneralSerializer
             src.getMessageId(),
             src.getWitnessSignatures());
     JsonElement result = context.serialize(jsonObject);
-    JsonUtils.verifyJson(JsonUtils.GENERAL_MESSAGE_SCHEMA, result.toString());
+    JsonUtils.verifyJson(JsonUtils.GENERAL_MESSAGE_SCHEMA, result);
     return result;
   }
 
@@ -0,0 +1,103 @@
+package com.github.dedis.popstellar.model.objects;
+
+import androidx.annotation.NonNull;
+
+import com.github.dedis.popstellar.model.Immutable;
+import com.github.dedis.popstellar.model.objects.security.PublicKey;
+
+import java.util.*;
+
+/**
+ * Senders of the live reactions to a chirp, grouped by codepoint.
+ *
+ * <p>Each reaction only creates a new set for its own codepoint, the sets of the other codepoints
+ * are shared with the previous instance.
+ */
+@Immutable
+public final class ChirpReactions {
+
+  public static final ChirpReactions EMPTY = new ChirpReactions(Collections.emptyMap());
+
+  private final Map<String, Set<PublicKey>> sendersByCodepoint;
+
+  private ChirpReactions(Map<String, Set<PublicKey>> sendersByCodepoint) {
+    this.sendersByCodepoint = sendersByCodepoint;
+  }
+
+  /**
+   * @param codepoint of the reaction
+   * @return the number of users who reacted with this codepoint
+   */
+  public int getCount(@NonNull String codepoint) {
+    Set<PublicKey> senders = sendersByCodepoint.get(codepoint);
+    return senders == null ? 0 : senders.size();
+  }
+
+  /**
+   * @param codepoint of the reaction
+   * @param sender public key of a user
+   * @return true if the user reacted with this codepoint
+   */
+  public boolean hasReacted(@NonNull String codepoint, @NonNull PublicKey sender) {
+    Set<PublicKey> senders = sendersByCodepoint.get(codepoint);
+    return senders != null && senders.contains(sender);
+  }
+
+  /**
+   * @return the reactions with the given sender added for the codepoint
+   */
+  public ChirpReactions withSender(@NonNull String codepoint, @NonNull PublicKey sender) {
+    if (hasReacted(codepoint, sender)) {
+      return this;
+    }
+    Set<PublicKey> previous = sendersByCodepoint.get(codepoint);
+    Set<PublicKey> senders = previous == null ? new HashSet<>() : new HashSet<>(previous);
+    senders.add(sender);
+    return with(codepoint, senders);
+  }
+
+  /**
+   * @return the reactions with the given sender removed for the codepoint
+   */
+  public ChirpReactions withoutSender(@NonNull String codepoint, @NonNull PublicKey sender) {
+    if (!hasReacted(codepoint, sender)) {
+      return this;
+    }
+    Set<PublicKey> senders = new HashSet<>(sendersByCodepoint.get(codepoint));
+    senders.remove(sender);
+    return with(codepoint, senders);
+  }
+
+  private ChirpReactions with(String codepoint, Set<PublicKey> senders) {
+    Map<String, Set<PublicKey>> copy = new HashMap<>(sendersByCodepoint);
+    if (senders.isEmpty()) {
+      copy.remove(codepoint);
+    } else {
+      copy.put(codepoint, Collections.unmodifiableSet(senders));
+    }
+    return new ChirpReactions(Collections.unmodifiableMap(copy));
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    ChirpReactions that = (ChirpReactions) o;
+    return sendersByCodepoint.equals(that.sendersByCodepoint);
+  }
+
+  @Override
+  public int hashCode() {
+    return sendersByCodepoint.hashCode();
+  }
+
+  @NonNull
+  @Override
+  public String toString() {
+    return "ChirpReactions{" + sendersByCodepoint + '}';
+  }
+}
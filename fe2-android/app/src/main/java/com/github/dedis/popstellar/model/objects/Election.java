@@ -6,12 +6,11 @@ import com.github.dedis.popstellar.model.Copyable;
 import com.github.dedis.popstellar.model.Immutable;
 import com.github.dedis.popstellar.model.network.method.message.data.election.*;
 import com.github.dedis.popstellar.model.objects.event.*;
-import com.github.dedis.popstellar.model.objects.security.*;
+import com.github.dedis.popstellar.model.objects.security.Base64URLData;
 import com.github.dedis.popstellar.model.objects.security.elGamal.ElectionPublicKey;
 import com.github.dedis.popstellar.utility.security.Hash;
 
 import java.util.*;
-import java.util.stream.Stream;
 
 @Immutable
 public class Election extends Event {
@@ -29,17 +28,14 @@ public class Election extends Event {
   // Either OPEN_BALLOT or SECRET_BALLOT
   private final ElectionVersion electionVersion;
 
-  // Map that associates each sender pk to their votes
-  private final Map<PublicKey, List<Vote>> votesBySender;
-
-  // Map that associates each messageId to its sender
-  private final Map<PublicKey, MessageID> messageMap;
-
   private final EventState state;
 
   // Results of an election (associated to a question id)
   private final Map<String, Set<QuestionResult>> results;
 
+  // Decoded election key, created on the first encryption and reused for the following votes
+  private transient volatile ElectionPublicKey encryptionKey;
+
   public Election(
       String id,
       String name,
@@ -50,14 +46,8 @@ public class Election extends Event {
       List<ElectionQuestion> electionQuestions,
       String electionKey,
       ElectionVersion electionVersion,
-      Map<PublicKey, List<Vote>> votesBySender,
-      Map<PublicKey, MessageID> messageMap,
       EventState state,
       Map<String, Set<QuestionResult>> results) {
-
-    // Make sure the vote are encrypted in a secret election and plain in an open election
-    validateVotesTypes(votesBySender, electionVersion);
-
     this.id = id;
     this.name = name;
     this.creation = creation;
@@ -69,21 +59,21 @@ public class Election extends Event {
     this.electionVersion = electionVersion;
     // Defensive copies
     this.electionQuestions = new ArrayList<>(electionQuestions);
-    this.votesBySender = Copyable.copyMapOfList(votesBySender);
     this.results = Copyable.copyMapOfSet(results);
-    // Create message map as a tree map to sort messages correctly
-    this.messageMap = new HashMap<>(messageMap);
   }
 
-  private static void validateVotesTypes(
-      Map<PublicKey, List<Vote>> votesBySender, ElectionVersion version) {
-    votesBySender.values().stream()
-        .flatMap(List::stream)
-        .forEach(vote -> validateVoteType(vote, version));
+  /**
+   * Make sure the votes are encrypted in a secret election and plain in an open election
+   *
+   * @param votes votes cast in this election
+   * @throws IllegalArgumentException if a vote does not match the version of the election
+   */
+  public void validateVotesTypes(List<Vote> votes) {
+    votes.forEach(this::validateVoteType);
   }
 
-  private static void validateVoteType(Vote vote, ElectionVersion version) {
-    boolean isElectionEncrypted = version == ElectionVersion.SECRET_BALLOT;
+  private void validateVoteType(Vote vote) {
+    boolean isElectionEncrypted = electionVersion == ElectionVersion.SECRET_BALLOT;
 
     if (vote.isEncrypted() != isElectionEncrypted) {
       if (vote.isEncrypted()) {
@@ -127,14 +117,6 @@ public class Election extends Event {
     return state;
   }
 
-  public Map<PublicKey, MessageID> getMessageMap() {
-    return new HashMap<>(messageMap);
-  }
-
-  public Map<PublicKey, List<Vote>> getVotesBySender() {
-    return Copyable.copyMapOfList(votesBySender);
-  }
-
   public Map<String, Set<QuestionResult>> getResults() {
     return Copyable.copyMapOfSet(results);
   }
@@ -237,30 +219,6 @@ public class Election extends Event {
         "Vote", electionId, questionId, writeInEnabled ? writeInEncrypted : voteIndexEncrypted);
   }
 
-  /**
-   * Computes the hash for the registered votes, when terminating an election (sorted by message
-   * id's alphabetical order)
-   *
-   * @return the hash of all registered votes
-   */
-  public String computeRegisteredVotesHash() {
-    String[] ids =
-        messageMap.keySet().stream()
-            .map(votesBySender::get)
-            // Merge lists and drop nulls
-            .flatMap(
-                electionVotes -> electionVotes != null ? electionVotes.stream() : Stream.empty())
-            .map(Vote::getId)
-            .sorted()
-            .toArray(String[]::new);
-
-    if (ids.length == 0) {
-      return "";
-    } else {
-      return Hash.hash(ids);
-    }
-  }
-
   /**
    * Encrypts the content of the votes using El-GamaL scheme
    *
@@ -268,8 +226,9 @@ public class Election extends Event {
    * @return encrypted votes
    */
   public List<EncryptedVote> encrypt(List<PlainVote> votes) {
+    ElectionPublicKey key = getEncryptionKey();
     // We need to iterate over all election votes to encrypt them
-    List<EncryptedVote> encryptedVotes = new ArrayList<>();
+    List<EncryptedVote> encryptedVotes = new ArrayList<>(votes.size());
     for (PlainVote vote : votes) {
       // We are sure that each vote is unique per question following new specification
       int voteIndice = vote.getVote();
@@ -277,9 +236,6 @@ public class Election extends Event {
       // Get the two lsb byte from the indice
       byte[] voteIndiceInBytes = {(byte) (voteIndice >> 8), (byte) voteIndice};
 
-      // Create a public key and encrypt the indice
-      Base64URLData electionKeyToBase64 = new Base64URLData(getElectionKey());
-      ElectionPublicKey key = new ElectionPublicKey(electionKeyToBase64);
       // Encrypt the indice
       String encryptedVotesIndice = key.encrypt(voteIndiceInBytes);
       EncryptedVote encryptedVote =
@@ -289,6 +245,15 @@ public class Election extends Event {
     return encryptedVotes;
   }
 
+  private ElectionPublicKey getEncryptionKey() {
+    ElectionPublicKey result = encryptionKey;
+    if (result == null) {
+      result = new ElectionPublicKey(new Base64URLData(electionKey));
+      encryptionKey = result;
+    }
+    return result;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -307,8 +272,6 @@ public class Election extends Event {
         && Objects.equals(electionQuestions, election.electionQuestions)
         && Objects.equals(electionKey, election.electionKey)
         && electionVersion == election.electionVersion
-        && Objects.equals(votesBySender, election.votesBySender)
-        && Objects.equals(messageMap, election.messageMap)
         && state == election.state
         && Objects.equals(results, election.results);
   }
@@ -325,8 +288,6 @@ public class Election extends Event {
         electionQuestions,
         electionKey,
         electionVersion,
-        votesBySender,
-        messageMap,
         state,
         results);
   }
@@ -352,10 +313,6 @@ public class Election extends Event {
         + end
         + ", electionQuestions="
         + Arrays.toString(electionQuestions.toArray())
-        + ", voteMap="
-        + votesBySender
-        + ", messageMap="
-        + messageMap
         + ", state="
         + state
         + ", results="
@@ -378,8 +335,6 @@ public class Election extends Event {
     private List<ElectionQuestion> electionQuestions;
     private String electionKey;
     private ElectionVersion electionVersion;
-    private final Map<PublicKey, List<Vote>> votesBySender;
-    private final Map<PublicKey, MessageID> messageMap;
     private EventState state;
     private Map<String, Set<QuestionResult>> results;
 
@@ -399,8 +354,6 @@ public class Election extends Event {
 
       results = new HashMap<>();
       electionQuestions = new ArrayList<>();
-      votesBySender = new HashMap<>();
-      messageMap = new HashMap<>();
     }
 
     public ElectionBuilder(Election election) {
@@ -413,9 +366,6 @@ public class Election extends Event {
       electionKey = election.electionKey;
       electionQuestions = election.electionQuestions;
       electionVersion = election.electionVersion;
-      // We might modify the maps, for safety reason, we need to create a copy
-      votesBySender = new HashMap<>(election.votesBySender);
-      messageMap = new HashMap<>(election.messageMap);
       state = election.state;
       results = election.results;
     }
@@ -450,17 +400,6 @@ public class Election extends Event {
       return this;
     }
 
-    public ElectionBuilder updateVotes(@NonNull PublicKey senderPk, @NonNull List<Vote> votes) {
-      this.votesBySender.put(senderPk, new ArrayList<>(votes));
-      return this;
-    }
-
-    public ElectionBuilder updateMessageMap(
-        @NonNull PublicKey senderPk, @NonNull MessageID messageID) {
-      this.messageMap.put(senderPk, messageID);
-      return this;
-    }
-
     public ElectionBuilder setState(@NonNull EventState state) {
       this.state = state;
       return this;
@@ -482,8 +421,6 @@ public class Election extends Event {
           electionQuestions,
           electionKey,
           electionVersion,
-          votesBySender,
-          messageMap,
           state,
           results);
     }
@@ -0,0 +1,148 @@
+package com.github.dedis.popstellar.model.objects;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.github.dedis.popstellar.model.network.method.message.data.election.*;
+import com.github.dedis.popstellar.model.objects.security.elGamal.ElectionPrivateKey;
+
+import java.util.*;
+
+import ch.epfl.dedis.lib.exception.CothorityCryptoException;
+import io.reactivex.*;
+import timber.log.Timber;
+
+/**
+ * Computes the results of an election from the ballots it registered, as its organizer does.
+ *
+ * <p>This client never holds the private key of an election, so the tally has no production caller
+ * yet: it is test-only infrastructure, kept package-private until the organizer side computes the
+ * results of its elections.
+ *
+ * <p>The votes are split in batches of {@link #BATCH_SIZE} votes that are decrypted and counted in
+ * parallel on the given scheduler. Each batch counts its votes in arrays indexed by ballot option,
+ * the counts of the batches are then summed into the results of each question.
+ */
+@VisibleForTesting
+class ElectionTally {
+
+  private static final String TAG = ElectionTally.class.getSimpleName();
+
+  /** Number of votes that are decrypted by the same task */
+  static final int BATCH_SIZE = 64;
+
+  private final Scheduler scheduler;
+  private final int maxConcurrency;
+
+  ElectionTally(Scheduler scheduler) {
+    this(scheduler, Runtime.getRuntime().availableProcessors());
+  }
+
+  ElectionTally(Scheduler scheduler, int maxConcurrency) {
+    this.scheduler = scheduler;
+    this.maxConcurrency = maxConcurrency;
+  }
+
+  /**
+   * Count the votes of an election. Votes for an unknown question or ballot option, and encrypted
+   * votes that cannot be decrypted, are not counted.
+   *
+   * @param election the election the votes were cast in
+   * @param privateKey key of the election, used to decrypt the encrypted votes
+   * @param votes the votes of the last ballot of each voter
+   * @return a single emitting the results of each question of the election, in their order
+   */
+  Single<List<ElectionResultQuestion>> compute(
+      @NonNull Election election, @NonNull ElectionPrivateKey privateKey, List<Vote> votes) {
+    List<ElectionQuestion> questions = election.getElectionQuestions();
+    Map<String, Integer> questionIndexes = new HashMap<>();
+    for (int i = 0; i < questions.size(); i++) {
+      questionIndexes.put(questions.get(i).getId(), i);
+    }
+
+    int batches = (votes.size() + BATCH_SIZE - 1) / BATCH_SIZE;
+    return Flowable.range(0, batches)
+        .flatMap(
+            batch ->
+                Flowable.fromCallable(
+                        () ->
+                            countBatch(
+                                questions,
+                                questionIndexes,
+                                privateKey,
+                                votes.subList(
+                                    batch * BATCH_SIZE,
+                                    Math.min(votes.size(), (batch + 1) * BATCH_SIZE))))
+                    .subscribeOn(scheduler),
+            maxConcurrency)
+        .reduceWith(() -> emptyCounts(questions), ElectionTally::sum)
+        .map(counts -> toResults(questions, counts));
+  }
+
+  private static int[][] countBatch(
+      List<ElectionQuestion> questions,
+      Map<String, Integer> questionIndexes,
+      ElectionPrivateKey privateKey,
+      List<Vote> batch) {
+    int[][] counts = emptyCounts(questions);
+    for (Vote vote : batch) {
+      Integer question = questionIndexes.get(vote.getQuestionId());
+      int option = question == null ? -1 : getBallotOption(vote, privateKey);
+      if (option < 0 || option >= counts[question].length) {
+        Timber.tag(TAG).w("Not counting the invalid vote %s", vote.getId());
+        continue;
+      }
+      counts[question][option]++;
+    }
+    return counts;
+  }
+
+  /**
+   * @return the index of the ballot option chosen by the vote, or -1 if it cannot be read
+   */
+  private static int getBallotOption(Vote vote, ElectionPrivateKey privateKey) {
+    if (!vote.isEncrypted()) {
+      Integer option = ((PlainVote) vote).getVote();
+      return option == null ? -1 : option;
+    }
+
+    try {
+      // The index is encrypted as two bytes, the most significant one first
+      byte[] data = privateKey.decrypt(((EncryptedVote) vote).getVote());
+      return data.length == 2 ? ((data[0] & 0xff) << 8) | (data[1] & 0xff) : -1;
+    } catch (CothorityCryptoException | IllegalArgumentException e) {
+      return -1;
+    }
+  }
+
+  private static int[][] emptyCounts(List<ElectionQuestion> questions) {
+    int[][] counts = new int[questions.size()][];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = new int[questions.get(i).getBallotOptions().size()];
+    }
+    return counts;
+  }
+
+  private static int[][] sum(int[][] total, int[][] counts) {
+    for (int question = 0; question < total.length; question++) {
+      for (int option = 0; option < total[question].length; option++) {
+        total[question][option] += counts[question][option];
+      }
+    }
+    return total;
+  }
+
+  private static List<ElectionResultQuestion> toResults(
+      List<ElectionQuestion> questions, int[][] counts) {
+    List<ElectionResultQuestion> results = new ArrayList<>(questions.size());
+    for (int i = 0; i < questions.size(); i++) {
+      List<String> ballotOptions = questions.get(i).getBallotOptions();
+      Set<QuestionResult> questionResults = new HashSet<>();
+      for (int option = 0; option < ballotOptions.size(); option++) {
+        questionResults.add(new QuestionResult(ballotOptions.get(option), counts[i][option]));
+      }
+      results.add(new ElectionResultQuestion(questions.get(i).getId(), questionResults));
+    }
+    return results;
+  }
+}
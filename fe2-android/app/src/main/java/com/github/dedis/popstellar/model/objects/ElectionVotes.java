@@ -0,0 +1,137 @@
+package com.github.dedis.popstellar.model.objects;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.github.dedis.popstellar.model.network.method.message.data.election.PlainVote;
+import com.github.dedis.popstellar.model.network.method.message.data.election.Vote;
+import com.github.dedis.popstellar.model.objects.security.MessageID;
+import com.github.dedis.popstellar.model.objects.security.PublicKey;
+import com.github.dedis.popstellar.utility.security.Hash;
+
+import java.util.*;
+
+/**
+ * Index of the votes registered in an election.
+ *
+ * <p>Only the last ballot of each sender is kept. The index is updated incrementally when a ballot
+ * is received : it keeps a running tally of the open ballot votes and the sorted ids of the
+ * registered votes, so that neither has to be computed again from all the votes.
+ */
+public class ElectionVotes {
+
+  // Map that associates each sender pk to their votes
+  private final Map<PublicKey, List<Vote>> votesBySender = new HashMap<>();
+
+  // Map that associates each sender pk to the id of its last cast vote message
+  private final Map<PublicKey, MessageID> messageMap = new HashMap<>();
+
+  // Number of registered votes with a given id, sorted by id
+  private final TreeMap<String, Integer> voteIds = new TreeMap<>();
+
+  // Number of plain votes for each ballot option, by question id
+  private final Map<String, Map<Integer, Integer>> tally = new HashMap<>();
+
+  /**
+   * Register the ballot of a sender, replacing its previous one
+   *
+   * @param sender public key of the voter
+   * @param messageId id of the cast vote message
+   * @param votes votes of the ballot
+   */
+  public synchronized void put(
+      @NonNull PublicKey sender, @NonNull MessageID messageId, @NonNull List<Vote> votes) {
+    List<Vote> previous = votesBySender.put(sender, new ArrayList<>(votes));
+    if (previous != null) {
+      previous.forEach(vote -> count(vote, -1));
+    }
+    votes.forEach(vote -> count(vote, 1));
+    messageMap.put(sender, messageId);
+  }
+
+  /**
+   * Register the ballot of a sender, unless a ballot is already registered for it
+   *
+   * <p>This is used when loading the stored ballots, which are older than the ones received in the
+   * meantime
+   */
+  public synchronized void putIfAbsent(
+      @NonNull PublicKey sender, @NonNull MessageID messageId, @NonNull List<Vote> votes) {
+    if (!messageMap.containsKey(sender)) {
+      put(sender, messageId, votes);
+    }
+  }
+
+  @Nullable
+  public synchronized MessageID getMessageId(@NonNull PublicKey sender) {
+    return messageMap.get(sender);
+  }
+
+  @Nullable
+  public synchronized List<Vote> getVotes(@NonNull PublicKey sender) {
+    List<Vote> votes = votesBySender.get(sender);
+    return votes == null ? null : new ArrayList<>(votes);
+  }
+
+  /**
+   * @return the votes of the last ballot of each sender
+   */
+  public synchronized List<Vote> getAllVotes() {
+    List<Vote> votes = new ArrayList<>();
+    votesBySender.values().forEach(votes::addAll);
+    return votes;
+  }
+
+  public synchronized Map<PublicKey, MessageID> getMessageMap() {
+    return new HashMap<>(messageMap);
+  }
+
+  public synchronized int getVoterCount() {
+    return messageMap.size();
+  }
+
+  /**
+   * @param questionId id of the question
+   * @return the number of plain votes received by each ballot option of the question
+   */
+  public synchronized Map<Integer, Integer> getTally(@NonNull String questionId) {
+    Map<Integer, Integer> counts = tally.get(questionId);
+    return counts == null ? Collections.emptyMap() : new HashMap<>(counts);
+  }
+
+  /**
+   * Computes the hash for the registered votes, when terminating an election (sorted by message
+   * id's alphabetical order)
+   *
+   * @return the hash of all registered votes
+   */
+  public synchronized String computeRegisteredVotesHash() {
+    if (voteIds.isEmpty()) {
+      return "";
+    }
+
+    List<String> ids = new ArrayList<>();
+    voteIds.forEach(
+        (id, count) -> {
+          for (int i = 0; i < count; i++) {
+            ids.add(id);
+          }
+        });
+    return Hash.hash(ids.toArray(new String[0]));
+  }
+
+  private void count(Vote vote, int delta) {
+    voteIds.merge(vote.getId(), delta, ElectionVotes::sumOrRemove);
+    if (!vote.isEncrypted()) {
+      tally
+          .computeIfAbsent(vote.getQuestionId(), question -> new HashMap<>())
+          .merge(((PlainVote) vote).getVote(), delta, ElectionVotes::sumOrRemove);
+    }
+  }
+
+  private static Integer sumOrRemove(Integer count, Integer delta) {
+    int sum = count + delta;
+    // Returning null removes the entry from the map
+    return sum == 0 ? null : sum;
+  }
+}
@@ -8,6 +8,7 @@ import com.github.dedis.popstellar.model.objects.security.PublicKey;
 import com.github.dedis.popstellar.utility.security.Hash;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /** Class modeling a Local Autonomous Organization (LAO) */
 public final class Lao implements Copyable<Lao> {
@@ -24,8 +25,11 @@ public final class Lao implements Copyable<Lao> {
 
   private Set<PendingUpdate> pendingUpdates;
 
+  // The elect instances are updated in place by the consensus messages, while views are copied
   private final Map<MessageID, ElectInstance> messageIdToElectInstance;
   private final Map<PublicKey, ConsensusNode> keyToNode;
+  // Nodes sorted by key, computed again only when a node is added
+  private List<ConsensusNode> sortedNodes;
 
   public Lao(String id) {
     if (id == null) {
@@ -37,7 +41,7 @@ public final class Lao implements Copyable<Lao> {
     channel = Channel.getLaoChannel(id);
     this.id = id;
     keyToNode = new HashMap<>();
-    messageIdToElectInstance = new HashMap<>();
+    messageIdToElectInstance = new ConcurrentHashMap<>();
     pendingUpdates = new HashSet<>();
   }
 
@@ -68,7 +72,7 @@ public final class Lao implements Copyable<Lao> {
     this.organizer = organizer;
     this.modificationId = modificationId;
     this.pendingUpdates = new HashSet<>(pendingUpdates);
-    this.messageIdToElectInstance = new HashMap<>(messageIdToElectInstance);
+    this.messageIdToElectInstance = new ConcurrentHashMap<>(messageIdToElectInstance);
     this.keyToNode = Copyable.copy(keyToNode);
   }
 
@@ -88,12 +92,13 @@ public final class Lao implements Copyable<Lao> {
     pendingUpdates = new HashSet<>(lao.pendingUpdates);
     // FIXME We need to keep the ElectInstance because the current consensus relies on references
     // (Gabriel Fleischer 11.08.22)
-    messageIdToElectInstance = new HashMap<>(lao.messageIdToElectInstance);
+    messageIdToElectInstance = new ConcurrentHashMap<>(lao.messageIdToElectInstance);
     keyToNode = Copyable.copy(lao.keyToNode);
   }
 
   /**
-   * Store the given ElectInstance and update all nodes concerned by it.
+   * Store the given ElectInstance and update all nodes concerned by it. Only the nodes of its
+   * acceptors and of its proposer are visited.
    *
    * @param electInstance the ElectInstance
    */
@@ -101,14 +106,13 @@ public final class Lao implements Copyable<Lao> {
     MessageID messageId = electInstance.getMessageId();
     messageIdToElectInstance.put(messageId, electInstance);
 
-    Map<PublicKey, MessageID> acceptorsToMessageId = electInstance.getAcceptorsToMessageId();
     // add to each node the messageId of the Elect if they accept it
-    keyToNode.forEach(
-        (key, node) -> {
-          if (acceptorsToMessageId.containsKey(key)) {
-            node.addMessageIdOfAnAcceptedElect(messageId);
-          }
-        });
+    for (PublicKey acceptor : electInstance.getAcceptorsToMessageId().keySet()) {
+      ConsensusNode node = keyToNode.get(acceptor);
+      if (node != null) {
+        node.addMessageIdOfAnAcceptedElect(messageId);
+      }
+    }
 
     // add the ElectInstance to the proposer node
     ConsensusNode proposer = keyToNode.get(electInstance.getProposer());
@@ -179,7 +183,7 @@ public final class Lao implements Copyable<Lao> {
 
   public void setOrganizer(PublicKey organizer) {
     this.organizer = organizer;
-    keyToNode.computeIfAbsent(organizer, ConsensusNode::new);
+    addNode(organizer);
   }
 
   public MessageID getModificationId() {
@@ -199,7 +203,14 @@ public final class Lao implements Copyable<Lao> {
         throw new IllegalArgumentException("One of the witnesses in the set is null");
       }
     }
-    witnesses.forEach(w -> keyToNode.computeIfAbsent(w, ConsensusNode::new));
+    witnesses.forEach(this::addNode);
+  }
+
+  private void addNode(PublicKey key) {
+    if (!keyToNode.containsKey(key)) {
+      keyToNode.put(key, new ConsensusNode(key));
+      sortedNodes = null;
+    }
   }
 
   public void addPendingUpdate(PendingUpdate pendingUpdate) {
@@ -212,12 +223,18 @@ public final class Lao implements Copyable<Lao> {
 
   /**
    * Get the list of all nodes of this Lao sorted by the base64 representation of their public key.
+   * The list is sorted once and reused until a node is added.
    *
-   * @return a sorted List of ConsensusNode
+   * @return an unmodifiable sorted List of ConsensusNode
    */
   public List<ConsensusNode> getNodes() {
-    List<ConsensusNode> nodes = new ArrayList<>(keyToNode.values());
-    nodes.sort(Comparator.comparing(node -> node.getPublicKey().getEncoded()));
+    List<ConsensusNode> nodes = sortedNodes;
+    if (nodes == null) {
+      List<ConsensusNode> sorted = new ArrayList<>(keyToNode.values());
+      sorted.sort(Comparator.comparing(node -> node.getPublicKey().getEncoded()));
+      nodes = Collections.unmodifiableList(sorted);
+      sortedNodes = nodes;
+    }
     return nodes;
   }
 
@@ -17,6 +17,7 @@ import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -34,12 +35,19 @@ import timber.log.Timber;
 public class Wallet {
 
   private static final String TAG = Wallet.class.getSimpleName();
-  private static final String PURPOSE = "888";
-  private static final String ACCOUNT = "0";
-  private byte[] encryptedSeed;
+  private static final int PURPOSE = 888;
+  private static final int ACCOUNT = 0;
+  private volatile byte[] encryptedSeed;
   private byte[] encryptedMnemonic;
   private final Aead aead;
 
+  // Nodes m/888/0/<lao> shared by the tokens of a lao, encrypted like the seed
+  private final Map<String, byte[]> encryptedLaoNodes = new ConcurrentHashMap<>();
+  // Derived tokens by lao and roll call, dropped with the seed they were derived from
+  private final Map<String, PoPToken> tokens = new ConcurrentHashMap<>();
+  // Guards the caches against derivations from a seed that was replaced meanwhile
+  private final Object cacheLock = new Object();
+
   /** Class constructor, initialize the wallet keyset. */
   @Inject
   public Wallet(@WalletKeyset AndroidKeysetManager keysetManager) {
@@ -62,19 +70,22 @@ public class Wallet {
    */
   public PoPToken generatePoPToken(@NonNull String laoID, @NonNull String rollCallID)
       throws KeyGenerationException, UninitializedWalletException {
-    // Generate the string path
-    String res =
-        String.join(
-            "/", // delimiter
-            "m",
-            PURPOSE,
-            ACCOUNT,
-            convertDataToPath(laoID),
-            convertDataToPath(rollCallID));
-
-    Timber.tag(TAG).d("Generated path: %s", res);
-
-    return generateKeyFromPath(res);
+    byte[] seed = encryptedSeed;
+    if (seed == null) {
+      throw new UninitializedWalletException();
+    }
+
+    try {
+      String key = laoID + "/" + rollCallID;
+      PoPToken token = tokens.get(key);
+      if (token == null) {
+        token = deriveToken(seed, laoID, rollCallID);
+        cache(seed, tokens, key, token);
+      }
+      return token;
+    } catch (GeneralSecurityException e) {
+      throw new KeyGenerationException(e);
+    }
   }
 
   /**
@@ -145,8 +156,11 @@ public class Wallet {
   /** Logout the wallet by replacing the seed by a random one */
   public void logout() {
     Timber.tag(TAG).d("Logged out of wallet");
-    encryptedSeed = null;
-    encryptedMnemonic = null;
+    synchronized (cacheLock) {
+      encryptedSeed = null;
+      encryptedMnemonic = null;
+      clearCaches();
+    }
   }
 
   /** Generates mnemonic seed but does not store it */
@@ -160,81 +174,110 @@ public class Wallet {
   }
 
   private void storeEncrypted(String mnemonicWords) throws GeneralSecurityException {
-    encryptedMnemonic = aead.encrypt(mnemonicWords.getBytes(StandardCharsets.UTF_8), new byte[0]);
-    encryptedSeed =
+    byte[] mnemonic =
+        aead.encrypt(mnemonicWords.getBytes(StandardCharsets.UTF_8), new byte[0]);
+    byte[] seed =
         aead.encrypt(
             new SeedCalculator().calculateSeed(String.join("", mnemonicWords), ""), new byte[0]);
+    synchronized (cacheLock) {
+      encryptedMnemonic = mnemonic;
+      encryptedSeed = seed;
+      // The cached tokens were derived from the previous seed
+      clearCaches();
+    }
     Timber.tag(TAG).d("Mnemonic words and seed successfully encrypted");
   }
 
+  private void clearCaches() {
+    tokens.clear();
+    encryptedLaoNodes.clear();
+  }
+
   /**
-   * This method allow to take a 256-bit string, and split it in many 24-bit or less string.
-   *
-   * <p>So, we first convert the string into an byte array, and we iterate on it taking 3 element
-   * (byte) each time concatenate them and append to our result string.
-   *
-   * @param data to covert into a path
-   * @return string of the form 3-byte/3-byte/...
+   * Store a derived value in a cache, unless the seed it was derived from was replaced meanwhile
    */
-  private String convertDataToPath(String data) {
-    // extract byte form string
-    byte[] byteString = Base64.getUrlDecoder().decode(data);
-
-    StringJoiner joiner = new StringJoiner("/");
-    StringBuilder curPath = new StringBuilder();
-
-    // create 31-bit index path
-    for (int i = 0; i < byteString.length; i++) {
-      curPath.append(byteString[i] & 0xFF);
-
-      // Every 3 bytes, add the current path to the joiner and reset the builder
-      if (i % 3 == 2) {
-        joiner.add(curPath.toString());
-        curPath.setLength(0);
+  private <T> void cache(byte[] seed, Map<String, T> cache, String key, T value) {
+    synchronized (cacheLock) {
+      if (seed == encryptedSeed) {
+        cache.put(key, value);
       }
     }
-
-    // If the path is not complete, add the remaining bytes to the joiner
-    if (curPath.length() > 0) {
-      joiner.add(curPath.toString());
-    }
-
-    return joiner.toString();
   }
 
   /**
-   * Generate a PoPToken (i.e. a key pair) from a given path.
+   * Derive the token m/888/0/<lao>/<roll call>, starting from the cached node of the lao.
    *
-   * @param path a String path of the form: m/i/j/k/... where i,j,k,.. are 31-bit integer.
-   * @return the generated PoP Token
-   * @throws KeyGenerationException if an error occurs
-   * @throws UninitializedWalletException if the wallet is not initialized with a seed
+   * @param seed the encrypted seed to derive the token from
+   * @return the derived token
+   * @throws GeneralSecurityException if an error occurs
    */
-  private PoPToken generateKeyFromPath(@NonNull String path)
-      throws KeyGenerationException, UninitializedWalletException {
-    if (!isSetUp()) {
-      throw new UninitializedWalletException();
+  private PoPToken deriveToken(byte[] seed, String laoID, String rollCallID)
+      throws GeneralSecurityException {
+    byte[] laoNode = null;
+    byte[] node = null;
+    try {
+      byte[] encryptedLaoNode = encryptedLaoNodes.get(laoID);
+      if (encryptedLaoNode != null) {
+        laoNode = aead.decrypt(encryptedLaoNode, new byte[0]);
+      } else {
+        laoNode = deriveLaoNode(seed, laoID);
+        cache(seed, encryptedLaoNodes, laoID, aead.encrypt(laoNode, new byte[0]));
+      }
+
+      node = SLIP10.deriveEd25519ChildNode(laoNode, convertDataToPath(rollCallID));
+      byte[] privateKey = SLIP10.privateKeyOf(node);
+
+      Ed25519PrivateKeyParameters prK = new Ed25519PrivateKeyParameters(privateKey, 0);
+      Ed25519PublicKeyParameters puK = prK.generatePublicKey();
+      return new PoPToken(privateKey, puK.getEncoded());
+    } finally {
+      wipe(laoNode);
+      wipe(node);
     }
+  }
 
-    // convert the path string in an array of int
-    int[] pathValueInt =
-        Arrays.stream(path.split("/"))
-            .skip(1) // remove the first element ('m')
-            .mapToInt(Integer::parseInt)
-            .toArray();
+  private byte[] deriveLaoNode(byte[] seed, String laoID) throws GeneralSecurityException {
+    int[] laoPath = convertDataToPath(laoID);
+    int[] path = new int[laoPath.length + 2];
+    path[0] = PURPOSE;
+    path[1] = ACCOUNT;
+    System.arraycopy(laoPath, 0, path, 2, laoPath.length);
 
+    byte[] decryptedSeed = aead.decrypt(seed, new byte[0]);
     try {
-      // derive private and public key
-      byte[] privateKey =
-          SLIP10.deriveEd25519PrivateKey(aead.decrypt(encryptedSeed, new byte[0]), pathValueInt);
+      return SLIP10.deriveEd25519Node(decryptedSeed, path);
+    } finally {
+      wipe(decryptedSeed);
+    }
+  }
 
-      Ed25519PrivateKeyParameters prK = new Ed25519PrivateKeyParameters(privateKey, 0);
-      Ed25519PublicKeyParameters puK = prK.generatePublicKey();
-      byte[] publicKey = puK.getEncoded();
+  private static void wipe(byte[] secret) {
+    if (secret != null) {
+      Arrays.fill(secret, (byte) 0);
+    }
+  }
 
-      return new PoPToken(privateKey, publicKey);
-    } catch (GeneralSecurityException e) {
-      throw new KeyGenerationException(e);
+  /**
+   * This method allow to take a 256-bit string, and split it in many 24-bit or less indexes.
+   *
+   * <p>So, we first convert the string into an byte array, and we iterate on it taking 3 element
+   * (byte) each time and concatenate their decimal representations into an index.
+   *
+   * @param data to covert into a path
+   * @return indexes of the form 3-byte/3-byte/...
+   */
+  private static int[] convertDataToPath(String data) {
+    // extract byte form string
+    byte[] byteString = Base64.getUrlDecoder().decode(data);
+    int[] path = new int[(byteString.length + 2) / 3];
+
+    // create 31-bit index path, appending the decimal digits of each byte to the current index
+    for (int i = 0; i < byteString.length; i++) {
+      int value = byteString[i] & 0xFF;
+      int shift = value < 10 ? 10 : value < 100 ? 100 : 1000;
+      path[i / 3] = path[i / 3] * shift + value;
     }
+
+    return path;
   }
 }
@@ -38,6 +38,19 @@ public class WitnessMessage implements Copyable<WitnessMessage> {
     this.timestamp = Instant.now().getEpochSecond();
   }
 
+  public WitnessMessage(
+      MessageID messageId,
+      Set<PublicKey> witnesses,
+      String title,
+      String description,
+      long timestamp) {
+    this.messageId = messageId;
+    this.witnesses = new HashSet<>(witnesses);
+    this.title = title;
+    this.description = description;
+    this.timestamp = timestamp;
+  }
+
   public WitnessMessage(WitnessMessage witnessMessage) {
     this.messageId = witnessMessage.messageId;
     this.witnesses = new HashSet<>(witnessMessage.witnesses);
@@ -0,0 +1,220 @@
+package com.github.dedis.popstellar.model.objects.digitalcash;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.github.dedis.popstellar.model.objects.InputObject;
+import com.github.dedis.popstellar.model.objects.OutputObject;
+import com.github.dedis.popstellar.model.objects.security.PublicKey;
+
+import java.util.*;
+
+/**
+ * Digital cash state of a LAO, updated incrementally as the transactions are received.
+ *
+ * <p>It keeps the balance and the transactions of each user, as well as the outputs that were not
+ * spent yet. The hashes of the attendees' public keys are computed once when the roll call is
+ * closed, so that no transaction requires to hash a public key again.
+ */
+public class DigitalCashLedger {
+
+  /** Dictionary mapping the hash of the attendees' public keys to the keys */
+  private final Map<String, PublicKey> keyByHash = new HashMap<>();
+
+  /** Hash of the attendees' public keys */
+  private final Map<PublicKey, String> hashByKey = new HashMap<>();
+
+  private final Set<String> transactionIds = new HashSet<>();
+  private final Map<PublicKey, List<TransactionObject>> transactionsByUser = new HashMap<>();
+  private final Map<PublicKey, Long> balances = new HashMap<>();
+
+  private final Map<OutputReference, OutputObject> unspentOutputs = new HashMap<>();
+  private final Map<String, Set<OutputReference>> unspentOutputsByHash = new HashMap<>();
+
+  /** Reset the ledger, removing the attendees as well as the transactions */
+  public synchronized void clear() {
+    keyByHash.clear();
+    hashByKey.clear();
+    transactionIds.clear();
+    transactionsByUser.clear();
+    balances.clear();
+    unspentOutputs.clear();
+    unspentOutputsByHash.clear();
+  }
+
+  /**
+   * Register an attendee that can send and receive coins
+   *
+   * @param publicKey public key of the attendee
+   * @param hash hash of the public key, as used in the transaction outputs
+   */
+  public synchronized void addAttendee(@NonNull PublicKey publicKey, @NonNull String hash) {
+    keyByHash.put(hash, publicKey);
+    hashByKey.put(publicKey, hash);
+  }
+
+  /**
+   * @param publicKey public key of an attendee
+   * @return the hash of the key as used in the transaction outputs, or null if it is not an
+   *     attendee
+   */
+  @Nullable
+  public synchronized String getHash(@NonNull PublicKey publicKey) {
+    return hashByKey.get(publicKey);
+  }
+
+  /**
+   * @param hash hash of a public key, as used in the transaction outputs
+   * @return the public key of the attendee with this hash, or null if there is none
+   */
+  @Nullable
+  public synchronized PublicKey getPublicKey(@NonNull String hash) {
+    return keyByHash.get(hash);
+  }
+
+  public synchronized boolean hasAttendees() {
+    return !keyByHash.isEmpty();
+  }
+
+  /**
+   * Add a transaction to the ledger, updating the balances and the unspent outputs
+   *
+   * @param transaction the transaction to add
+   * @return the receivers of the transaction, empty if it was already in the ledger
+   * @throws IllegalStateException if an output is sent to an unknown public key hash, in which
+   *     case the ledger is left unchanged
+   */
+  public synchronized List<PublicKey> addTransaction(@NonNull TransactionObject transaction) {
+    String transactionId = transaction.getTransactionId();
+    if (transactionIds.contains(transactionId)) {
+      return Collections.emptyList();
+    }
+
+    // Resolve every receiver before modifying the ledger
+    List<OutputObject> outputs = transaction.getOutputs();
+    Map<PublicKey, Long> received = new LinkedHashMap<>();
+    long total = 0;
+    for (OutputObject output : outputs) {
+      PublicKey receiver = keyByHash.get(output.getPubKeyHash());
+      if (receiver == null) {
+        throw new IllegalStateException("The hash is not in dictionary of known hashes");
+      }
+      received.merge(receiver, output.getValue(), Long::sum);
+      total += output.getValue();
+    }
+    transactionIds.add(transactionId);
+
+    // The sender of a transaction is one of its receivers, as it gets back the remaining coins
+    boolean isCoinbase = transaction.isCoinBaseTransaction();
+    List<PublicKey> senders =
+        isCoinbase ? Collections.emptyList() : transaction.getSendersTransaction();
+    long spent = total;
+    received.forEach(
+        (receiver, value) -> {
+          transactionsByUser.computeIfAbsent(receiver, key -> new ArrayList<>()).add(transaction);
+          long delta = senders.contains(receiver) ? value - spent : value;
+          balances.merge(receiver, delta, Long::sum);
+        });
+
+    if (!isCoinbase) {
+      for (InputObject input : transaction.getInputs()) {
+        spend(new OutputReference(input.getTxOutHash(), input.getTxOutIndex()));
+      }
+    }
+    for (int i = 0; i < outputs.size(); i++) {
+      OutputReference reference = new OutputReference(transactionId, i);
+      unspentOutputs.put(reference, outputs.get(i));
+      unspentOutputsByHash
+          .computeIfAbsent(outputs.get(i).getPubKeyHash(), hash -> new HashSet<>())
+          .add(reference);
+    }
+
+    return new ArrayList<>(received.keySet());
+  }
+
+  /**
+   * @param user public key of the user
+   * @return the transactions the user received coins from, or null if there is none
+   */
+  public synchronized List<TransactionObject> getTransactions(@NonNull PublicKey user) {
+    List<TransactionObject> transactions = transactionsByUser.get(user);
+    return transactions == null ? null : new ArrayList<>(transactions);
+  }
+
+  /**
+   * @param user public key of the user
+   * @return the balance of the user in miniLAOs
+   */
+  public synchronized long getBalance(@NonNull PublicKey user) {
+    Long balance = balances.get(user);
+    return balance == null ? 0 : balance;
+  }
+
+  /**
+   * @param user public key of the user
+   * @return the outputs sent to the user that were not spent yet
+   */
+  public synchronized Map<OutputReference, OutputObject> getUnspentOutputs(
+      @NonNull PublicKey user) {
+    Map<OutputReference, OutputObject> outputs = new HashMap<>();
+    String hash = hashByKey.get(user);
+    Set<OutputReference> references = hash == null ? null : unspentOutputsByHash.get(hash);
+    if (references != null) {
+      references.forEach(reference -> outputs.put(reference, unspentOutputs.get(reference)));
+    }
+    return outputs;
+  }
+
+  private void spend(OutputReference reference) {
+    OutputObject output = unspentOutputs.remove(reference);
+    if (output != null) {
+      Set<OutputReference> references = unspentOutputsByHash.get(output.getPubKeyHash());
+      if (references != null) {
+        references.remove(reference);
+      }
+    }
+  }
+
+  /** Reference to an output of a transaction, as used in the inputs spending it */
+  public static final class OutputReference {
+
+    private final String txOutHash;
+    private final int txOutIndex;
+
+    public OutputReference(@NonNull String txOutHash, int txOutIndex) {
+      this.txOutHash = txOutHash;
+      this.txOutIndex = txOutIndex;
+    }
+
+    public String getTxOutHash() {
+      return txOutHash;
+    }
+
+    public int getTxOutIndex() {
+      return txOutIndex;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      OutputReference that = (OutputReference) o;
+      return txOutIndex == that.txOutIndex && txOutHash.equals(that.txOutHash);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(txOutHash, txOutIndex);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+      return "OutputReference{txOutHash='" + txOutHash + "', txOutIndex=" + txOutIndex + '}';
+    }
+  }
+}
@@ -109,7 +109,8 @@ public class TransactionObject {
    * @return true if public key in receiver, false otherwise
    */
   public boolean isReceiver(PublicKey publicKey) {
-    return getReceiversHashTransaction().contains(publicKey.computeHash());
+    String hash = publicKey.computeHash();
+    return outputs.stream().anyMatch(output -> output.getPubKeyHash().equals(hash));
   }
 
   /**
@@ -163,7 +164,16 @@ public class TransactionObject {
    * @return int index in the transaction outputs
    */
   public int getIndexTransaction(PublicKey publicKey) {
-    String hashPubKey = publicKey.computeHash();
+    return getIndexTransaction(publicKey.computeHash());
+  }
+
+  /**
+   * Function that return the index of the output for a given public key hash in this Transaction
+   *
+   * @param hashPubKey hash of the public key of an individual in Transaction output
+   * @return int index in the transaction outputs
+   */
+  public int getIndexTransaction(String hashPubKey) {
     int index = 0;
     for (OutputObject outObj : outputs) {
       if (outObj.getPubKeyHash().equals(hashPubKey)) {
@@ -3,34 +3,77 @@ package com.github.dedis.popstellar.model.objects.security;
 import androidx.annotation.NonNull;
 
 import com.github.dedis.popstellar.model.Immutable;
+import com.github.dedis.popstellar.utility.Lazy;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Base64;
 
-/** Represents a data that can be encoded into a Base64 form */
+/**
+ * Represents a data that can be encoded into a Base64 form
+ *
+ * <p>As the data never changes, its hash code is computed once and its encoding is cached on first
+ * use. These objects are keys of many maps and are serialized often, the lookups and the
+ * serialization do not need to go over the data again.
+ */
 @Immutable
 public class Base64URLData {
 
   protected final byte[] data;
 
+  private final transient int hashCode;
+  private final transient Lazy<String> encoded = new Lazy<>();
+
   public Base64URLData(byte[] data) {
     // Deep copy of byte array
     this.data = Arrays.copyOf(data, data.length);
+    hashCode = Arrays.hashCode(this.data);
   }
 
   public Base64URLData(String data) {
-    this(decode(data));
+    // The decoded array is owned by this object, there is no need to copy it
+    this.data = decode(data);
+    hashCode = Arrays.hashCode(this.data);
   }
 
+  /**
+   * @return a copy of the data, use {@link #asByteBuffer()} to read it without copying
+   */
   public byte[] getData() {
     return Arrays.copyOf(data, data.length);
   }
 
+  /**
+   * @return a read-only view of the data
+   */
+  public ByteBuffer asByteBuffer() {
+    return ByteBuffer.wrap(data).asReadOnlyBuffer();
+  }
+
+  /**
+   * @return the number of bytes of the data
+   */
+  public int length() {
+    return data.length;
+  }
+
+  /**
+   * Write the data to the given stream, without copying it
+   *
+   * @param out the stream to write to
+   * @throws IOException if the stream fails
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    out.write(data);
+  }
+
   /**
    * @return the Base64 - encoded string representation of the data
    */
   public String getEncoded() {
-    return encode(data);
+    return encoded.get(data, Base64URLData::encode);
   }
 
   private static byte[] decode(String data) {
@@ -55,11 +98,11 @@ public class Base64URLData {
     }
 
     Base64URLData that = (Base64URLData) o;
-    return Arrays.equals(data, that.data);
+    return hashCode == that.hashCode && Arrays.equals(data, that.data);
   }
 
   @Override
   public int hashCode() {
-    return Arrays.hashCode(data);
+    return hashCode;
   }
 }
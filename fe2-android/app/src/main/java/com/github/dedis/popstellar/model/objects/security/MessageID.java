@@ -11,6 +11,10 @@ public class MessageID extends Base64URLData {
     super(data);
   }
 
+  public MessageID(byte[] data) {
+    super(data);
+  }
+
   /**
    * Create the message id based on the data it transport and the sender's signature
    *
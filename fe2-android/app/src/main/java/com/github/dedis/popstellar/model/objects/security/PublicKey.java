@@ -1,6 +1,7 @@
 package com.github.dedis.popstellar.model.objects.security;
 
 import com.github.dedis.popstellar.model.Immutable;
+import com.github.dedis.popstellar.utility.Lazy;
 import com.google.crypto.tink.PublicKeyVerify;
 import com.google.crypto.tink.subtle.Ed25519Verify;
 
@@ -16,21 +17,34 @@ public class PublicKey extends Base64URLData {
 
   private static final String TAG = PublicKey.class.getSimpleName();
 
-  private final PublicKeyVerify verifier;
+  // Verifier of the signatures, only built for the keys that verify a signature
+  private final transient Lazy<PublicKeyVerify> verifier = new Lazy<>();
+
+  // Hash identifying the key in the digital cash transactions, computed on first use
+  private final transient Lazy<String> hash = new Lazy<>();
 
   public PublicKey(byte[] data) {
     super(data);
-    verifier = new Ed25519Verify(data);
+    checkLength(this.data);
   }
 
   public PublicKey(String data) {
     super(data);
-    verifier = new Ed25519Verify(this.data);
+    checkLength(this.data);
+  }
+
+  private static void checkLength(byte[] data) {
+    // The verifier is built lazily, so the key is rejected here as it would be by the verifier
+    if (data.length != Ed25519Verify.PUBLIC_KEY_LEN) {
+      throw new IllegalArgumentException(
+          String.format("Given public key's length is not %s.", Ed25519Verify.PUBLIC_KEY_LEN));
+    }
   }
 
   public boolean verify(Signature signature, Base64URLData data) {
     try {
-      verifier.verify(signature.getData(), data.getData());
+      // The verifier does not modify its inputs, so the underlying arrays are not copied
+      verifier.get(this, PublicKey::verifier).verify(signature.data, data.data);
       return true;
     } catch (GeneralSecurityException e) {
       Timber.tag(TAG).d("failed to verify witness signature %s", e.getMessage());
@@ -38,16 +52,25 @@ public class PublicKey extends Base64URLData {
     }
   }
 
+  private static PublicKeyVerify verifier(PublicKey key) {
+    return new Ed25519Verify(key.data);
+  }
+
   /**
-   * Function that compute the hash of a public key
+   * Function that compute the hash of a public key, only once per instance
    *
    * @return String which correspond to the SHA256 Hash
    */
   public String computeHash() {
+    return hash.get(this, PublicKey::hash);
+  }
+
+  private static String hash(PublicKey key) {
     MessageDigest digest;
     try {
       digest = MessageDigest.getInstance("SHA-256");
-      byte[] hash = digest.digest(this.getData());
+      digest.update(key.asByteBuffer());
+      byte[] hash = digest.digest();
       return Base64.getUrlEncoder().encodeToString(Arrays.copyOf(hash, 20));
     } catch (NoSuchAlgorithmException e) {
       Timber.tag(TAG).e(e, "Something is wrong by hashing the String element");
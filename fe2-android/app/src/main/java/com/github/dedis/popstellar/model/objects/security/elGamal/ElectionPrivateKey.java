@@ -2,19 +2,37 @@ package com.github.dedis.popstellar.model.objects.security.elGamal;
 
 import com.github.dedis.popstellar.model.objects.security.Base64URLData;
 
+import net.i2p.crypto.eddsa.math.Curve;
+import net.i2p.crypto.eddsa.math.GroupElement;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Objects;
 
 import ch.epfl.dedis.lib.crypto.*;
 import ch.epfl.dedis.lib.exception.CothorityCryptoException;
 import io.reactivex.annotations.NonNull;
 
+/**
+ * Represents a private key meant for El-Gamal decryption
+ *
+ * <p>The points of a ciphertext are decoded once, straight into the group elements of the curve
+ * library, and the scalar of the key is encoded once for all its decryptions.
+ */
 public class ElectionPrivateKey {
 
+  private static final Curve CURVE = EdDSANamedCurveTable.ED_25519_CURVE_SPEC.getCurve();
+
   private static final int MESSAGE_BYTE_SIZE = 64;
   private static final int HALF_MESSAGE_BYTE_SIZE = 32;
+  // Maximum length of the data embedded in a point, its first byte holding the length
+  private static final int EMBEDDED_DATA_MAX_SIZE = 29;
 
   // Scalar generated with the private key
   @NonNull private final Ed25519Scalar privateKey;
+  // Little endian encoding of the scalar, as the curve library multiplies by it
+  private final byte[] scalar;
 
   /**
    * Create an decryption scheme for 64 bytes message using a private key
@@ -23,6 +41,7 @@ public class ElectionPrivateKey {
    */
   public ElectionPrivateKey(@NonNull Base64URLData privateKey) {
     this.privateKey = new Ed25519Scalar(privateKey.getData());
+    scalar = this.privateKey.getLittleEndian();
   }
 
   @Override
@@ -61,36 +80,36 @@ public class ElectionPrivateKey {
    * @throws CothorityCryptoException if problem while transforming final data into a byte array
    */
   public byte[] decrypt(@NonNull String message) throws CothorityCryptoException {
-
     Base64URLData decoded = new Base64URLData(message);
     // Follows this implementation:
     // https://github.com/dedis/cothority/blob/0299bcd78bab22bde6d6449b1594613987355535/evoting/lib/elgamal.go#L27-L31
-    byte[] byteMessage = decoded.getData();
-    if (byteMessage.length != MESSAGE_BYTE_SIZE) {
+    if (decoded.length() != MESSAGE_BYTE_SIZE) {
       throw new IllegalArgumentException("Your message to decrypt should contain exactly 64 bytes");
     }
 
     // Decompose into two bytes array for recuperating both C and K
+    ByteBuffer byteMessage = decoded.asByteBuffer();
     byte[] Kbytes = new byte[HALF_MESSAGE_BYTE_SIZE];
     byte[] Cbytes = new byte[HALF_MESSAGE_BYTE_SIZE];
-    for (int i = 0; i < MESSAGE_BYTE_SIZE; i++) {
-      if (i < HALF_MESSAGE_BYTE_SIZE) {
-        Kbytes[i] = byteMessage[i];
-      } else {
-        Cbytes[i - HALF_MESSAGE_BYTE_SIZE] = byteMessage[i];
-      }
-    }
-    Ed25519Point K;
-    Ed25519Point C;
+    byteMessage.get(Kbytes).get(Cbytes);
+
+    GroupElement K;
+    GroupElement C;
     try {
-      K = new Ed25519Point(Kbytes);
-      C = new Ed25519Point(Cbytes);
-    } catch (CothorityCryptoException e) {
+      // K is multiplied right away, its multiples are computed as it is decoded
+      K = new GroupElement(CURVE, Kbytes, true);
+      C = new GroupElement(CURVE, Cbytes);
+    } catch (IllegalArgumentException e) {
       throw new IllegalArgumentException("Could not create K Point while decrypting");
     }
 
-    // Export data to get the original message
-    Point S = K.mul(getPrivateKey());
-    return S.add(C.negate()).data();
+    // Export data to get the original message, embedded in M = C - S
+    GroupElement S = K.scalarMultiply(scalar);
+    byte[] M = C.sub(S.toCached()).toP2().toByteArray();
+    int dataLength = M[0];
+    if (dataLength < 0 || dataLength > EMBEDDED_DATA_MAX_SIZE) {
+      throw new CothorityCryptoException("The decrypted point does not embed any data");
+    }
+    return Arrays.copyOfRange(M, 1, 1 + dataLength);
   }
 }
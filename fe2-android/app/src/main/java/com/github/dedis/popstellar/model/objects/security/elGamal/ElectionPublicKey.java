@@ -1,25 +1,47 @@
 package com.github.dedis.popstellar.model.objects.security.elGamal;
 
 import com.github.dedis.popstellar.model.objects.security.Base64URLData;
+import com.github.dedis.popstellar.utility.Lazy;
+
+import net.i2p.crypto.eddsa.math.GroupElement;
+import net.i2p.crypto.eddsa.math.ScalarOps;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveSpec;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Objects;
 
 import ch.epfl.dedis.lib.crypto.*;
 import ch.epfl.dedis.lib.exception.CothorityCryptoException;
 import io.reactivex.annotations.NonNull;
-import timber.log.Timber;
 
-/** Represents a private key meant for El-Gam */
+/**
+ * Represents a public key meant for El-Gamal encryption
+ *
+ * <p>Both multiplications of an encryption have a fixed base: the base point of the curve and the
+ * election key. Their multiples are precomputed once, the base point's by the curve library and
+ * the key's on its first encryption, so that each encryption only adds up table entries.
+ */
 public class ElectionPublicKey {
 
-  private static final String TAG = ElectionPublicKey.class.getSimpleName();
+  private static final EdDSANamedCurveSpec ED25519 =
+      EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+  private static final ScalarOps SCALAR_OPS = ED25519.getScalarOps();
+
+  private static final int POINT_BYTE_SIZE = 32;
+  // Random bytes reduced modulo the group order, twice the size of a scalar to avoid any bias
+  private static final int SEED_BYTE_SIZE = 64;
+
+  // SecureRandom is thread-safe, seeding one for each vote is expensive
+  private static final SecureRandom RANDOM = new SecureRandom();
 
   // Point is generate with given public key
   private final Point publicKey;
 
+  // Multiples of the public key, computed on the first encryption
+  private final Lazy<GroupElement> precomputedKey = new Lazy<>();
+
   public ElectionPublicKey(@NonNull Base64URLData base64publicKey) {
     try {
       publicKey = new Ed25519Point(base64publicKey.getData());
@@ -88,34 +110,29 @@ public class ElectionPublicKey {
     // https://github.com/dedis/cothority/blob/0299bcd78bab22bde6d6449b1594613987355535/external/js/kyber/spec/group/edwards25519/point.spec.ts#L203
 
     // Proper embedding with overflowing byte array (len > 32) will need to be changed later
-    Point M = Ed25519Point.embed(message);
+    Point m = Ed25519Point.embed(message);
+    GroupElement M = new GroupElement(ED25519.getCurve(), m.toBytes());
 
     // ElGamal-encrypt the point to produce ciphertext (K,C).
-    byte[] seed = new byte[Ed25519.field.getb() / 8];
-    (new SecureRandom()).nextBytes(seed);
-    Scalar k = new Ed25519Scalar(seed);
-    Point K = Ed25519Point.base().mul(k);
-    Point S = getPublicKey().mul(k);
-    Point C = S.add(M);
+    byte[] seed = new byte[SEED_BYTE_SIZE];
+    RANDOM.nextBytes(seed);
+    byte[] k = SCALAR_OPS.reduce(seed);
+    GroupElement K = ED25519.getB().scalarMultiply(k);
+    GroupElement S = getPrecomputedKey().scalarMultiply(k);
+    GroupElement C = S.add(M.toCached());
+    Arrays.fill(seed, (byte) 0);
+    Arrays.fill(k, (byte) 0);
 
     // Concat K and C and encodes it in Base64
-    byte[] result;
-    // IO exception no testable
-    try {
-      ByteArrayOutputStream output = new ByteArrayOutputStream();
-      output.write(K.toBytes());
-      output.write(C.toBytes());
-      result = output.toByteArray();
-    } catch (IOException e) {
-      Timber.tag(TAG)
-          .d(
-              "Something happened during the encryption, could NOT concatenate the final result into a byte array");
-      result = null;
-    }
-    if (Objects.isNull(result)) {
-      return null;
-    }
+    byte[] result = new byte[2 * POINT_BYTE_SIZE];
+    System.arraycopy(K.toByteArray(), 0, result, 0, POINT_BYTE_SIZE);
+    System.arraycopy(C.toByteArray(), 0, result, POINT_BYTE_SIZE, POINT_BYTE_SIZE);
     Base64URLData encodedResult = new Base64URLData(result);
     return encodedResult.getEncoded();
   }
+
+  private GroupElement getPrecomputedKey() {
+    return precomputedKey.get(
+        publicKey, key -> new GroupElement(ED25519.getCurve(), key.toBytes(), true));
+  }
 }
@@ -4,21 +4,23 @@ import android.app.Activity;
 import android.app.Application;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.lifecycle.Lifecycle;
 
 import com.github.dedis.popstellar.model.objects.OutputObject;
+import com.github.dedis.popstellar.model.objects.digitalcash.DigitalCashLedger;
+import com.github.dedis.popstellar.model.objects.digitalcash.DigitalCashLedger.OutputReference;
 import com.github.dedis.popstellar.model.objects.digitalcash.TransactionObject;
 import com.github.dedis.popstellar.model.objects.security.PublicKey;
 import com.github.dedis.popstellar.repository.database.AppDatabase;
+import com.github.dedis.popstellar.repository.database.WriteBehindQueue;
 import com.github.dedis.popstellar.repository.database.digitalcash.*;
 import com.github.dedis.popstellar.utility.ActivityUtils;
 import com.github.dedis.popstellar.utility.error.keys.NoRollCallException;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -36,9 +38,10 @@ public class DigitalCashRepository {
 
   public static final String TAG = DigitalCashRepository.class.getSimpleName();
 
-  private final Map<String, LaoTransactions> transactionsByLao = new HashMap<>();
+  private final Map<String, LaoTransactions> transactionsByLao = new ConcurrentHashMap<>();
 
   private final TransactionDao transactionDao;
+  private final WriteBehindQueue<String, TransactionEntity> transactionWrites;
   private final HashDao hashDao;
 
   private final CompositeDisposable disposables = new CompositeDisposable();
@@ -46,9 +49,20 @@ public class DigitalCashRepository {
   @Inject
   public DigitalCashRepository(AppDatabase appDatabase, Application application) {
     transactionDao = appDatabase.transactionDao();
+    transactionWrites =
+        new WriteBehindQueue<>(
+            "transactions",
+            TransactionEntity::getTransactionId,
+            entities -> transactionDao.insertAll(entities));
     hashDao = appDatabase.hashDao();
     Map<Lifecycle.Event, Consumer<Activity>> consumerMap = new EnumMap<>(Lifecycle.Event.class);
-    consumerMap.put(Lifecycle.Event.ON_STOP, activity -> disposables.clear());
+    consumerMap.put(
+        Lifecycle.Event.ON_STOP,
+        activity -> {
+          // Write the pending entities before the application is stopped
+          transactionWrites.flush();
+          disposables.clear();
+        });
     application.registerActivityLifecycleCallbacks(
         ActivityUtils.buildLifecycleCallback(consumerMap));
   }
@@ -87,6 +101,42 @@ public class DigitalCashRepository {
     return getLaoTransactions(laoId).getUserBalance(user);
   }
 
+  /**
+   * Get the outputs sent to a given user that were not spent yet.
+   *
+   * @param laoId of the lao the transactions are part of
+   * @param user public key
+   * @return the unspent outputs by their reference
+   */
+  public Map<OutputReference, OutputObject> getUnspentOutputs(String laoId, PublicKey user) {
+    return getLaoTransactions(laoId).getUnspentOutputs(user);
+  }
+
+  /**
+   * Get the hash of a public key as used in the transaction outputs, from the hash dictionary of
+   * the lao if the key belongs to an attendee.
+   *
+   * @param laoId of the lao the hash dictionary is part of
+   * @param publicKey public key to hash
+   * @return the hash of the public key
+   */
+  public String getPublicKeyHash(String laoId, PublicKey publicKey) {
+    String hash = getLaoTransactions(laoId).ledger.getHash(publicKey);
+    return hash == null ? publicKey.computeHash() : hash;
+  }
+
+  /**
+   * Get the attendee whose public key has the given hash, from the hash dictionary of the lao.
+   *
+   * @param laoId of the lao the hash dictionary is part of
+   * @param hash hash of a public key, as used in the transaction outputs
+   * @return the public key, or null if no attendee of the last roll call has this hash
+   */
+  @Nullable
+  public PublicKey getPublicKeyByHash(String laoId, String hash) {
+    return getLaoTransactions(laoId).ledger.getPublicKey(hash);
+  }
+
   /**
    * This updates and persist a transaction in a digital cash state of a lao.
    *
@@ -112,7 +162,11 @@ public class DigitalCashRepository {
   }
 
   @NonNull
-  private synchronized LaoTransactions getLaoTransactions(String laoId) {
+  private LaoTransactions getLaoTransactions(String laoId) {
+    LaoTransactions state = transactionsByLao.get(laoId);
+    if (state != null) {
+      return state;
+    }
     // Create the lao transactions object if it is not present yet
     return transactionsByLao.computeIfAbsent(laoId, lao -> new LaoTransactions(laoId, this));
   }
@@ -123,19 +177,15 @@ public class DigitalCashRepository {
     private final DigitalCashRepository repository;
 
     /**
-     * Thread-safe map that maps the users' public keys to a thread-safe list of transactions which
-     * they have been involved into (either senders or receivers)
+     * Thread-safe ledger holding the hash dictionary, the transactions and the balances of the
+     * users, updated incrementally with each transaction
      */
-    private final ConcurrentHashMap<PublicKey, ConcurrentLinkedQueue<TransactionObject>>
-        transactions = new ConcurrentHashMap<>();
+    private final DigitalCashLedger ledger = new DigitalCashLedger();
 
     /** Thread-safe map that maps the users' public keys to the observable on their transactions */
     private final ConcurrentHashMap<PublicKey, Subject<List<TransactionObject>>>
         transactionsSubject = new ConcurrentHashMap<>();
 
-    /** Thread-safe dictionary to maps the hash to the user's public key */
-    private final ConcurrentHashMap<String, PublicKey> hashDictionary = new ConcurrentHashMap<>();
-
     public LaoTransactions(String laoId, DigitalCashRepository repository) {
       this.laoId = laoId;
       this.repository = repository;
@@ -150,12 +200,11 @@ public class DigitalCashRepository {
     public void initializeDigitalCash(List<PublicKey> attendees) {
       Timber.tag(TAG).d("initializing digital cash with attendees %s", attendees);
 
-      // Clear the transactions on the database for the given lao
+      // Clear the transactions on the database for the given lao, after the pending writes
       repository.disposables.add(
           repository
-              .transactionDao
-              .deleteByLaoId(laoId)
-              .subscribeOn(Schedulers.io())
+              .transactionWrites
+              .runAfterWrites(repository.transactionDao.deleteByLaoId(laoId))
               .observeOn(AndroidSchedulers.mainThread())
               .subscribe(
                   () -> Timber.tag(TAG).d("Cleared the transactions in the db for lao %s", laoId),
@@ -163,8 +212,7 @@ public class DigitalCashRepository {
                       Timber.tag(TAG).e(err, "Error in clearing transactions for lao %s", laoId)));
 
       // Clear the memory
-      hashDictionary.clear();
-      transactions.clear();
+      ledger.clear();
       transactionsSubject.clear();
       transactionsSubject.values().forEach(observer -> observer.toSerialized().onComplete());
 
@@ -173,7 +221,7 @@ public class DigitalCashRepository {
       attendees.forEach(
           publicKey -> {
             String hash = publicKey.computeHash();
-            hashDictionary.put(hash, publicKey);
+            ledger.addAttendee(publicKey, hash);
             // Save the mapping in a list
             hashEntities.add(new HashEntity(hash, laoId, publicKey));
           });
@@ -216,60 +264,26 @@ public class DigitalCashRepository {
 
     public void updateTransactions(TransactionObject transaction, boolean toBeStored)
         throws NoRollCallException {
-      if (hashDictionary.isEmpty()) {
+      if (!ledger.hasAttendees()) {
         throw new NoRollCallException("No roll call attendees could be found");
       }
 
-      for (PublicKey current : getReceiversTransaction(transaction)) {
-        ConcurrentLinkedQueue<TransactionObject> transactionList = transactions.get(current);
-
-        if (transactionList == null) {
-          transactionList = new ConcurrentLinkedQueue<>();
-          transactionList.add(transaction);
-
-          // An empty subject might have been created already
-          if (transactionsSubject.containsKey(current)) {
-            // Updating subject
-            Objects.requireNonNull(transactionsSubject.get(current))
-                .toSerialized()
-                .onNext(new ArrayList<>(transactionList));
-          } else {
-            // Creating new subject
-            transactionsSubject.put(
-                current, BehaviorSubject.createDefault(new ArrayList<>(transactionList)));
-          }
-
-          // Add it to the map
-          transactions.put(current, transactionList);
-        } else if (!transactionList.contains(transaction)) {
-          transactionList.add(transaction);
-          Objects.requireNonNull(transactionsSubject.get(current))
-              .toSerialized()
-              .onNext(new ArrayList<>(transactionList));
+      // A transaction already in the ledger has no receiver to notify
+      for (PublicKey current : ledger.addTransaction(transaction)) {
+        List<TransactionObject> transactionList = ledger.getTransactions(current);
+
+        // An empty subject might have been created already
+        Subject<List<TransactionObject>> subject = transactionsSubject.get(current);
+        if (subject == null) {
+          transactionsSubject.put(current, BehaviorSubject.createDefault(transactionList));
+        } else {
+          subject.toSerialized().onNext(transactionList);
         }
       }
 
       // Store the transaction in the db if the flag is true
       if (toBeStored) {
-        TransactionEntity transactionEntity = new TransactionEntity(laoId, transaction);
-        repository.disposables.add(
-            repository
-                .transactionDao
-                .insert(transactionEntity)
-                .subscribeOn(Schedulers.io())
-                .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(
-                    () ->
-                        Timber.tag(TAG)
-                            .d(
-                                "Successfully persisted transaction %s",
-                                transaction.getTransactionId()),
-                    err ->
-                        Timber.tag(TAG)
-                            .e(
-                                err,
-                                "Error in persisting the transaction %s",
-                                transaction.getTransactionId())));
+        repository.transactionWrites.enqueue(new TransactionEntity(laoId, transaction));
       }
     }
 
@@ -279,33 +293,15 @@ public class DigitalCashRepository {
     }
 
     public List<TransactionObject> getTransactions(PublicKey user) {
-      ConcurrentLinkedQueue<TransactionObject> transactionList = transactions.get(user);
-      return transactionList == null ? null : new ArrayList<>(transactionList);
+      return ledger.getTransactions(user);
     }
 
-    private List<PublicKey> getReceiversTransaction(TransactionObject transaction) {
-      // For each output, we get the hash of the public key. Then for each hash we return the
-      // preimage (the public key)
-      return transaction.getOutputs().stream()
-          .map(OutputObject::getPubKeyHash)
-          .map(
-              hash -> {
-                PublicKey key = hashDictionary.get(hash);
-                if (key == null) {
-                  throw new IllegalStateException("The hash is not in dictionary of known hashes");
-                }
-                return key;
-              })
-          .collect(Collectors.toList());
+    public long getUserBalance(PublicKey user) {
+      return ledger.getBalance(user);
     }
 
-    public long getUserBalance(PublicKey user) {
-      ConcurrentLinkedQueue<TransactionObject> transactionList = transactions.get(user);
-      return transactionList == null
-          ? 0
-          : transactionList.stream()
-              .mapToLong(transaction -> transaction.getSumForUser(user))
-              .sum();
+    public Map<OutputReference, OutputObject> getUnspentOutputs(PublicKey user) {
+      return ledger.getUnspentOutputs(user);
     }
 
     /**
@@ -325,7 +321,7 @@ public class DigitalCashRepository {
                     // Firstly load the dictionary
                     hashEntities.forEach(
                         hashEntity ->
-                            hashDictionary.put(hashEntity.getHash(), hashEntity.getPublicKey()));
+                            ledger.addAttendee(hashEntity.getPublicKey(), hashEntity.getHash()));
                     Timber.tag(TAG).d("Retrieved the hash dictionary from db");
                     // Then load the transactions
                     repository.disposables.add(
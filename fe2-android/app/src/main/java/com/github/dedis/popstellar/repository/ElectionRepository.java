@@ -6,12 +6,15 @@ import android.app.Application;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.Lifecycle;
 
-import com.github.dedis.popstellar.model.objects.Channel;
-import com.github.dedis.popstellar.model.objects.Election;
+import com.github.dedis.popstellar.model.network.method.message.data.election.*;
+import com.github.dedis.popstellar.model.objects.*;
+import com.github.dedis.popstellar.model.objects.security.MessageID;
+import com.github.dedis.popstellar.model.objects.security.PublicKey;
 import com.github.dedis.popstellar.repository.database.AppDatabase;
-import com.github.dedis.popstellar.repository.database.event.election.ElectionDao;
-import com.github.dedis.popstellar.repository.database.event.election.ElectionEntity;
+import com.github.dedis.popstellar.repository.database.WriteBehindQueue;
+import com.github.dedis.popstellar.repository.database.event.election.*;
 import com.github.dedis.popstellar.utility.ActivityUtils;
+import com.github.dedis.popstellar.utility.ChangeStream;
 import com.github.dedis.popstellar.utility.error.UnknownElectionException;
 
 import java.util.*;
@@ -33,23 +36,48 @@ import timber.log.Timber;
  * This class is the repository of the elections events
  *
  * <p>Its main purpose is to store elections and publish updates
+ *
+ * <p>The ballots are stored apart from their election, in an index updated incrementally and
+ * persisted one ballot at a time, so that receiving a vote does not copy the whole election. The
+ * observers of an election are notified when its ballots change.
  */
 @Singleton
 public class ElectionRepository {
 
   private static final String TAG = ElectionRepository.class.getSimpleName();
 
-  private final Map<String, LaoElections> electionsByLao = new HashMap<>();
+  private final Map<String, LaoElections> electionsByLao = new ConcurrentHashMap<>();
 
   private final ElectionDao electionDao;
+  private final WriteBehindQueue<String, ElectionEntity> electionWrites;
+  private final VoteDao voteDao;
+  private final WriteBehindQueue<String, VoteEntity> voteWrites;
 
   private final CompositeDisposable disposables = new CompositeDisposable();
 
   @Inject
   public ElectionRepository(AppDatabase appDatabase, Application application) {
     electionDao = appDatabase.electionDao();
+    electionWrites =
+        new WriteBehindQueue<>(
+            "elections",
+            ElectionEntity::getElectionId,
+            entities -> electionDao.insertAll(entities));
+    voteDao = appDatabase.voteDao();
+    voteWrites =
+        new WriteBehindQueue<>(
+            "votes",
+            vote -> vote.getElectionId() + vote.getSender().getEncoded(),
+            entities -> voteDao.insertAll(entities));
     Map<Lifecycle.Event, Consumer<Activity>> consumerMap = new EnumMap<>(Lifecycle.Event.class);
-    consumerMap.put(Lifecycle.Event.ON_STOP, activity -> disposables.clear());
+    consumerMap.put(
+        Lifecycle.Event.ON_STOP,
+        activity -> {
+          // Write the pending entities before the application is stopped
+          electionWrites.flush();
+          voteWrites.flush();
+          disposables.clear();
+        });
     application.registerActivityLifecycleCallbacks(
         ActivityUtils.buildLifecycleCallback(consumerMap));
   }
@@ -63,20 +91,71 @@ public class ElectionRepository {
    */
   public void updateElection(@NonNull Election election) {
     // Persist the election
-    disposables.add(
-        electionDao
-            .insert(new ElectionEntity(election))
-            .subscribeOn(Schedulers.io())
-            .observeOn(AndroidSchedulers.mainThread())
-            .subscribe(
-                () -> Timber.tag(TAG).d("Successfully persisted election %s", election.getId()),
-                err ->
-                    Timber.tag(TAG).e(err, "Error in persisting election %s", election.getId())));
+    electionWrites.enqueue(new ElectionEntity(election));
 
     // Get the lao state and update the election
     getLaoElections(election.getChannel().extractLaoId()).updateElection(election);
   }
 
+  /**
+   * Register the ballot of a voter in an election, replacing its previous one
+   *
+   * @param election the election the ballot was cast in
+   * @param sender public key of the voter
+   * @param messageId id of the cast vote message
+   * @param votes votes of the ballot
+   * @throws IllegalArgumentException if the votes do not match the version of the election
+   */
+  public void addVotes(
+      @NonNull Election election,
+      @NonNull PublicKey sender,
+      @NonNull MessageID messageId,
+      @NonNull List<Vote> votes) {
+    election.validateVotesTypes(votes);
+    String laoId = election.getChannel().extractLaoId();
+
+    // Persist the ballot
+    voteWrites.enqueue(new VoteEntity(election.getId(), sender, laoId, messageId, votes));
+
+    getLaoElections(laoId).addVotes(election.getId(), sender, messageId, votes);
+  }
+
+  /**
+   * Retrieve the ballots registered in an election
+   *
+   * @param laoId of the lao the election is part of
+   * @param electionId id of the election
+   * @return the index of the ballots, empty if none was received yet
+   */
+  @NonNull
+  public ElectionVotes getElectionVotes(@NonNull String laoId, @NonNull String electionId) {
+    return getLaoElections(laoId).getElectionVotes(electionId);
+  }
+
+  /**
+   * Count the ballots registered in an open ballot election, from the running tally of its votes
+   *
+   * @param election the election the ballots were cast in
+   * @return the number of votes received by each ballot option, by question id
+   */
+  @NonNull
+  public Map<String, Set<QuestionResult>> getOpenBallotResults(@NonNull Election election) {
+    ElectionVotes votes = getElectionVotes(election.getChannel().extractLaoId(), election.getId());
+
+    Map<String, Set<QuestionResult>> results = new HashMap<>();
+    for (ElectionQuestion question : election.getElectionQuestions()) {
+      Map<Integer, Integer> tally = votes.getTally(question.getId());
+      List<String> ballotOptions = question.getBallotOptions();
+      Set<QuestionResult> questionResults = new HashSet<>();
+      for (int option = 0; option < ballotOptions.size(); option++) {
+        questionResults.add(
+            new QuestionResult(ballotOptions.get(option), tally.getOrDefault(option, 0)));
+      }
+      results.put(question.getId(), questionResults);
+    }
+    return results;
+  }
+
   /**
    * Retrieve an election state given its Lao and its ID
    *
@@ -130,7 +209,11 @@ public class ElectionRepository {
   }
 
   @NonNull
-  private synchronized LaoElections getLaoElections(String laoId) {
+  private LaoElections getLaoElections(String laoId) {
+    LaoElections state = electionsByLao.get(laoId);
+    if (state != null) {
+      return state;
+    }
     // Create the lao elections object if it is not present yet
     return electionsByLao.computeIfAbsent(laoId, lao -> new LaoElections(this, laoId));
   }
@@ -139,16 +222,16 @@ public class ElectionRepository {
     private final ElectionRepository repository;
     private final String laoId;
 
-    /** Thread-safe map that stores the elections by their identifiers */
-    private final ConcurrentHashMap<String, Election> electionById = new ConcurrentHashMap<>();
+    /** Thread-safe collection that stores the elections by their identifiers */
+    private final ChangeStream<String, Election> electionById = new ChangeStream<>();
 
     /** Thread-safe map that maps an election id to an observable of it */
     private final ConcurrentHashMap<String, Subject<Election>> electionSubjects =
         new ConcurrentHashMap<>();
 
-    /** Observable of all the election set */
-    private final BehaviorSubject<Set<Election>> electionsSubject =
-        BehaviorSubject.createDefault(Collections.emptySet());
+    /** Thread-safe map that stores the ballots by election identifier */
+    private final ConcurrentHashMap<String, ElectionVotes> votesByElection =
+        new ConcurrentHashMap<>();
 
     public LaoElections(ElectionRepository repository, String laoId) {
       this.repository = repository;
@@ -159,13 +242,9 @@ public class ElectionRepository {
     public void updateElection(@NonNull Election election) {
       String id = election.getId();
 
-      electionById.put(id, election);
       electionSubjects.putIfAbsent(id, BehaviorSubject.create());
       Objects.requireNonNull(electionSubjects.get(id)).toSerialized().onNext(election);
-
-      electionsSubject
-          .toSerialized()
-          .onNext(Collections.unmodifiableSet(new HashSet<>(electionById.values())));
+      electionById.put(id, election);
     }
 
     public Election getElection(@NonNull String electionId) throws UnknownElectionException {
@@ -178,8 +257,35 @@ public class ElectionRepository {
       }
     }
 
+    public ElectionVotes getElectionVotes(@NonNull String electionId) {
+      return votesByElection.computeIfAbsent(electionId, id -> new ElectionVotes());
+    }
+
+    public void addVotes(
+        @NonNull String electionId,
+        @NonNull PublicKey sender,
+        @NonNull MessageID messageId,
+        @NonNull List<Vote> votes) {
+      getElectionVotes(electionId).put(sender, messageId, votes);
+      publishVotes(electionId);
+    }
+
+    /**
+     * The ballots are not part of the election object, its observers are notified with the current
+     * election state when they change
+     */
+    private void publishVotes(@NonNull String electionId) {
+      Subject<Election> subject = electionSubjects.get(electionId);
+      Election election = electionById.get(electionId);
+      if (subject != null && election != null) {
+        subject.toSerialized().onNext(election);
+      }
+    }
+
     public Observable<Set<Election>> getElectionsSubject() {
-      return electionsSubject;
+      return electionById
+          .observeValues()
+          .map(elections -> Collections.unmodifiableSet(new HashSet<>(elections)));
     }
 
     public Observable<Election> getElectionSubject(@NonNull String electionId)
@@ -214,6 +320,26 @@ public class ElectionRepository {
                   err ->
                       Timber.tag(TAG)
                           .e(err, "No election found in the storage for lao %s", laoId)));
+
+      repository.disposables.add(
+          repository
+              .voteDao
+              .getVotesByLaoId(laoId)
+              .subscribeOn(Schedulers.io())
+              .subscribe(
+                  // The ballots received in the meantime are more recent than the stored ones
+                  votes -> {
+                    Set<String> electionIds = new HashSet<>();
+                    votes.forEach(
+                        vote -> {
+                          getElectionVotes(vote.getElectionId())
+                              .putIfAbsent(vote.getSender(), vote.getMessageId(), vote.getVotes());
+                          electionIds.add(vote.getElectionId());
+                        });
+                    electionIds.forEach(this::publishVotes);
+                  },
+                  err ->
+                      Timber.tag(TAG).e(err, "No vote found in the storage for lao %s", laoId)));
     }
   }
 }
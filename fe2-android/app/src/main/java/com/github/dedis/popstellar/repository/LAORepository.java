@@ -6,22 +6,24 @@ import android.app.Application;
 import androidx.lifecycle.Lifecycle;
 
 import com.github.dedis.popstellar.model.objects.*;
+import com.github.dedis.popstellar.model.objects.security.MessageID;
+import com.github.dedis.popstellar.model.objects.security.PublicKey;
 import com.github.dedis.popstellar.model.objects.view.LaoView;
 import com.github.dedis.popstellar.repository.database.AppDatabase;
-import com.github.dedis.popstellar.repository.database.lao.LAODao;
-import com.github.dedis.popstellar.repository.database.lao.LAOEntity;
+import com.github.dedis.popstellar.repository.database.WriteBehindQueue;
+import com.github.dedis.popstellar.repository.database.lao.*;
 import com.github.dedis.popstellar.utility.ActivityUtils;
 import com.github.dedis.popstellar.utility.error.UnknownLaoException;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import io.reactivex.Observable;
+import io.reactivex.Single;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.CompositeDisposable;
 import io.reactivex.disposables.Disposable;
@@ -36,6 +38,8 @@ public class LAORepository {
   private static final String TAG = LAORepository.class.getSimpleName();
 
   private final LAODao laoDao;
+  private final ElectInstanceDao electInstanceDao;
+  private final WriteBehindQueue<MessageID, ElectInstanceEntity> electInstanceWrites;
 
   /** Thread-safe map used to store the laos by their unique identifiers */
   private final ConcurrentHashMap<String, Lao> laoById = new ConcurrentHashMap<>();
@@ -51,8 +55,20 @@ public class LAORepository {
   @Inject
   public LAORepository(AppDatabase appDatabase, Application application) {
     laoDao = appDatabase.laoDao();
+    electInstanceDao = appDatabase.electInstanceDao();
+    electInstanceWrites =
+        new WriteBehindQueue<>(
+            "elect instances",
+            ElectInstanceEntity::getMessageId,
+            entities -> electInstanceDao.insertAll(entities));
     Map<Lifecycle.Event, Consumer<Activity>> consumerMap = new EnumMap<>(Lifecycle.Event.class);
-    consumerMap.put(Lifecycle.Event.ON_STOP, activity -> disposables.clear());
+    consumerMap.put(
+        Lifecycle.Event.ON_STOP,
+        activity -> {
+          // Write the pending entities before the application is stopped
+          electInstanceWrites.flush();
+          disposables.clear();
+        });
     application.registerActivityLifecycleCallbacks(
         ActivityUtils.buildLifecycleCallback(consumerMap));
     loadPersistentStorage();
@@ -63,11 +79,25 @@ public class LAORepository {
    * the home list. Given the fact that we load every lao in memory at the beginning a cache is not
    * necessary. This is also possible memory-wise as usually the number of laos is very limited.
    * This call is asynchronous so it's performed in background not blocking the main thread.
+   *
+   * <p>The elect instances, which are stored in their own table, are put back in their lao before
+   * it is published.
    */
   private void loadPersistentStorage() {
     disposables.add(
         laoDao
             .getAllLaos()
+            .flatMap(
+                laos ->
+                    laos.isEmpty()
+                        ? Single.just(laos)
+                        : electInstanceDao
+                            .getAllElectInstances()
+                            .map(
+                                entities -> {
+                                  addElectInstances(laos, entities);
+                                  return laos;
+                                }))
             .subscribeOn(Schedulers.io())
             .observeOn(AndroidSchedulers.mainThread())
             .subscribe(
@@ -82,13 +112,23 @@ public class LAORepository {
                         subjectById.put(
                             lao.getId(), BehaviorSubject.createDefault(new LaoView(lao)));
                       });
-                  List<String> laoIds = laos.stream().map(Lao::getId).collect(Collectors.toList());
-                  laosSubject.toSerialized().onNext(laoIds);
-                  Timber.tag(TAG).d("Loaded all the LAOs from database: %s", laoIds);
+                  publishLaoIds();
+                  Timber.tag(TAG).d("Loaded all the LAOs from database: %s", laoById.keySet());
                 },
                 err -> Timber.tag(TAG).e(err, "Error loading the LAOs from the database")));
   }
 
+  private static void addElectInstances(List<Lao> laos, List<ElectInstanceEntity> entities) {
+    Map<String, Lao> laosById = new HashMap<>();
+    laos.forEach(lao -> laosById.put(lao.getId(), lao));
+    for (ElectInstanceEntity entity : entities) {
+      Lao lao = laosById.get(entity.getLaoId());
+      if (lao != null) {
+        lao.updateElectInstance(entity.getElectInstance());
+      }
+    }
+  }
+
   /**
    * Retrieves the Lao in a given channel
    *
@@ -120,22 +160,26 @@ public class LAORepository {
   }
 
   public LaoView getLaoView(String id) throws UnknownLaoException {
+    return new LaoView(getLao(id));
+  }
+
+  private Lao getLao(String id) throws UnknownLaoException {
     Lao lao = laoById.get(id);
     if (lao == null) {
       // In some Android devices after putting the application in the
       // background or locking the screen it happens that the lao is not found.
       // This could be due to the ram being cleared, so a I/O check could help avoiding this
       // scenario.
-      Lao laoFromDb = laoDao.getLaoById(id);
-      if (laoFromDb == null) {
+      lao = laoDao.getLaoById(id);
+      if (lao == null) {
         throw new UnknownLaoException(id);
-      } else {
-        // Restore the lao
-        updateLao(laoFromDb);
       }
+      // Restore the lao
+      addElectInstances(
+          Collections.singletonList(lao), electInstanceDao.getElectInstancesByLaoId(id));
+      updateLao(lao);
     }
-
-    return new LaoView(lao);
+    return lao;
   }
 
   public LaoView getLaoViewByChannel(Channel channel) throws UnknownLaoException {
@@ -173,17 +217,73 @@ public class LAORepository {
       // Otherwise, create the entry
       laoById.put(lao.getId(), lao);
       // Update lao list
-      laosSubject.toSerialized().onNext(new ArrayList<>(laoById.keySet()));
+      publishLaoIds();
       subjectById.put(lao.getId(), BehaviorSubject.createDefault(laoView));
     }
   }
 
+  /**
+   * Retrieves the organizer of the Lao in a given channel, without copying the Lao
+   *
+   * @param channel the channel of the Lao or one of its sub-channels
+   * @return the public key of the organizer
+   */
+  public PublicKey getOrganizer(Channel channel) throws UnknownLaoException {
+    return getLao(channel.extractLaoId()).getOrganizer();
+  }
+
+  /**
+   * Retrieves an ElectInstance of the Lao in a given channel. The instance is shared with the
+   * Lao, it is modified by the consensus messages.
+   *
+   * @param channel the channel of the Lao or one of its sub-channels
+   * @param messageId the id of the Elect message that started the instance
+   * @return the ElectInstance if it exists
+   */
+  public Optional<ElectInstance> getElectInstance(Channel channel, MessageID messageId)
+      throws UnknownLaoException {
+    return getLao(channel.extractLaoId()).getElectInstance(messageId);
+  }
+
+  /**
+   * Store an ElectInstance that was created or modified by a consensus message.
+   *
+   * <p>Unlike {@link #updateLao(Lao)}, the Lao is neither copied nor written again: the instance
+   * and the nodes concerned by it are updated in place, only the instance is persisted and only
+   * the observers of the nodes are notified. The cost of a consensus message does not depend on
+   * the number of instances of the Lao.
+   *
+   * @param channel the channel of the Lao or one of its sub-channels
+   * @param electInstance the created or modified ElectInstance
+   */
+  public void updateElectInstance(Channel channel, ElectInstance electInstance)
+      throws UnknownLaoException {
+    Lao lao = getLao(channel.extractLaoId());
+    lao.updateElectInstance(electInstance);
+
+    // The copy is written while the instance keeps receiving consensus messages
+    electInstanceWrites.enqueue(
+        new ElectInstanceEntity(electInstance.getMessageId(), lao.getId(), electInstance.copy()));
+    updateNodes(lao.getChannel());
+  }
+
   /** This function clears the repository */
   public void clearRepository() {
     Timber.tag(TAG).d("Clearing LAORepository...");
     laoById.clear();
     subjectById.clear();
-    laosSubject.toSerialized().onNext(new ArrayList<>());
+    publishLaoIds();
+  }
+
+  /**
+   * Emit the identifiers of the laos. The laos are created by the handlers of different laos
+   * concurrently, the list is read and emitted under a lock so that the last emitted list is not
+   * missing a lao.
+   */
+  private void publishLaoIds() {
+    synchronized (laosSubject) {
+      laosSubject.onNext(new ArrayList<>(laoById.keySet()));
+    }
   }
 
   public void addDisposable(Disposable disposable) {
@@ -194,7 +294,7 @@ public class LAORepository {
   // State for Messages
   // Observable for view models that need access to all Nodes
   private final Map<Channel, BehaviorSubject<List<ConsensusNode>>> channelToNodesSubject =
-      new HashMap<>();
+      new ConcurrentHashMap<>();
   // ============ Lao Unrelated functions ===============
   /**
    * Return an Observable to the list of nodes in a given channel.
@@ -8,6 +8,7 @@ import androidx.lifecycle.Lifecycle;
 
 import com.github.dedis.popstellar.model.objects.Meeting;
 import com.github.dedis.popstellar.repository.database.AppDatabase;
+import com.github.dedis.popstellar.repository.database.WriteBehindQueue;
 import com.github.dedis.popstellar.repository.database.event.meeting.MeetingDao;
 import com.github.dedis.popstellar.repository.database.event.meeting.MeetingEntity;
 import com.github.dedis.popstellar.utility.ActivityUtils;
@@ -39,17 +40,27 @@ import static java.util.Collections.unmodifiableSet;
 @Singleton
 public class MeetingRepository {
   public static final String TAG = MeetingRepository.class.getSimpleName();
-  private final Map<String, LaoMeetings> meetingsByLao = new HashMap<>();
+  private final Map<String, LaoMeetings> meetingsByLao = new ConcurrentHashMap<>();
 
   private final MeetingDao meetingDao;
+  private final WriteBehindQueue<String, MeetingEntity> meetingWrites;
 
   private final CompositeDisposable disposables = new CompositeDisposable();
 
   @Inject
   public MeetingRepository(AppDatabase appDatabase, Application application) {
     meetingDao = appDatabase.meetingDao();
+    meetingWrites =
+        new WriteBehindQueue<>(
+            "meetings", MeetingEntity::getMeetingId, entities -> meetingDao.insertAll(entities));
     Map<Lifecycle.Event, Consumer<Activity>> consumerMap = new EnumMap<>(Lifecycle.Event.class);
-    consumerMap.put(Lifecycle.Event.ON_STOP, activity -> disposables.clear());
+    consumerMap.put(
+        Lifecycle.Event.ON_STOP,
+        activity -> {
+          // Write the pending entities before the application is stopped
+          meetingWrites.flush();
+          disposables.clear();
+        });
     application.registerActivityLifecycleCallbacks(
         ActivityUtils.buildLifecycleCallback(consumerMap));
   }
@@ -69,14 +80,7 @@ public class MeetingRepository {
     Timber.tag(TAG).d("Adding meeting on lao %s : %s", laoId, meeting);
 
     // Persist the meeting in the db
-    disposables.add(
-        meetingDao
-            .insert(new MeetingEntity(laoId, meeting))
-            .subscribeOn(Schedulers.io())
-            .observeOn(AndroidSchedulers.mainThread())
-            .subscribe(
-                () -> Timber.tag(TAG).d("Successfully persisted meeting %s", meeting.getId()),
-                err -> Timber.tag(TAG).e(err, "Error in persisting meeting %s", meeting.getId())));
+    meetingWrites.enqueue(new MeetingEntity(laoId, meeting));
 
     // Retrieve Lao data and add the meeting to it
     getLaoMeetings(laoId).update(meeting);
@@ -116,7 +120,11 @@ public class MeetingRepository {
   }
 
   @NonNull
-  private synchronized LaoMeetings getLaoMeetings(String laoId) {
+  private LaoMeetings getLaoMeetings(String laoId) {
+    LaoMeetings state = meetingsByLao.get(laoId);
+    if (state != null) {
+      return state;
+    }
     return meetingsByLao.computeIfAbsent(laoId, lao -> new LaoMeetings(this, laoId));
   }
 
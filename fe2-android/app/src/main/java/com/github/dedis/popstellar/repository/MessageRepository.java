@@ -4,15 +4,18 @@ import android.app.Activity;
 import android.app.Application;
 import android.util.LruCache;
 
+import androidx.annotation.Nullable;
 import androidx.lifecycle.Lifecycle;
 
 import com.github.dedis.popstellar.model.network.method.message.MessageGeneral;
+import com.github.dedis.popstellar.model.objects.Channel;
 import com.github.dedis.popstellar.model.objects.security.MessageID;
 import com.github.dedis.popstellar.repository.database.AppDatabase;
-import com.github.dedis.popstellar.repository.database.message.MessageDao;
-import com.github.dedis.popstellar.repository.database.message.MessageEntity;
+import com.github.dedis.popstellar.repository.database.WriteBehindQueue;
+import com.github.dedis.popstellar.repository.database.message.*;
 import com.github.dedis.popstellar.utility.ActivityUtils;
 
+import java.time.Instant;
 import java.util.EnumMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -51,19 +54,40 @@ public class MessageRepository {
   /** Cache for efficient lookups and for avoiding I/O operations */
   private final LruCache<MessageID, MessageGeneral> messageCache = new LruCache<>(CACHED_MESSAGES);
 
+  /**
+   * Index of the ids of all the persisted messages, used to know whether a message is present
+   * without any I/O operation. It can only be trusted once loaded from the disk.
+   */
+  private final MessageIdIndex persistedIds = new MessageIdIndex();
+
+  private volatile boolean isIndexLoaded = false;
+
   private final MessageDao messageDao;
+  private final CatchupMarkDao catchupMarkDao;
+  private final WriteBehindQueue<MessageID, MessageEntity> messageWrites;
 
   private final CompositeDisposable disposables = new CompositeDisposable();
 
   @Inject
   public MessageRepository(AppDatabase appDatabase, Application application) {
     messageDao = appDatabase.messageDao();
+    catchupMarkDao = appDatabase.catchupMarkDao();
+    messageWrites =
+        new WriteBehindQueue<>(
+            "messages", MessageEntity::getMessageId, entities -> messageDao.insertAll(entities));
     Map<Lifecycle.Event, Consumer<Activity>> consumerMap = new EnumMap<>(Lifecycle.Event.class);
-    consumerMap.put(Lifecycle.Event.ON_STOP, activity -> disposables.clear());
+    consumerMap.put(
+        Lifecycle.Event.ON_STOP,
+        activity -> {
+          // Write the pending entities before the application is stopped
+          messageWrites.flush();
+          disposables.clear();
+        });
     application.registerActivityLifecycleCallbacks(
         ActivityUtils.buildLifecycleCallback(consumerMap));
     // Full the cache at starting time
     loadCache();
+    loadIndex();
   }
 
   /** This function is called at creation to fill the cache asynchronously */
@@ -86,6 +110,22 @@ public class MessageRepository {
                 err -> Timber.tag(TAG).e(err, "Error loading message repository cache")));
   }
 
+  /** This function is called at creation to load the ids of the persisted messages in the index */
+  private void loadIndex() {
+    disposables.add(
+        messageDao
+            .getAllMessageIds()
+            .subscribeOn(Schedulers.io())
+            .subscribe(
+                messageIDs -> {
+                  // Ids added in the meantime are already in the index
+                  persistedIds.addAll(messageIDs);
+                  isIndexLoaded = true;
+                  Timber.tag(TAG).d("Loaded %d message ids in the index", messageIDs.size());
+                },
+                err -> Timber.tag(TAG).e(err, "Error loading message ids index")));
+  }
+
   /**
    * This function gets a message from the repository given its unique identifier.
    *
@@ -107,8 +147,11 @@ public class MessageRepository {
       }
     }
 
-    // Search in the db
-    MessageEntity messageEntity = messageDao.getMessageById(messageID);
+    // Search in the messages not written yet, then in the db
+    MessageEntity messageEntity = messageWrites.getPending(messageID);
+    if (messageEntity == null) {
+      messageEntity = messageDao.getMessageById(messageID);
+    }
     if (messageEntity != null) {
       MessageGeneral messageGeneral = messageEntity.getContent();
       // Put it into cache
@@ -146,16 +189,10 @@ public class MessageRepository {
       synchronized (messageCache) {
         messageCache.put(messageID, message);
       }
+      persistedIds.add(messageID);
 
-      // Add asynchronously the messages to the database
-      disposables.add(
-          messageDao
-              .insert(new MessageEntity(messageID, message.isEmpty() ? null : message))
-              .subscribeOn(Schedulers.io())
-              .observeOn(AndroidSchedulers.mainThread())
-              .subscribe(
-                  () -> Timber.tag(TAG).d("Persisted message %s", messageID),
-                  err -> Timber.tag(TAG).e(err, "Error persisting the message %s", messageID)));
+      // Add asynchronously the messages to the database, in batches
+      messageWrites.enqueue(new MessageEntity(messageID, message.isEmpty() ? null : message));
     }
   }
 
@@ -174,6 +211,11 @@ public class MessageRepository {
       return ephemeralMessages.containsKey(messageID);
     }
 
+    // Once loaded, the index knows every persisted message, no I/O operation is needed
+    if (isIndexLoaded) {
+      return persistedIds.contains(messageID);
+    }
+
     // Check if it's already in cache
     synchronized (messageCache) {
       MessageGeneral messageGeneral = messageCache.get(messageID);
@@ -182,7 +224,41 @@ public class MessageRepository {
       }
     }
 
-    // Otherwise perform an I/O operation
-    return messageDao.getMessageById(messageID) != null;
+    // Otherwise perform an I/O operation if it is not waiting to be written
+    return messageWrites.getPending(messageID) != null
+        || messageDao.getMessageById(messageID) != null;
+  }
+
+  /**
+   * This function retrieves the position up to which the catchups of a channel were handled.
+   *
+   * @param channel channel of the catchup
+   * @return the catchup mark of the channel, or null if no catchup of the channel was handled yet
+   */
+  @Nullable
+  public CatchupMarkEntity getCatchupMark(Channel channel) {
+    return catchupMarkDao.getCatchupMark(channel.getAsString());
+  }
+
+  /**
+   * This function saves the position up to which the messages of a catchup were all handled.
+   *
+   * <p>The mark is written after the messages, so that the messages it covers are known to be
+   * handled when the application is started again.
+   *
+   * @param channel channel of the catchup
+   * @param messageId identifier of the last handled message
+   * @param messageCount number of messages up to the last handled one, included
+   */
+  public void setCatchupMark(Channel channel, MessageID messageId, int messageCount) {
+    CatchupMarkEntity mark =
+        new CatchupMarkEntity(
+            channel.getAsString(), messageId, messageCount, Instant.now().getEpochSecond());
+    disposables.add(
+        messageWrites
+            .runAfterWrites(catchupMarkDao.insert(mark))
+            .subscribe(
+                () -> Timber.tag(TAG).d("Saved catchup mark of %s at %d", channel, messageCount),
+                err -> Timber.tag(TAG).e(err, "Error saving the catchup mark of %s", channel)));
   }
 }
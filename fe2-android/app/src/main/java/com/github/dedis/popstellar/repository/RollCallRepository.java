@@ -9,6 +9,7 @@ import androidx.lifecycle.Lifecycle;
 import com.github.dedis.popstellar.model.objects.RollCall;
 import com.github.dedis.popstellar.model.objects.security.PublicKey;
 import com.github.dedis.popstellar.repository.database.AppDatabase;
+import com.github.dedis.popstellar.repository.database.WriteBehindQueue;
 import com.github.dedis.popstellar.repository.database.event.rollcall.RollCallDao;
 import com.github.dedis.popstellar.repository.database.event.rollcall.RollCallEntity;
 import com.github.dedis.popstellar.utility.ActivityUtils;
@@ -44,17 +45,29 @@ import static java.util.Collections.unmodifiableSet;
 public class RollCallRepository {
 
   public static final String TAG = RollCallRepository.class.getSimpleName();
-  private final Map<String, LaoRollCalls> rollCallsByLao = new HashMap<>();
+  private final Map<String, LaoRollCalls> rollCallsByLao = new ConcurrentHashMap<>();
 
   private final RollCallDao rollCallDao;
+  private final WriteBehindQueue<String, RollCallEntity> rollCallWrites;
 
   private final CompositeDisposable disposables = new CompositeDisposable();
 
   @Inject
   public RollCallRepository(AppDatabase appDatabase, Application application) {
     rollCallDao = appDatabase.rollCallDao();
+    rollCallWrites =
+        new WriteBehindQueue<>(
+            "roll calls",
+            RollCallEntity::getRollcallId,
+            entities -> rollCallDao.insertAll(entities));
     Map<Lifecycle.Event, Consumer<Activity>> consumerMap = new EnumMap<>(Lifecycle.Event.class);
-    consumerMap.put(Lifecycle.Event.ON_STOP, activity -> disposables.clear());
+    consumerMap.put(
+        Lifecycle.Event.ON_STOP,
+        activity -> {
+          // Write the pending entities before the application is stopped
+          rollCallWrites.flush();
+          disposables.clear();
+        });
     application.registerActivityLifecycleCallbacks(
         ActivityUtils.buildLifecycleCallback(consumerMap));
   }
@@ -74,18 +87,7 @@ public class RollCallRepository {
     Timber.tag(TAG).d("Updating roll call on lao %s : %s", laoId, rollCall);
 
     // Persist the rollcall
-    disposables.add(
-        rollCallDao
-            .insert(new RollCallEntity(laoId, rollCall))
-            .subscribeOn(Schedulers.io())
-            .observeOn(AndroidSchedulers.mainThread())
-            .subscribe(
-                () ->
-                    Timber.tag(TAG)
-                        .d("Successfully persisted rollcall %s", rollCall.getPersistentId()),
-                err ->
-                    Timber.tag(TAG)
-                        .e(err, "Error in persisting rollcall %s", rollCall.getPersistentId())));
+    rollCallWrites.enqueue(new RollCallEntity(laoId, rollCall));
 
     // Retrieve Lao data and add the roll call to it
     getLaoRollCalls(laoId).update(rollCall);
@@ -181,7 +183,12 @@ public class RollCallRepository {
   }
 
   @NonNull
-  private synchronized LaoRollCalls getLaoRollCalls(String laoId) {
+  private LaoRollCalls getLaoRollCalls(String laoId) {
+    // Only the first access to a lao goes through the locking computeIfAbsent
+    LaoRollCalls state = rollCallsByLao.get(laoId);
+    if (state != null) {
+      return state;
+    }
     return rollCallsByLao.computeIfAbsent(laoId, lao -> new LaoRollCalls(this, laoId));
   }
 
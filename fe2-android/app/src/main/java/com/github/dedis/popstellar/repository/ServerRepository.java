@@ -2,7 +2,9 @@ package com.github.dedis.popstellar.repository;
 
 import com.github.dedis.popstellar.model.objects.Server;
 
-import java.util.*;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -14,11 +16,12 @@ import javax.inject.Singleton;
 @Singleton
 public class ServerRepository {
 
+  /** Thread-safe map, the greetings of different laos are handled concurrently */
   private final Map<String, Server> serverByLaoId;
 
   @Inject
   public ServerRepository() {
-    serverByLaoId = new HashMap<>();
+    serverByLaoId = new ConcurrentHashMap<>();
   }
 
   /** Add a server to the repository */
@@ -28,8 +31,9 @@ public class ServerRepository {
 
   /** Get the corresponding server to the given Lao Id (if present) */
   public Server getServerByLaoId(String laoId) {
-    if (serverByLaoId.containsKey(laoId)) {
-      return serverByLaoId.get(laoId);
+    Server server = serverByLaoId.get(laoId);
+    if (server != null) {
+      return server;
     }
     throw new IllegalArgumentException(
         String.format("There is no backend associated with the LAO '%s'", laoId));
@@ -6,21 +6,25 @@ import android.app.Application;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.Lifecycle;
 
-import com.github.dedis.popstellar.model.objects.Chirp;
-import com.github.dedis.popstellar.model.objects.Reaction;
+import com.github.dedis.popstellar.model.objects.*;
 import com.github.dedis.popstellar.model.objects.security.MessageID;
+import com.github.dedis.popstellar.model.objects.security.PublicKey;
 import com.github.dedis.popstellar.repository.database.AppDatabase;
+import com.github.dedis.popstellar.repository.database.WriteBehindQueue;
 import com.github.dedis.popstellar.repository.database.socialmedia.*;
 import com.github.dedis.popstellar.utility.ActivityUtils;
+import com.github.dedis.popstellar.utility.Timeline;
 import com.github.dedis.popstellar.utility.error.UnknownChirpException;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import io.reactivex.*;
 import io.reactivex.Observable;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.CompositeDisposable;
@@ -39,10 +43,20 @@ public class SocialMediaRepository {
 
   private static final String TAG = SocialMediaRepository.class.getSimpleName();
 
-  private final Map<String, LaoChirps> chirpsByLao = new HashMap<>();
+  /** Order of the chirps in the timeline, from the newest to the oldest */
+  public static final Comparator<Chirp> CHIRP_ORDER =
+      Comparator.comparingLong((Chirp chirp) -> -chirp.getTimestamp())
+          .thenComparing(chirp -> chirp.getId().getEncoded());
+
+  /** Number of chirps read at once from the disk */
+  private static final int CHIRPS_PAGE_SIZE = 50;
+
+  private final Map<String, LaoChirps> chirpsByLao = new ConcurrentHashMap<>();
 
   private final ReactionDao reactionDao;
   private final ChirpDao chirpDao;
+  private final WriteBehindQueue<MessageID, ReactionEntity> reactionWrites;
+  private final WriteBehindQueue<MessageID, ChirpEntity> chirpWrites;
 
   private final CompositeDisposable disposables = new CompositeDisposable();
 
@@ -50,8 +64,23 @@ public class SocialMediaRepository {
   public SocialMediaRepository(AppDatabase appDatabase, Application application) {
     reactionDao = appDatabase.reactionDao();
     chirpDao = appDatabase.chirpDao();
+    reactionWrites =
+        new WriteBehindQueue<>(
+            "reactions",
+            ReactionEntity::getReactionId,
+            entities -> reactionDao.insertAll(entities));
+    chirpWrites =
+        new WriteBehindQueue<>(
+            "chirps", ChirpEntity::getChirpId, entities -> chirpDao.insertAll(entities));
     Map<Lifecycle.Event, Consumer<Activity>> consumerMap = new EnumMap<>(Lifecycle.Event.class);
-    consumerMap.put(Lifecycle.Event.ON_STOP, activity -> disposables.clear());
+    consumerMap.put(
+        Lifecycle.Event.ON_STOP,
+        activity -> {
+          // Write the pending entities before the application is stopped
+          chirpWrites.flush();
+          reactionWrites.flush();
+          disposables.clear();
+        });
     application.registerActivityLifecycleCallbacks(
         ActivityUtils.buildLifecycleCallback(consumerMap));
   }
@@ -68,14 +97,7 @@ public class SocialMediaRepository {
     Timber.tag(TAG).d("Adding new chirp on lao %s : %s", laoId, chirp);
 
     // Persist the chirp
-    disposables.add(
-        chirpDao
-            .insert(new ChirpEntity(laoId, chirp))
-            .subscribeOn(Schedulers.io())
-            .observeOn(AndroidSchedulers.mainThread())
-            .subscribe(
-                () -> Timber.tag(TAG).d("Successfully persisted chirp %s", chirp.getId()),
-                err -> Timber.tag(TAG).e(err, "Error in persisting chirp %s", chirp.getId())));
+    chirpWrites.enqueue(new ChirpEntity(laoId, chirp));
 
     // Retrieve Lao data and add the chirp to it
     getLaoChirps(laoId).add(chirp);
@@ -109,18 +131,38 @@ public class SocialMediaRepository {
     return getLaoChirps(laoId).getReactions(chirpId);
   }
 
-  public synchronized Set<Reaction> getReactionsByChirp(String laoId, MessageID chirpId) {
+  /**
+   * @return the observable of the senders of a specific chirp's live reactions by codepoint,
+   *     maintained as the reactions are added and deleted
+   */
+  @NonNull
+  public Observable<ChirpReactions> getReactionCounts(String laoId, MessageID chirpId)
+      throws UnknownChirpException {
+    return getLaoChirps(laoId).getReactionCounts(chirpId);
+  }
+
+  public Set<Reaction> getReactionsByChirp(String laoId, MessageID chirpId) {
     return getLaoChirps(laoId).reactionByChirpId.get(chirpId);
   }
 
   /**
-   * @param laoId of the lao we want to observe the chirp list
-   * @return an observable set of message ids whose correspond to the set of chirp published on the
-   *     given lao
+   * Read from the disk the next page of chirps of the lao, older than the ones already read. The
+   * new chirps are published on the observables of the chirps of the lao.
+   *
+   * @param laoId of the lao whose chirps are read
+   */
+  public void loadOlderChirps(String laoId) {
+    getLaoChirps(laoId).loadOlderChirps();
+  }
+
+  /**
+   * @param laoId of the lao we want to observe the chirps
+   * @return an observable of the positions at which chirps are inserted, changed or removed in the
+   *     timeline of the lao, sorted by {@link #CHIRP_ORDER}, starting with the current chirps
    */
   @NonNull
-  public Observable<Set<MessageID>> getChirpsOfLao(String laoId) {
-    return getLaoChirps(laoId).getChirpsSubject();
+  public Observable<List<Timeline.Event<Chirp>>> getChirpTimeline(String laoId) {
+    return getLaoChirps(laoId).timeline.observe();
   }
 
   /**
@@ -134,15 +176,7 @@ public class SocialMediaRepository {
     Timber.tag(TAG).d("Adding new reaction on lao %s : %s", laoId, reaction);
 
     // Persist the reaction
-    disposables.add(
-        reactionDao
-            .insert(new ReactionEntity(reaction))
-            .subscribeOn(Schedulers.io())
-            .observeOn(AndroidSchedulers.mainThread())
-            .subscribe(
-                () -> Timber.tag(TAG).d("Successfully persisted reaction %s", reaction.getId()),
-                err ->
-                    Timber.tag(TAG).e(err, "Error in persisting reaction %s", reaction.getId())));
+    reactionWrites.enqueue(new ReactionEntity(reaction));
 
     // Retrieve Lao data and add the reaction to it
     return getLaoChirps(laoId).addReaction(reaction);
@@ -163,7 +197,11 @@ public class SocialMediaRepository {
   }
 
   @NonNull
-  private synchronized LaoChirps getLaoChirps(String laoId) {
+  private LaoChirps getLaoChirps(String laoId) {
+    LaoChirps state = chirpsByLao.get(laoId);
+    if (state != null) {
+      return state;
+    }
     // Create the lao chirps object if it is not present yet
     return chirpsByLao.computeIfAbsent(laoId, lao -> new LaoChirps(this, laoId));
   }
@@ -181,10 +219,10 @@ public class SocialMediaRepository {
 
     // Chirps
     private final ConcurrentHashMap<MessageID, Chirp> chirps = new ConcurrentHashMap<>();
+    // Same chirps, kept sorted for the feed
+    private final Timeline<MessageID, Chirp> timeline = new Timeline<>(CHIRP_ORDER);
     private final ConcurrentHashMap<MessageID, Subject<Chirp>> chirpSubjects =
         new ConcurrentHashMap<>();
-    private final Subject<Set<MessageID>> chirpsSubject =
-        BehaviorSubject.createDefault(Collections.emptySet());
 
     // Reactions
     private final ConcurrentHashMap<MessageID, Set<Reaction>> reactionByChirpId =
@@ -192,11 +230,20 @@ public class SocialMediaRepository {
     private final ConcurrentHashMap<MessageID, Reaction> reactions = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<MessageID, Subject<Set<Reaction>>> reactionSubjectsByChirpId =
         new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<MessageID, BehaviorSubject<ChirpReactions>>
+        reactionCountsByChirpId = new ConcurrentHashMap<>();
+
+    // Pages read from the disk, the chirps are read from the newest to the oldest. The pages are
+    // requested by the feed and by the handlers, from different threads
+    private volatile Chirp lastLoaded;
+    private final AtomicBoolean loading = new AtomicBoolean();
+    private volatile boolean allLoaded;
 
     public LaoChirps(SocialMediaRepository repository, String laoId) {
       this.repository = repository;
       this.laoId = laoId;
-      loadStorage();
+      // Only the most recent chirps are read, the older ones are read when they are displayed
+      loadOlderChirps();
     }
 
     public void add(Chirp chirp) {
@@ -208,19 +255,21 @@ public class SocialMediaRepository {
       }
 
       // Update repository data
-      chirps.put(id, chirp);
       reactionByChirpId.putIfAbsent(chirp.getId(), ConcurrentHashMap.newKeySet());
       reactionSubjectsByChirpId.putIfAbsent(
           chirp.getId(), BehaviorSubject.createDefault(new HashSet<>()));
+      reactionCountsByChirpId.putIfAbsent(
+          chirp.getId(), BehaviorSubject.createDefault(ChirpReactions.EMPTY));
 
-      // Publish new values on subjects
+      // Publish new values on subjects, the chirp is added last so that its subject exists
       chirpSubjects.put(id, BehaviorSubject.createDefault(chirp));
-      chirpsSubject.toSerialized().onNext(new HashSet<>(chirps.keySet()));
+      chirps.put(id, chirp);
+      timeline.put(id, chirp);
     }
 
     public boolean addReaction(Reaction reaction) {
       // Check if the associated chirp is present
-      Chirp chirp = chirps.get(reaction.getChirpId());
+      Chirp chirp = getChirpOrLoad(reaction.getChirpId());
       if (chirp == null) {
         return false;
       }
@@ -239,12 +288,13 @@ public class SocialMediaRepository {
       Objects.requireNonNull(reactionSubjectsByChirpId.get(chirp.getId()))
           .toSerialized()
           .onNext(new HashSet<>(chirpReactions));
+      updateReactionCounts(chirp.getId(), chirpReactions, reaction);
 
       return true;
     }
 
     public boolean delete(MessageID id) {
-      Chirp chirp = chirps.get(id);
+      Chirp chirp = getChirpOrLoad(id);
       if (chirp == null) {
         return false;
       }
@@ -260,22 +310,11 @@ public class SocialMediaRepository {
 
         Chirp deleted = chirp.deleted();
         chirps.put(id, deleted);
+        timeline.put(id, deleted);
         subject.toSerialized().onNext(deleted);
 
         // Persist the deleted reaction (done only for completeness, this is not necessary)
-        repository.disposables.add(
-            repository
-                .chirpDao
-                .insert(new ChirpEntity(laoId, deleted))
-                .subscribeOn(Schedulers.io())
-                .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(
-                    () ->
-                        Timber.tag(TAG)
-                            .d("Successfully persisted deleted chirp %s", deleted.getId()),
-                    err ->
-                        Timber.tag(TAG)
-                            .e(err, "Error in persisting deleted chirp %s", deleted.getId())));
+        repository.chirpWrites.enqueue(new ChirpEntity(laoId, deleted));
       }
       return true;
     }
@@ -284,6 +323,14 @@ public class SocialMediaRepository {
       // Check if the associated reaction is present
       Reaction reaction = reactions.get(reactionId);
       if (reaction == null) {
+        if (!allLoaded) {
+          // The reaction may be stored with a chirp that was not read yet
+          loadChirp(
+              repository
+                  .reactionDao
+                  .getReaction(reactionId)
+                  .flatMap(stored -> repository.chirpDao.getChirp(laoId, stored.getChirpId())));
+        }
         return false;
       }
 
@@ -306,30 +353,15 @@ public class SocialMediaRepository {
         Objects.requireNonNull(reactionSubjectsByChirpId.get(chirp.getId()))
             .toSerialized()
             .onNext(chirpReactions);
+        updateReactionCounts(chirp.getId(), chirpReactions, deleted);
 
         // Persist the deleted reaction (done only for completeness, this is not necessary)
-        repository.disposables.add(
-            repository
-                .reactionDao
-                .insert(new ReactionEntity(deleted))
-                .subscribeOn(Schedulers.io())
-                .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(
-                    () ->
-                        Timber.tag(TAG)
-                            .d("Successfully persisted deleted reaction %s", deleted.getId()),
-                    err ->
-                        Timber.tag(TAG)
-                            .e(err, "Error in persisting deleted reaction %s", deleted.getId())));
+        repository.reactionWrites.enqueue(new ReactionEntity(deleted));
       }
 
       return true;
     }
 
-    public Observable<Set<MessageID>> getChirpsSubject() {
-      return chirpsSubject;
-    }
-
     public Observable<Chirp> getChirp(MessageID id) throws UnknownChirpException {
       Observable<Chirp> observable = chirpSubjects.get(id);
       if (observable == null) {
@@ -347,60 +379,152 @@ public class SocialMediaRepository {
       return observable;
     }
 
+    public Observable<ChirpReactions> getReactionCounts(MessageID chirpId)
+        throws UnknownChirpException {
+      Observable<ChirpReactions> observable = reactionCountsByChirpId.get(chirpId);
+      if (observable == null) {
+        throw new UnknownChirpException(chirpId);
+      }
+      return observable;
+    }
+
     /**
-     * Load in memory the chirps and their respective reactions from the disk only when the user
-     * wants to inflate the chirps adapter. It can be done only once per LAO, as during the
-     * execution everything is also stored in memory.
+     * Update the senders of the chirp's reactions with a reaction that was added or deleted. Only
+     * the codepoint of the reaction is updated, the other reactions are not grouped again.
+     *
+     * @param chirpId of the chirp the reaction refers to
+     * @param chirpReactions all the reactions of the chirp, already updated
+     * @param reaction the added or deleted reaction
      */
-    private void loadStorage() {
+    private synchronized void updateReactionCounts(
+        MessageID chirpId, Set<Reaction> chirpReactions, Reaction reaction) {
+      BehaviorSubject<ChirpReactions> subject =
+          Objects.requireNonNull(reactionCountsByChirpId.get(chirpId));
+      ChirpReactions current = Objects.requireNonNull(subject.getValue());
+      String codepoint = reaction.getCodepoint();
+      PublicKey sender = reaction.getSender();
+
+      ChirpReactions updated;
+      if (!reaction.isDeleted()) {
+        updated = current.withSender(codepoint, sender);
+      } else if (chirpReactions.stream()
+          .anyMatch(
+              other ->
+                  !other.isDeleted()
+                      && other.getCodepoint().equals(codepoint)
+                      && other.getSender().equals(sender))) {
+        // The sender still has another reaction with this codepoint
+        updated = current;
+      } else {
+        updated = current.withoutSender(codepoint, sender);
+      }
+
+      if (updated != current) {
+        subject.onNext(updated);
+      }
+    }
+
+    /** Read the next page of chirps from the disk, if the previous one was already read */
+    public void loadOlderChirps() {
+      if (allLoaded || !loading.compareAndSet(false, true)) {
+        return;
+      }
+
+      Single<List<Chirp>> page =
+          lastLoaded == null
+              ? repository.chirpDao.getLatestChirps(laoId, CHIRPS_PAGE_SIZE)
+              : repository.chirpDao.getChirpsBefore(
+                  laoId, lastLoaded.getTimestamp(), lastLoaded.getId(), CHIRPS_PAGE_SIZE);
+      repository.disposables.add(
+          page.subscribeOn(Schedulers.io())
+              .observeOn(AndroidSchedulers.mainThread())
+              .subscribe(
+                  this::addPage,
+                  err -> {
+                    loading.set(false);
+                    Timber.tag(TAG).e(err, "No chirp found in the storage for lao %s", laoId);
+                  }));
+    }
+
+    private void addPage(List<Chirp> page) {
+      allLoaded = page.size() < CHIRPS_PAGE_SIZE;
+      if (!page.isEmpty()) {
+        lastLoaded = page.get(page.size() - 1);
+      }
+      // Released last, so that the next page starts after this one
+      loading.set(false);
+      addStoredChirps(page);
+    }
+
+    private void addStoredChirps(List<Chirp> stored) {
+      List<MessageID> ids = new ArrayList<>(stored.size());
+      for (Chirp chirp : stored) {
+        // Do not retrieve deleted chirps, nor the ones already received
+        if (chirp.isDeleted() || chirps.get(chirp.getId()) != null) {
+          continue;
+        }
+        // Load the chirp into the memory
+        add(chirp);
+        ids.add(chirp.getId());
+      }
+      Timber.tag(TAG).d("Retrieved from db %d chirps of lao %s", ids.size(), laoId);
+      if (ids.isEmpty()) {
+        return;
+      }
+
+      // Retrieve the reactions of the whole page at once
       repository.disposables.add(
           repository
-              .chirpDao
-              .getChirpsByLaoId(laoId)
+              .reactionDao
+              .getReactionsByChirpIds(ids)
               .subscribeOn(Schedulers.io())
               .observeOn(AndroidSchedulers.mainThread())
               .subscribe(
-                  chirpsList ->
-                      chirpsList.forEach(
-                          chirp -> {
-                            // Do not retrieve deleted chirps
-                            if (chirp.isDeleted()) {
-                              return;
-                            }
-                            // Load the chirp into the memory
-                            add(chirp);
-                            Timber.tag(TAG).d("Retrieved from db chirp %s", chirp.getId());
-                            // When retrieving the chirp also retrieve its reactions
-                            repository.disposables.add(
-                                repository
-                                    .reactionDao
-                                    .getReactionsByChirpId(chirp.getId())
-                                    .subscribeOn(Schedulers.io())
-                                    .observeOn(AndroidSchedulers.mainThread())
-                                    .subscribe(
-                                        reactionsList ->
-                                            reactionsList.forEach(
-                                                reaction -> {
-                                                  // Do not retrieve deleted reactions
-                                                  if (reaction.isDeleted()) {
-                                                    return;
-                                                  }
-                                                  // Load the reaction into the memory
-                                                  addReaction(reaction);
-                                                  Timber.tag(TAG)
-                                                      .d(
-                                                          "Retrieved from db reaction %s",
-                                                          reaction.getId());
-                                                }),
-                                        err ->
-                                            Timber.tag(TAG)
-                                                .e(
-                                                    err,
-                                                    "No reaction found in the storage for chirp %s",
-                                                    chirp.getId())));
-                          }),
+                  this::addStoredReactions,
                   err ->
-                      Timber.tag(TAG).e(err, "No chirp found in the storage for lao %s", laoId)));
+                      Timber.tag(TAG)
+                          .e(err, "No reaction found in the storage for lao %s", laoId)));
+    }
+
+    private void addStoredReactions(List<Reaction> reactionsList) {
+      reactionsList.forEach(
+          reaction -> {
+            // Do not retrieve deleted reactions
+            if (!reaction.isDeleted()) {
+              addReaction(reaction);
+            }
+          });
+    }
+
+    /**
+     * Retrieve a chirp from the memory. If the page of the chirp was not read yet, the chirp and
+     * its reactions are read from the disk in background, the message referring to the chirp is
+     * then handled again once they are in the memory.
+     *
+     * @param id of the chirp
+     * @return the chirp, or null if it is not in the memory
+     */
+    private Chirp getChirpOrLoad(MessageID id) {
+      Chirp chirp = chirps.get(id);
+      if (chirp == null && !allLoaded) {
+        loadChirp(repository.chirpDao.getChirp(laoId, id));
+      }
+      return chirp;
+    }
+
+    /**
+     * Read a chirp that is not in the memory yet, with its reactions
+     *
+     * @param stored emitter of the chirp read from the disk
+     */
+    private void loadChirp(Maybe<Chirp> stored) {
+      repository.disposables.add(
+          stored
+              .subscribeOn(Schedulers.io())
+              .observeOn(AndroidSchedulers.mainThread())
+              .subscribe(
+                  chirp -> addStoredChirps(Collections.singletonList(chirp)),
+                  err -> Timber.tag(TAG).e(err, "Error reading a chirp of lao %s", laoId)));
     }
   }
 }
@@ -11,8 +11,11 @@ import com.github.dedis.popstellar.model.objects.WitnessMessage;
 import com.github.dedis.popstellar.model.objects.security.MessageID;
 import com.github.dedis.popstellar.model.objects.security.PublicKey;
 import com.github.dedis.popstellar.repository.database.AppDatabase;
+import com.github.dedis.popstellar.repository.database.WriteBehindQueue;
 import com.github.dedis.popstellar.repository.database.witnessing.*;
 import com.github.dedis.popstellar.utility.ActivityUtils;
+import com.github.dedis.popstellar.utility.ChangeStream;
+import com.github.dedis.popstellar.utility.ChangeStream.Change;
 import com.github.dedis.popstellar.utility.handler.data.*;
 
 import java.util.*;
@@ -78,9 +81,10 @@ public class WitnessingRepository {
   /** Constant used to decide the percentage of witness signatures required */
   private static final float WITNESSING_THRESHOLD = 2.0f / 3.0f;
 
-  private final Map<String, LaoWitness> witnessByLao = new HashMap<>();
+  private final Map<String, LaoWitness> witnessByLao = new ConcurrentHashMap<>();
 
   private final WitnessingDao witnessingDao;
+  private final WriteBehindQueue<MessageID, WitnessingEntity> witnessingWrites;
   private final WitnessDao witnessDao;
   private final PendingDao pendingDao;
 
@@ -109,10 +113,21 @@ public class WitnessingRepository {
     this.meetingRepository = meetingRepository;
     this.digitalCashRepository = digitalCashRepository;
     witnessingDao = appDatabase.witnessingDao();
+    witnessingWrites =
+        new WriteBehindQueue<>(
+            "witness messages",
+            WitnessingEntity::getMessageID,
+            entities -> witnessingDao.insertAll(entities));
     witnessDao = appDatabase.witnessDao();
     pendingDao = appDatabase.pendingDao();
     Map<Lifecycle.Event, Consumer<Activity>> consumerMap = new EnumMap<>(Lifecycle.Event.class);
-    consumerMap.put(Lifecycle.Event.ON_STOP, activity -> disposables.clear());
+    consumerMap.put(
+        Lifecycle.Event.ON_STOP,
+        activity -> {
+          // Write the pending entities before the application is stopped
+          witnessingWrites.flush();
+          disposables.clear();
+        });
     application.registerActivityLifecycleCallbacks(
         ActivityUtils.buildLifecycleCallback(consumerMap));
   }
@@ -128,16 +143,7 @@ public class WitnessingRepository {
     Timber.tag(TAG).d("Adding a witness message on lao %s : %s", laoId, witnessMessage);
 
     // Persist the message
-    WitnessingEntity witnessingEntity = new WitnessingEntity(laoId, witnessMessage);
-    disposables.add(
-        witnessingDao
-            .insert(witnessingEntity)
-            .subscribeOn(Schedulers.io())
-            .observeOn(AndroidSchedulers.mainThread())
-            .subscribe(
-                () ->
-                    Timber.tag(TAG).d("Successfully persisted witness message %s", witnessMessage),
-                err -> Timber.tag(TAG).e(err, "Error in persisting witness message")));
+    witnessingWrites.enqueue(new WitnessingEntity(laoId, witnessMessage));
 
     // Retrieve Lao data and add the witness message to it
     getLaoWitness(laoId).add(witnessMessage);
@@ -221,14 +227,16 @@ public class WitnessingRepository {
   }
 
   /**
-   * Returns an observable of the list of witness messages. Each time a witness is added to a
-   * witness message the observable is notified with the updated list.
+   * Returns an observable of the changes of the witness messages. It starts with the current
+   * messages, then each time a witness message is added, signed by a witness or deleted, the
+   * observable is notified with this change only.
    *
    * @param laoId identifier of the lao whose witness messages are observed
-   * @return an observable list of witness messages (message id and witnesses having signed it)
+   * @return an observable of the changes of the witness messages, by message id
    */
-  public Observable<List<WitnessMessage>> getWitnessMessagesObservableInLao(String laoId) {
-    return getLaoWitness(laoId).getWitnessMessagesSubject();
+  public Observable<List<Change<MessageID, WitnessMessage>>> getWitnessMessageChangesInLao(
+      String laoId) {
+    return getLaoWitness(laoId).getWitnessMessageChanges();
   }
 
   /**
@@ -270,7 +278,11 @@ public class WitnessingRepository {
 
   /** Get in a thread-safe fashion the witness object for the lao, computes it if absent. */
   @NonNull
-  private synchronized LaoWitness getLaoWitness(String laoId) {
+  private LaoWitness getLaoWitness(String laoId) {
+    LaoWitness state = witnessByLao.get(laoId);
+    if (state != null) {
+      return state;
+    }
     // Create the lao witness object if it is not present yet
     return witnessByLao.computeIfAbsent(laoId, lao -> new LaoWitness(laoId, this));
   }
@@ -298,13 +310,8 @@ public class WitnessingRepository {
     private final Subject<Set<PublicKey>> witnessesSubject =
         BehaviorSubject.createDefault(unmodifiableSet(emptySet()));
 
-    /** Thread-safe map to save witness messages by their ids */
-    private final ConcurrentHashMap<MessageID, WitnessMessage> witnessMessages =
-        new ConcurrentHashMap<>();
-
-    /** Subject to observe the witness messages collection as a whole */
-    private final Subject<List<WitnessMessage>> witnessMessagesSubject =
-        BehaviorSubject.createDefault(unmodifiableList(emptyList()));
+    /** Thread-safe collection to save witness messages by their ids, publishing its changes */
+    private final ChangeStream<MessageID, WitnessMessage> witnessMessages = new ChangeStream<>();
 
     /** Thread-safe map to save pending entities by their message id */
     private final ConcurrentHashMap<MessageID, PendingEntity> pendingEntities =
@@ -318,19 +325,13 @@ public class WitnessingRepository {
 
     /**
      * This function adds (or replaces if there's already a witness message with the same id) a
-     * WitnessMessage to the in-memory data structure and updates the subject containing the whole
-     * collection of witness messages.
+     * WitnessMessage to the in-memory data structure and publishes the change.
      *
      * @param witnessMessage the new witness message to add/replace
      */
     public void add(WitnessMessage witnessMessage) {
       MessageID messageID = witnessMessage.getMessageId();
       witnessMessages.put(messageID, witnessMessage);
-
-      // Publish the updated collection in a thread-safe fashion
-      witnessMessagesSubject
-          .toSerialized()
-          .onNext(unmodifiableList(new ArrayList<>(witnessMessages.values())));
     }
 
     /**
@@ -362,16 +363,7 @@ public class WitnessingRepository {
       witnessMessage.addWitness(witness);
 
       // Persist the new message
-      repo.disposables.add(
-          repo.witnessingDao
-              .insert(new WitnessingEntity(laoId, witnessMessage))
-              .subscribeOn(Schedulers.io())
-              .observeOn(AndroidSchedulers.mainThread())
-              .subscribe(
-                  () ->
-                      Timber.tag(TAG)
-                          .d("Successfully persisted witness message %s", witnessMessage),
-                  err -> Timber.tag(TAG).e(err, "Error in persisting witness message")));
+      repo.witnessingWrites.enqueue(new WitnessingEntity(laoId, witnessMessage));
 
       // Upon reception of a new signature check that the witnessing policy is passing.
       // The following function is designed to return true only once (when it just achieves the
@@ -458,11 +450,10 @@ public class WitnessingRepository {
               .map(WitnessMessage::getMessageId)
               .collect(Collectors.toSet());
 
-      // Delete from db asynchronously
+      // Delete from db asynchronously, after the pending writes of these messages
       repo.disposables.add(
-          repo.witnessingDao
-              .deleteMessagesByIds(laoId, idsToDelete)
-              .subscribeOn(Schedulers.io())
+          repo.witnessingWrites
+              .runAfterWrites(repo.witnessingDao.deleteMessagesByIds(laoId, idsToDelete))
               .observeOn(AndroidSchedulers.mainThread())
               .subscribe(
                   () ->
@@ -471,13 +462,8 @@ public class WitnessingRepository {
                   err ->
                       Timber.tag(TAG).e(err, "Error deleting witness messages in lao %s", laoId)));
 
-      // Delete from memory
+      // Delete from memory, publishing a deletion for each message
       idsToDelete.forEach(witnessMessages::remove);
-
-      // Publish the updated collection
-      witnessMessagesSubject
-          .toSerialized()
-          .onNext(unmodifiableList(new ArrayList<>(witnessMessages.values())));
     }
 
     public void addPendingEntity(PendingEntity pendingEntity) {
@@ -492,8 +478,8 @@ public class WitnessingRepository {
       return witnessesSubject;
     }
 
-    public Observable<List<WitnessMessage>> getWitnessMessagesSubject() {
-      return witnessMessagesSubject;
+    public Observable<List<Change<MessageID, WitnessMessage>>> getWitnessMessageChanges() {
+      return witnessMessages.observe();
     }
 
     /**
@@ -3,16 +3,13 @@ package com.github.dedis.popstellar.repository.database;
 import androidx.room.*;
 
 import com.github.dedis.popstellar.repository.database.digitalcash.*;
-import com.github.dedis.popstellar.repository.database.event.election.ElectionDao;
-import com.github.dedis.popstellar.repository.database.event.election.ElectionEntity;
+import com.github.dedis.popstellar.repository.database.event.election.*;
 import com.github.dedis.popstellar.repository.database.event.meeting.MeetingDao;
 import com.github.dedis.popstellar.repository.database.event.meeting.MeetingEntity;
 import com.github.dedis.popstellar.repository.database.event.rollcall.RollCallDao;
 import com.github.dedis.popstellar.repository.database.event.rollcall.RollCallEntity;
-import com.github.dedis.popstellar.repository.database.lao.LAODao;
-import com.github.dedis.popstellar.repository.database.lao.LAOEntity;
-import com.github.dedis.popstellar.repository.database.message.MessageDao;
-import com.github.dedis.popstellar.repository.database.message.MessageEntity;
+import com.github.dedis.popstellar.repository.database.lao.*;
+import com.github.dedis.popstellar.repository.database.message.*;
 import com.github.dedis.popstellar.repository.database.socialmedia.*;
 import com.github.dedis.popstellar.repository.database.subscriptions.SubscriptionsDao;
 import com.github.dedis.popstellar.repository.database.subscriptions.SubscriptionsEntity;
@@ -26,10 +23,13 @@ import javax.inject.Singleton;
 @Database(
     entities = {
       MessageEntity.class,
+      CatchupMarkEntity.class,
       LAOEntity.class,
+      ElectInstanceEntity.class,
       WalletEntity.class,
       SubscriptionsEntity.class,
       ElectionEntity.class,
+      VoteEntity.class,
       RollCallEntity.class,
       MeetingEntity.class,
       ChirpEntity.class,
@@ -40,13 +40,17 @@ import javax.inject.Singleton;
       WitnessEntity.class,
       PendingEntity.class
     },
-    version = 4)
+    version = 5)
 @TypeConverters(CustomTypeConverters.class)
 public abstract class AppDatabase extends RoomDatabase {
   public abstract MessageDao messageDao();
 
+  public abstract CatchupMarkDao catchupMarkDao();
+
   public abstract LAODao laoDao();
 
+  public abstract ElectInstanceDao electInstanceDao();
+
   public abstract WalletDao walletDao();
 
   public abstract SubscriptionsDao subscriptionsDao();
@@ -59,6 +63,8 @@ public abstract class AppDatabase extends RoomDatabase {
 
   public abstract ElectionDao electionDao();
 
+  public abstract VoteDao voteDao();
+
   public abstract RollCallDao rollCallDao();
 
   public abstract MeetingDao meetingDao();
@@ -0,0 +1,302 @@
+package com.github.dedis.popstellar.repository.database;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.github.dedis.popstellar.model.network.method.message.MessageGeneral;
+import com.github.dedis.popstellar.model.network.method.message.data.election.Vote;
+import com.github.dedis.popstellar.model.objects.*;
+import com.github.dedis.popstellar.model.objects.digitalcash.TransactionObject;
+import com.github.dedis.popstellar.model.objects.security.MessageID;
+import com.github.dedis.popstellar.model.objects.security.PublicKey;
+import com.google.gson.*;
+import com.google.gson.reflect.TypeToken;
+
+import java.util.*;
+import java.util.function.Function;
+
+import timber.log.Timber;
+
+/**
+ * Migration from the version 4 of the database, where the objects were stored as json strings, to
+ * the version 5 where they are stored with their binary encoding.
+ *
+ * <p>SQLite cannot change the type of a column, so each table is created again with blob columns
+ * and its rows are converted one by one. A row that cannot be converted is dropped, its content
+ * will be retrieved again from the server.
+ *
+ * <p>The votes, which were stored in their election, and the elect instances, which were stored
+ * in their lao, are moved to their own tables. The chirps
+ * get a timestamp column, used to read the feed page by page. The catchup marks table is
+ * created.
+ */
+public class BinaryEncodingMigration extends Migration {
+
+  private static final String TAG = BinaryEncodingMigration.class.getSimpleName();
+
+  private static final String OLD_SUFFIX = "_json";
+
+  private final Gson gson;
+  private final EntityCodec codec;
+
+  public BinaryEncodingMigration(Gson gson, EntityCodec codec) {
+    super(4, 5);
+    this.gson = gson;
+    this.codec = codec;
+  }
+
+  @Override
+  public void migrate(@NonNull SupportSQLiteDatabase database) {
+    migrateTable(
+        database,
+        "messages",
+        "CREATE TABLE IF NOT EXISTS `messages` (`message_id` TEXT NOT NULL, `message` BLOB, PRIMARY KEY(`message_id`))",
+        Collections.singletonMap(
+            "message", json -> codec.encode(gson.fromJson(json, MessageGeneral.class))));
+    migrateElectInstances(database);
+    migrateTable(
+        database,
+        "laos",
+        "CREATE TABLE IF NOT EXISTS `laos` (`lao_id` TEXT NOT NULL, `lao` BLOB NOT NULL, PRIMARY KEY(`lao_id`))",
+        Collections.singletonMap("lao", json -> codec.encode(gson.fromJson(json, Lao.class))));
+    database.execSQL(
+        "CREATE TABLE IF NOT EXISTS `catchup_marks` (`channel` TEXT NOT NULL, `message_id` TEXT NOT NULL, `message_count` INTEGER NOT NULL, `timestamp` INTEGER NOT NULL, PRIMARY KEY(`channel`))");
+    migrateVotes(database);
+    migrateTable(
+        database,
+        "elections",
+        "CREATE TABLE IF NOT EXISTS `elections` (`election_id` TEXT NOT NULL, `lao_id` TEXT NOT NULL, `election` BLOB NOT NULL, PRIMARY KEY(`election_id`))",
+        Collections.singletonMap(
+            "election", json -> codec.encode(gson.fromJson(json, Election.class))),
+        "CREATE INDEX IF NOT EXISTS `index_elections_lao_id` ON `elections` (`lao_id`)");
+    migrateTable(
+        database,
+        "rollcalls",
+        "CREATE TABLE IF NOT EXISTS `rollcalls` (`rollcall_id` TEXT NOT NULL, `lao_id` TEXT NOT NULL, `rollcall` BLOB NOT NULL, PRIMARY KEY(`rollcall_id`))",
+        Collections.singletonMap(
+            "rollcall", json -> codec.encode(gson.fromJson(json, RollCall.class))),
+        "CREATE INDEX IF NOT EXISTS `index_rollcalls_lao_id` ON `rollcalls` (`lao_id`)");
+    migrateTable(
+        database,
+        "meetings",
+        "CREATE TABLE IF NOT EXISTS `meetings` (`meeting_id` TEXT NOT NULL, `lao_id` TEXT NOT NULL, `meeting` BLOB NOT NULL, PRIMARY KEY(`meeting_id`))",
+        Collections.singletonMap(
+            "meeting", json -> codec.encode(gson.fromJson(json, Meeting.class))),
+        "CREATE INDEX IF NOT EXISTS `index_meetings_lao_id` ON `meetings` (`lao_id`)");
+    migrateChirps(database);
+    migrateTable(
+        database,
+        "reactions",
+        "CREATE TABLE IF NOT EXISTS `reactions` (`reaction_id` TEXT NOT NULL, `chirp_id` TEXT NOT NULL, `reaction` BLOB NOT NULL, PRIMARY KEY(`reaction_id`))",
+        Collections.singletonMap(
+            "reaction", json -> codec.encode(gson.fromJson(json, Reaction.class))),
+        "CREATE INDEX IF NOT EXISTS `index_reactions_chirp_id` ON `reactions` (`chirp_id`)");
+    migrateTable(
+        database,
+        "transactions",
+        "CREATE TABLE IF NOT EXISTS `transactions` (`transaction_id` TEXT NOT NULL, `lao_id` TEXT NOT NULL, `transaction` BLOB NOT NULL, PRIMARY KEY(`transaction_id`))",
+        Collections.singletonMap(
+            "transaction", json -> codec.encode(gson.fromJson(json, TransactionObject.class))),
+        "CREATE INDEX IF NOT EXISTS `index_transactions_lao_id` ON `transactions` (`lao_id`)");
+    migrateTable(
+        database,
+        "witness_messages",
+        "CREATE TABLE IF NOT EXISTS `witness_messages` (`lao_id` TEXT NOT NULL, `id` TEXT NOT NULL, `message` BLOB NOT NULL, PRIMARY KEY(`id`))",
+        Collections.singletonMap(
+            "message", json -> codec.encode(gson.fromJson(json, WitnessMessage.class))));
+
+    Map<String, Function<String, byte[]>> pendingConverters = new HashMap<>();
+    pendingConverters.put(
+        "rollcall", json -> codec.encode(gson.fromJson(json, RollCall.class)));
+    pendingConverters.put(
+        "election", json -> codec.encode(gson.fromJson(json, Election.class)));
+    pendingConverters.put("meeting", json -> codec.encode(gson.fromJson(json, Meeting.class)));
+    migrateTable(
+        database,
+        "pending_objects",
+        "CREATE TABLE IF NOT EXISTS `pending_objects` (`id` TEXT NOT NULL, `lao_id` TEXT NOT NULL, `rollcall` BLOB, `election` BLOB, `meeting` BLOB, PRIMARY KEY(`id`))",
+        pendingConverters);
+  }
+
+  /**
+   * Create the elect instances table and fill it with the instances stored in the json of the laos
+   *
+   * @param database the database to migrate
+   */
+  private void migrateElectInstances(SupportSQLiteDatabase database) {
+    database.execSQL(
+        "CREATE TABLE IF NOT EXISTS `elect_instances` (`message_id` TEXT NOT NULL, `lao_id` TEXT NOT NULL, `elect_instance` BLOB NOT NULL, PRIMARY KEY(`message_id`))");
+    database.execSQL(
+        "CREATE INDEX IF NOT EXISTS `index_elect_instances_lao_id` ON `elect_instances` (`lao_id`)");
+
+    try (Cursor cursor = database.query("SELECT `lao_id`, `lao` FROM `laos`")) {
+      while (cursor.moveToNext()) {
+        try {
+          Lao lao = gson.fromJson(cursor.getString(1), Lao.class);
+          for (ElectInstance electInstance : lao.getMessageIdToElectInstance().values()) {
+            ContentValues values = new ContentValues();
+            values.put(
+                "message_id", gson.toJson(electInstance.getMessageId(), MessageID.class));
+            values.put("lao_id", cursor.getString(0));
+            values.put("elect_instance", codec.encode(electInstance));
+            database.insert("elect_instances", SQLiteDatabase.CONFLICT_REPLACE, values);
+          }
+        } catch (RuntimeException e) {
+          Timber.tag(TAG).e(e, "Unable to migrate the elect instances of a lao");
+        }
+      }
+    }
+  }
+
+  /**
+   * Create the votes table and fill it with the votes stored in the json of the elections
+   *
+   * @param database the database to migrate
+   */
+  private void migrateVotes(SupportSQLiteDatabase database) {
+    database.execSQL(
+        "CREATE TABLE IF NOT EXISTS `votes` (`election_id` TEXT NOT NULL, `sender` TEXT NOT NULL, `lao_id` TEXT NOT NULL, `message_id` TEXT NOT NULL, `votes` BLOB NOT NULL, PRIMARY KEY(`election_id`, `sender`))");
+    database.execSQL("CREATE INDEX IF NOT EXISTS `index_votes_lao_id` ON `votes` (`lao_id`)");
+
+    try (Cursor cursor = database.query("SELECT `lao_id`, `election` FROM `elections`")) {
+      while (cursor.moveToNext()) {
+        try {
+          JsonObject election = JsonParser.parseString(cursor.getString(1)).getAsJsonObject();
+          insertVotes(database, cursor.getString(0), election);
+        } catch (RuntimeException e) {
+          Timber.tag(TAG).e(e, "Unable to migrate the votes of an election");
+        }
+      }
+    }
+  }
+
+  private void insertVotes(SupportSQLiteDatabase database, String laoId, JsonObject election) {
+    String electionId = election.get("id").getAsString();
+    JsonObject votesBySender = election.getAsJsonObject("votesBySender");
+    JsonObject messageMap = election.getAsJsonObject("messageMap");
+    if (votesBySender == null || messageMap == null) {
+      return;
+    }
+
+    for (Map.Entry<String, JsonElement> entry : messageMap.entrySet()) {
+      JsonElement votes = votesBySender.get(entry.getKey());
+      if (votes == null) {
+        continue;
+      }
+
+      ContentValues values = new ContentValues();
+      values.put("election_id", electionId);
+      values.put("sender", gson.toJson(new PublicKey(entry.getKey()), PublicKey.class));
+      values.put("lao_id", laoId);
+      values.put(
+          "message_id",
+          gson.toJson(new MessageID(entry.getValue().getAsString()), MessageID.class));
+      List<Vote> voteList = gson.fromJson(votes, new TypeToken<List<Vote>>() {}.getType());
+      values.put("votes", codec.encode(voteList));
+      database.insert("votes", SQLiteDatabase.CONFLICT_REPLACE, values);
+    }
+  }
+
+  /**
+   * Create the chirps table again with its timestamp column, which is read from the json of the
+   * chirps
+   *
+   * @param database the database to migrate
+   */
+  private void migrateChirps(SupportSQLiteDatabase database) {
+    String oldTable = "chirps" + OLD_SUFFIX;
+    database.execSQL("ALTER TABLE `chirps` RENAME TO `" + oldTable + "`");
+    database.execSQL(
+        "CREATE TABLE IF NOT EXISTS `chirps` (`chirp_id` TEXT NOT NULL, `lao_id` TEXT NOT NULL, `timestamp` INTEGER NOT NULL, `chirp` BLOB NOT NULL, PRIMARY KEY(`chirp_id`))");
+
+    try (Cursor cursor =
+        database.query("SELECT `chirp_id`, `lao_id`, `chirp` FROM `" + oldTable + "`")) {
+      while (cursor.moveToNext()) {
+        try {
+          Chirp chirp = gson.fromJson(cursor.getString(2), Chirp.class);
+          ContentValues values = new ContentValues();
+          values.put("chirp_id", cursor.getString(0));
+          values.put("lao_id", cursor.getString(1));
+          values.put("timestamp", chirp.getTimestamp());
+          values.put("chirp", codec.encode(chirp));
+          database.insert("chirps", SQLiteDatabase.CONFLICT_REPLACE, values);
+        } catch (RuntimeException e) {
+          Timber.tag(TAG).e(e, "Unable to migrate a chirp");
+        }
+      }
+    }
+
+    database.execSQL("DROP TABLE `" + oldTable + "`");
+    database.execSQL(
+        "CREATE INDEX IF NOT EXISTS `index_chirps_lao_id_timestamp_chirp_id` ON `chirps` (`lao_id`, `timestamp`, `chirp_id`)");
+  }
+
+  /**
+   * Create the table again and copy its rows, converting the given columns
+   *
+   * @param database the database to migrate
+   * @param table name of the table
+   * @param createSql statement creating the new version of the table
+   * @param converters functions converting the json of a column to its binary encoding
+   * @param indices statements creating the indices of the new table
+   */
+  private static void migrateTable(
+      SupportSQLiteDatabase database,
+      String table,
+      String createSql,
+      Map<String, Function<String, byte[]>> converters,
+      String... indices) {
+    String oldTable = table + OLD_SUFFIX;
+    database.execSQL("ALTER TABLE `" + table + "` RENAME TO `" + oldTable + "`");
+    database.execSQL(createSql);
+
+    int dropped = 0;
+    try (Cursor cursor = database.query("SELECT * FROM `" + oldTable + "`")) {
+      while (cursor.moveToNext()) {
+        ContentValues values = convertRow(cursor, converters);
+        if (values == null) {
+          dropped++;
+        } else {
+          database.insert(table, SQLiteDatabase.CONFLICT_REPLACE, values);
+        }
+      }
+    }
+
+    // The old indices are dropped with the old table, so that their names can be reused
+    database.execSQL("DROP TABLE `" + oldTable + "`");
+    for (String index : indices) {
+      database.execSQL(index);
+    }
+
+    if (dropped > 0) {
+      Timber.tag(TAG).w("%d rows of the table %s could not be migrated", dropped, table);
+    }
+  }
+
+  private static ContentValues convertRow(
+      Cursor cursor, Map<String, Function<String, byte[]>> converters) {
+    ContentValues values = new ContentValues();
+    for (int i = 0; i < cursor.getColumnCount(); i++) {
+      String column = cursor.getColumnName(i);
+      String value = cursor.getString(i);
+      Function<String, byte[]> converter = converters.get(column);
+      if (converter == null) {
+        values.put(column, value);
+        continue;
+      }
+
+      try {
+        values.put(column, value == null ? null : converter.apply(value));
+      } catch (RuntimeException e) {
+        Timber.tag(TAG).e(e, "Unable to convert the column %s of a row", column);
+        return null;
+      }
+    }
+    return values;
+  }
+}
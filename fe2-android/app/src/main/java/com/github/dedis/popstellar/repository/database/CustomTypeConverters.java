@@ -4,6 +4,7 @@ import androidx.room.ProvidedTypeConverter;
 import androidx.room.TypeConverter;
 
 import com.github.dedis.popstellar.model.network.method.message.MessageGeneral;
+import com.github.dedis.popstellar.model.network.method.message.data.election.Vote;
 import com.github.dedis.popstellar.model.objects.*;
 import com.github.dedis.popstellar.model.objects.digitalcash.TransactionObject;
 import com.github.dedis.popstellar.model.objects.security.MessageID;
@@ -14,32 +15,29 @@ import com.google.gson.reflect.TypeToken;
 import java.util.List;
 import java.util.Set;
 
-/** Class used by the database to convert all the fields in Entities into Strings and vice versa */
+/**
+ * Class used by the database to convert all the fields in Entities into Strings and vice versa.
+ *
+ * <p>The objects stored in their own table are converted to their binary encoding instead, which
+ * is faster to decode and more compact.
+ */
 @ProvidedTypeConverter
 public class CustomTypeConverters {
 
   private final Gson gson;
+  private final EntityCodec codec;
 
-  public CustomTypeConverters(Gson gson) {
+  public CustomTypeConverters(Gson gson, EntityCodec codec) {
     this.gson = gson;
+    this.codec = codec;
   }
 
   /* ----  From String to Object  ---- */
-  @TypeConverter
-  public MessageGeneral messageFromString(String value) {
-    return gson.fromJson(value, MessageGeneral.class);
-  }
-
   @TypeConverter
   public MessageID messageIDFromString(String value) {
     return gson.fromJson(value, MessageID.class);
   }
 
-  @TypeConverter
-  public Lao laoFromString(String value) {
-    return gson.fromJson(value, Lao.class);
-  }
-
   @TypeConverter
   public List<String> listOfStringsFromString(String value) {
     return gson.fromJson(value, new TypeToken<List<String>>() {}.getType());
@@ -51,108 +49,140 @@ public class CustomTypeConverters {
   }
 
   @TypeConverter
-  public Election electionFromString(String value) {
-    return gson.fromJson(value, Election.class);
+  public PublicKey publicKeyFromString(String value) {
+    return gson.fromJson(value, PublicKey.class);
   }
 
+  /* ----  From Object to String  ---- */
   @TypeConverter
-  public RollCall rollcallFromString(String value) {
-    return gson.fromJson(value, RollCall.class);
+  public String messageIDToString(MessageID messageID) {
+    return gson.toJson(messageID, MessageID.class);
   }
 
   @TypeConverter
-  public Meeting meetingFromString(String value) {
-    return gson.fromJson(value, Meeting.class);
+  public String listOfStringsToString(List<String> seed) {
+    return gson.toJson(seed, new TypeToken<List<String>>() {}.getType());
   }
 
   @TypeConverter
-  public Chirp chirpFromString(String value) {
-    return gson.fromJson(value, Chirp.class);
+  public String setOfChannelsToString(Set<Channel> channels) {
+    return gson.toJson(channels, new TypeToken<Set<Channel>>() {}.getType());
   }
 
   @TypeConverter
-  public Reaction reactionFromString(String value) {
-    return gson.fromJson(value, Reaction.class);
+  public String publicKeyToString(PublicKey publicKey) {
+    return gson.toJson(publicKey, PublicKey.class);
   }
 
+  /* ----  From bytes to Object  ---- */
   @TypeConverter
-  public PublicKey publicKeyFromString(String value) {
-    return gson.fromJson(value, PublicKey.class);
+  public MessageGeneral messageFromBytes(byte[] value) {
+    return codec.decodeMessage(value);
   }
 
   @TypeConverter
-  public TransactionObject transactionObjectFromString(String value) {
-    return gson.fromJson(value, TransactionObject.class);
+  public Lao laoFromBytes(byte[] value) {
+    return codec.decodeLao(value);
   }
 
   @TypeConverter
-  public WitnessMessage witnessMessageFromString(String value) {
-    return gson.fromJson(value, WitnessMessage.class);
+  public ElectInstance electInstanceFromBytes(byte[] value) {
+    return codec.decodeElectInstance(value);
   }
 
-  /* ----  From Object to String  ---- */
   @TypeConverter
-  public String messageToString(MessageGeneral messageGeneral) {
-    return gson.toJson(messageGeneral, MessageGeneral.class);
+  public Election electionFromBytes(byte[] value) {
+    return codec.decodeElection(value);
   }
 
   @TypeConverter
-  public String messageIDToString(MessageID messageID) {
-    return gson.toJson(messageID, MessageID.class);
+  public List<Vote> votesFromBytes(byte[] value) {
+    return codec.decodeVotes(value);
   }
 
   @TypeConverter
-  public String laoToString(Lao lao) {
-    return gson.toJson(lao, Lao.class);
+  public RollCall rollcallFromBytes(byte[] value) {
+    return codec.decodeRollCall(value);
   }
 
   @TypeConverter
-  public String listOfStringsToString(List<String> seed) {
-    return gson.toJson(seed, new TypeToken<List<String>>() {}.getType());
+  public Meeting meetingFromBytes(byte[] value) {
+    return codec.decodeMeeting(value);
   }
 
   @TypeConverter
-  public String setOfChannelsToString(Set<Channel> channels) {
-    return gson.toJson(channels, new TypeToken<Set<Channel>>() {}.getType());
+  public Chirp chirpFromBytes(byte[] value) {
+    return codec.decodeChirp(value);
   }
 
   @TypeConverter
-  public String electionToString(Election election) {
-    return gson.toJson(election, Election.class);
+  public Reaction reactionFromBytes(byte[] value) {
+    return codec.decodeReaction(value);
   }
 
   @TypeConverter
-  public String rollcallToString(RollCall rollCall) {
-    return gson.toJson(rollCall, RollCall.class);
+  public TransactionObject transactionObjectFromBytes(byte[] value) {
+    return codec.decodeTransaction(value);
   }
 
   @TypeConverter
-  public String meetingToString(Meeting meeting) {
-    return gson.toJson(meeting, Meeting.class);
+  public WitnessMessage witnessMessageFromBytes(byte[] value) {
+    return codec.decodeWitnessMessage(value);
   }
 
+  /* ----  From Object to bytes  ---- */
   @TypeConverter
-  public String chirpToString(Chirp chirp) {
-    return gson.toJson(chirp, Chirp.class);
+  public byte[] messageToBytes(MessageGeneral messageGeneral) {
+    return codec.encode(messageGeneral);
   }
 
   @TypeConverter
-  public String reactionToString(Reaction reaction) {
-    return gson.toJson(reaction, Reaction.class);
+  public byte[] laoToBytes(Lao lao) {
+    return codec.encode(lao);
   }
 
   @TypeConverter
-  public String publicKeyToString(PublicKey publicKey) {
-    return gson.toJson(publicKey, PublicKey.class);
+  public byte[] electInstanceToBytes(ElectInstance electInstance) {
+    return codec.encode(electInstance);
+  }
+
+  @TypeConverter
+  public byte[] electionToBytes(Election election) {
+    return codec.encode(election);
+  }
+
+  @TypeConverter
+  public byte[] votesToBytes(List<Vote> votes) {
+    return codec.encode(votes);
+  }
+
+  @TypeConverter
+  public byte[] rollcallToBytes(RollCall rollCall) {
+    return codec.encode(rollCall);
+  }
+
+  @TypeConverter
+  public byte[] meetingToBytes(Meeting meeting) {
+    return codec.encode(meeting);
+  }
+
+  @TypeConverter
+  public byte[] chirpToBytes(Chirp chirp) {
+    return codec.encode(chirp);
+  }
+
+  @TypeConverter
+  public byte[] reactionToBytes(Reaction reaction) {
+    return codec.encode(reaction);
   }
 
   @TypeConverter
-  public String transactionObjectToString(TransactionObject transactionObject) {
-    return gson.toJson(transactionObject, TransactionObject.class);
+  public byte[] transactionObjectToBytes(TransactionObject transactionObject) {
+    return codec.encode(transactionObject);
   }
 
   @TypeConverter
-  public String witnessMessageToString(WitnessMessage witnessMessage) {
-    return gson.toJson(witnessMessage, WitnessMessage.class);
+  public byte[] witnessMessageToBytes(WitnessMessage witnessMessage) {
+    return codec.encode(witnessMessage);
   }
 }
@@ -0,0 +1,692 @@
+package com.github.dedis.popstellar.repository.database;
+
+import com.github.dedis.popstellar.model.network.method.message.MessageGeneral;
+import com.github.dedis.popstellar.model.network.method.message.PublicKeySignaturePair;
+import com.github.dedis.popstellar.model.network.method.message.data.*;
+import com.github.dedis.popstellar.model.network.method.message.data.Objects;
+import com.github.dedis.popstellar.model.network.method.message.data.election.*;
+import com.github.dedis.popstellar.model.objects.*;
+import com.github.dedis.popstellar.model.objects.digitalcash.*;
+import com.github.dedis.popstellar.model.objects.event.EventState;
+import com.github.dedis.popstellar.model.objects.security.*;
+import com.google.gson.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Binary encoding of the objects stored in the database.
+ *
+ * <p>The keys, ids and signatures are stored as raw bytes instead of base64 strings, and the
+ * fields are written in a fixed order without their names. Each encoding starts with a version
+ * byte, so that the format can evolve without losing the stored objects.
+ *
+ * <p>The data of a message is kept as the json sent over the network, as it is needed to verify
+ * the signature. It is parsed again when decoding the message, but without the schema validation
+ * as the message was already validated when it was received.
+ */
+public class EntityCodec {
+
+  /** Version of the encoding written by this codec */
+  public static final byte VERSION = 1;
+
+  private static final String OBJECT = "object";
+  private static final String ACTION = "action";
+
+  private final Gson gson;
+  private final DataRegistry dataRegistry;
+
+  public EntityCodec(Gson gson, DataRegistry dataRegistry) {
+    this.gson = gson;
+    this.dataRegistry = dataRegistry;
+  }
+
+  /* ----  Encoding  ---- */
+
+  public byte[] encode(MessageGeneral message) {
+    return encode(message, this::writeMessage);
+  }
+
+  public byte[] encode(Lao lao) {
+    return encode(lao, this::writeLao);
+  }
+
+  public byte[] encode(ElectInstance electInstance) {
+    return encode(electInstance, this::writeElectInstance);
+  }
+
+  public byte[] encode(Election election) {
+    return encode(election, this::writeElection);
+  }
+
+  public byte[] encode(List<Vote> votes) {
+    return encode(votes, EntityCodec::writeVotes);
+  }
+
+  public byte[] encode(RollCall rollCall) {
+    return encode(rollCall, EntityCodec::writeRollCall);
+  }
+
+  public byte[] encode(Meeting meeting) {
+    return encode(meeting, EntityCodec::writeMeeting);
+  }
+
+  public byte[] encode(Chirp chirp) {
+    return encode(chirp, EntityCodec::writeChirp);
+  }
+
+  public byte[] encode(Reaction reaction) {
+    return encode(reaction, EntityCodec::writeReaction);
+  }
+
+  public byte[] encode(TransactionObject transaction) {
+    return encode(transaction, EntityCodec::writeTransaction);
+  }
+
+  public byte[] encode(WitnessMessage witnessMessage) {
+    return encode(witnessMessage, EntityCodec::writeWitnessMessage);
+  }
+
+  /* ----  Decoding  ---- */
+
+  public MessageGeneral decodeMessage(byte[] bytes) {
+    return decode(bytes, this::readMessage);
+  }
+
+  public Lao decodeLao(byte[] bytes) {
+    return decode(bytes, this::readLao);
+  }
+
+  public ElectInstance decodeElectInstance(byte[] bytes) {
+    return decode(bytes, this::readElectInstance);
+  }
+
+  public Election decodeElection(byte[] bytes) {
+    return decode(bytes, this::readElection);
+  }
+
+  public List<Vote> decodeVotes(byte[] bytes) {
+    return decode(bytes, EntityCodec::readVotes);
+  }
+
+  public RollCall decodeRollCall(byte[] bytes) {
+    return decode(bytes, EntityCodec::readRollCall);
+  }
+
+  public Meeting decodeMeeting(byte[] bytes) {
+    return decode(bytes, EntityCodec::readMeeting);
+  }
+
+  public Chirp decodeChirp(byte[] bytes) {
+    return decode(bytes, EntityCodec::readChirp);
+  }
+
+  public Reaction decodeReaction(byte[] bytes) {
+    return decode(bytes, EntityCodec::readReaction);
+  }
+
+  public TransactionObject decodeTransaction(byte[] bytes) {
+    return decode(bytes, EntityCodec::readTransaction);
+  }
+
+  public WitnessMessage decodeWitnessMessage(byte[] bytes) {
+    return decode(bytes, EntityCodec::readWitnessMessage);
+  }
+
+  private static <T> byte[] encode(T value, Encoder<T> encoder) {
+    if (value == null) {
+      return null;
+    }
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(VERSION);
+      encoder.write(out, value);
+    } catch (IOException e) {
+      // Writing into memory does not fail
+      throw new IllegalStateException("Unable to encode " + value, e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static <T> T decode(byte[] bytes, Decoder<T> decoder) {
+    if (bytes == null) {
+      return null;
+    }
+
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      byte version = in.readByte();
+      if (version != VERSION) {
+        throw new IllegalArgumentException("Unknown encoding version " + version);
+      }
+      return decoder.read(in);
+    } catch (IOException | RuntimeException e) {
+      throw new IllegalArgumentException("Unable to decode the stored object", e);
+    }
+  }
+
+  /* ----  Messages  ---- */
+
+  private void writeMessage(DataOutputStream out, MessageGeneral message) throws IOException {
+    writeKey(out, message.getSender());
+    writeKey(out, message.getDataEncoded());
+    writeKey(out, message.getSignature());
+    writeKey(out, message.getMessageId());
+
+    List<PublicKeySignaturePair> witnessSignatures = message.getWitnessSignatures();
+    writeLength(out, witnessSignatures.size());
+    for (PublicKeySignaturePair pair : witnessSignatures) {
+      writeKey(out, pair.getWitness());
+      writeKey(out, pair.getSignature());
+    }
+  }
+
+  private MessageGeneral readMessage(DataInputStream in) throws IOException {
+    PublicKey sender = readPublicKey(in);
+    byte[] dataBytes = readBytes(in);
+    Signature signature = readSignature(in);
+    MessageID messageId = readMessageID(in);
+
+    int witnessCount = readLength(in);
+    List<PublicKeySignaturePair> witnessSignatures = new ArrayList<>(witnessCount);
+    for (int i = 0; i < witnessCount; i++) {
+      witnessSignatures.add(new PublicKeySignaturePair(readPublicKey(in), readSignature(in)));
+    }
+
+    Base64URLData dataBuf = dataBytes == null ? null : new Base64URLData(dataBytes);
+    Data data = dataBytes == null ? null : parseData(dataBytes);
+    return new MessageGeneral(sender, dataBuf, data, signature, messageId, witnessSignatures);
+  }
+
+  private Data parseData(byte[] dataBytes) {
+    JsonObject json =
+        JsonParser.parseString(new String(dataBytes, StandardCharsets.UTF_8)).getAsJsonObject();
+    Objects object = Objects.find(json.get(OBJECT).getAsString());
+    Action action = Action.find(json.get(ACTION).getAsString());
+
+    Optional<Class<? extends Data>> clazz =
+        object == null || action == null ? Optional.empty() : dataRegistry.getType(object, action);
+    // Go through the validating deserializer if the type is unknown, to get its error
+    return clazz.isPresent() ? gson.fromJson(json, clazz.get()) : gson.fromJson(json, Data.class);
+  }
+
+  /* ----  LAOs  ---- */
+
+  private void writeLao(DataOutputStream out, Lao lao) throws IOException {
+    writeChannel(out, lao.getChannel());
+    writeString(out, lao.getId());
+    writeString(out, lao.getName());
+    writeNullableLong(out, lao.getLastModified());
+    writeNullableLong(out, lao.getCreation());
+    writeKey(out, lao.getOrganizer());
+    writeKey(out, lao.getModificationId());
+
+    Set<PendingUpdate> pendingUpdates = lao.getPendingUpdates();
+    writeLength(out, pendingUpdates.size());
+    for (PendingUpdate pendingUpdate : pendingUpdates) {
+      out.writeLong(pendingUpdate.getModificationTime());
+      writeKey(out, pendingUpdate.getMessageId());
+    }
+
+    // The elect instances are stored in their own table and, as for the json storage, the
+    // consensus nodes are not stored
+  }
+
+  private Lao readLao(DataInputStream in) throws IOException {
+    LaoBuilder builder =
+        new LaoBuilder()
+            .setChannel(readChannel(in))
+            .setId(readString(in))
+            .setName(readString(in))
+            .setLastModified(readNullableLong(in))
+            .setCreation(readNullableLong(in))
+            .setOrganizer(readPublicKey(in))
+            .setModificationId(readMessageID(in));
+
+    int pendingCount = readLength(in);
+    Set<PendingUpdate> pendingUpdates = new HashSet<>();
+    for (int i = 0; i < pendingCount; i++) {
+      pendingUpdates.add(new PendingUpdate(in.readLong(), readMessageID(in)));
+    }
+
+    return builder
+        .setPendingUpdates(pendingUpdates)
+        .setMessageIdToElectInstance(new HashMap<>())
+        .build();
+  }
+
+  /* ----  Consensus  ---- */
+
+  // The consensus instances are rare and deeply nested, they are kept in json
+  private void writeElectInstance(DataOutputStream out, ElectInstance electInstance)
+      throws IOException {
+    writeString(out, gson.toJson(electInstance, ElectInstance.class));
+  }
+
+  private ElectInstance readElectInstance(DataInputStream in) throws IOException {
+    return gson.fromJson(readString(in), ElectInstance.class);
+  }
+
+  /* ----  Events  ---- */
+
+  private void writeElection(DataOutputStream out, Election election) throws IOException {
+    writeChannel(out, election.getChannel());
+    writeString(out, election.getId());
+    writeString(out, election.getName());
+    out.writeLong(election.getCreation());
+    out.writeLong(election.getStartTimestamp());
+    out.writeLong(election.getEndTimestamp());
+    writeString(out, election.getElectionKey());
+    writeString(out, election.getElectionVersion().name());
+    writeEnum(out, election.getState());
+
+    List<ElectionQuestion> questions = election.getElectionQuestions();
+    writeLength(out, questions.size());
+    for (ElectionQuestion question : questions) {
+      writeString(out, gson.toJson(question, ElectionQuestion.class));
+    }
+
+    Map<String, Set<QuestionResult>> results = election.getResults();
+    writeLength(out, results.size());
+    for (Map.Entry<String, Set<QuestionResult>> entry : results.entrySet()) {
+      writeString(out, entry.getKey());
+      writeLength(out, entry.getValue().size());
+      for (QuestionResult result : entry.getValue()) {
+        writeString(out, result.getBallot());
+        out.writeInt(result.getCount());
+      }
+    }
+  }
+
+  private Election readElection(DataInputStream in) throws IOException {
+    Channel channel = readChannel(in);
+    String id = readString(in);
+    String name = readString(in);
+    long creation = in.readLong();
+    long start = in.readLong();
+    long end = in.readLong();
+    String electionKey = readString(in);
+    ElectionVersion version = ElectionVersion.valueOf(readString(in));
+    EventState state = readEnum(in, EventState.class);
+
+    int questionCount = readLength(in);
+    List<ElectionQuestion> questions = new ArrayList<>(questionCount);
+    for (int i = 0; i < questionCount; i++) {
+      questions.add(gson.fromJson(readString(in), ElectionQuestion.class));
+    }
+
+    int resultCount = readLength(in);
+    Map<String, Set<QuestionResult>> results = new HashMap<>();
+    for (int i = 0; i < resultCount; i++) {
+      String questionId = readString(in);
+      int count = readLength(in);
+      Set<QuestionResult> questionResults = new HashSet<>();
+      for (int j = 0; j < count; j++) {
+        questionResults.add(new QuestionResult(readString(in), in.readInt()));
+      }
+      results.put(questionId, questionResults);
+    }
+
+    return new Election(
+        id,
+        name,
+        creation,
+        channel,
+        start,
+        end,
+        questions,
+        electionKey,
+        version,
+        state,
+        results);
+  }
+
+  private static void writeVotes(DataOutputStream out, List<Vote> votes) throws IOException {
+    writeLength(out, votes.size());
+    for (Vote vote : votes) {
+      writeVote(out, vote);
+    }
+  }
+
+  private static List<Vote> readVotes(DataInputStream in) throws IOException {
+    int count = readLength(in);
+    List<Vote> votes = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      votes.add(readVote(in));
+    }
+    return votes;
+  }
+
+  private static void writeVote(DataOutputStream out, Vote vote) throws IOException {
+    out.writeBoolean(vote.isEncrypted());
+    writeString(out, vote.getId());
+    writeString(out, vote.getQuestionId());
+    if (vote.isEncrypted()) {
+      writeString(out, ((EncryptedVote) vote).getVote());
+    } else {
+      out.writeInt(((PlainVote) vote).getVote());
+    }
+  }
+
+  private static Vote readVote(DataInputStream in) throws IOException {
+    boolean encrypted = in.readBoolean();
+    String id = readString(in);
+    String questionId = readString(in);
+    return encrypted
+        ? new EncryptedVote(id, questionId, readString(in))
+        : new PlainVote(id, questionId, in.readInt());
+  }
+
+  private static void writeRollCall(DataOutputStream out, RollCall rollCall) throws IOException {
+    writeString(out, rollCall.getId());
+    writeString(out, rollCall.getPersistentId());
+    writeString(out, rollCall.getName());
+    out.writeLong(rollCall.getCreation());
+    out.writeLong(rollCall.getStart());
+    out.writeLong(rollCall.getEnd());
+    writeEnum(out, rollCall.getState());
+    writeKeys(out, rollCall.getAttendees());
+    writeString(out, rollCall.getLocation());
+    writeString(out, rollCall.getDescription());
+  }
+
+  private static RollCall readRollCall(DataInputStream in) throws IOException {
+    return new RollCall(
+        readString(in),
+        readString(in),
+        readString(in),
+        in.readLong(),
+        in.readLong(),
+        in.readLong(),
+        readEnum(in, EventState.class),
+        readPublicKeys(in),
+        readString(in),
+        readString(in));
+  }
+
+  private static void writeMeeting(DataOutputStream out, Meeting meeting) throws IOException {
+    writeString(out, meeting.getId());
+    writeString(out, meeting.getName());
+    out.writeLong(meeting.getCreation());
+    out.writeLong(meeting.getStartTimestamp());
+    // An unset end is exposed as the maximum timestamp
+    long end = meeting.getEndTimestamp();
+    out.writeLong(end == Long.MAX_VALUE ? 0 : end);
+    writeString(out, meeting.getLocation());
+    out.writeLong(meeting.getLastModified());
+    writeString(out, meeting.getModificationId());
+
+    List<String> signatures = meeting.getModificationSignatures();
+    writeLength(out, signatures.size());
+    for (String signature : signatures) {
+      writeString(out, signature);
+    }
+  }
+
+  private static Meeting readMeeting(DataInputStream in) throws IOException {
+    String id = readString(in);
+    String name = readString(in);
+    long creation = in.readLong();
+    long start = in.readLong();
+    long end = in.readLong();
+    String location = readString(in);
+    long lastModified = in.readLong();
+    String modificationId = readString(in);
+
+    int signatureCount = readLength(in);
+    List<String> signatures = new ArrayList<>(signatureCount);
+    for (int i = 0; i < signatureCount; i++) {
+      signatures.add(readString(in));
+    }
+
+    return new Meeting(
+        id, name, creation, start, end, location, lastModified, modificationId, signatures);
+  }
+
+  /* ----  Social media  ---- */
+
+  private static void writeChirp(DataOutputStream out, Chirp chirp) throws IOException {
+    writeKey(out, chirp.getId());
+    writeKey(out, chirp.getSender());
+    writeString(out, chirp.getText());
+    out.writeLong(chirp.getTimestamp());
+    out.writeBoolean(chirp.isDeleted());
+    writeKey(out, chirp.getParentId());
+  }
+
+  private static Chirp readChirp(DataInputStream in) throws IOException {
+    return new Chirp(
+        readMessageID(in),
+        readPublicKey(in),
+        readString(in),
+        in.readLong(),
+        in.readBoolean(),
+        readMessageID(in));
+  }
+
+  private static void writeReaction(DataOutputStream out, Reaction reaction) throws IOException {
+    writeKey(out, reaction.getId());
+    writeKey(out, reaction.getSender());
+    writeString(out, reaction.getCodepoint());
+    writeKey(out, reaction.getChirpId());
+    out.writeLong(reaction.getTimestamp());
+    out.writeBoolean(reaction.isDeleted());
+  }
+
+  private static Reaction readReaction(DataInputStream in) throws IOException {
+    return new Reaction(
+        readMessageID(in),
+        readPublicKey(in),
+        readString(in),
+        readMessageID(in),
+        in.readLong(),
+        in.readBoolean());
+  }
+
+  /* ----  Digital cash  ---- */
+
+  private static void writeTransaction(DataOutputStream out, TransactionObject transaction)
+      throws IOException {
+    writeChannel(out, transaction.getChannel());
+    out.writeInt(transaction.getVersion());
+
+    List<InputObject> inputs = transaction.getInputs();
+    writeLength(out, inputs.size());
+    for (InputObject input : inputs) {
+      writeString(out, input.getTxOutHash());
+      out.writeInt(input.getTxOutIndex());
+      ScriptInputObject script = input.getScript();
+      writeString(out, script.getType());
+      writeKey(out, script.getPubKey());
+      writeKey(out, script.getSig());
+    }
+
+    List<OutputObject> outputs = transaction.getOutputs();
+    writeLength(out, outputs.size());
+    for (OutputObject output : outputs) {
+      out.writeLong(output.getValue());
+      ScriptOutputObject script = output.getScript();
+      writeString(out, script.getType());
+      writeString(out, script.getPubKeyHash());
+    }
+
+    out.writeLong(transaction.getLockTime());
+    writeString(out, transaction.getTransactionId());
+  }
+
+  private static TransactionObject readTransaction(DataInputStream in) throws IOException {
+    Channel channel = readChannel(in);
+    int version = in.readInt();
+
+    int inputCount = readLength(in);
+    List<InputObject> inputs = new ArrayList<>(inputCount);
+    for (int i = 0; i < inputCount; i++) {
+      String txOutHash = readString(in);
+      int txOutIndex = in.readInt();
+      ScriptInputObject script =
+          new ScriptInputObject(readString(in), readPublicKey(in), readSignature(in));
+      inputs.add(new InputObject(txOutHash, txOutIndex, script));
+    }
+
+    int outputCount = readLength(in);
+    List<OutputObject> outputs = new ArrayList<>(outputCount);
+    for (int i = 0; i < outputCount; i++) {
+      long value = in.readLong();
+      outputs.add(new OutputObject(value, new ScriptOutputObject(readString(in), readString(in))));
+    }
+
+    return new TransactionObject(
+        channel, version, inputs, outputs, in.readLong(), readString(in));
+  }
+
+  /* ----  Witnessing  ---- */
+
+  private static void writeWitnessMessage(DataOutputStream out, WitnessMessage witnessMessage)
+      throws IOException {
+    writeKey(out, witnessMessage.getMessageId());
+    writeKeys(out, witnessMessage.getWitnesses());
+    writeString(out, witnessMessage.getTitle());
+    writeString(out, witnessMessage.getDescription());
+    out.writeLong(witnessMessage.getTimestamp());
+  }
+
+  private static WitnessMessage readWitnessMessage(DataInputStream in) throws IOException {
+    return new WitnessMessage(
+        readMessageID(in), readPublicKeys(in), readString(in), readString(in), in.readLong());
+  }
+
+  /* ----  Primitives  ---- */
+
+  /** Write a non negative integer on as few bytes as possible, 7 bits per byte */
+  private static void writeLength(DataOutputStream out, int length) throws IOException {
+    while ((length & ~0x7F) != 0) {
+      out.writeByte((length & 0x7F) | 0x80);
+      length >>>= 7;
+    }
+    out.writeByte(length);
+  }
+
+  private static int readLength(DataInputStream in) throws IOException {
+    int length = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int b = in.readUnsignedByte();
+      length |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return length;
+      }
+    }
+    throw new IOException("Malformed length");
+  }
+
+  /** Null is written as a length of 0, the other arrays with their length shifted by one */
+  private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+    if (bytes == null) {
+      writeLength(out, 0);
+    } else {
+      writeLength(out, bytes.length + 1);
+      out.write(bytes);
+    }
+  }
+
+  private static byte[] readBytes(DataInputStream in) throws IOException {
+    int length = readLength(in);
+    if (length == 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length - 1];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    writeBytes(out, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = readBytes(in);
+    return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeNullableLong(DataOutputStream out, Long value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeLong(value);
+    }
+  }
+
+  private static Long readNullableLong(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readLong() : null;
+  }
+
+  private static void writeEnum(DataOutputStream out, Enum<?> value) throws IOException {
+    // The name is stored rather than the ordinal, to be robust to a reordering of the constants
+    writeString(out, value == null ? null : value.name());
+  }
+
+  private static <E extends Enum<E>> E readEnum(DataInputStream in, Class<E> type)
+      throws IOException {
+    String name = readString(in);
+    return name == null ? null : Enum.valueOf(type, name);
+  }
+
+  private static void writeChannel(DataOutputStream out, Channel channel) throws IOException {
+    writeString(out, channel == null ? null : channel.getAsString());
+  }
+
+  private static Channel readChannel(DataInputStream in) throws IOException {
+    String channel = readString(in);
+    return channel == null ? null : Channel.fromString(channel);
+  }
+
+  private static void writeKey(DataOutputStream out, Base64URLData key) throws IOException {
+    if (key == null) {
+      writeLength(out, 0);
+    } else {
+      // Same layout as writeBytes, without copying the key
+      writeLength(out, key.length() + 1);
+      key.writeTo(out);
+    }
+  }
+
+  private static PublicKey readPublicKey(DataInputStream in) throws IOException {
+    byte[] bytes = readBytes(in);
+    return bytes == null ? null : new PublicKey(bytes);
+  }
+
+  private static MessageID readMessageID(DataInputStream in) throws IOException {
+    byte[] bytes = readBytes(in);
+    return bytes == null ? null : new MessageID(bytes);
+  }
+
+  private static Signature readSignature(DataInputStream in) throws IOException {
+    byte[] bytes = readBytes(in);
+    return bytes == null ? null : new Signature(bytes);
+  }
+
+  private static void writeKeys(DataOutputStream out, Set<PublicKey> keys) throws IOException {
+    writeLength(out, keys.size());
+    for (PublicKey key : keys) {
+      writeKey(out, key);
+    }
+  }
+
+  private static Set<PublicKey> readPublicKeys(DataInputStream in) throws IOException {
+    int count = readLength(in);
+    Set<PublicKey> keys = new HashSet<>();
+    for (int i = 0; i < count; i++) {
+      keys.add(readPublicKey(in));
+    }
+    return keys;
+  }
+
+  @FunctionalInterface
+  private interface Encoder<T> {
+    void write(DataOutputStream out, T value) throws IOException;
+  }
+
+  @FunctionalInterface
+  private interface Decoder<T> {
+    T read(DataInputStream in) throws IOException;
+  }
+}
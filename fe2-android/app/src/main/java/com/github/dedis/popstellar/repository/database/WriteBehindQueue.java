@@ -0,0 +1,226 @@
+package com.github.dedis.popstellar.repository.database;
+
+import androidx.annotation.Nullable;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+import io.reactivex.Completable;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.CompletableSubject;
+import timber.log.Timber;
+
+/**
+ * Write-behind queue persisting the entities of a DAO in batches.
+ *
+ * <p>Instead of one transaction per entity, the enqueued entities are kept in memory and written
+ * together with a single insertAll call, once enough of them are pending or after a short delay.
+ * Pending writes of an entity with the same key are coalesced, only the last one is written.
+ *
+ * <p>The batches are written one after the other, in the order they were formed, so that an older
+ * version of an entity never overwrites a newer one. The entities are visible through {@link
+ * #getPending(Object)} until their batch is written, for the repositories reading back from the
+ * disk.
+ *
+ * <p>By default, the writes of all the queues run on a single shared thread, that stops once no
+ * write is left. A queue only holds a worker of that thread while it has writes to run.
+ *
+ * @param <K> type of the primary key of the entities
+ * @param <E> type of the entities
+ */
+public class WriteBehindQueue<K, E> {
+
+  private static final String TAG = WriteBehindQueue.class.getSimpleName();
+
+  /** Number of pending entities that triggers a write */
+  public static final int MAX_BATCH_SIZE = 256;
+
+  /** Delay in milliseconds after which pending entities are written */
+  public static final long FLUSH_DELAY_MS = 500;
+
+  /** Delay in seconds after which the idle writer thread stops */
+  private static final long WRITER_KEEP_ALIVE_S = 5;
+
+  /** Scheduler of the writes, its single thread serializes the writes of all the queues */
+  private static final Scheduler WRITER = Schedulers.from(newWriterExecutor());
+
+  private final String name;
+  private final Function<E, K> keyExtractor;
+  private final Function<List<E>, Completable> writer;
+  private final int maxBatchSize;
+  private final long flushDelayMs;
+  private final Scheduler scheduler;
+
+  // A worker runs its tasks sequentially, it serializes the writes of the batches. It is only
+  // created while writes are scheduled and disposed once they are done.
+  @Nullable private Scheduler.Worker worker;
+  private int scheduledWrites;
+
+  private Map<K, E> pending = new LinkedHashMap<>();
+  // Entities whose batch is being written
+  private final Map<K, E> inFlight = new HashMap<>();
+  private Disposable scheduledFlush;
+
+  /**
+   * @param name name of the persisted entities, used in the logs
+   * @param keyExtractor function returning the primary key of an entity
+   * @param writer function writing a batch of entities in a single transaction
+   */
+  public WriteBehindQueue(
+      String name, Function<E, K> keyExtractor, Function<List<E>, Completable> writer) {
+    this(name, keyExtractor, writer, MAX_BATCH_SIZE, FLUSH_DELAY_MS, WRITER);
+  }
+
+  public WriteBehindQueue(
+      String name,
+      Function<E, K> keyExtractor,
+      Function<List<E>, Completable> writer,
+      int maxBatchSize,
+      long flushDelayMs,
+      Scheduler scheduler) {
+    this.name = name;
+    this.keyExtractor = keyExtractor;
+    this.writer = writer;
+    this.maxBatchSize = maxBatchSize;
+    this.flushDelayMs = flushDelayMs;
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Enqueue the entity to be written
+   *
+   * @param entity the entity to persist
+   */
+  public synchronized void enqueue(E entity) {
+    pending.put(keyExtractor.apply(entity), entity);
+    if (pending.size() >= maxBatchSize) {
+      flush();
+    } else if (scheduledFlush == null) {
+      scheduledFlush = getWorker().schedule(this::flush, flushDelayMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Retrieve an entity that is not written yet
+   *
+   * @param key primary key of the entity
+   * @return the entity if it is waiting to be written, null otherwise
+   */
+  @Nullable
+  public synchronized E getPending(K key) {
+    E entity = pending.get(key);
+    return entity != null ? entity : inFlight.get(key);
+  }
+
+  /** Write all the pending entities now. This is called when the application is stopped. */
+  public synchronized void flush() {
+    if (scheduledFlush != null) {
+      scheduledFlush.dispose();
+      scheduledFlush = null;
+    }
+    if (pending.isEmpty()) {
+      releaseWorkerIfIdle();
+      return;
+    }
+
+    List<E> batch = new ArrayList<>(pending.values());
+    inFlight.putAll(pending);
+    pending = new LinkedHashMap<>();
+    // The write is not bound to the lifecycle of the repositories, it has to complete even when
+    // the application is stopped
+    scheduleWrite(() -> write(batch));
+  }
+
+  /**
+   * Run the given operation once all the enqueued entities are written, and before the ones
+   * enqueued afterwards. This is used for the deletions, that must not be undone by a pending
+   * write.
+   *
+   * @param operation the database operation to run
+   * @return a completable of the operation, that runs even without subscriber
+   */
+  public synchronized Completable runAfterWrites(Completable operation) {
+    flush();
+
+    CompletableSubject done = CompletableSubject.create();
+    scheduleWrite(
+        () -> {
+          try {
+            // The operation runs on the writer as well, waiting for it keeps the writes in order
+            operation.blockingAwait();
+            done.onComplete();
+          } catch (RuntimeException e) {
+            done.onError(e);
+          }
+        });
+    return done;
+  }
+
+  private Scheduler.Worker getWorker() {
+    if (worker == null) {
+      worker = scheduler.createWorker();
+    }
+    return worker;
+  }
+
+  private void scheduleWrite(Runnable write) {
+    scheduledWrites++;
+    getWorker()
+        .schedule(
+            () -> {
+              try {
+                write.run();
+              } finally {
+                writeDone();
+              }
+            });
+  }
+
+  private synchronized void writeDone() {
+    scheduledWrites--;
+    releaseWorkerIfIdle();
+  }
+
+  private void releaseWorkerIfIdle() {
+    if (worker != null && scheduledWrites == 0 && scheduledFlush == null) {
+      worker.dispose();
+      worker = null;
+    }
+  }
+
+  private static ExecutorService newWriterExecutor() {
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            1,
+            1,
+            WRITER_KEEP_ALIVE_S,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+              Thread thread = new Thread(runnable, "database-writer");
+              thread.setDaemon(true);
+              return thread;
+            });
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  private void write(List<E> batch) {
+    try {
+      writer.apply(batch).blockingAwait();
+      Timber.tag(TAG).d("Successfully persisted %d %s", batch.size(), name);
+    } catch (RuntimeException e) {
+      Timber.tag(TAG).e(e, "Error in persisting %d %s", batch.size(), name);
+    }
+
+    synchronized (this) {
+      for (E entity : batch) {
+        // A newer version of the entity could already be waiting in a following batch
+        inFlight.remove(keyExtractor.apply(entity), entity);
+      }
+    }
+  }
+}
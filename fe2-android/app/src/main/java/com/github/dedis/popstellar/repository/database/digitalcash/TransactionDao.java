@@ -15,6 +15,9 @@ public interface TransactionDao {
   @Insert(onConflict = OnConflictStrategy.REPLACE)
   Completable insert(TransactionEntity transactionEntity);
 
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  Completable insertAll(List<TransactionEntity> transactionEntities);
+
   @Query("SELECT `transaction` FROM transactions WHERE lao_id = :laoId")
   Single<List<TransactionObject>> getTransactionsByLaoId(String laoId);
 
@@ -15,6 +15,9 @@ public interface ElectionDao {
   @Insert(onConflict = OnConflictStrategy.REPLACE)
   Completable insert(ElectionEntity electionEntity);
 
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  Completable insertAll(List<ElectionEntity> electionEntities);
+
   /**
    * This function is a query execution to search for elections that are contained in a given lao.
    *
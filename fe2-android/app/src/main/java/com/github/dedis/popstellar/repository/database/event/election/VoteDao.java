@@ -0,0 +1,27 @@
+package com.github.dedis.popstellar.repository.database.event.election;
+
+import androidx.room.*;
+
+import java.util.List;
+
+import io.reactivex.Completable;
+import io.reactivex.Single;
+
+@Dao
+public interface VoteDao {
+
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  Completable insert(VoteEntity voteEntity);
+
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  Completable insertAll(List<VoteEntity> voteEntities);
+
+  /**
+   * This function is a query execution to search for the ballots of the elections of a given lao.
+   *
+   * @param laoId identifier of the lao where to search the ballots
+   * @return an emitter of a list of ballots
+   */
+  @Query("SELECT * FROM votes WHERE lao_id = :laoId")
+  Single<List<VoteEntity>> getVotesByLaoId(String laoId);
+}
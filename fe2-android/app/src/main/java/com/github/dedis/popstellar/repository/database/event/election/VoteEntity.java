@@ -0,0 +1,77 @@
+package com.github.dedis.popstellar.repository.database.event.election;
+
+import androidx.annotation.NonNull;
+import androidx.room.*;
+
+import com.github.dedis.popstellar.model.Immutable;
+import com.github.dedis.popstellar.model.network.method.message.data.election.Vote;
+import com.github.dedis.popstellar.model.objects.security.MessageID;
+import com.github.dedis.popstellar.model.objects.security.PublicKey;
+
+import java.util.List;
+
+/** Last ballot cast by a voter in an election */
+@Entity(
+    tableName = "votes",
+    primaryKeys = {"election_id", "sender"})
+@Immutable
+public class VoteEntity {
+
+  @ColumnInfo(name = "election_id")
+  @NonNull
+  private final String electionId;
+
+  @ColumnInfo(name = "sender")
+  @NonNull
+  private final PublicKey sender;
+
+  @ColumnInfo(name = "lao_id", index = true)
+  @NonNull
+  private final String laoId;
+
+  @ColumnInfo(name = "message_id")
+  @NonNull
+  private final MessageID messageId;
+
+  @ColumnInfo(name = "votes")
+  @NonNull
+  private final List<Vote> votes;
+
+  public VoteEntity(
+      @NonNull String electionId,
+      @NonNull PublicKey sender,
+      @NonNull String laoId,
+      @NonNull MessageID messageId,
+      @NonNull List<Vote> votes) {
+    this.electionId = electionId;
+    this.sender = sender;
+    this.laoId = laoId;
+    this.messageId = messageId;
+    this.votes = votes;
+  }
+
+  @NonNull
+  public String getElectionId() {
+    return electionId;
+  }
+
+  @NonNull
+  public PublicKey getSender() {
+    return sender;
+  }
+
+  @NonNull
+  public String getLaoId() {
+    return laoId;
+  }
+
+  @NonNull
+  public MessageID getMessageId() {
+    return messageId;
+  }
+
+  @NonNull
+  public List<Vote> getVotes() {
+    return votes;
+  }
+}
@@ -15,6 +15,9 @@ public interface MeetingDao {
   @Insert(onConflict = OnConflictStrategy.REPLACE)
   Completable insert(MeetingEntity meetingEntity);
 
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  Completable insertAll(List<MeetingEntity> meetingEntities);
+
   /**
    * This function is a query execution to search for meetings that are contained in a given lao.
    *
@@ -15,6 +15,9 @@ public interface RollCallDao {
   @Insert(onConflict = OnConflictStrategy.REPLACE)
   Completable insert(RollCallEntity rollCallEntity);
 
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  Completable insertAll(List<RollCallEntity> rollCallEntities);
+
   /**
    * This function is a query execution to search for rollcalls in a given lao.
    *
@@ -0,0 +1,27 @@
+package com.github.dedis.popstellar.repository.database.lao;
+
+import androidx.room.*;
+
+import java.util.List;
+
+import io.reactivex.Completable;
+import io.reactivex.Single;
+
+@Dao
+public interface ElectInstanceDao {
+
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  Completable insertAll(List<ElectInstanceEntity> electInstanceEntities);
+
+  /**
+   * This function is a query execution to search for the elect instances of all the laos, which
+   * are loaded together with the laos.
+   *
+   * @return an emitter of a list of elect instances
+   */
+  @Query("SELECT * FROM elect_instances")
+  Single<List<ElectInstanceEntity>> getAllElectInstances();
+
+  @Query("SELECT * FROM elect_instances WHERE lao_id = :laoId")
+  List<ElectInstanceEntity> getElectInstancesByLaoId(String laoId);
+}
@@ -0,0 +1,49 @@
+package com.github.dedis.popstellar.repository.database.lao;
+
+import androidx.annotation.NonNull;
+import androidx.room.*;
+
+import com.github.dedis.popstellar.model.Immutable;
+import com.github.dedis.popstellar.model.objects.ElectInstance;
+import com.github.dedis.popstellar.model.objects.security.MessageID;
+
+/** Consensus instance started by an Elect message, stored apart from its lao */
+@Entity(tableName = "elect_instances")
+@Immutable
+public class ElectInstanceEntity {
+
+  @PrimaryKey
+  @ColumnInfo(name = "message_id")
+  @NonNull
+  private final MessageID messageId;
+
+  @ColumnInfo(name = "lao_id", index = true)
+  @NonNull
+  private final String laoId;
+
+  @ColumnInfo(name = "elect_instance")
+  @NonNull
+  private final ElectInstance electInstance;
+
+  public ElectInstanceEntity(
+      @NonNull MessageID messageId, @NonNull String laoId, @NonNull ElectInstance electInstance) {
+    this.messageId = messageId;
+    this.laoId = laoId;
+    this.electInstance = electInstance;
+  }
+
+  @NonNull
+  public MessageID getMessageId() {
+    return messageId;
+  }
+
+  @NonNull
+  public String getLaoId() {
+    return laoId;
+  }
+
+  @NonNull
+  public ElectInstance getElectInstance() {
+    return electInstance;
+  }
+}
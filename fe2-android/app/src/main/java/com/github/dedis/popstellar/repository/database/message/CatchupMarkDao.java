@@ -0,0 +1,23 @@
+package com.github.dedis.popstellar.repository.database.message;
+
+import androidx.annotation.Nullable;
+import androidx.room.*;
+
+import io.reactivex.Completable;
+
+@Dao
+public interface CatchupMarkDao {
+
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  Completable insert(CatchupMarkEntity catchupMark);
+
+  /**
+   * This function is a query execution to search for the catchup mark of a given channel.
+   *
+   * @param channel string representation of the channel
+   * @return the mark of the channel, or null if no catchup of the channel was handled yet
+   */
+  @Nullable
+  @Query("SELECT * FROM catchup_marks WHERE channel = :channel")
+  CatchupMarkEntity getCatchupMark(String channel);
+}
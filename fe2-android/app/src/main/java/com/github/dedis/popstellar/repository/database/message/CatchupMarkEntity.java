@@ -0,0 +1,60 @@
+package com.github.dedis.popstellar.repository.database.message;
+
+import androidx.annotation.NonNull;
+import androidx.room.*;
+
+import com.github.dedis.popstellar.model.Immutable;
+import com.github.dedis.popstellar.model.objects.security.MessageID;
+
+/**
+ * Position in the history of a channel up to which the messages retrieved by a catchup were all
+ * handled. The following catchups of the channel only need to handle the messages after it.
+ */
+@Entity(tableName = "catchup_marks")
+@Immutable
+public class CatchupMarkEntity {
+
+  @PrimaryKey
+  @ColumnInfo(name = "channel")
+  @NonNull
+  private final String channel;
+
+  /** Identifier of the last handled message */
+  @ColumnInfo(name = "message_id")
+  @NonNull
+  private final MessageID messageId;
+
+  /** Number of messages of the channel up to the last handled one, included */
+  @ColumnInfo(name = "message_count")
+  private final int messageCount;
+
+  /** Time at which the mark was set, in seconds */
+  @ColumnInfo(name = "timestamp")
+  private final long timestamp;
+
+  public CatchupMarkEntity(
+      @NonNull String channel, @NonNull MessageID messageId, int messageCount, long timestamp) {
+    this.channel = channel;
+    this.messageId = messageId;
+    this.messageCount = messageCount;
+    this.timestamp = timestamp;
+  }
+
+  @NonNull
+  public String getChannel() {
+    return channel;
+  }
+
+  @NonNull
+  public MessageID getMessageId() {
+    return messageId;
+  }
+
+  public int getMessageCount() {
+    return messageCount;
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+}
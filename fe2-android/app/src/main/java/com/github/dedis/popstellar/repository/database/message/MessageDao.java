@@ -15,9 +15,15 @@ public interface MessageDao {
   @Insert(onConflict = OnConflictStrategy.REPLACE)
   Completable insert(MessageEntity message);
 
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  Completable insertAll(List<MessageEntity> messageEntities);
+
   @Query("SELECT * FROM messages WHERE message_id = :messageId")
   MessageEntity getMessageById(MessageID messageId);
 
+  @Query("SELECT message_id FROM messages")
+  Single<List<MessageID>> getAllMessageIds();
+
   @Query("SELECT * FROM messages LIMIT :n")
   Single<List<MessageEntity>> takeFirstNMessages(int n);
 }
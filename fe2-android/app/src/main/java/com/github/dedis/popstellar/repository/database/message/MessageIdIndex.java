@@ -0,0 +1,48 @@
+package com.github.dedis.popstellar.repository.database.message;
+
+import com.github.dedis.popstellar.model.objects.security.MessageID;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory membership index over the ids of the stored messages.
+ *
+ * <p>The ids are kept as they are, so both answers are exact: a message found in the index is
+ * stored, without having to confirm it on the disk.
+ */
+public class MessageIdIndex {
+
+  private final Set<MessageID> ids = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Add the given id to the index
+   *
+   * @param messageID the id of the stored message
+   */
+  public void add(MessageID messageID) {
+    ids.add(messageID);
+  }
+
+  /**
+   * Add all the given ids to the index
+   *
+   * @param messageIDs the ids of the stored messages
+   */
+  public void addAll(Collection<MessageID> messageIDs) {
+    ids.addAll(messageIDs);
+  }
+
+  /**
+   * @param messageID the id of the message
+   * @return false if the message is not stored, true if it is
+   */
+  public boolean contains(MessageID messageID) {
+    return ids.contains(messageID);
+  }
+
+  public int size() {
+    return ids.size();
+  }
+}
@@ -3,11 +3,11 @@ package com.github.dedis.popstellar.repository.database.socialmedia;
 import androidx.room.*;
 
 import com.github.dedis.popstellar.model.objects.Chirp;
+import com.github.dedis.popstellar.model.objects.security.MessageID;
 
 import java.util.List;
 
-import io.reactivex.Completable;
-import io.reactivex.Single;
+import io.reactivex.*;
 
 @Dao
 public interface ChirpDao {
@@ -15,6 +15,45 @@ public interface ChirpDao {
   @Insert(onConflict = OnConflictStrategy.REPLACE)
   Completable insert(ChirpEntity chirpEntity);
 
-  @Query("SELECT chirp FROM chirps WHERE lao_id = :laoId")
-  Single<List<Chirp>> getChirpsByLaoId(String laoId);
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  Completable insertAll(List<ChirpEntity> chirpEntities);
+
+  /**
+   * This function is a query execution to search for the most recent chirps of a given lao.
+   *
+   * @param laoId identifier of the lao where to search the chirps
+   * @param limit maximum number of chirps to return
+   * @return an emitter of the chirps, from the newest to the oldest
+   */
+  @Query(
+      "SELECT chirp FROM chirps WHERE lao_id = :laoId "
+          + "ORDER BY timestamp DESC, chirp_id DESC LIMIT :limit")
+  Single<List<Chirp>> getLatestChirps(String laoId, int limit);
+
+  /**
+   * This function is a query execution to search for the chirps of a given lao that come after a
+   * given chirp in the feed. The position of the chirp is used instead of an offset so that the
+   * chirps already read are not scanned again.
+   *
+   * @param laoId identifier of the lao where to search the chirps
+   * @param timestamp timestamp of the last chirp of the previous page
+   * @param chirpId identifier of the last chirp of the previous page
+   * @param limit maximum number of chirps to return
+   * @return an emitter of the chirps, from the newest to the oldest
+   */
+  @Query(
+      "SELECT chirp FROM chirps WHERE lao_id = :laoId "
+          + "AND (timestamp < :timestamp OR (timestamp = :timestamp AND chirp_id < :chirpId)) "
+          + "ORDER BY timestamp DESC, chirp_id DESC LIMIT :limit")
+  Single<List<Chirp>> getChirpsBefore(String laoId, long timestamp, MessageID chirpId, int limit);
+
+  /**
+   * This function is a query execution to search for a chirp of a given lao by its identifier.
+   *
+   * @param laoId identifier of the lao of the chirp
+   * @param chirpId identifier of the chirp
+   * @return an emitter of the chirp, completing without value if it is not stored
+   */
+  @Query("SELECT chirp FROM chirps WHERE lao_id = :laoId AND chirp_id = :chirpId")
+  Maybe<Chirp> getChirp(String laoId, MessageID chirpId);
 }
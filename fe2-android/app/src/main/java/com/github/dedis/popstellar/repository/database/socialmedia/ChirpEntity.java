@@ -7,7 +7,13 @@ import com.github.dedis.popstellar.model.Immutable;
 import com.github.dedis.popstellar.model.objects.Chirp;
 import com.github.dedis.popstellar.model.objects.security.MessageID;
 
-@Entity(tableName = "chirps")
+/**
+ * The feed is read from the newest to the oldest chirp of a lao, so the index on (lao_id,
+ * timestamp, chirp_id) lets the pages be read without sorting the chirps of the lao.
+ */
+@Entity(
+    tableName = "chirps",
+    indices = {@Index(value = {"lao_id", "timestamp", "chirp_id"})})
 @Immutable
 public class ChirpEntity {
 
@@ -16,23 +22,28 @@ public class ChirpEntity {
   @NonNull
   private final MessageID chirpId;
 
-  @ColumnInfo(name = "lao_id", index = true)
+  @ColumnInfo(name = "lao_id")
   @NonNull
   private final String laoId;
 
+  @ColumnInfo(name = "timestamp")
+  private final long timestamp;
+
   @ColumnInfo(name = "chirp")
   @NonNull
   private final Chirp chirp;
 
-  public ChirpEntity(@NonNull MessageID chirpId, @NonNull String laoId, @NonNull Chirp chirp) {
+  public ChirpEntity(
+      @NonNull MessageID chirpId, @NonNull String laoId, long timestamp, @NonNull Chirp chirp) {
     this.chirpId = chirpId;
     this.laoId = laoId;
+    this.timestamp = timestamp;
     this.chirp = chirp;
   }
 
   @Ignore
   public ChirpEntity(@NonNull String laoId, @NonNull Chirp chirp) {
-    this(chirp.getId(), laoId, chirp);
+    this(chirp.getId(), laoId, chirp.getTimestamp(), chirp);
   }
 
   @NonNull
@@ -45,6 +56,10 @@ public class ChirpEntity {
     return laoId;
   }
 
+  public long getTimestamp() {
+    return timestamp;
+  }
+
   @NonNull
   public Chirp getChirp() {
     return chirp;
@@ -7,8 +7,7 @@ import com.github.dedis.popstellar.model.objects.security.MessageID;
 
 import java.util.List;
 
-import io.reactivex.Completable;
-import io.reactivex.Single;
+import io.reactivex.*;
 
 @Dao
 public interface ReactionDao {
@@ -16,6 +15,24 @@ public interface ReactionDao {
   @Insert(onConflict = OnConflictStrategy.REPLACE)
   Completable insert(ReactionEntity reactionEntity);
 
-  @Query("SELECT reaction FROM reactions WHERE chirp_id = :chirpId")
-  Single<List<Reaction>> getReactionsByChirpId(MessageID chirpId);
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  Completable insertAll(List<ReactionEntity> reactionEntities);
+
+  /**
+   * This function is a query execution to search for the reactions of several chirps at once.
+   *
+   * @param chirpIds identifiers of the chirps
+   * @return an emitter of a list of reactions
+   */
+  @Query("SELECT reaction FROM reactions WHERE chirp_id IN (:chirpIds)")
+  Single<List<Reaction>> getReactionsByChirpIds(List<MessageID> chirpIds);
+
+  /**
+   * This function is a query execution to search for a reaction by its identifier.
+   *
+   * @param reactionId identifier of the reaction
+   * @return an emitter of the reaction, completing without value if it is not stored
+   */
+  @Query("SELECT reaction FROM reactions WHERE reaction_id = :reactionId")
+  Maybe<Reaction> getReaction(MessageID reactionId);
 }
@@ -17,6 +17,9 @@ public interface WitnessingDao {
   @Insert(onConflict = OnConflictStrategy.REPLACE)
   Completable insert(WitnessingEntity witnessingEntity);
 
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  Completable insertAll(List<WitnessingEntity> witnessingEntities);
+
   @Query("SELECT message FROM witness_messages WHERE lao_id = :laoId")
   Single<List<WitnessMessage>> getWitnessMessagesByLao(String laoId);
 
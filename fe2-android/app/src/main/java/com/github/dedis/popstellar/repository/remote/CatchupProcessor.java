@@ -0,0 +1,350 @@
+package com.github.dedis.popstellar.repository.remote;
+
+import androidx.annotation.Nullable;
+
+import com.github.dedis.popstellar.model.network.method.message.MessageGeneral;
+import com.github.dedis.popstellar.model.network.method.message.data.Objects;
+import com.github.dedis.popstellar.model.objects.Channel;
+import com.github.dedis.popstellar.model.objects.security.MessageID;
+import com.github.dedis.popstellar.repository.database.message.CatchupMarkEntity;
+import com.github.dedis.popstellar.utility.error.*;
+import com.github.dedis.popstellar.utility.error.keys.NoRollCallException;
+import com.github.dedis.popstellar.utility.handler.MessageHandler;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import io.reactivex.*;
+import timber.log.Timber;
+
+/**
+ * Handles the messages retrieved by a catchup.
+ *
+ * <p>The messages are split in partitions by object type, keeping their order inside a partition.
+ * A partition is only handled once the partitions it depends on are, and independent partitions
+ * are handled in parallel on the given scheduler.
+ *
+ * <p>The messages that fail because an entity they refer to is not known yet are queued and
+ * retried once a partition that could create this entity made progress. The messages still not
+ * handled when no more progress can be made are returned to the caller instead of being lost.
+ */
+public class CatchupProcessor {
+
+  private static final String TAG = CatchupProcessor.class.getSimpleName();
+
+  /** Groups of messages that can be handled independently of each other */
+  enum Partition {
+    LAO,
+    ROLL_CALL(LAO),
+    MEETING(LAO),
+    ELECTION(LAO),
+    SOCIAL(LAO),
+    COIN(LAO, ROLL_CALL),
+    // Witness signatures refer to messages of any of the other partitions
+    WITNESS(LAO, ROLL_CALL, MEETING, ELECTION, SOCIAL, COIN);
+
+    private final Partition[] dependencies;
+
+    Partition(Partition... dependencies) {
+      this.dependencies = dependencies;
+    }
+
+    static Partition of(MessageGeneral message) {
+      Objects object = Objects.find(message.getData().getObject());
+      if (object == null) {
+        return WITNESS;
+      }
+
+      switch (object) {
+        case LAO:
+        case CONSENSUS: // Consensus messages modify the LAO, they are kept in its order
+          return LAO;
+        case ROLL_CALL:
+          return ROLL_CALL;
+        case MEETING:
+          return MEETING;
+        case ELECTION:
+          return ELECTION;
+        case CHIRP:
+        case REACTION:
+          return SOCIAL;
+        case COIN:
+          return COIN;
+        case MESSAGE:
+        default:
+          return WITNESS;
+      }
+    }
+  }
+
+  private final MessageHandler messageHandler;
+  private final Scheduler scheduler;
+
+  public CatchupProcessor(MessageHandler messageHandler, Scheduler scheduler) {
+    this.messageHandler = messageHandler;
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Handle the messages of a catchup
+   *
+   * @param messageSender the service used to send messages to the backend
+   * @param channel the channel on which the catchup was made
+   * @param messages the messages of the catchup, in their order of reception
+   * @return a single emitting the messages that could not be handled, in their original order
+   */
+  public Single<List<MessageGeneral>> process(
+      MessageSender messageSender, Channel channel, List<MessageGeneral> messages) {
+    if (messages.isEmpty()) {
+      return Single.just(Collections.emptyList());
+    }
+
+    Run run = new Run(messageSender, channel);
+
+    Map<Partition, List<Indexed>> partitions = new EnumMap<>(Partition.class);
+    for (int i = 0; i < messages.size(); i++) {
+      MessageGeneral message = messages.get(i);
+      partitions
+          .computeIfAbsent(Partition.of(message), p -> new ArrayList<>())
+          .add(new Indexed(i, message));
+    }
+
+    // A partition starts when all its dependencies are done. The dependencies are declared
+    // before the partition, so their completables are built first.
+    Map<Partition, Completable> tasks = new EnumMap<>(Partition.class);
+    for (Partition partition : Partition.values()) {
+      List<Completable> dependencies = new ArrayList<>();
+      for (Partition dependency : partition.dependencies) {
+        dependencies.add(tasks.get(dependency));
+      }
+
+      List<Indexed> partitionMessages = partitions.get(partition);
+      Completable task =
+          partitionMessages == null
+              ? Completable.complete()
+              : Completable.fromAction(() -> run.handleAll(partition, partitionMessages))
+                  .subscribeOn(scheduler);
+
+      tasks.put(partition, Completable.merge(dependencies).andThen(task).cache());
+    }
+
+    return Completable.merge(tasks.values())
+        .andThen(Single.fromCallable(run::retryFailed).subscribeOn(scheduler));
+  }
+
+  /**
+   * Count the messages at the start of a catchup that were already handled by a previous catchup
+   * of the same channel
+   *
+   * @param messages the messages of the catchup, in their order of reception
+   * @param mark the last handled message of the previous catchups, null if there is none
+   * @return the number of messages up to the mark, 0 if the mark is not in the catchup
+   */
+  static int countHandled(List<MessageGeneral> messages, @Nullable CatchupMarkEntity mark) {
+    if (mark == null) {
+      return 0;
+    }
+
+    // The history of a channel only grows, the mark is expected at the same position
+    int count = mark.getMessageCount();
+    if (count > 0
+        && count <= messages.size()
+        && messages.get(count - 1).getMessageId().equals(mark.getMessageId())) {
+      return count;
+    }
+
+    for (int i = 0; i < messages.size(); i++) {
+      if (messages.get(i).getMessageId().equals(mark.getMessageId())) {
+        return i + 1;
+      }
+    }
+    // The mark is unknown to the server, the whole history is handled again
+    return 0;
+  }
+
+  /**
+   * Select the messages of a catchup that are still to be handled
+   *
+   * <p>The messages of the already handled prefix whose object is only kept in memory are handled
+   * again, as they are lost when the application is restarted.
+   *
+   * @param messages the messages of the catchup, in their order of reception
+   * @param handled number of messages at the start of the catchup that were already handled
+   * @return the messages to handle, in their order of reception
+   */
+  static List<MessageGeneral> toHandle(List<MessageGeneral> messages, int handled) {
+    if (handled == 0) {
+      return messages;
+    }
+
+    List<MessageGeneral> selected = new ArrayList<>(messages.size() - handled);
+    for (MessageGeneral message : messages.subList(0, handled)) {
+      Objects object = Objects.find(message.getData().getObject());
+      if (object == null || !object.hasToBePersisted()) {
+        selected.add(message);
+      }
+    }
+    selected.addAll(messages.subList(handled, messages.size()));
+    return selected;
+  }
+
+  /**
+   * Count the messages at the start of a catchup that are all handled once it is processed
+   *
+   * @param messages the messages of the catchup, in their order of reception
+   * @param unhandled the messages that could not be handled
+   * @return the number of messages before the first unhandled one
+   */
+  static int countHandledAfter(List<MessageGeneral> messages, List<MessageGeneral> unhandled) {
+    if (unhandled.isEmpty()) {
+      return messages.size();
+    }
+
+    Set<MessageID> unhandledIds = new HashSet<>();
+    for (MessageGeneral message : unhandled) {
+      unhandledIds.add(message.getMessageId());
+    }
+    for (int i = 0; i < messages.size(); i++) {
+      if (unhandledIds.contains(messages.get(i).getMessageId())) {
+        return i;
+      }
+    }
+    return messages.size();
+  }
+
+  /** A message with its position in the catchup */
+  private static final class Indexed {
+
+    private final int index;
+    private final MessageGeneral message;
+
+    private Indexed(int index, MessageGeneral message) {
+      this.index = index;
+      this.message = message;
+    }
+  }
+
+  /** A message that failed to be handled, waiting on some partitions to make progress */
+  private static final class Failed {
+
+    private final Indexed indexed;
+    private final Partition partition;
+    private Partition[] awaited;
+    private int progressAtFailure;
+
+    private Failed(Indexed indexed, Partition partition, Partition[] awaited, int progress) {
+      this.indexed = indexed;
+      this.partition = partition;
+      this.awaited = awaited;
+      this.progressAtFailure = progress;
+    }
+  }
+
+  /** State of the processing of a single catchup */
+  private final class Run {
+
+    private final MessageSender messageSender;
+    private final Channel channel;
+
+    // Number of messages handled by each partition
+    private final AtomicIntegerArray handled = new AtomicIntegerArray(Partition.values().length);
+    private final Queue<Failed> failed = new ConcurrentLinkedQueue<>();
+
+    private Run(MessageSender messageSender, Channel channel) {
+      this.messageSender = messageSender;
+      this.channel = channel;
+    }
+
+    private void handleAll(Partition partition, List<Indexed> messages) {
+      for (Indexed indexed : messages) {
+        // The progress is taken before handling, as the other partitions keep going meanwhile
+        int[] before = snapshot();
+        Partition[] awaited = tryHandle(partition, indexed.message);
+        if (awaited != null) {
+          failed.add(new Failed(indexed, partition, awaited, progressOf(before, awaited)));
+        }
+      }
+    }
+
+    private List<MessageGeneral> retryFailed() {
+      List<Failed> pending = new ArrayList<>(failed);
+      pending.sort((f1, f2) -> Integer.compare(f1.indexed.index, f2.indexed.index));
+
+      boolean progress = true;
+      while (progress && !pending.isEmpty()) {
+        progress = false;
+        Iterator<Failed> iterator = pending.iterator();
+        while (iterator.hasNext()) {
+          Failed entry = iterator.next();
+          // Only retry when something the message waits on was handled since its last failure
+          int[] before = snapshot();
+          if (progressOf(before, entry.awaited) == entry.progressAtFailure) {
+            continue;
+          }
+
+          Partition[] awaited = tryHandle(entry.partition, entry.indexed.message);
+          if (awaited == null) {
+            iterator.remove();
+            progress = true;
+          } else {
+            entry.awaited = awaited;
+            entry.progressAtFailure = progressOf(before, awaited);
+          }
+        }
+      }
+
+      List<MessageGeneral> unhandled = new ArrayList<>(pending.size());
+      for (Failed entry : pending) {
+        unhandled.add(entry.indexed.message);
+      }
+      if (!unhandled.isEmpty()) {
+        Timber.tag(TAG)
+            .d("%d messages of the catchup on %s are not handled yet", unhandled.size(), channel);
+      }
+      return unhandled;
+    }
+
+    /**
+     * Try to handle the message
+     *
+     * @return null if the message was handled, the partitions it waits on otherwise
+     */
+    private Partition[] tryHandle(Partition partition, MessageGeneral message) {
+      try {
+        messageHandler.handleMessage(messageSender, channel, message);
+        handled.incrementAndGet(partition.ordinal());
+        return null;
+      } catch (UnknownLaoException e) {
+        return failure(e, Partition.LAO);
+      } catch (UnknownRollCallException | NoRollCallException e) {
+        return failure(e, Partition.ROLL_CALL);
+      } catch (UnknownElectionException e) {
+        return failure(e, Partition.ELECTION);
+      } catch (DataHandlingException | UnknownWitnessMessageException e) {
+        return failure(e, Partition.values());
+      }
+    }
+
+    private Partition[] failure(Exception e, Partition... awaited) {
+      Timber.tag(TAG).d(e, "Error while handling received catchup message, it will be retried");
+      return awaited;
+    }
+
+    private int[] snapshot() {
+      int[] progress = new int[handled.length()];
+      for (int i = 0; i < progress.length; i++) {
+        progress[i] = handled.get(i);
+      }
+      return progress;
+    }
+
+    private int progressOf(int[] snapshot, Partition[] partitions) {
+      int progress = 0;
+      for (Partition partition : partitions) {
+        progress += snapshot[partition.ordinal()];
+      }
+      return progress;
+    }
+  }
+}
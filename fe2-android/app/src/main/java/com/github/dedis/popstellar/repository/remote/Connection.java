@@ -2,6 +2,7 @@ package com.github.dedis.popstellar.repository.remote;
 
 import com.github.dedis.popstellar.model.network.GenericMessage;
 import com.github.dedis.popstellar.model.network.method.Message;
+import com.github.dedis.popstellar.model.network.method.Query;
 import com.tinder.scarlet.*;
 import com.tinder.scarlet.WebSocket.Event.*;
 
@@ -20,6 +21,7 @@ public class Connection {
   private final BehaviorSubject<Lifecycle.State> manualState;
   private final LAOService laoService;
   private final CompositeDisposable disposables;
+  private final ConnectionHealth health;
 
   public Connection(
       String url, LAOService laoService, BehaviorSubject<Lifecycle.State> manualState) {
@@ -27,20 +29,25 @@ public class Connection {
     this.manualState = manualState;
     messagesSubject = BehaviorSubject.create();
     disposables = new CompositeDisposable();
+    health = new ConnectionHealth();
     // Subscribe to the incoming messages of the websocket service
     // and simply hand them to the subject
     disposables.add(
         laoService
             .observeMessage()
             .doOnNext(msg -> Timber.tag(TAG).d("Received a new message from remote: %s", msg))
+            .doOnNext(msg -> health.onMessageReceived(msg, System.nanoTime()))
             .subscribe(messagesSubject::onNext, messagesSubject::onError));
 
-    // Add logs on connection state events
+    // Add logs on connection state events and keep track of the state of the connection
     disposables.add(
         laoService
             .observeWebsocket()
             .subscribe(
-                event -> logEvent(event, url),
+                event -> {
+                  logEvent(event, url);
+                  health.onEvent(event);
+                },
                 err -> Timber.tag(TAG).d(err, "Error in connection %s", url)));
   }
 
@@ -49,6 +56,7 @@ public class Connection {
     manualState = connection.manualState;
     disposables = connection.disposables;
     messagesSubject = connection.messagesSubject;
+    health = connection.health;
   }
 
   private void logEvent(WebSocket.Event event, String url) {
@@ -69,6 +77,9 @@ public class Connection {
   }
 
   public void sendMessage(Message msg) {
+    if (msg instanceof Query) {
+      health.onRequestSent(((Query) msg).getRequestId(), System.nanoTime());
+    }
     laoService.sendMessage(msg);
   }
 
@@ -80,6 +91,13 @@ public class Connection {
     return laoService.observeWebsocket();
   }
 
+  /**
+   * @return the state and the latency of the connection
+   */
+  public ConnectionHealth getHealth() {
+    return health;
+  }
+
   public void close() {
     // Dispose of any held resources and mark the message subject as complete
     // (i.e. will not be used again)
@@ -0,0 +1,114 @@
+package com.github.dedis.popstellar.repository.remote;
+
+import com.github.dedis.popstellar.model.network.GenericMessage;
+import com.github.dedis.popstellar.model.network.answer.Answer;
+import com.tinder.scarlet.WebSocket;
+
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * State of a connection to a server: whether it is currently opened and how long the server takes
+ * to answer the requests.
+ *
+ * <p>The latency is a moving average of the round trip times of the requests, the last ones
+ * weighing the most.
+ */
+public class ConnectionHealth {
+
+  /** Latency of a server that did not answer any request yet */
+  public static final long UNKNOWN_LATENCY = -1;
+
+  /**
+   * Order of the connections from the one answering the fastest. A server that did not answer yet
+   * comes after the ones known to answer, a closed connection comes last.
+   */
+  public static final Comparator<ConnectionHealth> BY_LATENCY =
+      Comparator.comparingLong(ConnectionHealth::rankingLatency);
+
+  /** Weight of the last round trip time in the moving average */
+  private static final double SMOOTHING = 0.2;
+
+  /** Number of requests without answer after which the oldest ones are forgotten */
+  private static final int MAX_IN_FLIGHT = 256;
+
+  // Send time of the requests waiting for their answer, keyed by request id
+  private final ConcurrentHashMap<Integer, Long> sentAt = new ConcurrentHashMap<>();
+
+  private volatile boolean connected;
+  private volatile long latency = UNKNOWN_LATENCY;
+
+  /**
+   * Update the state of the connection with an event of the websocket
+   *
+   * @param event the websocket event
+   */
+  public void onEvent(WebSocket.Event event) {
+    if (event instanceof WebSocket.Event.OnConnectionOpened) {
+      connected = true;
+    } else if (event instanceof WebSocket.Event.OnConnectionClosing
+        || event instanceof WebSocket.Event.OnConnectionClosed
+        || event instanceof WebSocket.Event.OnConnectionFailed) {
+      connected = false;
+      // The answers to the requests sent on the lost connection will never come
+      sentAt.clear();
+    }
+  }
+
+  /**
+   * @param requestId id of the request sent on the connection
+   * @param nanos time at which the request was sent, in nanoseconds
+   */
+  public void onRequestSent(int requestId, long nanos) {
+    if (sentAt.size() >= MAX_IN_FLIGHT) {
+      // The server does not answer, do not let the requests accumulate
+      sentAt.clear();
+    }
+    sentAt.put(requestId, nanos);
+  }
+
+  /**
+   * @param message message received on the connection
+   * @param nanos time at which the message was received, in nanoseconds
+   */
+  public void onMessageReceived(GenericMessage message, long nanos) {
+    if (!(message instanceof Answer)) {
+      return;
+    }
+
+    Long sent = sentAt.remove(((Answer) message).getId());
+    if (sent == null) {
+      return;
+    }
+
+    long roundTrip = nanos - sent;
+    long previous = latency;
+    latency =
+        previous == UNKNOWN_LATENCY
+            ? roundTrip
+            : (long) (SMOOTHING * roundTrip + (1 - SMOOTHING) * previous);
+  }
+
+  /**
+   * @return true if the connection is currently opened
+   */
+  public boolean isConnected() {
+    return connected;
+  }
+
+  /**
+   * @return the average round trip time of the requests in nanoseconds, or {@link
+   *     #UNKNOWN_LATENCY} if no request was answered yet
+   */
+  public long getLatency() {
+    return latency;
+  }
+
+  private long rankingLatency() {
+    if (!connected) {
+      return Long.MAX_VALUE;
+    }
+    long current = latency;
+    return current == UNKNOWN_LATENCY ? Long.MAX_VALUE - 1 : current;
+  }
+}
@@ -0,0 +1,123 @@
+package com.github.dedis.popstellar.repository.remote;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.*;
+import io.reactivex.schedulers.Timed;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
+import timber.log.Timber;
+
+/**
+ * Bounded queue between the reception of the messages and their handling.
+ *
+ * <p>The handling thread requests the messages at its own pace. When a burst of messages fills the
+ * queue, the overflow strategy decides which messages are dropped and the overflows are published
+ * so that the lost messages can be retrieved again later, with a catchup for example.
+ *
+ * <p>The number of messages waiting to be handled and the time the last handled message waited are
+ * kept as metrics. A message leaves the queue once it is reported by {@link #onHandled}, so that the
+ * metrics also cover the messages buffered after the queue by the handling stages.
+ */
+public class InboundQueue {
+
+  private static final String TAG = InboundQueue.class.getSimpleName();
+
+  /** Default number of messages that can wait to be handled */
+  public static final int DEFAULT_CAPACITY = 2048;
+
+  /** Number of messages the handling stages request at once */
+  private static final int PREFETCH = 16;
+
+  private final int capacity;
+  private final BackpressureOverflowStrategy overflowStrategy;
+
+  private final AtomicInteger depth = new AtomicInteger();
+  private final AtomicLong dropped = new AtomicLong();
+  private volatile long lagMillis;
+  private final Subject<Long> overflows = PublishSubject.<Long>create().toSerialized();
+
+  public InboundQueue() {
+    this(DEFAULT_CAPACITY, BackpressureOverflowStrategy.DROP_OLDEST);
+  }
+
+  /**
+   * @param capacity maximum number of messages waiting to be handled
+   * @param overflowStrategy what to do when a message is received while the queue is full, with
+   *     {@link BackpressureOverflowStrategy#ERROR} the stream fails
+   */
+  public InboundQueue(int capacity, BackpressureOverflowStrategy overflowStrategy) {
+    this.capacity = capacity;
+    this.overflowStrategy = overflowStrategy;
+  }
+
+  /**
+   * Queue the messages of a stream and hand them one by one to the given scheduler
+   *
+   * <p>Each emitted message must be reported with {@link #onHandled} when its handling starts.
+   *
+   * @param scheduler on which the messages are emitted, also used as the clock of the queue
+   * @return a transformer emitting the messages on the scheduler with the time they were queued,
+   *     in their order of reception
+   */
+  public <T> FlowableTransformer<T, Timed<T>> through(Scheduler scheduler) {
+    return messages ->
+        messages
+            // The messages of a previous subscription were dropped with it
+            .doOnSubscribe(subscription -> depth.set(0))
+            .timestamp(TimeUnit.MILLISECONDS, scheduler)
+            .doOnNext(message -> depth.incrementAndGet())
+            .onBackpressureBuffer(capacity, this::onOverflow, overflowStrategy)
+            .observeOn(scheduler, false, PREFETCH);
+  }
+
+  /**
+   * Report that the handling of a message emitted by the queue starts
+   *
+   * @param message emitted by {@link #through}
+   * @param scheduler the clock given to {@link #through}
+   * @return the message itself
+   */
+  public <T> T onHandled(Timed<T> message, Scheduler scheduler) {
+    depth.decrementAndGet();
+    lagMillis = scheduler.now(TimeUnit.MILLISECONDS) - message.time();
+    return message.value();
+  }
+
+  private void onOverflow() {
+    depth.decrementAndGet();
+    long count = dropped.incrementAndGet();
+    Timber.tag(TAG).w("Inbound queue is full, %d messages dropped so far", count);
+    overflows.onNext(count);
+  }
+
+  /**
+   * @return an observable emitting the total number of dropped messages on each overflow
+   */
+  public Observable<Long> observeOverflows() {
+    return overflows;
+  }
+
+  /**
+   * @return the number of messages waiting to be handled
+   */
+  public int getDepth() {
+    return depth.get();
+  }
+
+  /**
+   * @return the number of messages dropped because the queue was full
+   */
+  public long getDropped() {
+    return dropped.get();
+  }
+
+  /**
+   * @return the time the last handled message waited in the queue, in milliseconds
+   */
+  public long getLag() {
+    return lagMillis;
+  }
+}
@@ -1,5 +1,6 @@
 package com.github.dedis.popstellar.repository.remote;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.github.dedis.popstellar.model.network.GenericMessage;
@@ -11,6 +12,7 @@ import com.github.dedis.popstellar.model.network.method.message.data.Data;
 import com.github.dedis.popstellar.model.objects.Channel;
 import com.github.dedis.popstellar.model.objects.PeerAddress;
 import com.github.dedis.popstellar.model.objects.security.KeyPair;
+import com.github.dedis.popstellar.model.objects.security.MessageID;
 import com.github.dedis.popstellar.utility.error.*;
 import com.github.dedis.popstellar.utility.error.keys.NoRollCallException;
 import com.github.dedis.popstellar.utility.handler.MessageHandler;
@@ -19,14 +21,14 @@ import com.google.gson.Gson;
 import com.tinder.scarlet.WebSocket;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import io.reactivex.Observable;
 import io.reactivex.*;
 import io.reactivex.disposables.CompositeDisposable;
 import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Timed;
 import io.reactivex.subjects.PublishSubject;
 import io.reactivex.subjects.Subject;
 import timber.log.Timber;
@@ -41,16 +43,36 @@ public class LAONetworkManager implements MessageSender {
 
   public static final int REPROCESSING_DELAY = 5;
 
+  /** Time in seconds after which a message waiting for an entity is reprocessed anyway */
+  public static final int PARKING_TIMEOUT = 30;
+
+  /** Number of messages a lao requests from the inbound queue before they are handled */
+  private static final int LANE_PREFETCH = 4;
+
   private final MessageHandler messageHandler;
   private final MultiConnection multiConnection;
   public final AtomicInteger requestCounter = new AtomicInteger();
   private final SchedulerProvider schedulerProvider;
+  private final MessageVerifier messageVerifier;
+  private final CatchupProcessor catchupProcessor;
+  private final PendingRequests pendingRequests = new PendingRequests();
+  private final ResubscriptionScheduler resubscriptionScheduler = new ResubscriptionScheduler();
+  // The catchups recovering the dropped messages do not count as a resubscription
+  private final ResubscriptionScheduler recoveryScheduler = new ResubscriptionScheduler();
+  private final InboundQueue inboundQueue = new InboundQueue();
   private final Gson gson;
 
   // A subject that represents unprocessed messages
-  private final Subject<GenericMessage> unprocessed = PublishSubject.create();
-  private final ConcurrentHashMap<GenericMessage, Integer> reprocessingCounter =
+  private final Subject<GenericMessage> unprocessed =
+      PublishSubject.<GenericMessage>create().toSerialized();
+  // Messages waiting for an entity they refer to and the messages released once it is created
+  private final ParkingLot parkingLot = new ParkingLot();
+  private final Subject<Broadcast> released = PublishSubject.<Broadcast>create().toSerialized();
+  private final ConcurrentHashMap<MessageID, Integer> reprocessingCounter =
       new ConcurrentHashMap<>();
+  // Permit of each lane to handle messages. The catchups of a lao hold it while they handle their
+  // messages, so that the lao still has a single writer: either its lane or one of its catchups.
+  private final ConcurrentHashMap<String, Semaphore> laneWriters = new ConcurrentHashMap<>();
   private final Set<Channel> subscribedChannels;
   private final CompositeDisposable disposables = new CompositeDisposable();
 
@@ -64,12 +86,35 @@ public class LAONetworkManager implements MessageSender {
     this.multiConnection = multiConnection;
     this.gson = gson;
     this.schedulerProvider = schedulerProvider;
+    this.messageVerifier = new MessageVerifier(schedulerProvider.computation());
+    this.catchupProcessor = new CatchupProcessor(messageHandler, schedulerProvider.io());
     this.subscribedChannels = new HashSet<>(subscribedChannels);
 
     // Start the incoming message processing
     processIncomingMessages();
+    // Start the routing of the answers to the requests
+    processIncomingAnswers();
     // Start the routine aimed at resubscribing to channels when the connection is lost
     resubscribeToChannelOnReconnection();
+    // Start the routine retrieving the messages dropped when the inbound queue is full
+    catchupOnOverflow();
+  }
+
+  private void catchupOnOverflow() {
+    disposables.add(
+        inboundQueue
+            .observeOverflows()
+            // Wait for the burst to be over before retrieving the dropped messages
+            .debounce(REPROCESSING_DELAY, TimeUnit.SECONDS, schedulerProvider.computation())
+            .switchMapCompletable(
+                dropped -> {
+                  Timber.tag(TAG).d("%d messages dropped, catching up on the channels", dropped);
+                  return recoveryScheduler.resubscribe(
+                      new ArrayList<>(subscribedChannels), this::catchup);
+                })
+            .subscribe(
+                () -> Timber.tag(TAG).d("Stopped catching up on dropped messages"),
+                error -> Timber.tag(TAG).d(error, "Error on catchup of dropped messages")));
   }
 
   private void resubscribeToChannelOnReconnection() {
@@ -79,43 +124,101 @@ public class LAONetworkManager implements MessageSender {
             .subscribeOn(schedulerProvider.io())
             // Filter out events that are not related to a reconnection
             .filter(event -> event.getClass().equals(WebSocket.Event.OnConnectionOpened.class))
-            // Subscribe to the stream and when a connection event is received, send a subscribe
-            // message
-            // for each channel we are supposed to be subscribed to.
-            .subscribe(
+            // When a connection event is received, subscribe again to each channel we are
+            // supposed to be subscribed to. A new connection event interrupts the previous
+            // resubscription as its requests would be lost.
+            .switchMapCompletable(
                 event ->
-                    subscribedChannels.forEach(
-                        channel ->
-                            disposables.add(
-                                subscribe(channel)
-                                    .subscribe(
-                                        () ->
-                                            Timber.tag(TAG)
-                                                .d("resubscription successful to : %s", channel),
-                                        error ->
-                                            Timber.tag(TAG)
-                                                .d(error, "error on resubscription to")))),
+                    resubscriptionScheduler.resubscribe(
+                        new ArrayList<>(subscribedChannels), this::subscribe))
+            .subscribe(
+                () -> Timber.tag(TAG).d("Stopped resubscribing to the channels"),
                 error -> Timber.tag(TAG).d(error, "Error on resubscription")));
   }
 
   private void processIncomingMessages() {
     disposables.add(
         Observable.merge(
-                // Normal message received over the wire
-                multiConnection.observeMessage(),
+                // Normal message received over the wire, whose signatures are verified in
+                // parallel before being handled
+                multiConnection
+                    .observeMessage()
+                    .filter(Broadcast.class::isInstance) // Filter the Broadcast
+                    .map(Broadcast.class::cast)
+                    .compose(messageVerifier.verifyBroadcasts()),
                 // Packets that could not be processed (maybe due to a reordering),
                 // this is merged into incoming message,
                 // with a delay of 5 seconds to give priority to new messages.
-                unprocessed.delay(
-                    REPROCESSING_DELAY, TimeUnit.SECONDS, schedulerProvider.computation()))
-            .filter(Broadcast.class::isInstance) // Filter the Broadcast
-            .map(Broadcast.class::cast)
+                // They were already verified when first received.
+                unprocessed
+                    .delay(REPROCESSING_DELAY, TimeUnit.SECONDS, schedulerProvider.computation())
+                    .filter(Broadcast.class::isInstance)
+                    .map(Broadcast.class::cast),
+                // Packets that waited for an entity, released without delay once it is created
+                released,
+                // Packets that waited too long for an entity that may never be created
+                Observable.interval(
+                        REPROCESSING_DELAY, TimeUnit.SECONDS, schedulerProvider.computation())
+                    .flatMapIterable(
+                        tick ->
+                            parkingLot.expire(
+                                now(), TimeUnit.SECONDS.toNanos(PARKING_TIMEOUT))))
             .subscribeOn(schedulerProvider.newThread())
+            // The messages wait in a bounded queue, out of the verification threads. A burst of
+            // messages drops the oldest ones instead of growing the memory without bound, they
+            // are retrieved again by a catchup.
+            .toFlowable(BackpressureStrategy.MISSING)
+            .compose(inboundQueue.through(schedulerProvider.newThread()))
+            // The messages of a lao are handled one at a time and in order, while different laos
+            // are handled concurrently. There are few laos, each one keeps its own lane. A lane
+            // only prefetches a few messages so that the queue still bounds the memory.
+            .groupBy(message -> shardOf(message.value().getChannel()))
+            .flatMapCompletable(
+                lao ->
+                    lao.observeOn(schedulerProvider.io(), false, LANE_PREFETCH)
+                        .concatMapCompletable(
+                            message -> Completable.fromAction(() -> handleQueued(message))),
+                false,
+                Integer.MAX_VALUE)
             .subscribe(
-                this::handleBroadcast,
+                () -> Timber.tag(TAG).d("Stopped processing messages"),
                 error -> Timber.tag(TAG).d(error, "Error on processing message")));
   }
 
+  private void handleQueued(Timed<Broadcast> message) {
+    Broadcast broadcast = inboundQueue.onHandled(message, schedulerProvider.newThread());
+    Semaphore writer = writerOf(broadcast.getChannel());
+    writer.acquireUninterruptibly();
+    try {
+      handleBroadcast(broadcast);
+    } finally {
+      writer.release();
+    }
+  }
+
+  private Semaphore writerOf(Channel channel) {
+    return laneWriters.computeIfAbsent(shardOf(channel), shard -> new Semaphore(1));
+  }
+
+  /**
+   * @param channel on which a message was received
+   * @return the key of the lane handling the message, the id of the lao of the channel
+   */
+  private static String shardOf(Channel channel) {
+    return Channel.ROOT.equals(channel) ? "" : channel.extractLaoId();
+  }
+
+  private void processIncomingAnswers() {
+    disposables.add(
+        multiConnection
+            .observeMessage()
+            .filter(Answer.class::isInstance) // Filter for Answers
+            .map(Answer.class::cast)
+            .subscribe(
+                pendingRequests::complete,
+                error -> Timber.tag(TAG).d(error, "Error on processing answer")));
+  }
+
   @Override
   public Completable catchup(Channel channel) {
     Timber.tag(TAG).d("sending a catchup to the channel %s", channel);
@@ -128,10 +231,67 @@ public class LAONetworkManager implements MessageSender {
         .doOnSuccess(
             msgs ->
                 Timber.tag(TAG).d("Received catchup response on %s, retrieved : %s", channel, msgs))
-        .doOnSuccess(messages -> handleMessages(messages, channel))
+        .flatMap(messages -> processCatchup(channel, messages))
+        .observeOn(schedulerProvider.mainThread())
+        // The messages whose dependencies are still missing join the reprocessing of broadcasts.
+        // They are only queued here, the lane of the lao handles them.
+        .doOnSuccess(
+            unhandled ->
+                unhandled.forEach(msg -> reprocessMessage(new Broadcast(channel, msg), null)))
         .ignoreElement();
   }
 
+  /**
+   * Handle the messages of a catchup that were not handled by a previous catchup of the channel
+   *
+   * <p>The protocol has no catchup since a given message, so the whole history is still received.
+   * The prefix handled by the previous catchups is however skipped before the signatures are
+   * verified, and the position up to which the history is handled is saved for the next catchup.
+   *
+   * @return a single emitting the messages that could not be handled
+   */
+  private Single<List<MessageGeneral>> processCatchup(
+      Channel channel, List<MessageGeneral> messages) {
+    // The mark is read from the database, out of the main thread
+    return Single.fromCallable(
+            () -> CatchupProcessor.countHandled(messages, messageHandler.getCatchupMark(channel)))
+        .subscribeOn(schedulerProvider.io())
+        .flatMap(handled -> processCatchup(channel, messages, handled));
+  }
+
+  private Single<List<MessageGeneral>> processCatchup(
+      Channel channel, List<MessageGeneral> messages, int handled) {
+    if (handled > 0) {
+      Timber.tag(TAG).d("Skipping %d already handled messages on %s", handled, channel);
+    }
+
+    return messageVerifier
+        // Drop the messages with an invalid signature before handling them
+        .verifyAll(CatchupProcessor.toHandle(messages, handled))
+        .flatMap(
+            toHandle ->
+                // The lane of the lao waits for the catchup to be handled. The permit is taken on
+                // the io scheduler as it may wait for the message being handled by the lane.
+                Single.using(
+                        () -> {
+                          Semaphore writer = writerOf(channel);
+                          writer.acquireUninterruptibly();
+                          return writer;
+                        },
+                        writer -> catchupProcessor.process(this, channel, toHandle),
+                        Semaphore::release)
+                    .subscribeOn(schedulerProvider.io())
+                    .doOnSuccess(unhandled -> releaseParked(channel, toHandle, unhandled)))
+        .doOnSuccess(
+            unhandled -> {
+              int count = CatchupProcessor.countHandledAfter(messages, unhandled);
+              if (count > 0 && count != handled) {
+                messageHandler.setCatchupMark(
+                    channel, messages.get(count - 1).getMessageId(), count);
+              }
+            });
+  }
+
   @Override
   public Completable publish(KeyPair keyPair, Channel channel, Data data) {
     return publish(channel, new MessageGeneral(keyPair, data, gson));
@@ -191,6 +351,11 @@ public class LAONetworkManager implements MessageSender {
     return new HashSet<>(subscribedChannels);
   }
 
+  @Override
+  public Observable<ResubscriptionScheduler.Progress> getResubscriptionProgress() {
+    return resubscriptionScheduler.observeProgress();
+  }
+
   @Override
   public void extendConnection(List<PeerAddress> peerAddressList) {
     // If the connections to other peers are not created then do nothing
@@ -201,8 +366,12 @@ public class LAONetworkManager implements MessageSender {
     disposables.clear();
     // Start the incoming message processing for all the new connections
     processIncomingMessages();
+    // Start the routing of the answers, the requests in flight are kept
+    processIncomingAnswers();
     // Start the routine aimed at resubscribing to channels when the connection is lost
     resubscribeToChannelOnReconnection();
+    // Start the routine retrieving the messages dropped when the inbound queue is full
+    catchupOnOverflow();
   }
 
   private void handleBroadcast(Broadcast broadcast) {
@@ -216,41 +385,49 @@ public class LAONetworkManager implements MessageSender {
         | UnknownElectionException
         | UnknownWitnessMessageException e) {
       Timber.tag(TAG).e(e, "Error while handling received message, will try to reprocess it later");
-      reprocessMessage(broadcast);
+      reprocessMessage(broadcast, e);
+      return;
     }
+
+    reprocessingCounter.remove(broadcast.getMessage().getMessageId());
+    release(ParkingLot.createdBy(broadcast));
   }
 
-  private void handleMessages(List<MessageGeneral> messages, Channel channel) {
-    for (MessageGeneral msg : messages) {
-      try {
-        messageHandler.handleMessage(this, channel, msg);
-      } catch (DataHandlingException
-          | UnknownLaoException
-          | UnknownRollCallException
-          | NoRollCallException
-          | UnknownElectionException
-          | UnknownWitnessMessageException e) {
-        Timber.tag(TAG).e(e, "Error while handling received catchup message");
+  private void releaseParked(
+      Channel channel, List<MessageGeneral> messages, List<MessageGeneral> unhandled) {
+    if (parkingLot.size() == 0) {
+      return;
+    }
+
+    Set<MessageID> unhandledIds = new HashSet<>();
+    unhandled.forEach(msg -> unhandledIds.add(msg.getMessageId()));
+    List<ParkingLot.Key> created = new ArrayList<>();
+    for (MessageGeneral message : messages) {
+      if (!unhandledIds.contains(message.getMessageId())) {
+        created.addAll(ParkingLot.createdBy(new Broadcast(channel, message)));
       }
     }
+    release(created);
+  }
+
+  private void release(List<ParkingLot.Key> created) {
+    List<Broadcast> waiting = parkingLot.release(created);
+    if (!waiting.isEmpty()) {
+      Timber.tag(TAG).d("Releasing %d messages waiting for %s", waiting.size(), created);
+      waiting.forEach(released::onNext);
+    }
+  }
+
+  private long now() {
+    return schedulerProvider.computation().now(TimeUnit.NANOSECONDS);
   }
 
   private Single<Answer> request(Query query) {
-    return multiConnection
-        .observeMessage() // Observe incoming messages
-        // Send the message upon subscription the the incoming messages. That way we are
-        // certain the reply will be processed and the message is only sent when an observer
-        // subscribes to the request answer.
-        .doOnSubscribe(d -> multiConnection.sendMessage(query))
-        .filter(Answer.class::isInstance) // Filter for Answers
-        .map(Answer.class::cast)
-        // This specific request has an id, only let the related Answer pass
-        .filter(answer -> answer.getId() == query.getRequestId())
-        .doOnNext(answer -> Timber.tag(TAG).d("request id: %s", answer.getId()))
-        // Transform from an Observable to a Single
-        // This Means that we expect a result before the source is disposed and an error
-        // will be produced if no value is received.
-        .firstOrError()
+    return pendingRequests
+        // Send the message once the request is registered in the table of pending requests. That
+        // way we are certain the reply will be routed to this request and the message is only
+        // sent when an observer subscribes to the request answer.
+        .register(query.getRequestId(), () -> multiConnection.sendMessage(query))
         // If we receive an error, transform the flow to a Failure
         .flatMap(
             answer -> {
@@ -262,7 +439,8 @@ public class LAONetworkManager implements MessageSender {
             })
         .subscribeOn(schedulerProvider.io())
         .observeOn(schedulerProvider.mainThread())
-        // Add a timeout to automatically dispose of the flow and end with a failure
+        // Add a timeout to automatically dispose of the flow and end with a failure, this also
+        // removes the request from the table of pending requests
         .timeout(REPROCESSING_DELAY, TimeUnit.SECONDS)
         .cache();
   }
@@ -271,20 +449,34 @@ public class LAONetworkManager implements MessageSender {
    * This function distinguishes an unrecoverable failure according to the number of reprocessing
    * attempts.
    *
+   * <p>A message failing because of a missing entity is parked until this entity is created, the
+   * other ones are reprocessed after a delay.
+   *
    * @param message Message failed to be handled to be reprocessed
+   * @param error the error raised by the handling of the message, null if it is not known
    */
-  private void reprocessMessage(GenericMessage message) {
+  private void reprocessMessage(Broadcast message, @Nullable Exception error) {
+    MessageID messageId = message.getMessage().getMessageId();
     // Check that the message hasn't already reprocessed more than the threshold of dropout
-    int count = reprocessingCounter.getOrDefault(message, 0);
+    int count = reprocessingCounter.getOrDefault(messageId, 0);
     if (count < MAX_REPROCESSING) {
       // Increase the counter and reprocess
-      reprocessingCounter.put(message, count + 1);
-      unprocessed.onNext(message);
+      reprocessingCounter.put(messageId, count + 1);
+      ParkingLot.Key awaited = error == null ? null : ParkingLot.keyOf(error);
+      if (awaited == null) {
+        unprocessed.onNext(message);
+      } else {
+        Broadcast dropped = parkingLot.park(awaited, message, now());
+        if (dropped != null) {
+          Timber.tag(TAG).d("Too many messages are waiting, dropping %s", dropped);
+          reprocessingCounter.remove(dropped.getMessage().getMessageId());
+        }
+      }
     } else {
       Timber.tag(TAG)
           .d("Message %s has been reprocessed too many times, it's now dropped", message);
       // Discard the message
-      reprocessingCounter.remove(message);
+      reprocessingCounter.remove(messageId);
     }
   }
 
@@ -299,6 +491,13 @@ public class LAONetworkManager implements MessageSender {
     return disposables.isDisposed();
   }
 
+  /**
+   * @return the queue of the received messages waiting to be handled, with its metrics
+   */
+  public InboundQueue getInboundQueue() {
+    return inboundQueue;
+  }
+
   @VisibleForTesting
   public TestObserver<GenericMessage> testUnprocessed() {
     return unprocessed.test();
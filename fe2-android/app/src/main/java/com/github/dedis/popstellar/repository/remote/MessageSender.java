@@ -77,6 +77,12 @@ public interface MessageSender extends Disposable {
    */
   Set<Channel> getSubscriptions();
 
+  /**
+   * @return an observable of the progress of the subscription to the channels again, after the
+   *     connection was opened again
+   */
+  Observable<ResubscriptionScheduler.Progress> getResubscriptionProgress();
+
   /**
    * Extend the connection by connecting to the peers of a server upon a GreetLao
    *
@@ -0,0 +1,98 @@
+package com.github.dedis.popstellar.repository.remote;
+
+import com.github.dedis.popstellar.model.network.method.Broadcast;
+import com.github.dedis.popstellar.model.network.method.message.MessageGeneral;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.*;
+import timber.log.Timber;
+
+/**
+ * Stage verifying the signatures of the incoming messages before they are handled.
+ *
+ * <p>The verifications are run in parallel on the given scheduler and the messages failing them
+ * are dropped. The order of the messages is preserved, as the handlers depend on it.
+ */
+public class MessageVerifier {
+
+  private static final String TAG = MessageVerifier.class.getSimpleName();
+
+  /** Number of messages of a catchup that are verified by the same task */
+  public static final int BATCH_SIZE = 64;
+
+  private final Scheduler scheduler;
+  private final int maxConcurrency;
+
+  public MessageVerifier(Scheduler scheduler) {
+    this(scheduler, Runtime.getRuntime().availableProcessors());
+  }
+
+  public MessageVerifier(Scheduler scheduler, int maxConcurrency) {
+    this.scheduler = scheduler;
+    this.maxConcurrency = maxConcurrency;
+  }
+
+  /**
+   * Verify the broadcasts of the given stream, several of them being verified at the same time.
+   *
+   * @return a transformer emitting the valid broadcasts in their order of arrival
+   */
+  public ObservableTransformer<Broadcast, Broadcast> verifyBroadcasts() {
+    return broadcasts ->
+        broadcasts.concatMapEager(
+            broadcast ->
+                Maybe.fromCallable(() -> isValid(broadcast.getMessage()) ? broadcast : null)
+                    .subscribeOn(scheduler)
+                    .toObservable(),
+            maxConcurrency,
+            1);
+  }
+
+  /**
+   * Verify the messages of a catchup. They are split in batches of {@link #BATCH_SIZE} messages
+   * that are verified in parallel.
+   *
+   * @param messages the messages to verify
+   * @return a single emitting the valid messages, in the same order
+   */
+  public Single<List<MessageGeneral>> verifyAll(List<MessageGeneral> messages) {
+    if (messages.isEmpty()) {
+      return Single.just(messages);
+    }
+
+    int batches = (messages.size() + BATCH_SIZE - 1) / BATCH_SIZE;
+    return Flowable.range(0, batches)
+        .concatMapEager(
+            batch ->
+                Flowable.fromCallable(
+                        () ->
+                            verifyBatch(
+                                messages.subList(
+                                    batch * BATCH_SIZE,
+                                    Math.min(messages.size(), (batch + 1) * BATCH_SIZE))))
+                    .subscribeOn(scheduler),
+            maxConcurrency,
+            1)
+        .<List<MessageGeneral>>collect(() -> new ArrayList<>(messages.size()), List::addAll);
+  }
+
+  private List<MessageGeneral> verifyBatch(List<MessageGeneral> batch) {
+    List<MessageGeneral> verified = new ArrayList<>(batch.size());
+    for (MessageGeneral message : batch) {
+      if (isValid(message)) {
+        verified.add(message);
+      }
+    }
+    return verified;
+  }
+
+  private static boolean isValid(MessageGeneral message) {
+    if (message.verify()) {
+      return true;
+    }
+    Timber.tag(TAG).w("Dropping message %s with an invalid signature", message.getMessageId());
+    return false;
+  }
+}
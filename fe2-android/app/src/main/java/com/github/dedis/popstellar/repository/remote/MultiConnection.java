@@ -1,12 +1,14 @@
 package com.github.dedis.popstellar.repository.remote;
 
 import com.github.dedis.popstellar.model.network.GenericMessage;
-import com.github.dedis.popstellar.model.network.method.Message;
+import com.github.dedis.popstellar.model.network.method.*;
 import com.github.dedis.popstellar.model.objects.PeerAddress;
 import com.tinder.scarlet.WebSocket;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -17,9 +19,21 @@ import io.reactivex.Observable;
  *
  * <p>The superclass works as main connection to the first server, the others are instantiated in
  * the connectionMap.
+ *
+ * <p>The messages of all the servers are merged in a single stream, from which the copies of a
+ * broadcast received from several servers are dropped. The catchups are only sent to the connected
+ * server answering the fastest, as the servers share the history of the channels. The other
+ * messages are sent to every server: each server only forwards the broadcasts of its own
+ * subscriptions, and a published message must not be lost if a single server fails to relay it.
  */
 public class MultiConnection extends Connection {
 
+  /** Maximum number of broadcast ids kept to drop the copies received from other servers */
+  private static final int DEDUP_CAPACITY = 1024;
+
+  /** Time during which the copies of a broadcast are dropped */
+  private static final long DEDUP_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(30);
+
   /** Caller method for the connectionFactory to instantiate connections */
   private final Function<String, Connection> connectionProvider;
 
@@ -65,13 +79,22 @@ public class MultiConnection extends Connection {
    * @return an Observable of GenericMessage received on the connections
    */
   @Override
-  public io.reactivex.Observable<GenericMessage> observeMessage() {
-    return super.observeMessage()
-        .concatWith(
-            connectionMap.values().stream()
-                .map(Connection::observeMessage)
-                .reduce(Observable::concatWith)
-                .orElse(Observable.empty()));
+  public Observable<GenericMessage> observeMessage() {
+    List<Observable<GenericMessage>> streams = new ArrayList<>();
+    streams.add(super.observeMessage());
+    connectionMap.values().forEach(peer -> streams.add(peer.observeMessage()));
+
+    return Observable.defer(
+        () -> {
+          // Each subscriber gets its own set, as each of them needs to receive every broadcast
+          RecentMessageIds received = new RecentMessageIds(DEDUP_CAPACITY, DEDUP_WINDOW_NANOS);
+          return Observable.merge(streams)
+              .filter(
+                  msg ->
+                      !(msg instanceof Broadcast)
+                          || received.add(
+                              ((Broadcast) msg).getMessage().getMessageId(), System.nanoTime()));
+        });
   }
 
   /**
@@ -81,20 +104,44 @@ public class MultiConnection extends Connection {
    */
   @Override
   public Observable<WebSocket.Event> observeConnectionEvents() {
-    return super.observeConnectionEvents()
-        .concatWith(
-            connectionMap.values().stream()
-                .map(Connection::observeConnectionEvents)
-                .reduce(Observable::concatWith)
-                .orElse(Observable.empty()));
+    List<Observable<WebSocket.Event>> streams = new ArrayList<>();
+    streams.add(super.observeConnectionEvents());
+    connectionMap.values().forEach(peer -> streams.add(peer.observeConnectionEvents()));
+    return Observable.merge(streams);
   }
 
   @Override
   public void sendMessage(Message msg) {
+    if (msg instanceof Catchup) {
+      // A single server is enough to answer the catchup, the servers share the history
+      Connection fastest = fastestPeer();
+      if (fastest == null) {
+        super.sendMessage(msg);
+      } else {
+        fastest.sendMessage(msg);
+      }
+      return;
+    }
+
     super.sendMessage(msg);
     connectionMap.values().forEach(peer -> peer.sendMessage(msg));
   }
 
+  /**
+   * @return the connected peer answering the fastest, or null if it is the main connection
+   */
+  private Connection fastestPeer() {
+    Connection fastest = null;
+    ConnectionHealth fastestHealth = getHealth();
+    for (Connection peer : connectionMap.values()) {
+      if (ConnectionHealth.BY_LATENCY.compare(peer.getHealth(), fastestHealth) < 0) {
+        fastest = peer;
+        fastestHealth = peer.getHealth();
+      }
+    }
+    return fastest;
+  }
+
   @Override
   public void close() {
     super.close();
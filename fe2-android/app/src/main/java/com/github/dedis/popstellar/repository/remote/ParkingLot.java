@@ -0,0 +1,249 @@
+package com.github.dedis.popstellar.repository.remote;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.github.dedis.popstellar.model.network.method.Broadcast;
+import com.github.dedis.popstellar.model.network.method.message.data.Data;
+import com.github.dedis.popstellar.model.network.method.message.data.election.ElectionSetup;
+import com.github.dedis.popstellar.model.network.method.message.data.lao.CreateLao;
+import com.github.dedis.popstellar.model.network.method.message.data.rollcall.*;
+import com.github.dedis.popstellar.model.objects.security.MessageID;
+import com.github.dedis.popstellar.utility.error.*;
+import com.github.dedis.popstellar.utility.error.keys.NoRollCallException;
+
+import java.util.*;
+
+/**
+ * Messages waiting for an entity they refer to, parked under the id of this entity.
+ *
+ * <p>A message received before the entity it refers to fails with an exception naming the missing
+ * entity. The message is parked under this entity and released as soon as a message creating it
+ * is handled, instead of being retried blindly. Messages whose entity never shows up are released
+ * after a timeout. The number of parked messages is bounded, the oldest one is dropped when the lot
+ * is full.
+ */
+public class ParkingLot {
+
+  /** Default number of messages that can be parked */
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  /** Type of the entity a message waits for */
+  public enum Kind {
+    LAO,
+    ROLL_CALL,
+    // Any closed roll call of the lao, keyed by lao id
+    CLOSED_ROLL_CALL,
+    ELECTION,
+    WITNESS_MESSAGE
+  }
+
+  /** Identifies the entity a message waits for */
+  public static final class Key {
+
+    private final Kind kind;
+    private final String id;
+
+    public Key(Kind kind, String id) {
+      this.kind = kind;
+      this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return kind == key.kind && id.equals(key.id);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(kind, id);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+      return kind + ":" + id;
+    }
+  }
+
+  /** A parked message with the time at which it was parked */
+  private static final class Parked {
+
+    private final Broadcast broadcast;
+    private final long parkedAt;
+
+    private Parked(Broadcast broadcast, long parkedAt) {
+      this.broadcast = broadcast;
+      this.parkedAt = parkedAt;
+    }
+  }
+
+  private final Map<Key, List<Parked>> parked = new HashMap<>();
+  private final int capacity;
+  private int size;
+
+  public ParkingLot() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * @param capacity maximum number of parked messages
+   */
+  public ParkingLot(int capacity) {
+    this.capacity = capacity;
+  }
+
+  /**
+   * @param error the error raised by the handling of a message
+   * @return the entity the message waits for, or null if the error does not name one
+   */
+  @Nullable
+  public static Key keyOf(Exception error) {
+    if (error instanceof UnknownLaoException) {
+      return keyOf(Kind.LAO, ((UnknownLaoException) error).getLaoId());
+    } else if (error instanceof UnknownRollCallException) {
+      return keyOf(Kind.ROLL_CALL, ((UnknownRollCallException) error).getId());
+    } else if (error instanceof NoRollCallException) {
+      return keyOf(Kind.CLOSED_ROLL_CALL, ((NoRollCallException) error).getLaoId());
+    } else if (error instanceof UnknownElectionException) {
+      return keyOf(Kind.ELECTION, ((UnknownElectionException) error).getId());
+    } else if (error instanceof UnknownWitnessMessageException) {
+      MessageID id = ((UnknownWitnessMessageException) error).getId();
+      return id == null ? null : new Key(Kind.WITNESS_MESSAGE, id.getEncoded());
+    }
+    return null;
+  }
+
+  @Nullable
+  private static Key keyOf(Kind kind, @Nullable String id) {
+    return id == null ? null : new Key(kind, id);
+  }
+
+  /**
+   * @param broadcast a message that was handled
+   * @return the entities the message created, which the parked messages may wait for
+   */
+  public static List<Key> createdBy(Broadcast broadcast) {
+    List<Key> keys = new ArrayList<>(2);
+    // Any handled message can be witnessed
+    keys.add(new Key(Kind.WITNESS_MESSAGE, broadcast.getMessage().getMessageId().getEncoded()));
+
+    Data data = broadcast.getMessage().getData();
+    if (data instanceof CreateLao) {
+      keys.add(new Key(Kind.LAO, ((CreateLao) data).getId()));
+    } else if (data instanceof CreateRollCall) {
+      keys.add(new Key(Kind.ROLL_CALL, ((CreateRollCall) data).getId()));
+    } else if (data instanceof OpenRollCall) {
+      keys.add(new Key(Kind.ROLL_CALL, ((OpenRollCall) data).getUpdateId()));
+    } else if (data instanceof CloseRollCall) {
+      keys.add(new Key(Kind.ROLL_CALL, ((CloseRollCall) data).getUpdateId()));
+      keys.add(new Key(Kind.CLOSED_ROLL_CALL, broadcast.getChannel().extractLaoId()));
+    } else if (data instanceof ElectionSetup) {
+      keys.add(new Key(Kind.ELECTION, ((ElectionSetup) data).getElectionId()));
+    }
+    return keys;
+  }
+
+  /**
+   * Park a message until the entity it waits for is created
+   *
+   * @param key the entity the message waits for
+   * @param broadcast the message
+   * @param nanos the current time, in nanoseconds
+   * @return the oldest parked message, dropped to make room for this one if the lot was full, or
+   *     null
+   */
+  @Nullable
+  public synchronized Broadcast park(Key key, Broadcast broadcast, long nanos) {
+    Broadcast dropped = size < capacity ? null : dropOldest();
+    parked.computeIfAbsent(key, k -> new ArrayList<>()).add(new Parked(broadcast, nanos));
+    size++;
+    return dropped;
+  }
+
+  /** The lot is rarely full, the oldest message is searched among all of them */
+  private Broadcast dropOldest() {
+    Key oldestKey = null;
+    Parked oldest = null;
+    for (Map.Entry<Key, List<Parked>> entry : parked.entrySet()) {
+      // The messages of an entity are parked in order
+      Parked first = entry.getValue().get(0);
+      if (oldest == null || first.parkedAt < oldest.parkedAt) {
+        oldestKey = entry.getKey();
+        oldest = first;
+      }
+    }
+
+    List<Parked> waiting = Objects.requireNonNull(parked.get(oldestKey));
+    waiting.remove(0);
+    if (waiting.isEmpty()) {
+      parked.remove(oldestKey);
+    }
+    size--;
+    return oldest.broadcast;
+  }
+
+  /**
+   * Release the messages waiting for the given entities
+   *
+   * @param keys the created entities
+   * @return the released messages, in the order they were parked for each entity
+   */
+  public synchronized List<Broadcast> release(Collection<Key> keys) {
+    if (size == 0) {
+      return Collections.emptyList();
+    }
+
+    List<Broadcast> released = new ArrayList<>();
+    for (Key key : keys) {
+      List<Parked> waiting = parked.remove(key);
+      if (waiting != null) {
+        waiting.forEach(p -> released.add(p.broadcast));
+        size -= waiting.size();
+      }
+    }
+    return released;
+  }
+
+  /**
+   * Release the messages parked for too long, whose entity may never be created by a message
+   *
+   * @param nanos the current time, in nanoseconds
+   * @param timeoutNanos time after which a message is released, in nanoseconds
+   * @return the released messages
+   */
+  public synchronized List<Broadcast> expire(long nanos, long timeoutNanos) {
+    if (size == 0) {
+      return Collections.emptyList();
+    }
+
+    List<Broadcast> released = new ArrayList<>();
+    for (List<Parked> waiting : parked.values()) {
+      waiting.removeIf(
+          p -> {
+            boolean expired = nanos - p.parkedAt >= timeoutNanos;
+            if (expired) {
+              released.add(p.broadcast);
+            }
+            return expired;
+          });
+    }
+    parked.values().removeIf(List::isEmpty);
+    size -= released.size();
+    return released;
+  }
+
+  /**
+   * @return the number of parked messages
+   */
+  public synchronized int size() {
+    return size;
+  }
+}
@@ -0,0 +1,66 @@
+package com.github.dedis.popstellar.repository.remote;
+
+import com.github.dedis.popstellar.model.network.answer.Answer;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.reactivex.Single;
+import io.reactivex.SingleEmitter;
+import timber.log.Timber;
+
+/**
+ * Table of the requests waiting for their answer, keyed by request id.
+ *
+ * <p>A single subscriber to the incoming messages routes each answer to its request with a lookup
+ * in the table, instead of testing the answer against a filter per request in flight.
+ */
+public class PendingRequests {
+
+  private static final String TAG = PendingRequests.class.getSimpleName();
+
+  private final ConcurrentHashMap<Integer, SingleEmitter<Answer>> pending =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Register a request in the table and send it. The request is removed from the table when its
+   * answer is received or when the returned single is disposed, after a timeout for example.
+   *
+   * @param requestId id of the request
+   * @param send action sending the request, run once the request is registered
+   * @return a single of the answer to the request
+   */
+  public Single<Answer> register(int requestId, Runnable send) {
+    return Single.create(
+        emitter -> {
+          // Registering before sending guarantees that the answer cannot be missed
+          pending.put(requestId, emitter);
+          emitter.setCancellable(() -> pending.remove(requestId, emitter));
+          send.run();
+        });
+  }
+
+  /**
+   * Route an answer to the request it replies to
+   *
+   * @param answer received answer
+   * @return true if a request was waiting for the answer
+   */
+  public boolean complete(Answer answer) {
+    SingleEmitter<Answer> emitter = pending.remove(answer.getId());
+    if (emitter == null) {
+      Timber.tag(TAG).d("Received an answer to an unknown request %d", answer.getId());
+      return false;
+    }
+
+    Timber.tag(TAG).d("request id: %s", answer.getId());
+    emitter.onSuccess(answer);
+    return true;
+  }
+
+  /**
+   * @return the number of requests waiting for their answer
+   */
+  public int size() {
+    return pending.size();
+  }
+}
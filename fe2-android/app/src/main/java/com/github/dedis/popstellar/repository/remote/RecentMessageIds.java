@@ -0,0 +1,66 @@
+package com.github.dedis.popstellar.repository.remote;
+
+import com.github.dedis.popstellar.model.objects.security.MessageID;
+
+import java.util.*;
+
+/**
+ * Bounded set of the ids of the messages received recently.
+ *
+ * <p>An id is forgotten once it is older than the time window or when the set is full, which is
+ * enough to drop the copies of a broadcast received from several servers. Older copies are still
+ * ignored by the message repository.
+ *
+ * <p>This class is not thread-safe.
+ */
+public class RecentMessageIds {
+
+  private final int capacity;
+  private final long windowNanos;
+
+  // Reception time of the ids, in their order of reception
+  private final LinkedHashMap<MessageID, Long> receivedAt = new LinkedHashMap<>();
+
+  /**
+   * @param capacity maximum number of ids kept
+   * @param windowNanos time during which an id is kept, in nanoseconds
+   */
+  public RecentMessageIds(int capacity, long windowNanos) {
+    this.capacity = capacity;
+    this.windowNanos = windowNanos;
+  }
+
+  /**
+   * Add an id to the set
+   *
+   * @param messageId id of the received message
+   * @param nanos time at which the message was received, in nanoseconds
+   * @return true if the id was not received recently
+   */
+  public boolean add(MessageID messageId, long nanos) {
+    // Forget the ids older than the window
+    Iterator<Long> iterator = receivedAt.values().iterator();
+    while (iterator.hasNext() && nanos - iterator.next() > windowNanos) {
+      iterator.remove();
+    }
+
+    if (receivedAt.containsKey(messageId)) {
+      return false;
+    }
+    // Only make room once the id is known to be new, so that a copy does not evict a recent id
+    if (receivedAt.size() >= capacity) {
+      iterator = receivedAt.values().iterator();
+      iterator.next();
+      iterator.remove();
+    }
+    receivedAt.put(messageId, nanos);
+    return true;
+  }
+
+  /**
+   * @return the number of ids kept
+   */
+  public int size() {
+    return receivedAt.size();
+  }
+}
@@ -0,0 +1,142 @@
+package com.github.dedis.popstellar.repository.remote;
+
+import androidx.annotation.NonNull;
+
+import com.github.dedis.popstellar.model.objects.Channel;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.subjects.BehaviorSubject;
+import io.reactivex.subjects.Subject;
+import timber.log.Timber;
+
+/**
+ * Schedules the subscriptions (and their catchup) to the channels when the connection is opened
+ * again.
+ *
+ * <p>Only a few channels are subscribed to at the same time, so that the requests do not time out
+ * because of the others. The channels are subscribed to by order of importance: the lao channels
+ * first, as they carry the lao and its roll calls, then the elections and finally the other
+ * channels such as the social media and the digital cash ones.
+ */
+public class ResubscriptionScheduler {
+
+  private static final String TAG = ResubscriptionScheduler.class.getSimpleName();
+
+  /** Maximum number of channels being subscribed to at the same time */
+  public static final int MAX_CONCURRENT_SUBSCRIPTIONS = 4;
+
+  private static final Set<String> NON_ELECTION_CHANNELS =
+      new HashSet<>(Arrays.asList("social", "coin", "consensus"));
+
+  private final Subject<Progress> progress =
+      BehaviorSubject.createDefault(new Progress(0, 0, 0)).toSerialized();
+
+  /**
+   * Subscribe again to the given channels
+   *
+   * @param channels to subscribe to
+   * @param subscribe function subscribing to a channel and catching up on it
+   * @return a completable that completes once all the channels are processed, a failed
+   *     subscription does not interrupt the others
+   */
+  public Completable resubscribe(
+      Collection<Channel> channels, Function<Channel, Completable> subscribe) {
+    List<Channel> ordered = new ArrayList<>(channels);
+    ordered.sort(Comparator.comparingInt(ResubscriptionScheduler::priorityOf));
+
+    int total = ordered.size();
+    AtomicInteger completed = new AtomicInteger();
+    AtomicInteger failed = new AtomicInteger();
+    return Observable.fromIterable(ordered)
+        .doOnSubscribe(d -> progress.onNext(new Progress(0, 0, total)))
+        // Observable has no flatMapCompletable with a maximum concurrency
+        .flatMap(
+            channel ->
+                // The request is only created once the channel gets its turn
+                Completable.defer(() -> subscribe.apply(channel))
+                    .doOnComplete(
+                        () -> {
+                          Timber.tag(TAG).d("resubscription successful to : %s", channel);
+                          progress.onNext(
+                              new Progress(completed.incrementAndGet(), failed.get(), total));
+                        })
+                    .doOnError(
+                        error -> {
+                          Timber.tag(TAG).d(error, "error on resubscription to %s", channel);
+                          progress.onNext(
+                              new Progress(completed.get(), failed.incrementAndGet(), total));
+                        })
+                    .onErrorComplete()
+                    .toObservable(),
+            MAX_CONCURRENT_SUBSCRIPTIONS)
+        .ignoreElements();
+  }
+
+  /**
+   * @return an observable of the progress of the last resubscription
+   */
+  public Observable<Progress> observeProgress() {
+    return progress;
+  }
+
+  /**
+   * @param channel to subscribe to
+   * @return the priority of the channel, the lower the sooner it is subscribed to
+   */
+  static int priorityOf(Channel channel) {
+    // The lao channel carries the lao itself and its roll calls
+    if (channel.equals(Channel.ROOT) || channel.isLaoChannel()) {
+      return 0;
+    }
+    String[] segments = channel.getAsString().split("/");
+    // The channel is of the form /root/lao_id/..., the election id is the fourth segment
+    if (channel.isElectionChannel() && !NON_ELECTION_CHANNELS.contains(segments[3])) {
+      return 1;
+    }
+    return 2;
+  }
+
+  /** Progress of a resubscription to the channels */
+  public static final class Progress {
+
+    private final int completed;
+    private final int failed;
+    private final int total;
+
+    public Progress(int completed, int failed, int total) {
+      this.completed = completed;
+      this.failed = failed;
+      this.total = total;
+    }
+
+    public int getCompleted() {
+      return completed;
+    }
+
+    public int getFailed() {
+      return failed;
+    }
+
+    public int getTotal() {
+      return total;
+    }
+
+    /**
+     * @return true if every channel was processed, successfully or not
+     */
+    public boolean isDone() {
+      return completed + failed == total;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+      return "Progress{completed=" + completed + ", failed=" + failed + ", total=" + total + '}';
+    }
+  }
+}
@@ -55,6 +55,7 @@ public class HomeActivity extends AppCompatActivity {
         () -> {
           JsonUtils.loadSchema(JsonUtils.ROOT_SCHEMA);
           JsonUtils.loadSchema(JsonUtils.DATA_SCHEMA);
+          JsonUtils.loadDataSchemas();
           JsonUtils.loadSchema(JsonUtils.GENERAL_MESSAGE_SCHEMA);
         });
 
@@ -3,6 +3,7 @@ package com.github.dedis.popstellar.ui.home.wallet.stellar;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 
 import javax.crypto.Mac;
 import javax.crypto.ShortBufferException;
@@ -194,6 +195,25 @@ public final class SLIP10 {
    */
   public static byte[] deriveEd25519PrivateKey(final byte[] seed, final int... indexes)
       throws NoSuchAlgorithmException, ShortBufferException, InvalidKeyException {
+    final byte[] node = deriveEd25519Node(seed, indexes);
+    final byte[] privateKey = privateKeyOf(node);
+    Arrays.fill(node, (byte) 0);
+    return privateKey;
+  }
+
+  /**
+   * Derives the extended node I = Il || Ir at the given path, from which the descendants of the path
+   * can be derived with {@link #deriveEd25519ChildNode(byte[], int...)}.
+   *
+   * @param seed Seed, the BIP0039 output.
+   * @param indexes an array of indexes that define the path, all treated as hardened.
+   * @return the 64 bytes of the node.
+   * @throws NoSuchAlgorithmException If it cannot find the HmacSHA512 algorithm by name.
+   * @throws ShortBufferException Occurrence not expected.
+   * @throws InvalidKeyException Occurrence not expected.
+   */
+  public static byte[] deriveEd25519Node(final byte[] seed, final int... indexes)
+      throws NoSuchAlgorithmException, ShortBufferException, InvalidKeyException {
 
     final byte[] iMacSha = new byte[64];
     final Mac mac = Mac.getInstance(HMAC_SHA_512_ALGORITHM);
@@ -204,6 +224,38 @@ public final class SLIP10 {
     mac.update(seed);
     mac.doFinal(iMacSha, 0);
 
+    deriveChildren(mac, iMacSha, indexes);
+    return iMacSha;
+  }
+
+  /**
+   * Derives the descendant of a node obtained with {@link #deriveEd25519Node(byte[], int...)}.
+   *
+   * @param node the 64 bytes of the parent node, left untouched.
+   * @param indexes an array of indexes that define the path relative to the parent node, all
+   *     treated as hardened.
+   * @return the 64 bytes of the descendant node.
+   * @throws NoSuchAlgorithmException If it cannot find the HmacSHA512 algorithm by name.
+   * @throws ShortBufferException Occurrence not expected.
+   * @throws InvalidKeyException Occurrence not expected.
+   */
+  public static byte[] deriveEd25519ChildNode(final byte[] node, final int... indexes)
+      throws NoSuchAlgorithmException, ShortBufferException, InvalidKeyException {
+    final byte[] iMacSha = Arrays.copyOf(node, 64);
+    deriveChildren(Mac.getInstance(HMAC_SHA_512_ALGORITHM), iMacSha, indexes);
+    return iMacSha;
+  }
+
+  /**
+   * @param node the 64 bytes of a node
+   * @return the private key of the node, its first 32 bytes.
+   */
+  public static byte[] privateKeyOf(final byte[] node) {
+    return Arrays.copyOf(node, 32);
+  }
+
+  private static void deriveChildren(final Mac mac, final byte[] iMacSha, final int... indexes)
+      throws ShortBufferException, InvalidKeyException {
     for (int i : indexes) {
       // Key = Ir
       mac.init(new SecretKeySpec(iMacSha, 32, 32, HMAC_SHA_512_ALGORITHM));
@@ -219,10 +271,5 @@ public final class SLIP10 {
       // Write to I
       mac.doFinal(iMacSha, 0);
     }
-
-    final byte[] ilMacSha = new byte[32];
-    // copy head 32 bytes of I into Il
-    System.arraycopy(iMacSha, 0, ilMacSha, 0, 32);
-    return ilMacSha;
   }
 }
@@ -32,6 +32,7 @@ import dagger.hilt.android.lifecycle.HiltViewModel;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.CompositeDisposable;
 import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
 import timber.log.Timber;
 
 @HiltViewModel
@@ -263,22 +264,23 @@ public class LaoViewModel extends AndroidViewModel implements PopViewModel {
     addDisposable(
         rollCallRepo
             .getRollCallsObservableInLao(laoId)
+            // Deriving the tokens is costly, it is done before coming back to the main thread
+            .observeOn(Schedulers.computation())
+            .map(
+                rollCalls ->
+                    rollCalls.stream()
+                        .filter(rc -> isRollCallAttended(rc, laoId))
+                        .anyMatch(
+                            rc -> {
+                              try {
+                                return rc.equals(rollCallRepo.getLastClosedRollCall(laoId));
+                              } catch (NoRollCallException e) {
+                                return false;
+                              }
+                            }))
             .observeOn(AndroidSchedulers.mainThread())
             .subscribe(
-                rollCalls -> {
-                  boolean isLastRollCallAttended =
-                      rollCalls.stream()
-                          .filter(rc -> isRollCallAttended(rc, laoId))
-                          .anyMatch(
-                              rc -> {
-                                try {
-                                  return rc.equals(rollCallRepo.getLastClosedRollCall(laoId));
-                                } catch (NoRollCallException e) {
-                                  return false;
-                                }
-                              });
-                  setIsAttendee(isLastRollCallAttended);
-                },
+                this::setIsAttendee,
                 error ->
                     ErrorUtils.logAndShow(
                         getApplication(), TAG, error, R.string.unknown_roll_call_exception)));
@@ -156,7 +156,7 @@ public class DigitalCashViewModel extends AndroidViewModel {
     try {
       PublicKey pub = getPublicKeyOutString(current.getKey());
       long amount = Long.parseLong(current.getValue());
-      Output addOutput = new Output(amount, new ScriptOutput(TYPE, pub.computeHash()));
+      Output addOutput = new Output(amount, new ScriptOutput(TYPE, getPublicKeyHash(pub)));
       outputs.add(addOutput);
       return amount;
     } catch (Exception e) {
@@ -326,14 +326,15 @@ public class DigitalCashViewModel extends AndroidViewModel {
     String transactionHash;
     List<TransactionObject> transactions = getTransactionsForUser(keyPair.getPublicKey());
 
+    // Hash the public key only once for all the outputs
+    String pubKeyHash = getPublicKeyHash(keyPair.getPublicKey());
     long amountSender = getUserBalance(keyPair.getPublicKey()) - amountFromReceiver;
-    Output outputSender =
-        new Output(amountSender, new ScriptOutput(TYPE, keyPair.getPublicKey().computeHash()));
+    Output outputSender = new Output(amountSender, new ScriptOutput(TYPE, pubKeyHash));
     outputs.add(outputSender);
     Map<String, Integer> transactionInpMap = new HashMap<>();
     for (TransactionObject transactionPrevious : transactions) {
       transactionHash = transactionPrevious.getTransactionId();
-      index = transactionPrevious.getIndexTransaction(keyPair.getPublicKey());
+      index = transactionPrevious.getIndexTransaction(pubKeyHash);
       transactionInpMap.put(transactionHash, index);
     }
 
@@ -365,4 +366,12 @@ public class DigitalCashViewModel extends AndroidViewModel {
   public long getOwnBalance() throws KeyException {
     return getUserBalance(getValidToken().getPublicKey());
   }
+
+  /**
+   * @param user public key of a user
+   * @return the hash of the key as used in the transaction outputs
+   */
+  public String getPublicKeyHash(PublicKey user) {
+    return digitalCashRepo.getPublicKeyHash(laoId, user);
+  }
 }
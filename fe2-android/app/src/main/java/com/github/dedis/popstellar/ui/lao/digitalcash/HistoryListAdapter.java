@@ -101,6 +101,8 @@ public class HistoryListAdapter extends RecyclerView.Adapter<HistoryListAdapter.
       ErrorUtils.logAndShow(activity, TAG, e, R.string.error_retrieve_own_token);
       return new ArrayList<>();
     }
+    // Compare the outputs to the hash of the key rather than hashing it for each of them
+    String ownKeyHash = viewModel.getPublicKeyHash(ownKey);
     for (TransactionObject transactionObject : transactionObjects) {
       // To know if we are in input or not. We assume that no two different person
       boolean isSender = transactionObject.isSender(ownKey);
@@ -112,7 +114,7 @@ public class HistoryListAdapter extends RecyclerView.Adapter<HistoryListAdapter.
               // if it is an issuance, we want all outputs where we are
               .filter(
                   outputObject -> {
-                    boolean isOwn = outputObject.getPubKeyHash().equals(ownKey.computeHash());
+                    boolean isOwn = outputObject.getPubKeyHash().equals(ownKeyHash);
                     return isIssuance && isOwn || !isIssuance && (isSender ^ isOwn);
                   })
               .map(
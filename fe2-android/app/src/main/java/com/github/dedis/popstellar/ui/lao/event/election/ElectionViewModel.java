@@ -147,8 +147,9 @@ public class ElectionViewModel extends AndroidViewModel {
 
     Channel channel = election.getChannel();
     String laoViewId = laoView.getId();
-    ElectionEnd electionEnd =
-        new ElectionEnd(election.getId(), laoViewId, election.computeRegisteredVotesHash());
+    String registeredVotes =
+        electionRepo.getElectionVotes(laoViewId, election.getId()).computeRegisteredVotesHash();
+    ElectionEnd electionEnd = new ElectionEnd(election.getId(), laoViewId, registeredVotes);
 
     return networkManager
         .getMessageSender()
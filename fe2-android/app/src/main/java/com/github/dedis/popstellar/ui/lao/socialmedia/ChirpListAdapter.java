@@ -9,20 +9,20 @@ import android.widget.*;
 import androidx.annotation.DrawableRes;
 import androidx.annotation.NonNull;
 import androidx.core.content.res.ResourcesCompat;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.github.dedis.popstellar.R;
-import com.github.dedis.popstellar.model.objects.Chirp;
-import com.github.dedis.popstellar.model.objects.Reaction;
+import com.github.dedis.popstellar.model.objects.*;
 import com.github.dedis.popstellar.model.objects.security.MessageID;
 import com.github.dedis.popstellar.model.objects.security.PublicKey;
 import com.github.dedis.popstellar.ui.lao.LaoViewModel;
+import com.github.dedis.popstellar.utility.Timeline;
 import com.github.dedis.popstellar.utility.error.ErrorUtils;
 import com.github.dedis.popstellar.utility.error.UnknownChirpException;
-import com.github.dedis.popstellar.utility.error.keys.KeyException;
 
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.util.*;
-import java.util.stream.Collectors;
 
 import io.reactivex.disposables.CompositeDisposable;
 import io.reactivex.disposables.Disposable;
@@ -31,15 +31,27 @@ import timber.log.Timber;
 import static android.text.format.DateUtils.getRelativeTimeSpanString;
 import static com.github.dedis.popstellar.model.objects.Reaction.ReactionEmoji.*;
 
-public class ChirpListAdapter extends BaseAdapter {
+/**
+ * Adapter of the chirp feed.
+ *
+ * <p>The feed applies the positional events of the timeline of the repository, so that only the
+ * inserted, removed or modified chirps are bound again. The counters of the reactions are
+ * maintained by the repository, a bound chirp only observes the counters of its own reactions.
+ */
+public class ChirpListAdapter extends RecyclerView.Adapter<ChirpListAdapter.ChirpViewHolder> {
 
   private static final String TAG = ChirpListAdapter.class.getSimpleName();
 
+  // Displayed chirps, from the newest to the oldest
+  private final List<Chirp> chirps = new ArrayList<>();
+
   private final LaoViewModel laoViewModel;
   private final SocialMediaViewModel socialMediaViewModel;
   private final Context context;
   private final LayoutInflater layoutInflater;
-  private List<Chirp> chirps;
+
+  // Key of the user's PoP token, null if the user cannot react nor delete chirps
+  private PublicKey ownKey;
 
   private final CompositeDisposable disposables = new CompositeDisposable();
 
@@ -48,147 +60,129 @@ public class ChirpListAdapter extends BaseAdapter {
     this.context = context;
     this.socialMediaViewModel = socialMediaViewModel;
     this.laoViewModel = viewModel;
+    setHasStableIds(true);
 
     layoutInflater = LayoutInflater.from(context);
+    // The token is resolved for the whole feed instead of once per displayed chirp, and again
+    // when a roll call closes
+    ownKey = socialMediaViewModel.getOwnPublicKey();
+    viewModel.addDisposable(
+        socialMediaViewModel
+            .getOwnPublicKeyObservable()
+            .subscribe(
+                key -> setOwnKey(key.orElse(null)),
+                err -> ErrorUtils.logAndShow(context, TAG, err, R.string.unknown_chirp_exception)));
     viewModel.addDisposable(
         socialMediaViewModel
-            .getChirps()
+            .getChirpEvents()
             .subscribe(
-                this::replaceList,
+                this::applyEvents,
                 err -> ErrorUtils.logAndShow(context, TAG, err, R.string.unknown_chirp_exception)));
   }
 
   public void replaceList(List<Chirp> chirps) {
-    // Dispose of previous observables
-    disposables.clear();
-    this.chirps = chirps;
+    this.chirps.clear();
+    if (chirps != null) {
+      this.chirps.addAll(chirps);
+    }
     notifyDataSetChanged();
   }
 
-  @Override
-  public int getCount() {
-    return chirps != null ? chirps.size() : 0;
+  /**
+   * Apply the changes of the feed, in their order, to the displayed chirps
+   *
+   * @param events positional events of the timeline of the chirps
+   */
+  public void applyEvents(List<Timeline.Event<Chirp>> events) {
+    for (Timeline.Event<Chirp> event : events) {
+      int position = event.getPosition();
+      switch (event.getType()) {
+        case INSERT:
+          chirps.add(position, event.getValue());
+          notifyItemInserted(position);
+          break;
+        case REMOVE:
+          chirps.remove(position);
+          notifyItemRemoved(position);
+          break;
+        case CHANGE:
+          chirps.set(position, event.getValue());
+          notifyItemChanged(position);
+          break;
+      }
+    }
+  }
+
+  private void setOwnKey(PublicKey key) {
+    if (!Objects.equals(ownKey, key)) {
+      ownKey = key;
+      // The buttons of every chirp depend on the key
+      notifyItemRangeChanged(0, chirps.size());
+    }
+  }
+
+  public List<Chirp> getCurrentList() {
+    return Collections.unmodifiableList(chirps);
   }
 
   @Override
-  public Chirp getItem(int position) {
-    return chirps.get(position);
+  public int getItemCount() {
+    return chirps.size();
   }
 
   @Override
   public long getItemId(int position) {
-    return position;
+    // Message ids are hashes, their first bytes are already uniformly distributed
+    ByteBuffer id = chirps.get(position).getId().asByteBuffer();
+    return id.remaining() >= Long.BYTES ? id.getLong(0) : id.hashCode();
   }
 
+  @NonNull
   @Override
-  public View getView(int position, View chirpView, ViewGroup viewGroup) {
-    if (chirpView == null) {
-      chirpView = layoutInflater.inflate(R.layout.chirp_card, viewGroup, false);
-    }
+  public ChirpViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+    return new ChirpViewHolder(layoutInflater.inflate(R.layout.chirp_card, parent, false));
+  }
 
-    Chirp chirp = getItem(position);
+  @Override
+  public void onBindViewHolder(@NonNull ChirpViewHolder holder, int position) {
+    Chirp chirp = chirps.get(position);
     if (chirp == null) {
       throw new IllegalArgumentException("The chirp does not exist");
     }
 
-    // If the user has no valid pop token then it's not possible to react
-    // (make invisible the buttons)
-    try {
-      socialMediaViewModel.getValidPoPToken();
-      chirpView.findViewById(R.id.chirp_card_buttons).setVisibility(View.VISIBLE);
-    } catch (KeyException e) {
-      chirpView.findViewById(R.id.chirp_card_buttons).setVisibility(View.GONE);
-    }
-
-    // Dispose of previous observables for the chirp at this position
-    Disposable previousDisposable = (Disposable) chirpView.getTag(R.id.chirp_card_buttons);
-    if (previousDisposable != null) {
-      previousDisposable.dispose();
-    }
+    // Dispose of the observable of the chirp previously bound to this view
+    holder.unbind(disposables);
 
     PublicKey sender = chirp.getSender();
     long timestamp = chirp.getTimestamp();
     String text;
 
-    TextView itemUsername = chirpView.findViewById(R.id.social_media_username);
-    TextView itemTime = chirpView.findViewById(R.id.social_media_time);
-    TextView itemText = chirpView.findViewById(R.id.social_media_text);
-    ImageButton deleteChirp = chirpView.findViewById(R.id.delete_chirp_button);
-    ImageButton upvoteChirp = chirpView.findViewById(R.id.upvote_button);
-    ImageButton downvoteChirp = chirpView.findViewById(R.id.downvote_button);
-    ImageButton heartChirp = chirpView.findViewById(R.id.heart_button);
-    TextView upvoteCounter = chirpView.findViewById(R.id.upvote_counter);
-    TextView downvoteCounter = chirpView.findViewById(R.id.downvote_counter);
-    TextView heartCounter = chirpView.findViewById(R.id.heart_counter);
+    // If the user has no valid pop token then it's not possible to react
+    // (make invisible the buttons)
+    holder.buttons.setVisibility(ownKey != null ? View.VISIBLE : View.GONE);
 
     // Set dynamically the reaction buttons selection and counter
     try {
       Disposable reactionDisposable =
           socialMediaViewModel
-              .getReactions(chirp.getId())
-              // Each time the observable changes the counter and the selection is notified
+              .getReactionCounts(chirp.getId())
+              // Each time the reactions change the counter and the selection are updated
               .subscribe(
-                  reactions -> {
-                    // Map the reactions to the chirp into <codepoint, list of senders' pk>
-                    Map<String, Set<String>> codepointToSendersMap =
-                        reactions.stream()
-                            // Filter just non deleted reactions
-                            .filter(reaction -> !reaction.isDeleted())
-                            // Then collect by emoji type and count the occurrences
-                            .collect(
-                                Collectors.groupingBy(
-                                    Reaction::getCodepoint,
-                                    Collectors.mapping(
-                                        reaction -> reaction.getSender().getEncoded(),
-                                        Collectors.toSet())));
-
-                    // Extract the number of reactions by emoji
-                    Set<String> upVotes =
-                        codepointToSendersMap.getOrDefault(UPVOTE.getCode(), new HashSet<>(0));
-                    Set<String> downVotes =
-                        codepointToSendersMap.getOrDefault(DOWNVOTE.getCode(), new HashSet<>(0));
-                    Set<String> hearts =
-                        codepointToSendersMap.getOrDefault(HEART.getCode(), new HashSet<>(0));
-
-                    upvoteCounter.setText(String.format(Locale.US, "%d", upVotes.size()));
-                    downvoteCounter.setText(String.format(Locale.US, "%d", downVotes.size()));
-                    heartCounter.setText(String.format(Locale.US, "%d", hearts.size()));
-
-                    // As retrieving the database state is asynchronous, the selection can be
-                    // slightly delayed, so we shall observe this observable to set the selection
-                    upvoteChirp.setSelected(socialMediaViewModel.isReactionPresent(upVotes));
-                    downvoteChirp.setSelected(socialMediaViewModel.isReactionPresent(downVotes));
-                    heartChirp.setSelected(socialMediaViewModel.isReactionPresent(hearts));
-
-                    // Based on the selection of the buttons choose the correct drawable
-                    setItemSelection(
-                        upvoteChirp,
-                        R.drawable.ic_social_media_upvote_selected,
-                        R.drawable.ic_social_media_upvote);
-                    setItemSelection(
-                        downvoteChirp,
-                        R.drawable.ic_social_media_downvote_selected,
-                        R.drawable.ic_social_media_downvote);
-                    setItemSelection(
-                        heartChirp,
-                        R.drawable.ic_social_media_heart_selected,
-                        R.drawable.ic_social_media_heart);
-                  },
+                  holder::bindReactions,
                   err ->
                       ErrorUtils.logAndShow(context, TAG, err, R.string.unknown_chirp_exception));
-      // Store the disposable as a tag
-      chirpView.setTag(R.id.chirp_card_buttons, reactionDisposable);
+      holder.reactionDisposable = reactionDisposable;
       disposables.add(reactionDisposable);
     } catch (UnknownChirpException e) {
       throw new IllegalArgumentException("The chirp does not exist");
     }
 
-    setupReactionButtons(chirp.getId(), upvoteChirp, downvoteChirp, heartChirp);
+    setupReactionButtons(chirp.getId(), holder.upvote, holder.downvote, holder.heart);
 
     // Show the delete button only if the user is the owner of the chirp
-    if (socialMediaViewModel.isOwner(sender.getEncoded())) {
-      deleteChirp.setVisibility(View.VISIBLE);
-      deleteChirp.setOnClickListener(
+    if (sender.equals(ownKey)) {
+      holder.delete.setVisibility(View.VISIBLE);
+      holder.delete.setOnClickListener(
           v ->
               laoViewModel.addDisposable(
                   socialMediaViewModel
@@ -201,23 +195,34 @@ public class ChirpListAdapter extends BaseAdapter {
                               ErrorUtils.logAndShow(
                                   context, TAG, error, R.string.error_delete_chirp))));
     } else {
-      deleteChirp.setVisibility(View.GONE);
+      holder.delete.setVisibility(View.GONE);
     }
 
     // If the chirp has been deleted display a special text and hide the rest
     if (chirp.isDeleted()) {
       text = context.getString(R.string.deleted_chirp_2);
-      chirpView.findViewById(R.id.chirp_card_buttons).setVisibility(View.GONE);
-      itemText.setTextColor(Color.GRAY);
+      holder.buttons.setVisibility(View.GONE);
+      holder.text.setTextColor(Color.GRAY);
     } else {
       text = chirp.getText();
+      holder.text.setTextColor(holder.defaultTextColor);
     }
 
-    itemUsername.setText(sender.getEncoded());
-    itemTime.setText(getRelativeTimeSpanString(timestamp * 1000));
-    itemText.setText(text);
+    holder.username.setText(sender.getEncoded());
+    holder.time.setText(getRelativeTimeSpanString(timestamp * 1000));
+    holder.text.setText(text);
+  }
 
-    return chirpView;
+  @Override
+  public void onViewRecycled(@NonNull ChirpViewHolder holder) {
+    super.onViewRecycled(holder);
+    holder.unbind(disposables);
+  }
+
+  @Override
+  public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+    super.onDetachedFromRecyclerView(recyclerView);
+    disposables.clear();
   }
 
   /**
@@ -306,4 +311,70 @@ public class ChirpListAdapter extends BaseAdapter {
             : ResourcesCompat.getDrawable(context.getResources(), notSelected, context.getTheme());
     button.setImageDrawable(icon);
   }
+
+  public class ChirpViewHolder extends RecyclerView.ViewHolder {
+
+    private final TextView username;
+    private final TextView time;
+    private final TextView text;
+    private final View buttons;
+    private final ImageButton delete;
+    private final ImageButton upvote;
+    private final ImageButton downvote;
+    private final ImageButton heart;
+    private final TextView upvoteCounter;
+    private final TextView downvoteCounter;
+    private final TextView heartCounter;
+    private final int defaultTextColor;
+
+    private Disposable reactionDisposable;
+
+    public ChirpViewHolder(@NonNull View itemView) {
+      super(itemView);
+      username = itemView.findViewById(R.id.social_media_username);
+      time = itemView.findViewById(R.id.social_media_time);
+      text = itemView.findViewById(R.id.social_media_text);
+      buttons = itemView.findViewById(R.id.chirp_card_buttons);
+      delete = itemView.findViewById(R.id.delete_chirp_button);
+      upvote = itemView.findViewById(R.id.upvote_button);
+      downvote = itemView.findViewById(R.id.downvote_button);
+      heart = itemView.findViewById(R.id.heart_button);
+      upvoteCounter = itemView.findViewById(R.id.upvote_counter);
+      downvoteCounter = itemView.findViewById(R.id.downvote_counter);
+      heartCounter = itemView.findViewById(R.id.heart_counter);
+      defaultTextColor = text.getCurrentTextColor();
+    }
+
+    private void bindReactions(ChirpReactions reactions) {
+      upvoteCounter.setText(
+          String.format(Locale.US, "%d", reactions.getCount(UPVOTE.getCode())));
+      downvoteCounter.setText(
+          String.format(Locale.US, "%d", reactions.getCount(DOWNVOTE.getCode())));
+      heartCounter.setText(String.format(Locale.US, "%d", reactions.getCount(HEART.getCode())));
+
+      // As retrieving the database state is asynchronous, the selection can be
+      // slightly delayed, so we shall observe this observable to set the selection
+      upvote.setSelected(ownKey != null && reactions.hasReacted(UPVOTE.getCode(), ownKey));
+      downvote.setSelected(ownKey != null && reactions.hasReacted(DOWNVOTE.getCode(), ownKey));
+      heart.setSelected(ownKey != null && reactions.hasReacted(HEART.getCode(), ownKey));
+
+      // Based on the selection of the buttons choose the correct drawable
+      setItemSelection(
+          upvote, R.drawable.ic_social_media_upvote_selected, R.drawable.ic_social_media_upvote);
+      setItemSelection(
+          downvote,
+          R.drawable.ic_social_media_downvote_selected,
+          R.drawable.ic_social_media_downvote);
+      setItemSelection(
+          heart, R.drawable.ic_social_media_heart_selected, R.drawable.ic_social_media_heart);
+    }
+
+    private void unbind(CompositeDisposable disposables) {
+      if (reactionDisposable != null) {
+        // Removing the disposable from the composite also disposes it
+        disposables.remove(reactionDisposable);
+        reactionDisposable = null;
+      }
+    }
+  }
 }
@@ -1,13 +1,15 @@
 package com.github.dedis.popstellar.ui.lao.socialmedia;
 
+import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.view.*;
-import android.widget.ListView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.core.content.res.ResourcesCompat;
 import androidx.fragment.app.FragmentManager;
+import androidx.recyclerview.widget.*;
 
 import com.github.dedis.popstellar.R;
 import com.github.dedis.popstellar.databinding.ChirpListFragmentBinding;
@@ -21,6 +23,9 @@ import dagger.hilt.android.AndroidEntryPoint;
 public class ChirpListFragment extends Fragment {
   public static final String TAG = SocialMediaSendFragment.class.getSimpleName();
 
+  /** Number of chirps below the visible ones from which the older chirps are read */
+  private static final int PRELOAD_DISTANCE = 10;
+
   private ChirpListFragmentBinding binding;
   private LaoViewModel laoViewModel;
   private SocialMediaViewModel socialMediaViewModel;
@@ -70,10 +75,33 @@ public class ChirpListFragment extends Fragment {
   }
 
   private void setupListViewAdapter() {
-    ListView listView = binding.chirpsList;
+    RecyclerView recyclerView = binding.chirpsList;
+    LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+    DividerItemDecoration decoration =
+        new DividerItemDecoration(requireContext(), DividerItemDecoration.VERTICAL);
+    Drawable divider =
+        ResourcesCompat.getDrawable(
+            getResources(), R.drawable.chirp_list_divider, requireContext().getTheme());
+    if (divider != null) {
+      decoration.setDrawable(divider);
+    }
     ChirpListAdapter mChirpListAdapter =
         new ChirpListAdapter(requireActivity(), socialMediaViewModel, laoViewModel);
-    listView.setAdapter(mChirpListAdapter);
+
+    recyclerView.setLayoutManager(layoutManager);
+    recyclerView.addItemDecoration(decoration);
+    recyclerView.setAdapter(mChirpListAdapter);
+    recyclerView.addOnScrollListener(
+        new RecyclerView.OnScrollListener() {
+          @Override
+          public void onScrolled(@NonNull RecyclerView view, int dx, int dy) {
+            // Read the next page of chirps before the end of the feed is reached
+            int lastVisible = layoutManager.findLastVisibleItemPosition();
+            if (lastVisible + PRELOAD_DISTANCE >= layoutManager.getItemCount()) {
+              socialMediaViewModel.loadOlderChirps();
+            }
+          }
+        });
   }
 
   public static void OpenFragment(FragmentManager manager) {
@@ -6,15 +6,14 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.lifecycle.*;
 
-import com.github.dedis.popstellar.R;
 import com.github.dedis.popstellar.model.network.method.message.MessageGeneral;
 import com.github.dedis.popstellar.model.network.method.message.data.socialmedia.*;
 import com.github.dedis.popstellar.model.objects.*;
-import com.github.dedis.popstellar.model.objects.security.MessageID;
-import com.github.dedis.popstellar.model.objects.security.PoPToken;
+import com.github.dedis.popstellar.model.objects.security.*;
 import com.github.dedis.popstellar.model.objects.view.LaoView;
 import com.github.dedis.popstellar.repository.*;
 import com.github.dedis.popstellar.repository.remote.GlobalNetworkManager;
+import com.github.dedis.popstellar.utility.Timeline;
 import com.github.dedis.popstellar.utility.error.*;
 import com.github.dedis.popstellar.utility.error.keys.KeyException;
 import com.github.dedis.popstellar.utility.scheduler.SchedulerProvider;
@@ -22,7 +21,6 @@ import com.github.dedis.popstellar.utility.security.KeyManager;
 import com.google.gson.Gson;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
@@ -265,74 +263,64 @@ public class SocialMediaViewModel extends AndroidViewModel {
             });
   }
 
-  public Observable<List<Chirp>> getChirps() {
+  /**
+   * @return an observable of the positional events of the feed, from the newest to the oldest
+   *     chirp, starting with the current chirps
+   */
+  public Observable<List<Timeline.Event<Chirp>>> getChirpEvents() {
     return socialMediaRepository
-        .getChirpsOfLao(laoId)
-        // Retrieve chirp subjects per id
-        .map(
-            ids -> {
-              List<Observable<Chirp>> chirps = new ArrayList<>(ids.size());
-              for (MessageID id : ids) {
-                chirps.add(socialMediaRepository.getChirp(laoId, id));
-              }
-              return chirps;
-            })
-        // Zip the subjects together to a sorted list
-        .flatMap(
-            observables ->
-                Observable.combineLatest(
-                    observables,
-                    chirps ->
-                        Arrays.stream(chirps)
-                            .map(Chirp.class::cast)
-                            .sorted(
-                                Comparator.comparing(
-                                    (Chirp chirp) -> chirp != null ? -chirp.getTimestamp() : 0))
-                            .collect(Collectors.toList())))
+        .getChirpTimeline(laoId)
         // We want to observe these changes on the main thread such that any modification done to
         // the view are done on the thread. Otherwise, the app might crash
         .observeOn(schedulerProvider.mainThread());
   }
 
-  public Observable<Set<Reaction>> getReactions(MessageID chirpId) throws UnknownChirpException {
+  /** Read the older chirps of the lao from the disk, when the end of the feed is displayed */
+  public void loadOlderChirps() {
+    socialMediaRepository.loadOlderChirps(laoId);
+  }
+
+  /**
+   * @param chirpId of the chirp
+   * @return an observable of the senders of the chirp's reactions by codepoint
+   * @throws UnknownChirpException if the chirp is not known
+   */
+  public Observable<ChirpReactions> getReactionCounts(MessageID chirpId)
+      throws UnknownChirpException {
     return socialMediaRepository
-        .getReactions(laoId, chirpId)
+        .getReactionCounts(laoId, chirpId)
         .observeOn(schedulerProvider.mainThread());
   }
 
   /**
-   * Check whether the sender of a chirp is the current user
+   * Resolve the public key of the user's PoP token for the last roll call. It is meant to be
+   * resolved once per screen rather than for each displayed chirp.
    *
-   * @param sender String of the PoPToken PublicKey
-   * @return true if the sender is the current user
+   * @return the public key of the user's valid PoP token, or null if the user has none and can
+   *     neither react nor delete chirps
    */
-  public boolean isOwner(String sender) {
-    Timber.tag(TAG).d("Testing if the sender is also the owner");
-
+  @Nullable
+  public PublicKey getOwnPublicKey() {
     try {
-      PoPToken token = getValidPoPToken();
-      return sender.equals(token.getPublicKey().getEncoded());
+      return getValidPoPToken().getPublicKey();
     } catch (KeyException e) {
-      ErrorUtils.logAndShow(getApplication(), TAG, e, R.string.error_retrieve_own_token);
-      return false;
+      Timber.tag(TAG).d(e, "The user has no valid PoP token");
+      return null;
     }
   }
 
   /**
-   * This function searches if in the list of the senders of a reaction, there's the own key
-   *
-   * @param senders set of public keys as encoded strings
-   * @return true if we have sent such reaction, false otherwise
+   * @return an observable of the key of the user's PoP token, resolved again when the roll calls of
+   *     the lao change, empty if the user has no valid PoP token
    */
-  public boolean isReactionPresent(@NonNull Set<String> senders) {
-    try {
-      PoPToken token = getValidPoPToken();
-      String toSearch = token.getPublicKey().getEncoded();
-      return senders.contains(toSearch);
-    } catch (KeyException e) {
-      ErrorUtils.logAndShow(getApplication(), TAG, e, R.string.error_retrieve_own_token);
-      return false;
-    }
+  public Observable<Optional<PublicKey>> getOwnPublicKeyObservable() {
+    return rollCallRepo
+        .getRollCallsObservableInLao(laoId)
+        // Deriving the token is costly, it is done before coming back to the main thread
+        .observeOn(schedulerProvider.computation())
+        .map(rollCalls -> Optional.ofNullable(getOwnPublicKey()))
+        .distinctUntilChanged()
+        .observeOn(schedulerProvider.mainThread());
   }
 
   public void setLaoId(String laoId) {
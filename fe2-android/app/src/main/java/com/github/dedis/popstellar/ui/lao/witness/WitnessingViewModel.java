@@ -20,6 +20,8 @@ import com.github.dedis.popstellar.repository.LAORepository;
 import com.github.dedis.popstellar.repository.WitnessingRepository;
 import com.github.dedis.popstellar.repository.remote.GlobalNetworkManager;
 import com.github.dedis.popstellar.ui.qrcode.QRCodeScanningViewModel;
+import com.github.dedis.popstellar.utility.ChangeStream;
+import com.github.dedis.popstellar.utility.ChangeStream.Change;
 import com.github.dedis.popstellar.utility.error.ErrorUtils;
 import com.github.dedis.popstellar.utility.error.UnknownLaoException;
 import com.github.dedis.popstellar.utility.security.KeyManager;
@@ -50,6 +52,8 @@ public class WitnessingViewModel extends AndroidViewModel implements QRCodeScann
   // Accepted witnesses
   private final MutableLiveData<List<PublicKey>> witnesses = new MutableLiveData<>();
   private final MutableLiveData<List<WitnessMessage>> witnessMessages = new MutableLiveData<>();
+  // Witness messages by id, kept up to date with the changes published by the repository
+  private final Map<MessageID, WitnessMessage> messagesById = new HashMap<>();
   private final MutableLiveData<Integer> nbScanned = new MutableLiveData<>(0);
   private MutableLiveData<Boolean> showPopup = new MutableLiveData<>(false);
 
@@ -115,35 +119,42 @@ public class WitnessingViewModel extends AndroidViewModel implements QRCodeScann
                 witnessesSet -> setWitnesses(new ArrayList<>(witnessesSet)),
                 error ->
                     Timber.tag(TAG).d(error, "Error in updating the witnesses of lao %s", laoId)),
-        // Observe the witness messages
+        // Observe the changes of the witness messages
         witnessingRepo
-            .getWitnessMessagesObservableInLao(laoId)
+            .getWitnessMessageChangesInLao(laoId)
             .observeOn(AndroidSchedulers.mainThread())
             .subscribe(
-                witnessMessage -> {
-                  // Order by latest arrived
-                  setWitnessMessages(
-                      witnessMessage.stream()
-                          .sorted(Comparator.comparing(WitnessMessage::getTimestamp).reversed())
-                          .collect(Collectors.toList()));
-
-                  // When a new witness message is received, if it needs to be signed by the user
-                  // then we show a pop up that the user can click to open the witnessing fragment
-                  PublicKey myPk = keyManager.getMainPublicKey();
-                  if (!witnessMessage.isEmpty()
-                      && witnessingRepo.isWitness(laoId, myPk)
-                      && !Objects.requireNonNull(witnessMessages.getValue())
-                          .get(0)
-                          .getWitnesses()
-                          .contains(myPk)) {
-                    showPopup.setValue(true);
-                  }
-                },
+                this::applyWitnessMessageChanges,
                 error ->
                     Timber.tag(TAG)
                         .d(error, "Error in updating the witness messages of lao %s", laoId)));
   }
 
+  private void applyWitnessMessageChanges(List<Change<MessageID, WitnessMessage>> changes) {
+    PublicKey myPk = keyManager.getMainPublicKey();
+    boolean toSign = false;
+    for (Change<MessageID, WitnessMessage> change : changes) {
+      if (change.getType() == ChangeStream.Type.DELETE) {
+        messagesById.remove(change.getKey());
+      } else {
+        messagesById.put(change.getKey(), change.getValue());
+        toSign |= !change.getValue().getWitnesses().contains(myPk);
+      }
+    }
+
+    // Order by latest arrived
+    setWitnessMessages(
+        messagesById.values().stream()
+            .sorted(Comparator.comparing(WitnessMessage::getTimestamp).reversed())
+            .collect(Collectors.toList()));
+
+    // When a witness message that needs to be signed by the user is received, we show a pop up
+    // that the user can click to open the witnessing fragment
+    if (toSign && witnessingRepo.isWitness(laoId, myPk)) {
+      showPopup.setValue(true);
+    }
+  }
+
   /**
    * This function deletes the messages that have already passed the witnessing policy to clear
    * useless space.
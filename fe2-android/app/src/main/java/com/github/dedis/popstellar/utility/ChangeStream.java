@@ -0,0 +1,211 @@
+package com.github.dedis.popstellar.utility;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Observable;
+import io.reactivex.subjects.PublishSubject;
+
+/**
+ * Thread-safe keyed collection that publishes its modifications as a stream of changes.
+ *
+ * <p>Instead of publishing a copy of the whole collection on each modification, only the added,
+ * updated or deleted entry is published. Each change carries a sequence number, increasing with
+ * each modification of the collection.
+ *
+ * <p>A subscriber first receives the current content of the collection as a single batch of
+ * additions, followed by one batch per modification. No modification can happen between the
+ * snapshot and the following changes.
+ *
+ * <p>The changes are emitted out of the lock of the collection, in the order of their sequence
+ * numbers, so a slow subscriber does not block the threads modifying the collection. A change made
+ * while another one is emitted, by any thread, is emitted after it by the emitting thread.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ */
+public class ChangeStream<K, V> {
+
+  public enum Type {
+    ADD,
+    UPDATE,
+    DELETE
+  }
+
+  /** Modification of an entry of the collection */
+  public static final class Change<K, V> {
+
+    private final Type type;
+    private final long sequence;
+    private final K key;
+    private final V value;
+
+    public Change(@NonNull Type type, long sequence, @NonNull K key, @NonNull V value) {
+      this.type = type;
+      this.sequence = sequence;
+      this.key = key;
+      this.value = value;
+    }
+
+    public Type getType() {
+      return type;
+    }
+
+    public long getSequence() {
+      return sequence;
+    }
+
+    public K getKey() {
+      return key;
+    }
+
+    /**
+     * @return the new value of the entry, or its last value if it was deleted
+     */
+    public V getValue() {
+      return value;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+      return "Change{"
+          + "type="
+          + type
+          + ", sequence="
+          + sequence
+          + ", key="
+          + key
+          + ", value="
+          + value
+          + '}';
+    }
+  }
+
+  /** Entries in insertion order */
+  private final Map<K, V> entries = new LinkedHashMap<>();
+
+  private final PublishSubject<List<Change<K, V>>> changes = PublishSubject.create();
+  private long sequence;
+
+  /** Changes waiting to be emitted, guarded by the lock of the collection */
+  private final Queue<List<Change<K, V>>> pending = new ArrayDeque<>();
+
+  /** Number of times the pending changes were requested to be emitted, while being emitted */
+  private final AtomicInteger emitting = new AtomicInteger();
+
+  /**
+   * Add an entry to the collection, or replace its value if the key is already present
+   *
+   * @param key of the entry
+   * @param value of the entry
+   */
+  public void put(@NonNull K key, @NonNull V value) {
+    synchronized (this) {
+      Type type = entries.put(key, value) == null ? Type.ADD : Type.UPDATE;
+      publish(type, key, value);
+    }
+    emitPending();
+  }
+
+  /**
+   * Remove an entry from the collection
+   *
+   * @param key of the entry
+   * @return true if an entry with this key was present
+   */
+  public boolean remove(@NonNull K key) {
+    synchronized (this) {
+      V removed = entries.remove(key);
+      if (removed == null) {
+        return false;
+      }
+      publish(Type.DELETE, key, removed);
+    }
+    emitPending();
+    return true;
+  }
+
+  @Nullable
+  public synchronized V get(@NonNull K key) {
+    return entries.get(key);
+  }
+
+  public synchronized boolean isEmpty() {
+    return entries.isEmpty();
+  }
+
+  public synchronized Set<K> keys() {
+    return new LinkedHashSet<>(entries.keySet());
+  }
+
+  public synchronized List<V> values() {
+    return new ArrayList<>(entries.values());
+  }
+
+  /**
+   * @return an observable of the changes of the collection, starting with its current content
+   */
+  public Observable<List<Change<K, V>>> observe() {
+    return Observable.create(
+        emitter -> {
+          synchronized (this) {
+            long snapshotSequence = sequence;
+            List<Change<K, V>> snapshot = new ArrayList<>(entries.size());
+            entries.forEach(
+                (key, value) -> snapshot.add(new Change<>(Type.ADD, sequence, key, value)));
+            emitter.onNext(snapshot);
+            // Subscribing under the lock guarantees that no change is missed after the snapshot,
+            // the pending changes already contained in the snapshot are skipped
+            emitter.setDisposable(
+                changes
+                    .filter(batch -> batch.get(0).getSequence() > snapshotSequence)
+                    .subscribe(emitter::onNext, emitter::onError, emitter::onComplete));
+          }
+        });
+  }
+
+  /**
+   * This is meant for subscribers that need the whole collection on each modification. The copy
+   * is only made for such subscribers.
+   *
+   * @return an observable of the values of the collection, updated on each modification
+   */
+  public Observable<List<V>> observeValues() {
+    // The values are read when the change is received, they may already contain the next changes
+    // which are received right after
+    return observe().map(batch -> values());
+  }
+
+  /** Queue a change, the lock of the collection must be held */
+  private void publish(Type type, K key, V value) {
+    sequence++;
+    pending.add(Collections.singletonList(new Change<>(type, sequence, key, value)));
+  }
+
+  /**
+   * Emit the pending changes. Only one thread emits at a time, the changes queued while it emits
+   * are emitted by it before it leaves.
+   */
+  private void emitPending() {
+    if (emitting.getAndIncrement() != 0) {
+      return;
+    }
+
+    int missed = 1;
+    do {
+      List<Change<K, V>> batch;
+      while ((batch = pollPending()) != null) {
+        changes.onNext(batch);
+      }
+      missed = emitting.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  private synchronized List<Change<K, V>> pollPending() {
+    return pending.poll();
+  }
+}
@@ -0,0 +1,38 @@
+package com.github.dedis.popstellar.utility;
+
+import androidx.annotation.NonNull;
+
+import java.util.function.Function;
+
+/**
+ * A value derived from an immutable object, computed on its first use and kept afterwards.
+ *
+ * <p>No lock is taken: concurrent first callers may each compute the value. This is only correct
+ * because the value is a pure function of immutable state, every computation gives an equal value
+ * and any of them can be kept.
+ *
+ * <p>The computation is given at each call rather than stored, so that a lazy field costs a single
+ * reference. It should not capture any variable, for its lambda not to be allocated on each call.
+ *
+ * @param <T> type of the value
+ */
+public final class Lazy<T> {
+
+  private volatile T value;
+
+  /**
+   * @param source the immutable state the value is derived from
+   * @param compute the function deriving the value, it must not return null
+   * @param <S> type of the source
+   * @return the value, computed if it is the first call
+   */
+  @NonNull
+  public <S> T get(S source, Function<S, T> compute) {
+    T result = value;
+    if (result == null) {
+      result = compute.apply(source);
+      value = result;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,308 @@
+package com.github.dedis.popstellar.utility;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.*;
+
+import io.reactivex.Observable;
+import io.reactivex.subjects.PublishSubject;
+
+/**
+ * Thread-safe keyed collection kept sorted, that publishes its modifications as positional events.
+ *
+ * <p>The values are held in an indexable skip list: each link knows how many values it skips, so
+ * that inserting or removing a value and finding its position in the order cost O(log n). The
+ * events give the position of each inserted, removed or changed value, so that a list displaying
+ * the collection can be updated in place instead of being rebuilt.
+ *
+ * <p>A subscriber first receives the current content of the collection as a single batch of
+ * insertions, in order, followed by one batch per modification. No modification can happen
+ * between the snapshot and the following events.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ */
+public class Timeline<K, V> {
+
+  public enum Type {
+    INSERT,
+    REMOVE,
+    CHANGE
+  }
+
+  /** Modification of the value at a position of the collection */
+  public static final class Event<V> {
+
+    private final Type type;
+    private final int position;
+    private final V value;
+
+    public Event(@NonNull Type type, int position, @NonNull V value) {
+      this.type = type;
+      this.position = position;
+      this.value = value;
+    }
+
+    public Type getType() {
+      return type;
+    }
+
+    /**
+     * @return the position of the value, before the event if it was removed and after otherwise
+     */
+    public int getPosition() {
+      return position;
+    }
+
+    /**
+     * @return the new value at the position, or the removed value
+     */
+    public V getValue() {
+      return value;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+      return "Event{type=" + type + ", position=" + position + ", value=" + value + '}';
+    }
+  }
+
+  private static final int MAX_LEVEL = 32;
+
+  /** Node of the skip list, width[i] being the number of positions between it and next[i] */
+  private static final class Node<V> {
+
+    private final V value;
+    private final Node<V>[] next;
+    private final int[] width;
+
+    @SuppressWarnings("unchecked")
+    private Node(V value, int level) {
+      this.value = value;
+      next = (Node<V>[]) new Node[level];
+      width = new int[level];
+    }
+  }
+
+  private final Comparator<V> order;
+  private final Map<K, V> entries = new HashMap<>();
+
+  // The tail is a sentinel after the last value, the links to it are counted like the others
+  private final Node<V> head = new Node<>(null, MAX_LEVEL);
+  private final Node<V> tail = new Node<>(null, 0);
+  private final Random random = new Random();
+  // Positions of the nodes of the last chain, reused as the collection is modified under the lock
+  private final int[] chainSteps = new int[MAX_LEVEL];
+
+  private final PublishSubject<List<Event<V>>> events = PublishSubject.create();
+
+  /**
+   * @param order total order of the values, two values of different keys must not be equal in it
+   */
+  public Timeline(@NonNull Comparator<V> order) {
+    this.order = order;
+    Arrays.fill(head.next, tail);
+    Arrays.fill(head.width, 1);
+  }
+
+  /**
+   * Add a value to the collection, or replace the value of the key if it is already present
+   *
+   * @param key of the value
+   * @param value to place in the order
+   */
+  public synchronized void put(@NonNull K key, @NonNull V value) {
+    V previous = entries.put(key, value);
+    if (previous == null) {
+      publish(new Event<>(Type.INSERT, insert(value), value));
+      return;
+    }
+
+    int removedAt = delete(previous);
+    int insertedAt = insert(value);
+    if (removedAt == insertedAt) {
+      publish(new Event<>(Type.CHANGE, insertedAt, value));
+    } else {
+      events.onNext(
+          Arrays.asList(
+              new Event<>(Type.REMOVE, removedAt, previous),
+              new Event<>(Type.INSERT, insertedAt, value)));
+    }
+  }
+
+  /**
+   * Remove the value of a key from the collection
+   *
+   * @param key of the value
+   * @return true if a value with this key was present
+   */
+  public synchronized boolean remove(@NonNull K key) {
+    V removed = entries.remove(key);
+    if (removed == null) {
+      return false;
+    }
+    publish(new Event<>(Type.REMOVE, delete(removed), removed));
+    return true;
+  }
+
+  @Nullable
+  public synchronized V get(@NonNull K key) {
+    return entries.get(key);
+  }
+
+  /**
+   * @param position in the order, between 0 and {@link #size()} excluded
+   * @return the value at this position
+   */
+  public synchronized V getAt(int position) {
+    if (position < 0 || position >= entries.size()) {
+      throw new IndexOutOfBoundsException("Position " + position + " of " + entries.size());
+    }
+    Node<V> node = head;
+    // The values are counted from 1 by the widths, the head being at position 0
+    int remaining = position + 1;
+    for (int i = MAX_LEVEL - 1; i >= 0; i--) {
+      while (node.width[i] <= remaining) {
+        remaining -= node.width[i];
+        node = node.next[i];
+      }
+    }
+    return node.value;
+  }
+
+  /**
+   * @param key of a value
+   * @return the position of its value in the order, or -1 if the key is not present
+   */
+  public synchronized int indexOf(@NonNull K key) {
+    V value = entries.get(key);
+    if (value == null) {
+      return -1;
+    }
+    Node<V> node = head;
+    int position = 0;
+    for (int i = MAX_LEVEL - 1; i >= 0; i--) {
+      while (node.next[i] != tail && order.compare(node.next[i].value, value) < 0) {
+        position += node.width[i];
+        node = node.next[i];
+      }
+    }
+    return position;
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * @return the values, in order
+   */
+  public synchronized List<V> values() {
+    List<V> values = new ArrayList<>(entries.size());
+    for (Node<V> node = head.next[0]; node != tail; node = node.next[0]) {
+      values.add(node.value);
+    }
+    return values;
+  }
+
+  /**
+   * @return an observable of the events of the collection, starting with its current content
+   */
+  public Observable<List<Event<V>>> observe() {
+    return Observable.create(
+        emitter -> {
+          synchronized (this) {
+            List<Event<V>> snapshot = new ArrayList<>(entries.size());
+            int position = 0;
+            for (Node<V> node = head.next[0]; node != tail; node = node.next[0]) {
+              snapshot.add(new Event<>(Type.INSERT, position++, node.value));
+            }
+            emitter.onNext(snapshot);
+            // Subscribing under the lock guarantees that no event is missed after the snapshot
+            emitter.setDisposable(
+                events.subscribe(emitter::onNext, emitter::onError, emitter::onComplete));
+          }
+        });
+  }
+
+  /**
+   * @return the position at which the value was inserted
+   */
+  private int insert(V value) {
+    Node<V>[] chain = findChain(value);
+    int position = chainSteps[0];
+
+    int level = randomLevel();
+    Node<V> node = new Node<>(value, level);
+    for (int i = 0; i < level; i++) {
+      Node<V> previous = chain[i];
+      int skipped = position - chainSteps[i];
+      node.next[i] = previous.next[i];
+      node.width[i] = previous.width[i] - skipped;
+      previous.next[i] = node;
+      previous.width[i] = skipped + 1;
+    }
+    // The higher links now skip one more value
+    for (int i = level; i < MAX_LEVEL; i++) {
+      chain[i].width[i]++;
+    }
+    return position;
+  }
+
+  /**
+   * @return the position at which the value was before being removed
+   */
+  private int delete(V value) {
+    Node<V>[] chain = findChain(value);
+    int position = chainSteps[0];
+
+    Node<V> node = chain[0].next[0];
+    if (node == tail || order.compare(node.value, value) != 0) {
+      throw new IllegalStateException("The value is not in the timeline: " + value);
+    }
+    for (int i = 0; i < MAX_LEVEL; i++) {
+      Node<V> previous = chain[i];
+      if (previous.next[i] == node) {
+        previous.width[i] += node.width[i] - 1;
+        previous.next[i] = node.next[i];
+      } else {
+        previous.width[i]--;
+      }
+    }
+    return position;
+  }
+
+  /**
+   * @return for each level, the last node placed before the value
+   */
+  @SuppressWarnings("unchecked")
+  private Node<V>[] findChain(V value) {
+    Node<V>[] chain = (Node<V>[]) new Node[MAX_LEVEL];
+    Node<V> node = head;
+    int position = 0;
+    for (int i = MAX_LEVEL - 1; i >= 0; i--) {
+      while (node.next[i] != tail && order.compare(node.next[i].value, value) < 0) {
+        position += node.width[i];
+        node = node.next[i];
+      }
+      chain[i] = node;
+      chainSteps[i] = position;
+    }
+    return chain;
+  }
+
+  private int randomLevel() {
+    // Each level holds half of the nodes of the level below
+    int level = 1;
+    while (level < MAX_LEVEL && random.nextBoolean()) {
+      level++;
+    }
+    return level;
+  }
+
+  private void publish(Event<V> event) {
+    events.onNext(Collections.singletonList(event));
+  }
+}
@@ -2,7 +2,17 @@ package com.github.dedis.popstellar.utility.error;
 
 public abstract class UnknownEventException extends GenericException {
 
+  private final String id;
+
   protected UnknownEventException(String eventType, String id) {
     super(eventType + " with id " + id + " is unknown.");
+    this.id = id;
+  }
+
+  /**
+   * @return the id of the unknown event
+   */
+  public String getId() {
+    return id;
   }
 }
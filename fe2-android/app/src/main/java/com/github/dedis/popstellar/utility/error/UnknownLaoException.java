@@ -1,16 +1,30 @@
 package com.github.dedis.popstellar.utility.error;
 
+import androidx.annotation.Nullable;
+
 import com.github.dedis.popstellar.R;
 
 /** An exception that indicates the lao with the specified id is not known to the app */
 public class UnknownLaoException extends GenericException {
 
+  private final String laoId;
+
   public UnknownLaoException(String laoId) {
     super("Lao with id " + laoId + " is unknown");
+    this.laoId = laoId;
   }
 
   public UnknownLaoException() {
     super("Could not find a valid Lao");
+    this.laoId = null;
+  }
+
+  /**
+   * @return the id of the unknown lao, null if it is not known
+   */
+  @Nullable
+  public String getLaoId() {
+    return laoId;
   }
 
   @Override
@@ -5,8 +5,18 @@ import com.github.dedis.popstellar.model.objects.security.MessageID;
 
 public class UnknownWitnessMessageException extends GenericException {
 
+  private final MessageID id;
+
   public UnknownWitnessMessageException(MessageID id) {
     super("Witness message with id " + id.getEncoded() + " is unknown");
+    this.id = id;
+  }
+
+  /**
+   * @return the id of the unknown witness message
+   */
+  public MessageID getId() {
+    return id;
   }
 
   @Override
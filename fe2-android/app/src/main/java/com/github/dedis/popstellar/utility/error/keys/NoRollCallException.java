@@ -7,8 +7,11 @@ import com.github.dedis.popstellar.model.objects.view.LaoView;
 /** Exception thrown when a rollcall is expected to be found in an LAO and none exist */
 public class NoRollCallException extends KeyException {
 
+  private final String laoId;
+
   public NoRollCallException(String laoId) {
     super("No RollCall exist in the LAO : " + laoId);
+    this.laoId = laoId;
   }
 
   public NoRollCallException(Lao lao) {
@@ -19,6 +22,13 @@ public class NoRollCallException extends KeyException {
     this(laoView.getId());
   }
 
+  /**
+   * @return the id of the lao without roll call
+   */
+  public String getLaoId() {
+    return laoId;
+  }
+
   @Override
   public int getUserMessage() {
     return R.string.no_rollcall_exception;
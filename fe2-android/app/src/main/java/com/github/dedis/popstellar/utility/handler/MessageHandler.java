@@ -1,9 +1,13 @@
 package com.github.dedis.popstellar.utility.handler;
 
+import androidx.annotation.Nullable;
+
 import com.github.dedis.popstellar.model.network.method.message.MessageGeneral;
 import com.github.dedis.popstellar.model.network.method.message.data.*;
 import com.github.dedis.popstellar.model.objects.Channel;
+import com.github.dedis.popstellar.model.objects.security.MessageID;
 import com.github.dedis.popstellar.repository.MessageRepository;
+import com.github.dedis.popstellar.repository.database.message.CatchupMarkEntity;
 import com.github.dedis.popstellar.repository.remote.MessageSender;
 import com.github.dedis.popstellar.utility.error.*;
 import com.github.dedis.popstellar.utility.error.keys.NoRollCallException;
@@ -66,4 +70,24 @@ public final class MessageHandler {
     // Put the message in the repo
     messageRepo.addMessage(message, toBeStored, toPersist);
   }
+
+  /**
+   * @param channel channel of the catchup
+   * @return the position up to which the catchups of the channel were handled, or null
+   */
+  @Nullable
+  public CatchupMarkEntity getCatchupMark(Channel channel) {
+    return messageRepo.getCatchupMark(channel);
+  }
+
+  /**
+   * Save the position up to which the messages of a catchup were all handled
+   *
+   * @param channel channel of the catchup
+   * @param messageId identifier of the last handled message
+   * @param messageCount number of messages up to the last handled one, included
+   */
+  public void setCatchupMark(Channel channel, MessageID messageId, int messageCount) {
+    messageRepo.setCatchupMark(channel, messageId, messageCount);
+  }
 }
@@ -2,10 +2,10 @@ package com.github.dedis.popstellar.utility.handler.data;
 
 import com.github.dedis.popstellar.model.network.method.message.data.Data;
 import com.github.dedis.popstellar.model.network.method.message.data.consensus.*;
-import com.github.dedis.popstellar.model.objects.*;
+import com.github.dedis.popstellar.model.objects.Channel;
+import com.github.dedis.popstellar.model.objects.ElectInstance;
 import com.github.dedis.popstellar.model.objects.security.MessageID;
 import com.github.dedis.popstellar.model.objects.security.PublicKey;
-import com.github.dedis.popstellar.model.objects.view.LaoView;
 import com.github.dedis.popstellar.repository.LAORepository;
 import com.github.dedis.popstellar.repository.WitnessingRepository;
 import com.github.dedis.popstellar.utility.error.*;
@@ -44,17 +44,13 @@ public final class ConsensusHandler {
 
     Timber.tag(TAG).d("handleElect: channel: %s, id: %s", channel, consensusElect.getInstanceId());
 
-    LaoView laoView = laoRepo.getLaoViewByChannel(channel);
-    Set<PublicKey> nodes = witnessingRepo.getWitnesses(laoView.getId());
-    nodes.add(laoView.getOrganizer());
+    PublicKey organizer = laoRepo.getOrganizer(channel);
+    Set<PublicKey> nodes = witnessingRepo.getWitnesses(channel.extractLaoId());
+    nodes.add(organizer);
 
     ElectInstance electInstance =
         new ElectInstance(messageId, channel, senderPk, nodes, consensusElect);
-    Lao lao = laoView.createLaoCopy();
-    lao.updateElectInstance(electInstance);
-
-    laoRepo.updateLao(lao);
-    laoRepo.updateNodes(laoView.getChannel());
+    laoRepo.updateElectInstance(channel, electInstance);
   }
 
   public void handleElectAccept(HandlerContext context, ConsensusElectAccept consensusElectAccept)
@@ -65,10 +61,8 @@ public final class ConsensusHandler {
 
     Timber.tag(TAG)
         .d("handleElectAccept: channel: %s, id: %s", channel, consensusElectAccept.getInstanceId());
-    LaoView laoView = laoRepo.getLaoViewByChannel(channel);
-
     Optional<ElectInstance> electInstanceOpt =
-        laoView.getElectInstance(consensusElectAccept.getMessageId());
+        laoRepo.getElectInstance(channel, consensusElectAccept.getMessageId());
     if (!electInstanceOpt.isPresent()) {
       Timber.tag(TAG)
           .w("elect_accept for invalid messageId : %s", consensusElectAccept.getMessageId());
@@ -78,11 +72,7 @@ public final class ConsensusHandler {
 
     ElectInstance electInstance = electInstanceOpt.get();
     electInstance.addElectAccept(senderPk, messageId, consensusElectAccept);
-    Lao lao = laoView.createLaoCopy();
-    lao.updateElectInstance(electInstance);
-
-    laoRepo.updateLao(lao);
-    laoRepo.updateNodes(laoView.getChannel());
+    laoRepo.updateElectInstance(channel, electInstance);
   }
 
   @SuppressWarnings("unused")
@@ -96,10 +86,8 @@ public final class ConsensusHandler {
     Channel channel = context.getChannel();
 
     Timber.tag(TAG).d("handleLearn: channel: %s, id: %s", channel, consensusLearn.getInstanceId());
-    LaoView laoView = laoRepo.getLaoViewByChannel(channel);
-
     Optional<ElectInstance> electInstanceOpt =
-        laoView.getElectInstance(consensusLearn.getMessageId());
+        laoRepo.getElectInstance(channel, consensusLearn.getMessageId());
     if (!electInstanceOpt.isPresent()) {
       Timber.tag(TAG).w("learn for invalid messageId : %s", consensusLearn.getMessageId());
       throw new InvalidMessageIdException(consensusLearn, consensusLearn.getMessageId());
@@ -110,11 +98,7 @@ public final class ConsensusHandler {
     if (consensusLearn.getLearnValue().isDecision()) {
       electInstance.setState(ElectInstance.State.ACCEPTED);
     }
-    Lao lao = laoView.createLaoCopy();
-    lao.updateElectInstance(electInstance);
-
-    laoRepo.updateLao(lao);
-    laoRepo.updateNodes(laoView.getChannel());
+    laoRepo.updateElectInstance(channel, electInstance);
   }
 
   public void handleConsensusFailure(HandlerContext context, ConsensusFailure failure)
@@ -123,9 +107,8 @@ public final class ConsensusHandler {
 
     Timber.tag(TAG)
         .d("handleConsensusFailure: channel: %s, id: %s", channel, failure.getInstanceId());
-    LaoView laoView = laoRepo.getLaoViewByChannel(channel);
-
-    Optional<ElectInstance> electInstanceOpt = laoView.getElectInstance(failure.getMessageId());
+    Optional<ElectInstance> electInstanceOpt =
+        laoRepo.getElectInstance(channel, failure.getMessageId());
     if (!electInstanceOpt.isPresent()) {
       Timber.tag(TAG).w("Failure for invalid messageId : %s", failure.getMessageId());
       throw new InvalidMessageIdException(failure, failure.getMessageId());
@@ -133,10 +116,6 @@ public final class ConsensusHandler {
 
     ElectInstance electInstance = electInstanceOpt.get();
     electInstance.setState(ElectInstance.State.FAILED);
-    Lao lao = laoView.createLaoCopy();
-    lao.updateElectInstance(electInstance);
-
-    laoRepo.updateLao(lao);
-    laoRepo.updateNodes(laoView.getChannel());
+    laoRepo.updateElectInstance(channel, electInstance);
   }
 }
@@ -147,15 +147,25 @@ public final class ElectionHandler {
     // No need to check here that resultsQuestions is not empty, as it is already done at the
     // creation of the ElectionResult Data
 
+    Map<String, Set<QuestionResult>> results = computeResults(resultsQuestions);
     Election election =
         electionRepository
             .getElectionByChannel(channel)
             .builder()
-            .setResults(computeResults(resultsQuestions))
+            .setResults(results)
             .setState(RESULTS_READY)
             .build();
     String laoId = channel.extractLaoId();
 
+    // The votes of an open ballot election can be counted to check its results. Options without
+    // votes are ignored, as they may be left out of the results.
+    if (election.getElectionVersion() == ElectionVersion.OPEN_BALLOT
+        && !nonZeroCounts(electionRepository.getOpenBallotResults(election))
+            .equals(nonZeroCounts(results))) {
+      Timber.tag(TAG)
+          .d("The results of election %s do not match the ballots received", election.getId());
+    }
+
     witnessingRepository.addWitnessMessage(
         laoId, electionResultWitnessMessage(messageId, election));
     if (witnessingRepository.areWitnessesEmpty(laoId)) {
@@ -212,7 +222,8 @@ public final class ElectionHandler {
     // Verify the vote was created before the end of the election or the election is not closed yet
     if (election.getEndTimestamp() >= castVote.getCreation() || election.getState() != CLOSED) {
       // Retrieve previous cast vote message stored for the given sender
-      MessageID previousMessageId = election.getMessageMap().get(senderPk);
+      MessageID previousMessageId =
+          electionRepository.getElectionVotes(laoId, election.getId()).getMessageId(senderPk);
 
       // No previous message, we always handle it
       if (previousMessageId == null) {
@@ -267,14 +278,7 @@ public final class ElectionHandler {
 
   private void updateElectionWithVotes(
       CastVote castVote, MessageID messageId, PublicKey senderPk, Election election) {
-    Election updated =
-        election
-            .builder()
-            .updateMessageMap(senderPk, messageId)
-            .updateVotes(senderPk, castVote.getVotes())
-            .build();
-
-    electionRepository.updateElection(updated);
+    electionRepository.addVotes(election, senderPk, messageId, castVote.getVotes());
   }
 
   private Map<String, Set<QuestionResult>> computeResults(
@@ -289,6 +293,24 @@ public final class ElectionHandler {
     return results;
   }
 
+  private static Map<String, Map<String, Integer>> nonZeroCounts(
+      Map<String, Set<QuestionResult>> results) {
+    Map<String, Map<String, Integer>> counts = new HashMap<>();
+    results.forEach(
+        (questionId, questionResults) -> {
+          Map<String, Integer> questionCounts = new HashMap<>();
+          for (QuestionResult result : questionResults) {
+            if (result.getCount() > 0) {
+              questionCounts.put(result.getBallot(), result.getCount());
+            }
+          }
+          if (!questionCounts.isEmpty()) {
+            counts.put(questionId, questionCounts);
+          }
+        });
+    return counts;
+  }
+
   public static void addElectionRoutine(ElectionRepository electionRepository, Election election) {
     electionRepository.updateElection(election);
   }
@@ -4,18 +4,19 @@ import android.content.Context;
 
 import androidx.room.Room;
 
-import com.github.dedis.popstellar.repository.database.AppDatabase;
-import com.github.dedis.popstellar.repository.database.CustomTypeConverters;
+import com.github.dedis.popstellar.model.network.method.message.data.DataRegistry;
+import com.github.dedis.popstellar.repository.database.*;
+import com.google.gson.Gson;
 
 public class AppDatabaseModuleHelper {
 
   public static AppDatabase getAppDatabase(Context context) {
+    DataRegistry dataRegistry = DataRegistryModule.provideDataRegistryForGson();
+    Gson gson = JsonModule.provideGson(dataRegistry);
     return Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
         .allowMainThreadQueries()
         .fallbackToDestructiveMigration()
-        .addTypeConverter(
-            new CustomTypeConverters(
-                JsonModule.provideGson(DataRegistryModule.provideDataRegistryForGson())))
+        .addTypeConverter(new CustomTypeConverters(gson, new EntityCodec(gson, dataRegistry)))
         .build();
   }
 }
@@ -5,8 +5,7 @@ import androidx.test.ext.junit.runners.AndroidJUnit4;
 import com.github.dedis.popstellar.di.TestKeysetModule;
 import com.github.dedis.popstellar.model.objects.Wallet;
 import com.github.dedis.popstellar.model.objects.security.PoPToken;
-import com.github.dedis.popstellar.utility.error.keys.KeyException;
-import com.github.dedis.popstellar.utility.error.keys.SeedValidationException;
+import com.github.dedis.popstellar.utility.error.keys.*;
 
 import net.i2p.crypto.eddsa.Utils;
 
@@ -19,8 +18,7 @@ import java.security.GeneralSecurityException;
 import dagger.hilt.android.testing.HiltAndroidRule;
 import dagger.hilt.android.testing.HiltAndroidTest;
 
-import static org.junit.Assert.assertArrayEquals;
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 @HiltAndroidTest
 @RunWith(AndroidJUnit4.class)
@@ -86,4 +84,42 @@ public class WalletTest {
     String[] exported = wallet.exportSeed();
     assertArrayEquals(wordArray, exported);
   }
+
+  @Test
+  public void tokensOfALaoAreDerivedFromTheSameNode() throws Exception {
+    String laoId = "T8grJq7LR9KGjE7741gXMqPny8xsLvsyBiwIFwoF7rg=";
+    String rollCallId1 = "1234123412341234";
+    String rollCallId2 = "4321432143214321";
+
+    Wallet hdw1 = new Wallet(TestKeysetModule.provideWalletKeysetManager());
+    hdw1.importSeed(hdw1.newSeed());
+    PoPToken token1 = hdw1.generatePoPToken(laoId, rollCallId1);
+    PoPToken token2 = hdw1.generatePoPToken(laoId, rollCallId2);
+
+    // A second wallet does not have the node of the lao yet
+    Wallet hdw2 = new Wallet(TestKeysetModule.provideWalletKeysetManager());
+    hdw2.importSeed(String.join(" ", hdw1.exportSeed()));
+
+    assertEquals(token2, hdw2.generatePoPToken(laoId, rollCallId2));
+    assertEquals(token1, hdw2.generatePoPToken(laoId, rollCallId1));
+    assertNotEquals(token1, token2);
+  }
+
+  @Test
+  public void tokensAreForgottenWithTheSeed() throws Exception {
+    String laoId = "1234123412341234";
+    String rollCallId = "1234123412341234";
+
+    Wallet wallet = new Wallet(TestKeysetModule.provideWalletKeysetManager());
+    wallet.importSeed(wallet.newSeed());
+    PoPToken token = wallet.generatePoPToken(laoId, rollCallId);
+    assertEquals(token, wallet.generatePoPToken(laoId, rollCallId));
+
+    wallet.importSeed(wallet.newSeed());
+    assertNotEquals(token, wallet.generatePoPToken(laoId, rollCallId));
+
+    wallet.logout();
+    assertThrows(
+        UninitializedWalletException.class, () -> wallet.generatePoPToken(laoId, rollCallId));
+  }
 }
@@ -1,6 +1,7 @@
 package com.github.dedis.popstellar.ui.lao.socialmedia;
 
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.*;
 
 import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
@@ -22,6 +23,7 @@ import com.github.dedis.popstellar.testutils.pages.lao.LaoActivityPageObject;
 import com.github.dedis.popstellar.ui.lao.LaoActivity;
 import com.github.dedis.popstellar.ui.lao.LaoViewModel;
 import com.github.dedis.popstellar.utility.Constants;
+import com.github.dedis.popstellar.utility.Timeline;
 import com.github.dedis.popstellar.utility.error.keys.KeyException;
 import com.github.dedis.popstellar.utility.security.KeyManager;
 
@@ -33,6 +35,7 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoTestRule;
 
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.util.*;
 
@@ -170,15 +173,41 @@ public class ChirpListAdapterTest {
                   LaoActivity.obtainSocialMediaViewModel(activity, LAO_ID);
               LaoViewModel viewModel = LaoActivity.obtainViewModel(activity);
               ChirpListAdapter chirpListAdapter =
-                  createChirpListAdapter(
-                      activity, viewModel, socialMediaViewModel, new ArrayList<>());
+                  createChirpListAdapter(activity, viewModel, socialMediaViewModel, null);
               chirpListAdapter.replaceList(chirps);
-              assertEquals(chirps.size(), chirpListAdapter.getCount());
+              assertEquals(chirps, chirpListAdapter.getCurrentList());
+            });
+  }
+
+  @Test
+  public void applyEventsUpdatesTheChirpsAtTheirPositions() {
+    activityScenarioRule
+        .getScenario()
+        .onActivity(
+            activity -> {
+              SocialMediaViewModel socialMediaViewModel =
+                  LaoActivity.obtainSocialMediaViewModel(activity, LAO_ID);
+              LaoViewModel viewModel = LaoActivity.obtainViewModel(activity);
+              ChirpListAdapter chirpListAdapter =
+                  createChirpListAdapter(activity, viewModel, socialMediaViewModel, null);
+              Chirp deleted = CHIRP_1.deleted();
+
+              chirpListAdapter.applyEvents(
+                  Arrays.asList(
+                      new Timeline.Event<>(Timeline.Type.INSERT, 0, CHIRP_2),
+                      new Timeline.Event<>(Timeline.Type.INSERT, 0, CHIRP_1)));
+              assertEquals(Arrays.asList(CHIRP_1, CHIRP_2), chirpListAdapter.getCurrentList());
+
+              chirpListAdapter.applyEvents(
+                  Arrays.asList(
+                      new Timeline.Event<>(Timeline.Type.CHANGE, 0, deleted),
+                      new Timeline.Event<>(Timeline.Type.REMOVE, 1, CHIRP_2)));
+              assertEquals(Collections.singletonList(deleted), chirpListAdapter.getCurrentList());
             });
   }
 
   @Test
-  public void getCountTest() {
+  public void getItemCountTest() {
     List<Chirp> chirps = createChirpList();
 
     activityScenarioRule
@@ -190,9 +219,9 @@ public class ChirpListAdapterTest {
               LaoViewModel viewModel = LaoActivity.obtainViewModel(activity);
               ChirpListAdapter chirpListAdapter =
                   createChirpListAdapter(activity, viewModel, socialMediaViewModel, null);
-              assertEquals(0, chirpListAdapter.getCount());
+              assertEquals(0, chirpListAdapter.getItemCount());
               chirpListAdapter.replaceList(chirps);
-              assertEquals(chirps.size(), chirpListAdapter.getCount());
+              assertEquals(chirps.size(), chirpListAdapter.getItemCount());
             });
   }
 
@@ -209,8 +238,8 @@ public class ChirpListAdapterTest {
               LaoViewModel viewModel = LaoActivity.obtainViewModel(activity);
               ChirpListAdapter chirpListAdapter =
                   createChirpListAdapter(activity, viewModel, socialMediaViewModel, chirps);
-              assertEquals(CHIRP_1, chirpListAdapter.getItem(0));
-              assertEquals(CHIRP_2, chirpListAdapter.getItem(1));
+              assertEquals(CHIRP_1, chirpListAdapter.getCurrentList().get(0));
+              assertEquals(CHIRP_2, chirpListAdapter.getCurrentList().get(1));
             });
   }
 
@@ -227,8 +256,14 @@ public class ChirpListAdapterTest {
               LaoViewModel viewModel = LaoActivity.obtainViewModel(activity);
               ChirpListAdapter chirpListAdapter =
                   createChirpListAdapter(activity, viewModel, socialMediaViewModel, chirps);
-              assertEquals(0, chirpListAdapter.getItemId(0));
-              assertEquals(1, chirpListAdapter.getItemId(1));
+              // The ids are stable, they are given by the chirps and not by their positions
+              assertTrue(chirpListAdapter.hasStableIds());
+              assertEquals(
+                  ByteBuffer.wrap(MESSAGE_ID_1.getData()).getLong(),
+                  chirpListAdapter.getItemId(0));
+              assertEquals(
+                  ByteBuffer.wrap(MESSAGE_ID_2.getData()).getLong(),
+                  chirpListAdapter.getItemId(1));
             });
   }
 
@@ -252,7 +287,7 @@ public class ChirpListAdapterTest {
               layout.addView(parent);
 
               // Get the view for the first chirp in the list.
-              View view1 = chirpListAdapter.getView(0, null, layout);
+              View view1 = bindView(chirpListAdapter, 0, layout);
               assertNotNull(view1);
 
               // Check the text is matching correctly
@@ -282,7 +317,7 @@ public class ChirpListAdapterTest {
               assertEquals(View.VISIBLE, bin.getVisibility());
 
               // Get the view for the second chirp in the list.
-              View view2 = chirpListAdapter.getView(1, null, layout);
+              View view2 = bindView(chirpListAdapter, 1, layout);
               assertNotNull(view2);
 
               // Assert text is deleted
@@ -319,7 +354,7 @@ public class ChirpListAdapterTest {
               layout.addView(parent);
 
               // Get the view for the first chirp in the list.
-              View view1 = chirpListAdapter.getView(0, null, layout);
+              View view1 = bindView(chirpListAdapter, 0, layout);
               assertNotNull(view1);
 
               // Verify the upvote is deselected
@@ -348,6 +383,12 @@ public class ChirpListAdapterTest {
             });
   }
 
+  private static View bindView(ChirpListAdapter adapter, int position, ViewGroup parent) {
+    ChirpListAdapter.ChirpViewHolder holder = adapter.onCreateViewHolder(parent, 0);
+    adapter.onBindViewHolder(holder, position);
+    return holder.itemView;
+  }
+
   private static List<Chirp> createChirpList() {
     return new ArrayList<>(Arrays.asList(CHIRP_1, CHIRP_2));
   }
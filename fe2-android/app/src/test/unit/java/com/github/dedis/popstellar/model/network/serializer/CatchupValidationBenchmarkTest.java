@@ -0,0 +1,85 @@
+package com.github.dedis.popstellar.model.network.serializer;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.github.dedis.popstellar.model.network.JsonTestUtils;
+import com.github.dedis.popstellar.model.network.method.message.data.Data;
+import com.github.dedis.popstellar.model.network.method.message.data.socialmedia.*;
+import com.github.dedis.popstellar.model.objects.security.MessageID;
+import com.google.gson.*;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.dedis.popstellar.testutils.Base64DataUtils.generateMessageID;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Compares the validation of a large catchup between the former path (the tree is converted back
+ * to a string, parsed again and checked against the whole data schema) and the tree based one.
+ *
+ * <p>It is a benchmark, not a unit test: it is skipped unless the tests are run with {@code
+ * -Pbenchmarks}, and it prints the duration of both paths.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CatchupValidationBenchmarkTest {
+
+  private static final String TAG = CatchupValidationBenchmarkTest.class.getSimpleName();
+
+  private static final int CATCHUP_SIZE = 10_000;
+  private static final long TIMESTAMP = Instant.now().getEpochSecond();
+
+  private static final List<JsonObject> CATCHUP = new ArrayList<>(CATCHUP_SIZE);
+
+  @BeforeClass
+  public static void buildCatchup() {
+    assumeTrue(Boolean.getBoolean("popstellar.benchmarks"));
+
+    Gson gson = JsonTestUtils.GSON;
+    for (int i = 0; i < CATCHUP_SIZE; i++) {
+      MessageID chirpId = generateMessageID();
+      Data data;
+      switch (i % 3) {
+        case 0:
+          data = new AddChirp("Chirp number " + i, null, TIMESTAMP);
+          break;
+        case 1:
+          data = new AddReaction("👍", chirpId, TIMESTAMP);
+          break;
+        default:
+          data = new DeleteChirp(chirpId, TIMESTAMP);
+          break;
+      }
+      // Each message is parsed from its text, as it is when received from the network
+      CATCHUP.add(JsonParser.parseString(gson.toJson(data, Data.class)).getAsJsonObject());
+    }
+
+    // Compile the schemas beforehand so that neither path is charged with it
+    JsonUtils.loadSchema(JsonUtils.DATA_SCHEMA);
+    JsonUtils.loadDataSchemas();
+  }
+
+  @Test
+  public void validateCatchupWithBothPaths() {
+    long start = System.nanoTime();
+    for (JsonObject data : CATCHUP) {
+      JsonUtils.verifyJson(JsonUtils.DATA_SCHEMA, data.toString());
+    }
+    long stringPath = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    for (JsonObject data : CATCHUP) {
+      JsonUtils.verifyData(data);
+    }
+    long treePath = System.nanoTime() - start;
+
+    System.out.printf(
+        "%s: validation of %d messages, string path %d ms, tree path %d ms%n",
+        TAG, CATCHUP_SIZE, stringPath / 1_000_000, treePath / 1_000_000);
+  }
+}
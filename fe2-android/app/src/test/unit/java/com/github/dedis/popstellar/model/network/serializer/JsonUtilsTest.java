@@ -0,0 +1,96 @@
+package com.github.dedis.popstellar.model.network.serializer;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.github.dedis.popstellar.model.network.JsonTestUtils;
+import com.github.dedis.popstellar.model.network.method.message.data.Data;
+import com.github.dedis.popstellar.model.objects.event.EventState;
+import com.github.dedis.popstellar.model.network.method.message.data.rollcall.OpenRollCall;
+import com.github.dedis.popstellar.model.network.method.message.data.socialmedia.AddChirp;
+import com.google.gson.*;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Instant;
+
+import static com.github.dedis.popstellar.testutils.Base64DataUtils.generateMessageID;
+import static org.junit.Assert.*;
+
+@RunWith(AndroidJUnit4.class)
+public class JsonUtilsTest {
+
+  private static final Gson GSON = JsonTestUtils.GSON;
+  private static final long TIMESTAMP = Instant.now().getEpochSecond();
+
+  private static JsonObject toTree(Data data) {
+    return GSON.toJsonTree(data, Data.class).getAsJsonObject();
+  }
+
+  @Test
+  public void verifyDataAcceptsValidTree() {
+    JsonObject chirp = toTree(new AddChirp("Hello", null, TIMESTAMP));
+
+    JsonUtils.verifyData(chirp);
+    JsonUtils.verifyJson(JsonUtils.DATA_SCHEMA, chirp);
+  }
+
+  @Test
+  public void verifyDataAcceptsEveryActionOfASchema() {
+    // The open roll call schema describes both the open and reopen actions
+    String laoId = generateMessageID().getEncoded();
+    String rollCallId = generateMessageID().getEncoded();
+    OpenRollCall reopen = new OpenRollCall(laoId, rollCallId, TIMESTAMP, EventState.CLOSED);
+
+    JsonUtils.verifyData(toTree(reopen));
+  }
+
+  @Test
+  public void verifyDataRejectsInvalidTree() {
+    JsonObject chirp = toTree(new AddChirp("Hello", null, TIMESTAMP));
+    chirp.remove("timestamp");
+
+    assertThrows(JsonParseException.class, () -> JsonUtils.verifyData(chirp));
+    assertThrows(
+        JsonParseException.class, () -> JsonUtils.verifyJson(JsonUtils.DATA_SCHEMA, chirp));
+  }
+
+  @Test
+  public void verifyDataRejectsUnknownPair() {
+    JsonObject chirp = toTree(new AddChirp("Hello", null, TIMESTAMP));
+    chirp.addProperty("action", "unknown");
+
+    assertThrows(JsonParseException.class, () -> JsonUtils.verifyData(chirp));
+
+    chirp.remove("object");
+    assertThrows(JsonParseException.class, () -> JsonUtils.verifyData(chirp));
+  }
+
+  @Test
+  public void verifyJsonTreeMatchesStringVerification() {
+    JsonObject chirp = toTree(new AddChirp("Hello", null, TIMESTAMP));
+    // A negative timestamp is refused by the schema, whatever the way the json is given
+    chirp.addProperty("timestamp", -1);
+
+    String json = chirp.toString();
+    assertThrows(
+        JsonParseException.class, () -> JsonUtils.verifyJson(JsonUtils.DATA_SCHEMA, json));
+    assertThrows(JsonParseException.class, () -> JsonUtils.verifyData(chirp));
+  }
+
+  @Test
+  public void toJsonNodeKeepsNumberTypes() {
+    JsonObject tree = JsonParser.parseString("{\"a\":1,\"b\":10000000000,\"c\":1.5}").getAsJsonObject();
+
+    assertTrue(JsonUtils.toJsonNode(tree).get("a").isInt());
+    assertTrue(JsonUtils.toJsonNode(tree).get("b").isLong());
+    assertTrue(JsonUtils.toJsonNode(tree).get("c").isDouble());
+  }
+
+  @Test
+  public void toJsonNodeConvertsWholeTree() {
+    String json = "{\"a\":[true,null,\"x\"],\"b\":{\"c\":-3}}";
+
+    assertEquals(json, JsonUtils.toJsonNode(JsonParser.parseString(json)).toString());
+  }
+}
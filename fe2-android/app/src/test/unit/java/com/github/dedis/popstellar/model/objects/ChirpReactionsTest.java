@@ -0,0 +1,46 @@
+package com.github.dedis.popstellar.model.objects;
+
+import com.github.dedis.popstellar.model.objects.security.PublicKey;
+
+import org.junit.Test;
+
+import static com.github.dedis.popstellar.model.objects.Reaction.ReactionEmoji.*;
+import static com.github.dedis.popstellar.testutils.Base64DataUtils.generatePublicKey;
+import static org.junit.Assert.*;
+
+public class ChirpReactionsTest {
+
+  private static final PublicKey SENDER_1 = generatePublicKey();
+  private static final PublicKey SENDER_2 = generatePublicKey();
+
+  @Test
+  public void sendersAreCountedOncePerCodepoint() {
+    ChirpReactions reactions =
+        ChirpReactions.EMPTY
+            .withSender(UPVOTE.getCode(), SENDER_1)
+            .withSender(UPVOTE.getCode(), SENDER_2)
+            .withSender(UPVOTE.getCode(), SENDER_1)
+            .withSender(HEART.getCode(), SENDER_2);
+
+    assertEquals(2, reactions.getCount(UPVOTE.getCode()));
+    assertEquals(1, reactions.getCount(HEART.getCode()));
+    assertEquals(0, reactions.getCount(DOWNVOTE.getCode()));
+    assertTrue(reactions.hasReacted(HEART.getCode(), SENDER_2));
+    assertFalse(reactions.hasReacted(HEART.getCode(), SENDER_1));
+  }
+
+  @Test
+  public void removingTheSendersGivesBackTheEmptyReactions() {
+    ChirpReactions upvoted = ChirpReactions.EMPTY.withSender(UPVOTE.getCode(), SENDER_1);
+
+    // Unchanged reactions are not copied
+    assertSame(upvoted, upvoted.withSender(UPVOTE.getCode(), SENDER_1));
+    assertSame(upvoted, upvoted.withoutSender(UPVOTE.getCode(), SENDER_2));
+
+    ChirpReactions removed = upvoted.withoutSender(UPVOTE.getCode(), SENDER_1);
+    assertEquals(ChirpReactions.EMPTY, removed);
+    assertEquals(ChirpReactions.EMPTY.hashCode(), removed.hashCode());
+    assertNotEquals(ChirpReactions.EMPTY, upvoted);
+    assertEquals(1, upvoted.getCount(UPVOTE.getCode()));
+  }
+}
@@ -0,0 +1,150 @@
+package com.github.dedis.popstellar.model.objects;
+
+import com.github.dedis.popstellar.model.objects.digitalcash.*;
+import com.github.dedis.popstellar.model.objects.digitalcash.DigitalCashLedger.OutputReference;
+import com.github.dedis.popstellar.model.objects.security.PublicKey;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static com.github.dedis.popstellar.testutils.Base64DataUtils.*;
+import static org.junit.Assert.*;
+
+public class DigitalCashLedgerTest {
+
+  private static final Channel CHANNEL = Channel.getLaoChannel("laoId").subChannel("coin");
+  private static final String TYPE = "P2PKH";
+  private static final PublicKey ORGANIZER = generatePublicKey();
+  private static final PublicKey ALICE = generatePublicKey();
+  private static final PublicKey BOB = generatePublicKey();
+
+  private DigitalCashLedger ledger;
+
+  @Before
+  public void setup() {
+    ledger = new DigitalCashLedger();
+    for (PublicKey key : Arrays.asList(ORGANIZER, ALICE, BOB)) {
+      ledger.addAttendee(key, key.computeHash());
+    }
+  }
+
+  @Test
+  public void coinbaseCreditsReceivers() {
+    TransactionObject issuance = issuance("issuance", ALICE, 100);
+
+    assertEquals(Collections.singletonList(ALICE), ledger.addTransaction(issuance));
+    assertEquals(100, ledger.getBalance(ALICE));
+    assertEquals(0, ledger.getBalance(ORGANIZER));
+    assertEquals(Collections.singletonList(issuance), ledger.getTransactions(ALICE));
+    assertNull(ledger.getTransactions(BOB));
+  }
+
+  @Test
+  public void transferMatchesSumForUser() {
+    TransactionObject issuance = issuance("issuance", ALICE, 100);
+    TransactionObject transfer =
+        transaction(
+            "transfer",
+            Collections.singletonList(input(ALICE, "issuance", 0)),
+            Arrays.asList(output(BOB, 30), output(ALICE, 70)));
+    ledger.addTransaction(issuance);
+    ledger.addTransaction(transfer);
+
+    for (PublicKey user : Arrays.asList(ALICE, BOB)) {
+      long expected =
+          ledger.getTransactions(user).stream()
+              .mapToLong(transaction -> transaction.getSumForUser(user))
+              .sum();
+      assertEquals(expected, ledger.getBalance(user));
+    }
+    assertEquals(70, ledger.getBalance(ALICE));
+    assertEquals(30, ledger.getBalance(BOB));
+  }
+
+  @Test
+  public void duplicateTransactionIsIgnored() {
+    TransactionObject issuance = issuance("issuance", ALICE, 100);
+    ledger.addTransaction(issuance);
+
+    assertTrue(ledger.addTransaction(issuance).isEmpty());
+    assertEquals(100, ledger.getBalance(ALICE));
+    assertEquals(1, ledger.getTransactions(ALICE).size());
+  }
+
+  @Test
+  public void spentOutputsAreRemovedFromIndex() {
+    ledger.addTransaction(issuance("issuance", ALICE, 100));
+    assertEquals(
+        Collections.singleton(new OutputReference("issuance", 0)),
+        ledger.getUnspentOutputs(ALICE).keySet());
+
+    ledger.addTransaction(
+        transaction(
+            "transfer",
+            Collections.singletonList(input(ALICE, "issuance", 0)),
+            Arrays.asList(output(BOB, 30), output(ALICE, 70))));
+
+    assertEquals(
+        Collections.singleton(new OutputReference("transfer", 1)),
+        ledger.getUnspentOutputs(ALICE).keySet());
+    OutputObject received = ledger.getUnspentOutputs(BOB).get(new OutputReference("transfer", 0));
+    assertEquals(30, received.getValue());
+  }
+
+  @Test
+  public void unknownReceiverLeavesLedgerUnchanged() {
+    TransactionObject transaction = issuance("issuance", generatePublicKey(), 100);
+
+    assertThrows(IllegalStateException.class, () -> ledger.addTransaction(transaction));
+    assertFalse(ledger.addTransaction(issuance("issuance", ALICE, 100)).isEmpty());
+  }
+
+  @Test
+  public void hashDictionaryWorksBothWays() {
+    String hash = ALICE.computeHash();
+
+    assertEquals(hash, ledger.getHash(ALICE));
+    assertEquals(ALICE, ledger.getPublicKey(hash));
+    // The hash is only computed once per key
+    assertSame(hash, ALICE.computeHash());
+
+    PublicKey stranger = generatePublicKey();
+    assertNull(ledger.getHash(stranger));
+    assertNull(ledger.getPublicKey(stranger.computeHash()));
+  }
+
+  @Test
+  public void clearRemovesAttendeesAndTransactions() {
+    ledger.addTransaction(issuance("issuance", ALICE, 100));
+    ledger.clear();
+
+    assertFalse(ledger.hasAttendees());
+    assertNull(ledger.getPublicKey(ALICE.computeHash()));
+    assertEquals(0, ledger.getBalance(ALICE));
+    assertNull(ledger.getTransactions(ALICE));
+    assertTrue(ledger.getUnspentOutputs(ALICE).isEmpty());
+  }
+
+  private static TransactionObject issuance(String id, PublicKey receiver, long value) {
+    return transaction(
+        id,
+        Collections.singletonList(input(ORGANIZER, TransactionObject.TX_OUT_HASH_COINBASE, 0)),
+        Collections.singletonList(output(receiver, value)));
+  }
+
+  private static TransactionObject transaction(
+      String id, List<InputObject> inputs, List<OutputObject> outputs) {
+    return new TransactionObject(CHANNEL, 1, inputs, outputs, 0, id);
+  }
+
+  private static InputObject input(PublicKey sender, String txOutHash, int index) {
+    return new InputObject(
+        txOutHash, index, new ScriptInputObject(TYPE, sender, generateSignature()));
+  }
+
+  private static OutputObject output(PublicKey receiver, long value) {
+    return new OutputObject(value, new ScriptOutputObject(TYPE, receiver.computeHash()));
+  }
+}
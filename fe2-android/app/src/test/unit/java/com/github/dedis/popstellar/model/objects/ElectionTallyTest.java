@@ -0,0 +1,101 @@
+package com.github.dedis.popstellar.model.objects;
+
+import com.github.dedis.popstellar.model.network.method.message.data.election.*;
+import com.github.dedis.popstellar.model.network.method.message.data.election.ElectionQuestion.Question;
+import com.github.dedis.popstellar.model.objects.security.elGamal.ElectionKeyPair;
+import com.github.dedis.popstellar.model.objects.security.elGamal.ElectionPrivateKey;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.*;
+
+import io.reactivex.schedulers.Schedulers;
+
+import static com.github.dedis.popstellar.model.network.method.message.data.election.ElectionVersion.SECRET_BALLOT;
+import static org.junit.Assert.assertEquals;
+
+public class ElectionTallyTest {
+
+  private static final String LAO_ID = "lao_id";
+  private static final String NAME = "election";
+  private static final long CREATION = Instant.now().getEpochSecond();
+  private static final String ELECTION_ID =
+      Election.generateElectionSetupId(LAO_ID, CREATION, NAME);
+
+  private static final ElectionQuestion QUESTION_1 =
+      new ElectionQuestion(
+          ELECTION_ID, new Question("Q1", "Plurality", Arrays.asList("a", "b", "c"), false));
+  private static final ElectionQuestion QUESTION_2 =
+      new ElectionQuestion(
+          ELECTION_ID, new Question("Q2", "Plurality", Arrays.asList("yes", "no"), false));
+
+  private final ElectionKeyPair keys = ElectionKeyPair.generateKeyPair();
+  private final ElectionPrivateKey privateKey = keys.getDecryptionScheme();
+  private final Election election =
+      new Election.ElectionBuilder(LAO_ID, CREATION, NAME)
+          .setElectionVersion(SECRET_BALLOT)
+          .setElectionQuestions(Arrays.asList(QUESTION_1, QUESTION_2))
+          .setElectionKey(keys.getEncryptionScheme().encodeToBase64())
+          .build();
+
+  private final ElectionTally tally = new ElectionTally(Schedulers.computation(), 4);
+
+  @Test
+  public void encryptedVotesOfAllBatchesAreCounted() {
+    List<PlainVote> ballots = new ArrayList<>();
+    int voters = 3 * ElectionTally.BATCH_SIZE + 5;
+    for (int i = 0; i < voters; i++) {
+      ballots.add(new PlainVote(QUESTION_1.getId(), i % 3, false, null, ELECTION_ID));
+      ballots.add(new PlainVote(QUESTION_2.getId(), i % 4 == 0 ? 0 : 1, false, null, ELECTION_ID));
+    }
+    List<Vote> votes = new ArrayList<>(election.encrypt(ballots));
+
+    List<ElectionResultQuestion> results = tally.compute(election, privateKey, votes).blockingGet();
+
+    assertEquals(2, results.size());
+    assertEquals(QUESTION_1.getId(), results.get(0).getId());
+    assertEquals(
+        new HashSet<>(
+            Arrays.asList(
+                new QuestionResult("a", 66),
+                new QuestionResult("b", 66),
+                new QuestionResult("c", 65))),
+        results.get(0).getResult());
+    assertEquals(
+        new HashSet<>(Arrays.asList(new QuestionResult("yes", 50), new QuestionResult("no", 147))),
+        results.get(1).getResult());
+  }
+
+  @Test
+  public void invalidVotesAreNotCounted() {
+    List<Vote> votes = new ArrayList<>();
+    votes.addAll(
+        election.encrypt(
+            Arrays.asList(
+                new PlainVote(QUESTION_1.getId(), 1, false, null, ELECTION_ID),
+                // There is no fourth ballot option
+                new PlainVote(QUESTION_1.getId(), 3, false, null, ELECTION_ID),
+                new PlainVote("unknown question", 0, false, null, ELECTION_ID))));
+    // Encrypted with another key
+    String otherKey = ElectionKeyPair.generateKeyPair().getEncryptionScheme().encodeToBase64();
+    Election otherElection = election.builder().setElectionKey(otherKey).build();
+    votes.addAll(
+        otherElection.encrypt(
+            Collections.singletonList(
+                new PlainVote(QUESTION_2.getId(), 0, false, null, ELECTION_ID))));
+
+    List<ElectionResultQuestion> results = tally.compute(election, privateKey, votes).blockingGet();
+
+    assertEquals(
+        new HashSet<>(
+            Arrays.asList(
+                new QuestionResult("a", 0),
+                new QuestionResult("b", 1),
+                new QuestionResult("c", 0))),
+        results.get(0).getResult());
+    assertEquals(
+        new HashSet<>(Arrays.asList(new QuestionResult("yes", 0), new QuestionResult("no", 0))),
+        results.get(1).getResult());
+  }
+}
@@ -10,8 +10,7 @@ import org.junit.Rule;
 import org.junit.Test;
 
 import java.time.Instant;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
 import ch.epfl.dedis.lib.exception.CothorityCryptoException;
 
@@ -71,6 +70,24 @@ public class ElectionTest {
     }
   }
 
+  @Test
+  public void everyVoteOfABallotIsEncryptedWithTheElectionKey() throws CothorityCryptoException {
+    List<PlainVote> ballot = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      ballot.add(new PlainVote("question" + i, i * 100, false, null, election.getId()));
+    }
+
+    List<EncryptedVote> encryptedVotes = election.encrypt(ballot);
+
+    assertEquals(ballot.size(), encryptedVotes.size());
+    for (int i = 0; i < ballot.size(); i++) {
+      byte[] decryptedData = electionPrivateKey.decrypt(encryptedVotes.get(i).getVote());
+      int decryptedIndex = ((decryptedData[0] & 0xff) << 8) | (decryptedData[1] & 0xff);
+      assertEquals(ballot.get(i).getQuestionId(), encryptedVotes.get(i).getQuestionId());
+      assertEquals((int) ballot.get(i).getVote(), decryptedIndex);
+    }
+  }
+
   @Test
   public void getCreationInMillisTest() {
     assertEquals(election.getCreation() * 1000, election.getCreationInMillis());
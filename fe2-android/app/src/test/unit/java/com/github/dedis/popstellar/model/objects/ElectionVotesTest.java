@@ -0,0 +1,102 @@
+package com.github.dedis.popstellar.model.objects;
+
+import com.github.dedis.popstellar.model.network.method.message.data.election.*;
+import com.github.dedis.popstellar.model.objects.security.MessageID;
+import com.github.dedis.popstellar.model.objects.security.PublicKey;
+import com.github.dedis.popstellar.testutils.Base64DataUtils;
+import com.github.dedis.popstellar.utility.security.Hash;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.*;
+
+public class ElectionVotesTest {
+
+  private static final String ELECTION_ID = "electionId";
+  private static final String QUESTION_ID = "questionId";
+  private static final PublicKey VOTER1 = Base64DataUtils.generatePublicKey();
+  private static final PublicKey VOTER2 = Base64DataUtils.generatePublicKey();
+  private static final MessageID MESSAGE_ID1 = Base64DataUtils.generateMessageID();
+  private static final MessageID MESSAGE_ID2 = Base64DataUtils.generateMessageID();
+  private static final MessageID MESSAGE_ID3 = Base64DataUtils.generateMessageID();
+
+  private static final PlainVote VOTE1 = new PlainVote(QUESTION_ID, 0, false, null, ELECTION_ID);
+  private static final PlainVote VOTE2 = new PlainVote(QUESTION_ID, 1, false, null, ELECTION_ID);
+
+  @Test
+  public void emptyIndexHasNoHash() {
+    ElectionVotes votes = new ElectionVotes();
+
+    assertEquals("", votes.computeRegisteredVotesHash());
+    assertEquals(0, votes.getVoterCount());
+    assertTrue(votes.getTally(QUESTION_ID).isEmpty());
+    assertNull(votes.getMessageId(VOTER1));
+  }
+
+  @Test
+  public void hashIsComputedOnSortedVoteIds() {
+    ElectionVotes votes = new ElectionVotes();
+    votes.put(VOTER1, MESSAGE_ID1, singletonList(VOTE1));
+    votes.put(VOTER2, MESSAGE_ID2, singletonList(VOTE2));
+
+    String[] voteIds = Stream.of(VOTE1, VOTE2).map(Vote::getId).sorted().toArray(String[]::new);
+    assertEquals(Hash.hash(voteIds), votes.computeRegisteredVotesHash());
+  }
+
+  @Test
+  public void identicalVotesAreAllHashed() {
+    ElectionVotes votes = new ElectionVotes();
+    votes.put(VOTER1, MESSAGE_ID1, singletonList(VOTE1));
+    votes.put(VOTER2, MESSAGE_ID2, singletonList(VOTE1));
+
+    assertEquals(Hash.hash(VOTE1.getId(), VOTE1.getId()), votes.computeRegisteredVotesHash());
+    assertEquals(Collections.singletonMap(0, 2), votes.getTally(QUESTION_ID));
+  }
+
+  @Test
+  public void newBallotReplacesPreviousOne() {
+    ElectionVotes votes = new ElectionVotes();
+    votes.put(VOTER1, MESSAGE_ID1, singletonList(VOTE1));
+    votes.put(VOTER2, MESSAGE_ID2, singletonList(VOTE1));
+    votes.put(VOTER2, MESSAGE_ID3, singletonList(VOTE2));
+
+    Map<Integer, Integer> expectedTally = new HashMap<>();
+    expectedTally.put(0, 1);
+    expectedTally.put(1, 1);
+    Map<PublicKey, MessageID> expectedMessageMap = new HashMap<>();
+    expectedMessageMap.put(VOTER1, MESSAGE_ID1);
+    expectedMessageMap.put(VOTER2, MESSAGE_ID3);
+    String[] voteIds = Stream.of(VOTE1, VOTE2).map(Vote::getId).sorted().toArray(String[]::new);
+
+    assertEquals(expectedTally, votes.getTally(QUESTION_ID));
+    assertEquals(expectedMessageMap, votes.getMessageMap());
+    assertEquals(singletonList(VOTE2), votes.getVotes(VOTER2));
+    assertEquals(Hash.hash(voteIds), votes.computeRegisteredVotesHash());
+  }
+
+  @Test
+  public void putIfAbsentKeepsReceivedBallot() {
+    ElectionVotes votes = new ElectionVotes();
+    votes.put(VOTER1, MESSAGE_ID2, singletonList(VOTE2));
+    votes.putIfAbsent(VOTER1, MESSAGE_ID1, singletonList(VOTE1));
+    votes.putIfAbsent(VOTER2, MESSAGE_ID3, singletonList(VOTE1));
+
+    assertEquals(MESSAGE_ID2, votes.getMessageId(VOTER1));
+    assertEquals(MESSAGE_ID3, votes.getMessageId(VOTER2));
+    assertEquals(2, votes.getVoterCount());
+  }
+
+  @Test
+  public void encryptedVotesAreNotTallied() {
+    ElectionVotes votes = new ElectionVotes();
+    EncryptedVote vote = new EncryptedVote(QUESTION_ID, "0", false, null, ELECTION_ID);
+    votes.put(VOTER1, MESSAGE_ID1, singletonList(vote));
+
+    assertTrue(votes.getTally(QUESTION_ID).isEmpty());
+    assertEquals(Hash.hash(vote.getId()), votes.computeRegisteredVotesHash());
+  }
+}
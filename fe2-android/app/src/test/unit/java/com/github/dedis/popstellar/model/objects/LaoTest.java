@@ -7,15 +7,13 @@ import org.junit.Test;
 import org.mockito.internal.util.collections.Sets;
 
 import java.time.Instant;
-import java.util.Collections;
-import java.util.Set;
+import java.util.*;
 
 import static com.github.dedis.popstellar.testutils.Base64DataUtils.generateMessageID;
 import static com.github.dedis.popstellar.testutils.Base64DataUtils.generatePublicKey;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
-import static org.junit.Assert.assertThrows;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 public class LaoTest {
 
@@ -114,4 +112,28 @@ public class LaoTest {
     LAO_1.setPendingUpdates(Collections.singleton(update));
     assertTrue(LAO_1.getPendingUpdates().contains(update));
   }
+
+  @Test
+  public void nodesAreSortedAgainOnlyWhenANodeIsAdded() {
+    Lao lao = new Lao(LAO_NAME_1, ORGANIZER, Instant.now().getEpochSecond());
+    lao.setOrganizer(ORGANIZER);
+    lao.initKeyToNode(WITNESSES);
+
+    List<ConsensusNode> nodes = lao.getNodes();
+    assertEquals(3, nodes.size());
+    assertSame(nodes, lao.getNodes());
+    // Adding an existing node does not change the list
+    lao.initKeyToNode(Collections.singleton(ORGANIZER));
+    assertSame(nodes, lao.getNodes());
+
+    PublicKey newWitness = generatePublicKey();
+    lao.initKeyToNode(Collections.singleton(newWitness));
+    List<ConsensusNode> newNodes = lao.getNodes();
+    assertEquals(4, newNodes.size());
+    assertTrue(newNodes.contains(lao.getNode(newWitness)));
+    for (int i = 1; i < newNodes.size(); i++) {
+      String previous = newNodes.get(i - 1).getPublicKey().getEncoded();
+      assertTrue(previous.compareTo(newNodes.get(i).getPublicKey().getEncoded()) < 0);
+    }
+  }
 }
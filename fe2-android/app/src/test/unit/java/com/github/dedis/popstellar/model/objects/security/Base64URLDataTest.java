@@ -2,6 +2,10 @@ package com.github.dedis.popstellar.model.objects.security;
 
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
 import static org.junit.Assert.*;
 
 public class Base64URLDataTest {
@@ -71,4 +75,30 @@ public class Base64URLDataTest {
     assertEquals("Base64URLData(" + ENCODED_1 + ")", data.toString());
     assertEquals("Signature(" + ENCODED_1 + ")", signature.toString());
   }
+
+  @Test
+  public void dataIsCopiedOnlyAtTheBoundaries() {
+    byte[] bytes = DATA_1.clone();
+    Base64URLData data = new Base64URLData(bytes);
+    bytes[0] = 0;
+    data.getData()[1] = 0;
+
+    assertArrayEquals(DATA_1, data.getData());
+    assertEquals(ENCODED_1, data.getEncoded());
+    assertSame(data.getEncoded(), data.getEncoded());
+  }
+
+  @Test
+  public void viewsGiveTheDataWithoutModifyingIt() throws IOException {
+    Base64URLData data = new Base64URLData(DATA_1);
+
+    ByteBuffer buffer = data.asByteBuffer();
+    assertTrue(buffer.isReadOnly());
+    assertEquals(ByteBuffer.wrap(DATA_1), buffer);
+    assertEquals(DATA_1.length, data.length());
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    data.writeTo(out);
+    assertArrayEquals(DATA_1, out.toByteArray());
+  }
 }
@@ -0,0 +1,84 @@
+package com.github.dedis.popstellar.model.objects.security.ed25519;
+
+import com.github.dedis.popstellar.model.network.method.message.data.election.PlainVote;
+import com.github.dedis.popstellar.model.objects.Election;
+import com.github.dedis.popstellar.model.objects.security.Base64URLData;
+import com.github.dedis.popstellar.model.objects.security.elGamal.ElectionKeyPair;
+import com.github.dedis.popstellar.model.objects.security.elGamal.ElectionPublicKey;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.dedis.popstellar.model.network.method.message.data.election.ElectionVersion.SECRET_BALLOT;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Compares the encryption of a large ballot between the former path (the election key is decoded
+ * and its multiples computed again for each vote) and the election's cached key. Each path is
+ * warmed up before being measured.
+ *
+ * <p>It is a benchmark, not a unit test: it is skipped unless the tests are run with {@code
+ * -Pbenchmarks}, and it prints the duration of both paths.
+ */
+public class ElectionEncryptionBenchmarkTest {
+
+  private static final String TAG = ElectionEncryptionBenchmarkTest.class.getSimpleName();
+
+  private static final int BALLOT_SIZE = 1_000;
+  private static final int WARMUP_ROUNDS = 2;
+  private static final int MEASURED_ROUNDS = 5;
+
+  private static final List<PlainVote> BALLOT = new ArrayList<>(BALLOT_SIZE);
+  private static Election election;
+
+  @BeforeClass
+  public static void buildBallot() {
+    assumeTrue(Boolean.getBoolean("popstellar.benchmarks"));
+
+    ElectionKeyPair keys = ElectionKeyPair.generateKeyPair();
+    election =
+        new Election.ElectionBuilder("lao_id", Instant.now().getEpochSecond(), "election")
+            .setElectionVersion(SECRET_BALLOT)
+            .setElectionKey(keys.getEncryptionScheme().encodeToBase64())
+            .build();
+    for (int i = 0; i < BALLOT_SIZE; i++) {
+      BALLOT.add(new PlainVote("question" + i, i % 4, false, null, election.getId()));
+    }
+  }
+
+  @Test
+  public void encryptBallotWithBothPaths() {
+    long perVoteKey = measure(ElectionEncryptionBenchmarkTest::encryptWithNewKeys);
+    long cachedKey = measure(() -> election.encrypt(BALLOT));
+
+    System.out.printf(
+        "%s: encryption of %d votes, key per vote %d ms, cached key %d ms%n",
+        TAG, BALLOT_SIZE, perVoteKey / 1_000_000, cachedKey / 1_000_000);
+  }
+
+  private static void encryptWithNewKeys() {
+    for (PlainVote vote : BALLOT) {
+      int index = vote.getVote();
+      ElectionPublicKey key = new ElectionPublicKey(new Base64URLData(election.getElectionKey()));
+      key.encrypt(new byte[] {(byte) (index >> 8), (byte) index});
+    }
+  }
+
+  /**
+   * @return the average duration of a round in nanoseconds, once the warm up rounds are done
+   */
+  private static long measure(Runnable round) {
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      round.run();
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < MEASURED_ROUNDS; i++) {
+      round.run();
+    }
+    return (System.nanoTime() - start) / MEASURED_ROUNDS;
+  }
+}
@@ -6,24 +6,26 @@ import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
 import com.github.dedis.popstellar.di.AppDatabaseModuleHelper;
-import com.github.dedis.popstellar.model.network.method.message.data.election.ElectionVersion;
+import com.github.dedis.popstellar.model.network.method.message.data.election.*;
+import com.github.dedis.popstellar.model.network.method.message.data.election.ElectionQuestion.Question;
 import com.github.dedis.popstellar.model.objects.Election;
 import com.github.dedis.popstellar.model.objects.Lao;
 import com.github.dedis.popstellar.model.objects.event.EventState;
+import com.github.dedis.popstellar.model.objects.security.PublicKey;
 import com.github.dedis.popstellar.repository.database.AppDatabase;
 import com.github.dedis.popstellar.utility.error.UnknownElectionException;
 
 import org.junit.*;
 import org.junit.runner.RunWith;
 
-import java.util.Set;
+import java.util.*;
 
 import io.reactivex.observers.TestObserver;
 
+import static com.github.dedis.popstellar.testutils.Base64DataUtils.generateMessageID;
 import static com.github.dedis.popstellar.testutils.Base64DataUtils.generatePublicKey;
 import static com.github.dedis.popstellar.testutils.ObservableUtils.assertCurrentValueIs;
-import static java.util.Collections.emptySet;
-import static java.util.Collections.singleton;
+import static java.util.Collections.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThrows;
@@ -36,6 +38,10 @@ public class ElectionRepositoryTest {
       new Election.ElectionBuilder(LAO_ID, 100321014, "Election")
           .setElectionVersion(ElectionVersion.OPEN_BALLOT)
           .build();
+  private static final ElectionQuestion QUESTION =
+      new ElectionQuestion(
+          ELECTION.getId(),
+          new Question("Question", "Plurality", Arrays.asList("yes", "no"), false));
   private static final Application APPLICATION = ApplicationProvider.getApplicationContext();
   private static AppDatabase appDatabase;
   private static ElectionRepository repo;
@@ -81,6 +87,50 @@ public class ElectionRepositoryTest {
     assertThat(repo.getElection(LAO_ID, ELECTION.getId()), is(updated));
   }
 
+  @Test
+  public void addingVotesDispatchesTheElection() throws UnknownElectionException {
+    repo.updateElection(ELECTION);
+    TestObserver<Election> electionObserver =
+        repo.getElectionObservable(LAO_ID, ELECTION.getId()).test();
+
+    repo.addVotes(
+        ELECTION,
+        generatePublicKey(),
+        generateMessageID(),
+        singletonList(new PlainVote(QUESTION.getId(), 0, false, null, ELECTION.getId())));
+
+    electionObserver.assertValueCount(2);
+    assertCurrentValueIs(electionObserver, ELECTION);
+  }
+
+  @Test
+  public void openBallotResultsCountTheRegisteredVotes() {
+    Election election = ELECTION.builder().setElectionQuestions(singletonList(QUESTION)).build();
+    repo.updateElection(election);
+    PublicKey voter = generatePublicKey();
+
+    repo.addVotes(
+        election,
+        voter,
+        generateMessageID(),
+        singletonList(new PlainVote(QUESTION.getId(), 0, false, null, election.getId())));
+    // The second ballot of a voter replaces its first one
+    repo.addVotes(
+        election,
+        voter,
+        generateMessageID(),
+        singletonList(new PlainVote(QUESTION.getId(), 1, false, null, election.getId())));
+    repo.addVotes(
+        election,
+        generatePublicKey(),
+        generateMessageID(),
+        singletonList(new PlainVote(QUESTION.getId(), 1, false, null, election.getId())));
+
+    Set<QuestionResult> expected =
+        new HashSet<>(Arrays.asList(new QuestionResult("yes", 0), new QuestionResult("no", 2)));
+    assertThat(repo.getOpenBallotResults(election), is(singletonMap(QUESTION.getId(), expected)));
+  }
+
   @Test
   public void electionByChannelHasSameEffectAsGetElection() throws UnknownElectionException {
     repo.updateElection(ELECTION);
@@ -0,0 +1,84 @@
+package com.github.dedis.popstellar.repository;
+
+import android.app.Application;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.github.dedis.popstellar.model.objects.security.MessageID;
+import com.github.dedis.popstellar.repository.database.AppDatabase;
+import com.github.dedis.popstellar.repository.database.message.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Collections;
+
+import io.reactivex.Single;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.Schedulers;
+
+import static com.github.dedis.popstellar.testutils.Base64DataUtils.generateMessageID;
+import static com.github.dedis.popstellar.testutils.Base64DataUtils.generateMessageIDOtherThan;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@RunWith(AndroidJUnit4.class)
+public class MessageRepositoryTest {
+
+  private static final Application APPLICATION = ApplicationProvider.getApplicationContext();
+  private static final MessageID STORED_ID = generateMessageID();
+
+  @Mock AppDatabase appDatabase;
+  @Mock MessageDao messageDao;
+  @Mock CatchupMarkDao catchupMarkDao;
+
+  private MessageRepository repo;
+
+  @Before
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    // Load the index of the stored ids synchronously
+    RxJavaPlugins.setIoSchedulerHandler(scheduler -> Schedulers.trampoline());
+
+    when(appDatabase.messageDao()).thenReturn(messageDao);
+    when(appDatabase.catchupMarkDao()).thenReturn(catchupMarkDao);
+    when(messageDao.takeFirstNMessages(anyInt())).thenReturn(Single.just(Collections.emptyList()));
+    when(messageDao.getAllMessageIds())
+        .thenReturn(Single.just(Collections.singletonList(STORED_ID)));
+
+    repo = new MessageRepository(appDatabase, APPLICATION);
+  }
+
+  @After
+  public void tearDown() {
+    RxJavaPlugins.reset();
+  }
+
+  @Test
+  public void idAbsentFromTheIndexIsNotLookedUpOnTheDisk() {
+    assertFalse(repo.isMessagePresent(generateMessageIDOtherThan(STORED_ID), true));
+    verify(messageDao, never()).getMessageById(any());
+  }
+
+  @Test
+  public void idInTheIndexIsNotLookedUpOnTheDisk() {
+    assertTrue(repo.isMessagePresent(STORED_ID, true));
+    verify(messageDao, never()).getMessageById(any());
+  }
+
+  @Test
+  public void idIsLookedUpOnTheDiskBeforeTheIndexIsLoaded() {
+    when(messageDao.getAllMessageIds()).thenReturn(Single.never());
+    when(messageDao.getMessageById(STORED_ID)).thenReturn(new MessageEntity(STORED_ID, null));
+    MessageRepository loadingRepo = new MessageRepository(appDatabase, APPLICATION);
+
+    assertTrue(loadingRepo.isMessagePresent(STORED_ID, true));
+    verify(messageDao).getMessageById(STORED_ID);
+  }
+}
@@ -10,20 +10,21 @@ import com.github.dedis.popstellar.model.objects.*;
 import com.github.dedis.popstellar.model.objects.security.MessageID;
 import com.github.dedis.popstellar.model.objects.security.PublicKey;
 import com.github.dedis.popstellar.repository.database.AppDatabase;
+import com.github.dedis.popstellar.utility.Timeline;
 import com.github.dedis.popstellar.utility.error.UnknownChirpException;
 
 import org.junit.*;
 import org.junit.runner.RunWith;
 
 import java.time.Instant;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 
 import io.reactivex.observers.TestObserver;
 
 import static com.github.dedis.popstellar.testutils.Base64DataUtils.*;
 import static com.github.dedis.popstellar.testutils.ObservableUtils.assertCurrentValueIs;
 import static java.util.Collections.addAll;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.emptySet;
 import static org.junit.Assert.*;
 
@@ -68,29 +69,30 @@ public class SocialMediaRepositoryTest {
   }
 
   @Test
-  public void addingAChirpAfterSubscriptionUpdatesIds() {
-    TestObserver<Set<MessageID>> ids = repo.getChirpsOfLao(LAO_ID).test();
-    // assert the current element is an empty set
-    assertCurrentValueIs(ids, emptySet());
+  public void addingAChirpAfterSubscriptionUpdatesTimeline() {
+    TestObserver<List<Timeline.Event<Chirp>>> events = repo.getChirpTimeline(LAO_ID).test();
+    // assert the first element is an empty timeline
+    events.assertValue(emptyList());
 
     repo.addChirp(LAO_ID, CHIRP_1);
 
-    // assert we received a new value : the set containing the chirp
-    assertCurrentValueIs(ids, setOf(CHIRP_1.getId()));
+    // assert we received a new value : the insertion of the chirp
+    assertInserted(events.values().get(1), 0, CHIRP_1);
   }
 
   @Test
-  public void addingChirpBeforeSubscriptionUpdateIds() {
+  public void addingChirpBeforeSubscriptionUpdateTimeline() {
     repo.addChirp(LAO_ID, CHIRP_1);
-    TestObserver<Set<MessageID>> ids = repo.getChirpsOfLao(LAO_ID).test();
+    TestObserver<List<Timeline.Event<Chirp>>> events = repo.getChirpTimeline(LAO_ID).test();
 
-    // The value at subscription contains only the first chirp's id
-    assertCurrentValueIs(ids, setOf(CHIRP_1.getId()));
+    // The value at subscription contains only the first chirp
+    assertInserted(events.values().get(0), 0, CHIRP_1);
 
     repo.addChirp(LAO_ID, CHIRP_2);
 
-    // The value at subscription contains the two chirps' ids
-    assertCurrentValueIs(ids, setOf(CHIRP_1.getId(), CHIRP_2.getId()));
+    // The second chirp is newer, it is inserted before the first one
+    events.assertValueCount(2);
+    assertInserted(events.values().get(1), 0, CHIRP_2);
   }
 
   @Test
@@ -220,6 +222,14 @@ public class SocialMediaRepositoryTest {
     assertCurrentValueIs(reactions, setOf(REACTION_2, REACTION_1.deleted()));
   }
 
+  private static void assertInserted(
+      List<Timeline.Event<Chirp>> batch, int position, Chirp chirp) {
+    assertEquals(1, batch.size());
+    assertEquals(Timeline.Type.INSERT, batch.get(0).getType());
+    assertEquals(position, batch.get(0).getPosition());
+    assertEquals(chirp, batch.get(0).getValue());
+  }
+
   @SafeVarargs
   private static <E> Set<E> setOf(E... elems) {
     Set<E> set = new HashSet<>();
@@ -13,6 +13,8 @@ import com.github.dedis.popstellar.model.objects.security.MessageID;
 import com.github.dedis.popstellar.model.objects.security.PublicKey;
 import com.github.dedis.popstellar.repository.database.AppDatabase;
 import com.github.dedis.popstellar.repository.database.witnessing.PendingEntity;
+import com.github.dedis.popstellar.utility.ChangeStream.Change;
+import com.github.dedis.popstellar.utility.ChangeStream.Type;
 import com.github.dedis.popstellar.utility.error.*;
 
 import org.junit.*;
@@ -21,9 +23,12 @@ import org.junit.runner.RunWith;
 import java.time.Instant;
 import java.util.*;
 
+import io.reactivex.observers.TestObserver;
+
 import static com.github.dedis.popstellar.testutils.Base64DataUtils.generateKeyPair;
 import static com.github.dedis.popstellar.testutils.Base64DataUtils.generateMessageID;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(AndroidJUnit4.class)
 public class WitnessingRepositoryTest {
@@ -119,4 +124,21 @@ public class WitnessingRepositoryTest {
     // Verify the meeting has been added to the repo
     assertEquals(MEETING, meetingRepo.getMeetingWithId(LAO_ID, MEETING.getId()));
   }
+
+  @Test
+  public void witnessMessageChangesStartWithTheCurrentMessages() {
+    TestObserver<List<Change<MessageID, WitnessMessage>>> changes =
+        witnessingRepository.getWitnessMessageChangesInLao(LAO_ID).test();
+    witnessingRepository.addWitnessToMessage(LAO_ID, MESSAGE_ID, WITNESS);
+
+    changes.assertValueCount(2);
+    Change<MessageID, WitnessMessage> added = changes.values().get(0).get(0);
+    assertEquals(Type.ADD, added.getType());
+    assertEquals(MESSAGE_ID, added.getKey());
+    // Only the signed message is published, not a copy of all the messages
+    List<Change<MessageID, WitnessMessage>> signed = changes.values().get(1);
+    assertEquals(1, signed.size());
+    assertEquals(Type.UPDATE, signed.get(0).getType());
+    assertTrue(signed.get(0).getValue().getWitnesses().contains(WITNESS));
+  }
 }
@@ -0,0 +1,253 @@
+package com.github.dedis.popstellar.repository.database;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.github.dedis.popstellar.di.DataRegistryModule;
+import com.github.dedis.popstellar.di.JsonModule;
+import com.github.dedis.popstellar.model.network.method.message.MessageGeneral;
+import com.github.dedis.popstellar.model.network.method.message.data.DataRegistry;
+import com.github.dedis.popstellar.model.network.method.message.data.consensus.ConsensusElect;
+import com.github.dedis.popstellar.model.network.method.message.data.election.*;
+import com.github.dedis.popstellar.model.network.method.message.data.lao.CreateLao;
+import com.github.dedis.popstellar.model.objects.*;
+import com.github.dedis.popstellar.model.objects.security.*;
+import com.google.gson.*;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.*;
+
+import static com.github.dedis.popstellar.testutils.Base64DataUtils.*;
+import static org.junit.Assert.*;
+
+@RunWith(AndroidJUnit4.class)
+public class BinaryEncodingMigrationTest {
+
+  private static final String TEST_DB = "migration-test";
+
+  private static final DataRegistry REGISTRY = DataRegistryModule.provideDataRegistryForGson();
+  private static final Gson GSON = JsonModule.provideGson(REGISTRY);
+  private static final EntityCodec CODEC = new EntityCodec(GSON, REGISTRY);
+
+  private static final long CREATION = Instant.now().getEpochSecond();
+  private static final KeyPair ORGANIZER = generateKeyPair();
+  private static final String LAO_ID =
+      Lao.generateLaoId(ORGANIZER.getPublicKey(), CREATION, "Lao");
+  private static final Channel LAO_CHANNEL = Channel.getLaoChannel(LAO_ID);
+
+  @Rule
+  public MigrationTestHelper helper =
+      new MigrationTestHelper(
+          InstrumentationRegistry.getInstrumentation(),
+          AppDatabase.class,
+          new ArrayList<>(),
+          new FrameworkSQLiteOpenHelperFactory());
+
+  @Test
+  public void jsonColumnsAreRewrittenInTheirBinaryEncoding() throws IOException {
+    MessageGeneral message =
+        new MessageGeneral(
+            ORGANIZER,
+            new CreateLao(LAO_ID, "Lao", CREATION, ORGANIZER.getPublicKey(), new ArrayList<>()),
+            GSON);
+    Lao lao = new Lao("Lao", ORGANIZER.getPublicKey(), CREATION);
+
+    SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 4);
+    insert(
+        db,
+        "messages",
+        "message_id",
+        toJson(message.getMessageId()),
+        "message",
+        GSON.toJson(message, MessageGeneral.class));
+    insert(db, "laos", "lao_id", LAO_ID, "lao", GSON.toJson(lao, Lao.class));
+    db.close();
+
+    db = migrate();
+    byte[] messageBytes = readBlob(db, "SELECT `message` FROM `messages`");
+    assertEquals(message.getMessageId(), CODEC.decodeMessage(messageBytes).getMessageId());
+    assertEquals(lao, CODEC.decodeLao(readBlob(db, "SELECT `lao` FROM `laos`")));
+  }
+
+  @Test
+  public void votesAreMovedOutOfTheirElection() throws IOException {
+    Election election = new Election.ElectionBuilder(LAO_ID, CREATION, "Election").build();
+    PublicKey voter = generatePublicKey();
+    MessageID voteMessageId = generateMessageID();
+    List<Vote> votes = Collections.singletonList(new PlainVote("vote", "question", 1));
+
+    // The ballots were stored in the json of their election
+    JsonObject electionJson = GSON.toJsonTree(election, Election.class).getAsJsonObject();
+    JsonObject votesBySender = new JsonObject();
+    votesBySender.add(
+        voter.getEncoded(), GSON.toJsonTree(votes, new TypeToken<List<Vote>>() {}.getType()));
+    JsonObject messageMap = new JsonObject();
+    messageMap.addProperty(voter.getEncoded(), voteMessageId.getEncoded());
+    electionJson.add("votesBySender", votesBySender);
+    electionJson.add("messageMap", messageMap);
+
+    SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 4);
+    insert(
+        db,
+        "elections",
+        "election_id",
+        election.getId(),
+        "lao_id",
+        LAO_ID,
+        "election",
+        electionJson.toString());
+    db.close();
+
+    db = migrate();
+    try (Cursor cursor =
+        db.query("SELECT `election_id`, `sender`, `lao_id`, `message_id`, `votes` FROM votes")) {
+      assertTrue(cursor.moveToNext());
+      assertEquals(election.getId(), cursor.getString(0));
+      assertEquals(voter, GSON.fromJson(cursor.getString(1), PublicKey.class));
+      assertEquals(LAO_ID, cursor.getString(2));
+      assertEquals(voteMessageId, GSON.fromJson(cursor.getString(3), MessageID.class));
+      assertEquals(votes, CODEC.decodeVotes(cursor.getBlob(4)));
+      assertFalse(cursor.moveToNext());
+
+      assertEquals(
+          election, CODEC.decodeElection(readBlob(db, "SELECT `election` FROM `elections`")));
+    }
+  }
+
+  @Test
+  public void chirpsGetTheirTimestampColumn() throws IOException {
+    Chirp chirp =
+        new Chirp(
+            generateMessageID(), generatePublicKey(), "Hello", CREATION, generateMessageID());
+
+    SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 4);
+    insert(
+        db,
+        "chirps",
+        "chirp_id",
+        toJson(chirp.getId()),
+        "lao_id",
+        LAO_ID,
+        "chirp",
+        GSON.toJson(chirp, Chirp.class));
+    db.close();
+
+    db = migrate();
+    try (Cursor cursor = db.query("SELECT `timestamp`, `chirp` FROM chirps")) {
+      assertTrue(cursor.moveToNext());
+      assertEquals(CREATION, cursor.getLong(0));
+      assertEquals(chirp, CODEC.decodeChirp(cursor.getBlob(1)));
+    }
+  }
+
+  @Test
+  public void electInstancesAreMovedOutOfTheirLao() throws IOException {
+    MessageID electId = generateMessageID();
+    ElectInstance electInstance =
+        new ElectInstance(
+            electId,
+            LAO_CHANNEL.subChannel("consensus"),
+            ORGANIZER.getPublicKey(),
+            Collections.singleton(ORGANIZER.getPublicKey()),
+            new ConsensusElect(CREATION, "id", "election", "state", "started"));
+    Map<MessageID, ElectInstance> electInstances = new HashMap<>();
+    electInstances.put(electId, electInstance);
+    Lao lao =
+        new LaoBuilder(new Lao("Lao", ORGANIZER.getPublicKey(), CREATION))
+            .setMessageIdToElectInstance(electInstances)
+            .build();
+
+    SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 4);
+    insert(db, "laos", "lao_id", LAO_ID, "lao", GSON.toJson(lao, Lao.class));
+    db.close();
+
+    db = migrate();
+    try (Cursor cursor =
+        db.query("SELECT `message_id`, `lao_id`, `elect_instance` FROM elect_instances")) {
+      assertTrue(cursor.moveToNext());
+      assertEquals(electId, GSON.fromJson(cursor.getString(0), MessageID.class));
+      assertEquals(LAO_ID, cursor.getString(1));
+      assertEquals(electInstance, CODEC.decodeElectInstance(cursor.getBlob(2)));
+      assertFalse(cursor.moveToNext());
+
+      Lao migratedLao = CODEC.decodeLao(readBlob(db, "SELECT `lao` FROM `laos`"));
+      assertTrue(migratedLao.getMessageIdToElectInstance().isEmpty());
+    }
+  }
+
+  @Test
+  public void rowsThatCannotBeConvertedAreDropped() throws IOException {
+    Reaction reaction =
+        new Reaction(
+            generateMessageID(),
+            generatePublicKey(),
+            Reaction.ReactionEmoji.UPVOTE.getCode(),
+            generateMessageID(),
+            CREATION);
+
+    SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 4);
+    insert(
+        db,
+        "reactions",
+        "reaction_id",
+        toJson(reaction.getId()),
+        "chirp_id",
+        toJson(reaction.getChirpId()),
+        "reaction",
+        GSON.toJson(reaction, Reaction.class));
+    insert(
+        db,
+        "reactions",
+        "reaction_id",
+        toJson(generateMessageID()),
+        "chirp_id",
+        toJson(reaction.getChirpId()),
+        "reaction",
+        "not a reaction");
+    db.close();
+
+    db = migrate();
+    try (Cursor cursor = db.query("SELECT `reaction` FROM reactions")) {
+      assertTrue(cursor.moveToNext());
+      assertEquals(reaction, CODEC.decodeReaction(cursor.getBlob(0)));
+      assertFalse(cursor.moveToNext());
+    }
+  }
+
+  /** Migrate the test database to the version 5 and check its schema */
+  private SupportSQLiteDatabase migrate() throws IOException {
+    return helper.runMigrationsAndValidate(
+        TEST_DB, 5, true, new BinaryEncodingMigration(GSON, CODEC));
+  }
+
+  private static String toJson(MessageID messageId) {
+    return GSON.toJson(messageId, MessageID.class);
+  }
+
+  private static void insert(SupportSQLiteDatabase db, String table, String... columnsAndValues) {
+    ContentValues values = new ContentValues();
+    for (int i = 0; i < columnsAndValues.length; i += 2) {
+      values.put(columnsAndValues[i], columnsAndValues[i + 1]);
+    }
+    db.insert(table, SQLiteDatabase.CONFLICT_REPLACE, values);
+  }
+
+  private static byte[] readBlob(SupportSQLiteDatabase db, String query) {
+    try (Cursor cursor = db.query(query)) {
+      assertTrue(cursor.moveToNext());
+      return cursor.getBlob(0);
+    }
+  }
+}
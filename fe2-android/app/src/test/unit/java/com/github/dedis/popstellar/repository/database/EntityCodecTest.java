@@ -0,0 +1,232 @@
+package com.github.dedis.popstellar.repository.database;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.github.dedis.popstellar.di.DataRegistryModule;
+import com.github.dedis.popstellar.di.JsonModule;
+import com.github.dedis.popstellar.model.network.method.message.MessageGeneral;
+import com.github.dedis.popstellar.model.network.method.message.PublicKeySignaturePair;
+import com.github.dedis.popstellar.model.network.method.message.data.DataRegistry;
+import com.github.dedis.popstellar.model.network.method.message.data.election.*;
+import com.github.dedis.popstellar.model.network.method.message.data.lao.CreateLao;
+import com.github.dedis.popstellar.model.objects.*;
+import com.github.dedis.popstellar.model.objects.digitalcash.*;
+import com.github.dedis.popstellar.model.objects.event.EventState;
+import com.github.dedis.popstellar.model.objects.security.*;
+import com.google.gson.Gson;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+
+import static com.github.dedis.popstellar.testutils.Base64DataUtils.*;
+import static org.junit.Assert.*;
+
+@RunWith(AndroidJUnit4.class)
+public class EntityCodecTest {
+
+  private static final DataRegistry REGISTRY = DataRegistryModule.provideDataRegistryForGson();
+  private static final Gson GSON = JsonModule.provideGson(REGISTRY);
+  private static final EntityCodec CODEC = new EntityCodec(GSON, REGISTRY);
+
+  private static final long CREATION = Instant.now().getEpochSecond();
+  private static final KeyPair ORGANIZER = generateKeyPair();
+  private static final String LAO_ID =
+      Lao.generateLaoId(ORGANIZER.getPublicKey(), CREATION, "Lao");
+
+  @Test
+  public void messageRoundTrip() {
+    CreateLao createLao =
+        new CreateLao(LAO_ID, "Lao", CREATION, ORGANIZER.getPublicKey(), new ArrayList<>());
+    MessageGeneral message =
+        new MessageGeneral(
+            ORGANIZER,
+            createLao,
+            Collections.singletonList(
+                new PublicKeySignaturePair(generatePublicKey(), generateSignature())),
+            GSON);
+
+    MessageGeneral decoded = CODEC.decodeMessage(CODEC.encode(message));
+
+    assertEquals(message.getSender(), decoded.getSender());
+    assertEquals(message.getDataEncoded(), decoded.getDataEncoded());
+    assertEquals(message.getData(), decoded.getData());
+    assertEquals(message.getSignature(), decoded.getSignature());
+    assertEquals(message.getMessageId(), decoded.getMessageId());
+    PublicKeySignaturePair witnessSignature = message.getWitnessSignatures().get(0);
+    PublicKeySignaturePair decodedWitnessSignature = decoded.getWitnessSignatures().get(0);
+    assertEquals(witnessSignature.getWitness(), decodedWitnessSignature.getWitness());
+    assertEquals(witnessSignature.getSignature(), decodedWitnessSignature.getSignature());
+    assertTrue(decoded.verify());
+  }
+
+  @Test
+  public void laoRoundTrip() {
+    Lao lao =
+        new LaoBuilder(new Lao("Lao", ORGANIZER.getPublicKey(), CREATION))
+            .setLastModified(CREATION + 5)
+            .setModificationId(generateMessageID())
+            .setPendingUpdates(
+                new HashSet<>(Collections.singletonList(new PendingUpdate(7, generateMessageID()))))
+            .build();
+
+    assertEquals(lao, CODEC.decodeLao(CODEC.encode(lao)));
+  }
+
+  @Test
+  public void electionAndVotesRoundTrip() {
+    assertElectionRoundTrip(
+        ElectionVersion.OPEN_BALLOT, questionId -> new PlainVote("vote", questionId, 1));
+    assertElectionRoundTrip(
+        ElectionVersion.SECRET_BALLOT,
+        questionId -> new EncryptedVote("vote", questionId, generateRandomBase64String()));
+  }
+
+  @Test
+  public void rollCallRoundTrip() {
+    RollCall rollCall =
+        new RollCall(
+            "id",
+            "persistentId",
+            "Roll call",
+            CREATION,
+            CREATION + 10,
+            CREATION + 20,
+            EventState.CLOSED,
+            new HashSet<>(Arrays.asList(generatePublicKey(), generatePublicKey())),
+            "location",
+            null);
+
+    assertEquals(rollCall, CODEC.decodeRollCall(CODEC.encode(rollCall)));
+  }
+
+  @Test
+  public void meetingRoundTrip() {
+    Meeting meeting =
+        new Meeting(
+            "id",
+            "Meeting",
+            CREATION,
+            CREATION + 10,
+            0,
+            "location",
+            CREATION,
+            "modificationId",
+            Collections.singletonList("signature"));
+
+    Meeting decoded = CODEC.decodeMeeting(CODEC.encode(meeting));
+
+    assertEquals(meeting, decoded);
+    assertEquals(Long.MAX_VALUE, decoded.getEndTimestamp());
+  }
+
+  @Test
+  public void chirpAndReactionRoundTrip() {
+    Chirp chirp =
+        new Chirp(
+            generateMessageID(), generatePublicKey(), "Hello", CREATION, generateMessageID());
+    Chirp deleted = new Chirp(chirp, true);
+    Reaction reaction =
+        new Reaction(
+            generateMessageID(),
+            generatePublicKey(),
+            Reaction.ReactionEmoji.UPVOTE.getCode(),
+            chirp.getId(),
+            CREATION);
+
+    assertEquals(chirp, CODEC.decodeChirp(CODEC.encode(chirp)));
+    assertEquals(deleted, CODEC.decodeChirp(CODEC.encode(deleted)));
+    assertEquals(reaction, CODEC.decodeReaction(CODEC.encode(reaction)));
+  }
+
+  @Test
+  public void transactionRoundTrip() {
+    InputObject input =
+        new InputObject(
+            TransactionObject.TX_OUT_HASH_COINBASE,
+            0,
+            new ScriptInputObject("P2PKH", generatePublicKey(), generateSignature()));
+    OutputObject output = new OutputObject(42, new ScriptOutputObject("P2PKH", "hash"));
+    TransactionObject transaction =
+        new TransactionObject(
+            Channel.getLaoChannel(LAO_ID).subChannel("coin"),
+            1,
+            Collections.singletonList(input),
+            Collections.singletonList(output),
+            0,
+            "transactionId");
+
+    assertEquals(transaction, CODEC.decodeTransaction(CODEC.encode(transaction)));
+  }
+
+  @Test
+  public void witnessMessageRoundTrip() {
+    WitnessMessage witnessMessage = new WitnessMessage(generateMessageID());
+    witnessMessage.addWitness(generatePublicKey());
+    witnessMessage.setTitle("Title");
+    witnessMessage.setDescription("Description");
+
+    WitnessMessage decoded = CODEC.decodeWitnessMessage(CODEC.encode(witnessMessage));
+
+    assertEquals(witnessMessage, decoded);
+    assertEquals("Title", decoded.getTitle());
+    assertEquals("Description", decoded.getDescription());
+    assertEquals(witnessMessage.getTimestamp(), decoded.getTimestamp());
+  }
+
+  @Test
+  public void nullIsKept() {
+    assertNull(CODEC.encode((Lao) null));
+    assertNull(CODEC.decodeLao(null));
+  }
+
+  @Test
+  public void binaryEncodingIsSmallerThanJson() {
+    Chirp chirp =
+        new Chirp(
+            generateMessageID(), generatePublicKey(), "Hello", CREATION, generateMessageID());
+
+    assertTrue(CODEC.encode(chirp).length < GSON.toJson(chirp, Chirp.class).length());
+  }
+
+  @Test
+  public void unknownVersionIsRejected() {
+    byte[] bytes =
+        CODEC.encode(
+            new Chirp(
+                generateMessageID(), generatePublicKey(), "Hello", CREATION, generateMessageID()));
+    bytes[0] = EntityCodec.VERSION + 1;
+
+    assertThrows(IllegalArgumentException.class, () -> CODEC.decodeChirp(bytes));
+  }
+
+  private static void assertElectionRoundTrip(
+      ElectionVersion version, Function<String, Vote> voteForQuestion) {
+    Election.ElectionBuilder builder =
+        new Election.ElectionBuilder(LAO_ID, CREATION, "Election")
+            .setElectionVersion(version)
+            .setStart(CREATION + 10)
+            .setEnd(CREATION + 20)
+            .setElectionKey(generateRandomBase64String())
+            .setState(EventState.CLOSED);
+    ElectionQuestion question =
+        new ElectionQuestion(
+            builder.build().getId(),
+            new ElectionQuestion.Question(
+                "Question", "Plurality", Arrays.asList("yes", "no"), false));
+    Map<String, Set<QuestionResult>> results = new HashMap<>();
+    results.put(question.getId(), Collections.singleton(new QuestionResult("yes", 3)));
+    Election election =
+        builder
+            .setElectionQuestions(Collections.singletonList(question))
+            .setResults(results)
+            .build();
+    List<Vote> votes = Collections.singletonList(voteForQuestion.apply(question.getId()));
+
+    assertEquals(election, CODEC.decodeElection(CODEC.encode(election)));
+    assertEquals(votes, CODEC.decodeVotes(CODEC.encode(votes)));
+  }
+}
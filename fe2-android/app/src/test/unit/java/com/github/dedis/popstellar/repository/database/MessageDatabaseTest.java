@@ -123,4 +123,28 @@ public class MessageDatabaseTest {
                     && messageEntities.get(1).getMessageId().equals(messageID2)
                     && messageEntities.get(2).getMessageId().equals(messageID3));
   }
+
+  @Test
+  public void getAllMessageIdsTest() {
+    MessageID messageID1 = Base64DataUtils.generateMessageID();
+    MessageID messageID2 = Base64DataUtils.generateMessageID();
+
+    TestObserver<Void> testObserver =
+        messageDao
+            .insert(new MessageEntity(messageID1, null))
+            .andThen(messageDao.insert(new MessageEntity(messageID2, null)))
+            .test();
+
+    testObserver.awaitTerminalEvent();
+    testObserver.assertComplete();
+
+    messageDao
+        .getAllMessageIds()
+        .test()
+        .assertValue(
+            messageIDs ->
+                messageIDs.size() == 2
+                    && messageIDs.contains(messageID1)
+                    && messageIDs.contains(messageID2));
+  }
 }
@@ -13,7 +13,7 @@ import org.junit.*;
 import org.junit.runner.RunWith;
 
 import java.time.Instant;
-import java.util.List;
+import java.util.*;
 
 import io.reactivex.observers.TestObserver;
 
@@ -74,7 +74,7 @@ public class SocialMediaDatabaseTest {
 
     TestObserver<List<Chirp>> testObserver2 =
         chirpDao
-            .getChirpsByLaoId(LAO_ID)
+            .getLatestChirps(LAO_ID, 10)
             .test()
             .assertValue(chirps -> chirps.size() == 1 && chirps.get(0).equals(CHIRP_1));
 
@@ -82,6 +82,34 @@ public class SocialMediaDatabaseTest {
     testObserver2.assertComplete();
   }
 
+  @Test
+  public void chirpsAreReadPageByPage() {
+    Chirp chirp3 =
+        new Chirp(generateMessageID(), SENDER, "A third chirp !", 1002, new MessageID(""));
+    TestObserver<Void> testObserver =
+        chirpDao
+            .insertAll(
+                Arrays.asList(
+                    CHIRP_ENTITY,
+                    new ChirpEntity(LAO_ID, CHIRP_2),
+                    new ChirpEntity(LAO_ID, chirp3)))
+            .test();
+
+    testObserver.awaitTerminalEvent();
+    testObserver.assertComplete();
+
+    // The pages are read from the newest chirp to the oldest one
+    chirpDao.getLatestChirps(LAO_ID, 2).test().assertValue(Arrays.asList(CHIRP_2, chirp3));
+    chirpDao
+        .getChirpsBefore(LAO_ID, chirp3.getTimestamp(), chirp3.getId(), 2)
+        .test()
+        .assertValue(Collections.singletonList(CHIRP_1));
+    chirpDao
+        .getChirpsBefore(LAO_ID, CHIRP_1.getTimestamp(), CHIRP_1.getId(), 2)
+        .test()
+        .assertValue(Collections.emptyList());
+  }
+
   @Test
   public void insertReactionTest() {
     TestObserver<Void> testObserver = reactionDao.insert(REACTION_ENTITY).test();
@@ -99,7 +127,7 @@ public class SocialMediaDatabaseTest {
 
     TestObserver<List<Reaction>> testObserver2 =
         reactionDao
-            .getReactionsByChirpId(CHIRP1_ID)
+            .getReactionsByChirpIds(Collections.singletonList(CHIRP1_ID))
             .test()
             .assertValue(reactions -> reactions.size() == 1 && reactions.get(0).equals(REACTION_1));
 
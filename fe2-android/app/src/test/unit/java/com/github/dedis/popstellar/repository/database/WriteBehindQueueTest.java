@@ -0,0 +1,136 @@
+package com.github.dedis.popstellar.repository.database;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Completable;
+import io.reactivex.schedulers.TestScheduler;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.*;
+
+@RunWith(AndroidJUnit4.class)
+public class WriteBehindQueueTest {
+
+  private static final int BATCH_SIZE = 3;
+  private static final long DELAY_MS = 100;
+
+  private final TestScheduler scheduler = new TestScheduler();
+  private final List<List<String>> batches = new ArrayList<>();
+  private final List<String> operations = new ArrayList<>();
+
+  // Entities are strings "key:value"
+  private final WriteBehindQueue<String, String> queue =
+      new WriteBehindQueue<>(
+          "entities",
+          entity -> entity.split(":")[0],
+          batch -> Completable.fromAction(() -> batches.add(batch)),
+          BATCH_SIZE,
+          DELAY_MS,
+          scheduler);
+
+  @Test
+  public void entitiesAreWrittenTogetherAfterTheDelay() {
+    queue.enqueue("a:1");
+    queue.enqueue("b:1");
+    scheduler.advanceTimeBy(DELAY_MS - 1, TimeUnit.MILLISECONDS);
+    assertTrue(batches.isEmpty());
+
+    scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+    assertEquals(singletonList(asList("a:1", "b:1")), batches);
+  }
+
+  @Test
+  public void fullBatchIsWrittenWithoutDelay() {
+    queue.enqueue("a:1");
+    queue.enqueue("b:1");
+    queue.enqueue("c:1");
+    scheduler.triggerActions();
+
+    assertEquals(singletonList(asList("a:1", "b:1", "c:1")), batches);
+  }
+
+  @Test
+  public void writesOfTheSameEntityAreCoalesced() {
+    queue.enqueue("a:1");
+    queue.enqueue("b:1");
+    queue.enqueue("a:2");
+    scheduler.advanceTimeBy(DELAY_MS, TimeUnit.MILLISECONDS);
+
+    assertEquals(singletonList(asList("a:2", "b:1")), batches);
+  }
+
+  @Test
+  public void pendingEntitiesCanBeRetrievedUntilWritten() {
+    queue.enqueue("a:1");
+    assertEquals("a:1", queue.getPending("a"));
+    assertNull(queue.getPending("b"));
+
+    // Flushed but not written yet
+    queue.flush();
+    assertEquals("a:1", queue.getPending("a"));
+
+    scheduler.triggerActions();
+    assertNull(queue.getPending("a"));
+    assertEquals(singletonList(singletonList("a:1")), batches);
+  }
+
+  @Test
+  public void flushWithoutPendingEntitiesWritesNothing() {
+    queue.flush();
+    scheduler.advanceTimeBy(DELAY_MS, TimeUnit.MILLISECONDS);
+
+    assertTrue(batches.isEmpty());
+  }
+
+  @Test
+  public void operationRunsAfterThePendingWrites() {
+    queue.enqueue("a:1");
+    Completable deletion =
+        queue.runAfterWrites(
+            Completable.fromAction(() -> operations.add("delete after " + batches.size())));
+    queue.enqueue("a:2");
+    scheduler.advanceTimeBy(DELAY_MS, TimeUnit.MILLISECONDS);
+
+    deletion.test().assertComplete();
+    assertEquals(singletonList("delete after 1"), operations);
+    assertEquals(asList(singletonList("a:1"), singletonList("a:2")), batches);
+  }
+
+  @Test
+  public void entitiesEnqueuedOnceIdleAreStillWritten() {
+    queue.enqueue("a:1");
+    queue.flush();
+    scheduler.triggerActions();
+
+    // The queue released its worker after the first write
+    queue.enqueue("b:1");
+    scheduler.advanceTimeBy(DELAY_MS, TimeUnit.MILLISECONDS);
+
+    assertEquals(asList(singletonList("a:1"), singletonList("b:1")), batches);
+  }
+
+  @Test
+  public void failedWriteReleasesThePendingEntities() {
+    WriteBehindQueue<String, String> failing =
+        new WriteBehindQueue<>(
+            "entities",
+            entity -> entity,
+            batch -> Completable.error(new IllegalStateException("closed")),
+            BATCH_SIZE,
+            DELAY_MS,
+            scheduler);
+
+    failing.enqueue("a");
+    failing.flush();
+    scheduler.triggerActions();
+
+    assertNull(failing.getPending("a"));
+  }
+}
@@ -0,0 +1,58 @@
+package com.github.dedis.popstellar.repository.database.message;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.github.dedis.popstellar.model.objects.security.MessageID;
+import com.github.dedis.popstellar.testutils.Base64DataUtils;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(AndroidJUnit4.class)
+public class MessageIdIndexTest {
+
+  @Test
+  public void addedIdsAreContained() {
+    MessageIdIndex index = new MessageIdIndex();
+    MessageID messageID = Base64DataUtils.generateMessageID();
+
+    assertFalse(index.contains(messageID));
+    index.add(messageID);
+    assertTrue(index.contains(messageID));
+    // An equal id built from the same value is also found
+    assertTrue(index.contains(new MessageID(messageID.getEncoded())));
+  }
+
+  @Test
+  public void addingTwiceDoesNotChangeTheSize() {
+    MessageIdIndex index = new MessageIdIndex();
+    MessageID messageID = Base64DataUtils.generateMessageID();
+
+    index.add(messageID);
+    index.add(messageID);
+
+    assertEquals(1, index.size());
+  }
+
+  @Test
+  public void indexGrowsAndKeepsAllIds() {
+    MessageIdIndex index = new MessageIdIndex();
+    List<MessageID> added = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      added.add(Base64DataUtils.generateMessageID());
+    }
+    index.addAll(added);
+
+    assertEquals(added.size(), index.size());
+    for (MessageID messageID : added) {
+      assertTrue(index.contains(messageID));
+    }
+    for (int i = 0; i < 10_000; i++) {
+      assertFalse(index.contains(Base64DataUtils.generateMessageID()));
+    }
+  }
+}
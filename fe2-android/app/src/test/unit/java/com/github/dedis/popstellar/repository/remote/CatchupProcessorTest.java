@@ -0,0 +1,178 @@
+package com.github.dedis.popstellar.repository.remote;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.github.dedis.popstellar.model.network.method.message.MessageGeneral;
+import com.github.dedis.popstellar.model.network.method.message.data.Data;
+import com.github.dedis.popstellar.model.network.method.message.data.Objects;
+import com.github.dedis.popstellar.model.objects.Channel;
+import com.github.dedis.popstellar.repository.database.message.CatchupMarkEntity;
+import com.github.dedis.popstellar.utility.error.*;
+import com.github.dedis.popstellar.utility.error.keys.NoRollCallException;
+import com.github.dedis.popstellar.utility.handler.MessageHandler;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.util.*;
+
+import io.reactivex.schedulers.Schedulers;
+
+import static com.github.dedis.popstellar.testutils.Base64DataUtils.generateMessageID;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(AndroidJUnit4.class)
+public class CatchupProcessorTest {
+
+  private static final Channel CHANNEL = Channel.ROOT.subChannel("lao");
+
+  @Rule public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+  @Mock MessageHandler handler;
+  @Mock MessageSender sender;
+
+  private CatchupProcessor processor;
+
+  @Before
+  public void setup() {
+    processor = new CatchupProcessor(handler, Schedulers.io());
+  }
+
+  @Test
+  public void partitionsAreHandledAfterTheirDependencies() throws Exception {
+    MessageGeneral chirp = message(Objects.CHIRP);
+    MessageGeneral coin = message(Objects.COIN);
+    MessageGeneral rollCall = message(Objects.ROLL_CALL);
+    MessageGeneral lao = message(Objects.LAO);
+    List<MessageGeneral> handled = recordHandledMessages();
+
+    List<MessageGeneral> unhandled =
+        processor.process(sender, CHANNEL, Arrays.asList(chirp, coin, rollCall, lao)).blockingGet();
+
+    assertTrue(unhandled.isEmpty());
+    assertEquals(4, handled.size());
+    assertEquals(lao, handled.get(0));
+    assertTrue(handled.indexOf(rollCall) < handled.indexOf(coin));
+  }
+
+  @Test
+  public void messagesOfAPartitionKeepTheirOrder() throws Exception {
+    List<MessageGeneral> messages = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      messages.add(message(i % 2 == 0 ? Objects.CHIRP : Objects.REACTION));
+    }
+    List<MessageGeneral> handled = recordHandledMessages();
+
+    processor.process(sender, CHANNEL, messages).blockingGet();
+
+    assertEquals(messages, handled);
+  }
+
+  @Test
+  public void failedMessageIsRetriedOnceItsDependencyIsHandled() throws Exception {
+    // The roll call is closed before being created in the catchup
+    MessageGeneral close = message(Objects.ROLL_CALL);
+    MessageGeneral create = message(Objects.ROLL_CALL);
+    doThrow(UnknownRollCallException.class)
+        .doNothing()
+        .when(handler)
+        .handleMessage(any(), any(), eq(close));
+
+    List<MessageGeneral> unhandled =
+        processor.process(sender, CHANNEL, Arrays.asList(close, create)).blockingGet();
+
+    assertTrue(unhandled.isEmpty());
+    verify(handler, times(2)).handleMessage(sender, CHANNEL, close);
+    verify(handler).handleMessage(sender, CHANNEL, create);
+  }
+
+  @Test
+  public void messagesThatCannotBeHandledAreReturnedInOrder() throws Exception {
+    // The LAO of these messages is not part of the catchup
+    MessageGeneral chirp = message(Objects.CHIRP);
+    MessageGeneral election = message(Objects.ELECTION);
+    MessageGeneral meeting = message(Objects.MEETING);
+    doThrow(UnknownLaoException.class).when(handler).handleMessage(any(), any(), eq(chirp));
+    doThrow(UnknownLaoException.class).when(handler).handleMessage(any(), any(), eq(election));
+
+    List<MessageGeneral> unhandled =
+        processor.process(sender, CHANNEL, Arrays.asList(chirp, election, meeting)).blockingGet();
+
+    assertEquals(Arrays.asList(chirp, election), unhandled);
+    // No progress was made on the LAO, the messages were not retried
+    verify(handler).handleMessage(sender, CHANNEL, chirp);
+    verify(handler).handleMessage(sender, CHANNEL, election);
+  }
+
+  @Test
+  public void emptyCatchupDoesNotHandleAnything() {
+    assertTrue(processor.process(sender, CHANNEL, Collections.emptyList()).blockingGet().isEmpty());
+    verifyNoInteractions(handler);
+  }
+
+  @Test
+  public void handledPrefixIsFoundFromTheMark() {
+    List<MessageGeneral> messages =
+        Arrays.asList(message(Objects.LAO), message(Objects.CHIRP), message(Objects.CHIRP));
+
+    assertEquals(0, CatchupProcessor.countHandled(messages, null));
+    assertEquals(2, CatchupProcessor.countHandled(messages, mark(messages.get(1), 2)));
+    // The mark is searched for when it moved in the history
+    assertEquals(2, CatchupProcessor.countHandled(messages, mark(messages.get(1), 5)));
+    // An unknown mark leads to a full catchup
+    assertEquals(0, CatchupProcessor.countHandled(messages, mark(message(Objects.LAO), 1)));
+  }
+
+  @Test
+  public void messagesOnlyKeptInMemoryAreHandledAgain() {
+    MessageGeneral lao = message(Objects.LAO);
+    MessageGeneral consensus = message(Objects.CONSENSUS);
+    MessageGeneral chirp = message(Objects.CHIRP);
+    MessageGeneral newChirp = message(Objects.CHIRP);
+    List<MessageGeneral> messages = Arrays.asList(lao, consensus, chirp, newChirp);
+
+    assertEquals(messages, CatchupProcessor.toHandle(messages, 0));
+    assertEquals(Arrays.asList(consensus, newChirp), CatchupProcessor.toHandle(messages, 3));
+  }
+
+  @Test
+  public void handledCountStopsAtTheFirstUnhandledMessage() {
+    List<MessageGeneral> messages =
+        Arrays.asList(message(Objects.LAO), message(Objects.CHIRP), message(Objects.CHIRP));
+
+    assertEquals(3, CatchupProcessor.countHandledAfter(messages, Collections.emptyList()));
+    List<MessageGeneral> unhandled = Arrays.asList(messages.get(1), messages.get(2));
+    assertEquals(1, CatchupProcessor.countHandledAfter(messages, unhandled));
+  }
+
+  private List<MessageGeneral> recordHandledMessages()
+      throws UnknownElectionException, UnknownRollCallException, UnknownLaoException,
+          DataHandlingException, NoRollCallException, UnknownWitnessMessageException {
+    List<MessageGeneral> handled = Collections.synchronizedList(new ArrayList<>());
+    doAnswer(
+            invocation -> {
+              handled.add(invocation.getArgument(2));
+              return null;
+            })
+        .when(handler)
+        .handleMessage(any(), any(), any());
+    return handled;
+  }
+
+  private static MessageGeneral message(Objects object) {
+    Data data = mock(Data.class);
+    when(data.getObject()).thenReturn(object.getObject());
+    return new MessageGeneral(null, null, data, null, generateMessageID(), Collections.emptyList());
+  }
+
+  private static CatchupMarkEntity mark(MessageGeneral message, int count) {
+    return new CatchupMarkEntity(CHANNEL.getAsString(), message.getMessageId(), count, 0);
+  }
+}
@@ -0,0 +1,66 @@
+package com.github.dedis.popstellar.repository.remote;
+
+import com.github.dedis.popstellar.model.network.answer.Result;
+import com.tinder.scarlet.ShutdownReason;
+import com.tinder.scarlet.WebSocket;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ConnectionHealthTest {
+
+  @Test
+  public void latencyIsAMovingAverageOfTheRoundTrips() {
+    ConnectionHealth health = opened();
+    assertEquals(ConnectionHealth.UNKNOWN_LATENCY, health.getLatency());
+
+    answer(health, 1, 100);
+    assertEquals(100, health.getLatency());
+
+    // The last round trip weighs 20% of the average
+    answer(health, 2, 200);
+    assertEquals(120, health.getLatency());
+  }
+
+  @Test
+  public void answersOfAClosedConnectionAreIgnored() {
+    ConnectionHealth health = opened();
+    health.onRequestSent(1, 0);
+    health.onEvent(new WebSocket.Event.OnConnectionClosed(ShutdownReason.GRACEFUL));
+    health.onMessageReceived(new Result(1), 100);
+
+    assertFalse(health.isConnected());
+    assertEquals(ConnectionHealth.UNKNOWN_LATENCY, health.getLatency());
+  }
+
+  @Test
+  public void connectionsAreRankedByLatency() {
+    ConnectionHealth slow = opened();
+    answer(slow, 1, 200);
+    ConnectionHealth fast = opened();
+    answer(fast, 1, 100);
+    ConnectionHealth unknown = opened();
+    ConnectionHealth closed = new ConnectionHealth();
+    answer(closed, 1, 10);
+
+    List<ConnectionHealth> ranked = new ArrayList<>(Arrays.asList(closed, unknown, slow, fast));
+    ranked.sort(ConnectionHealth.BY_LATENCY);
+
+    assertEquals(Arrays.asList(fast, slow, unknown, closed), ranked);
+  }
+
+  private static ConnectionHealth opened() {
+    ConnectionHealth health = new ConnectionHealth();
+    health.onEvent(new WebSocket.Event.OnConnectionOpened<>("Fake WebSocket"));
+    return health;
+  }
+
+  private static void answer(ConnectionHealth health, int requestId, long roundTrip) {
+    health.onRequestSent(requestId, 0);
+    health.onMessageReceived(new Result(requestId), roundTrip);
+  }
+}
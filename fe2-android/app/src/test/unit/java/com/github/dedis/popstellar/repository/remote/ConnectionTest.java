@@ -2,21 +2,24 @@ package com.github.dedis.popstellar.repository.remote;
 
 import com.github.dedis.popstellar.model.network.GenericMessage;
 import com.github.dedis.popstellar.model.network.answer.Result;
+import com.github.dedis.popstellar.model.network.method.*;
 import com.github.dedis.popstellar.model.network.method.Message;
-import com.github.dedis.popstellar.model.network.method.Subscribe;
+import com.github.dedis.popstellar.model.network.method.message.MessageGeneral;
+import com.github.dedis.popstellar.model.network.method.message.data.Data;
 import com.github.dedis.popstellar.model.objects.Channel;
 import com.github.dedis.popstellar.model.objects.PeerAddress;
 import com.tinder.scarlet.*;
 
 import org.junit.Test;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 import java.util.function.Function;
 
 import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
 import io.reactivex.subjects.BehaviorSubject;
 
+import static com.github.dedis.popstellar.testutils.Base64DataUtils.generateMessageID;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.*;
 
@@ -141,4 +144,100 @@ public class ConnectionTest {
     verify(service, times(2)).observeWebsocket();
     verifyNoMoreInteractions(service);
   }
+
+  @Test
+  public void multiConnectionMergesPeersAndDropsCopiesOfBroadcasts() {
+    BehaviorSubject<GenericMessage> mainMessages = BehaviorSubject.create();
+    BehaviorSubject<GenericMessage> peerMessages = BehaviorSubject.create();
+    Map<String, LAOService> services = new HashMap<>();
+    services.put(URL, service(mainMessages, BehaviorSubject.create()));
+    services.put("url2", service(peerMessages, BehaviorSubject.create()));
+
+    MultiConnection multiConnection = multiConnection(services);
+    multiConnection.connectToPeers(Collections.singletonList(new PeerAddress("url2")));
+
+    TestObserver<GenericMessage> messages = multiConnection.observeMessage().test();
+    Data data = mock(Data.class);
+    Broadcast broadcast =
+        new Broadcast(
+            Channel.ROOT,
+            new MessageGeneral(
+                null, null, data, null, generateMessageID(), Collections.emptyList()));
+    // The peer is listened to while the main connection is still opened
+    peerMessages.onNext(broadcast);
+    mainMessages.onNext(broadcast);
+
+    messages.assertValue(broadcast);
+    // Every subscriber receives the broadcast
+    multiConnection.observeMessage().test().assertValueCount(1);
+  }
+
+  @Test
+  public void requestIsSentToTheFastestPeer() {
+    BehaviorSubject<GenericMessage> peerMessages = BehaviorSubject.create();
+    Map<String, LAOService> services = new HashMap<>();
+    services.put(URL, service(BehaviorSubject.create(), opened()));
+    services.put("url2", service(peerMessages, opened()));
+
+    MultiConnection multiConnection = multiConnection(services);
+    multiConnection.connectToPeers(Collections.singletonList(new PeerAddress("url2")));
+
+    // Subscriptions are sent to every server, only the peer answers
+    Subscribe subscribe = new Subscribe(Channel.ROOT, 1);
+    multiConnection.sendMessage(subscribe);
+    verify(services.get(URL)).sendMessage(subscribe);
+    verify(services.get("url2")).sendMessage(subscribe);
+    peerMessages.onNext(new Result(1));
+
+    Catchup catchup = new Catchup(Channel.ROOT, 2);
+    multiConnection.sendMessage(catchup);
+    verify(services.get("url2")).sendMessage(catchup);
+    verify(services.get(URL), never()).sendMessage(catchup);
+  }
+
+  @Test
+  public void publishIsSentToEveryServer() {
+    BehaviorSubject<GenericMessage> peerMessages = BehaviorSubject.create();
+    Map<String, LAOService> services = new HashMap<>();
+    services.put(URL, service(BehaviorSubject.create(), opened()));
+    services.put("url2", service(peerMessages, opened()));
+
+    MultiConnection multiConnection = multiConnection(services);
+    multiConnection.connectToPeers(Collections.singletonList(new PeerAddress("url2")));
+
+    // Even if the peer is known to answer the fastest, the message is published on both servers
+    Subscribe subscribe = new Subscribe(Channel.ROOT, 1);
+    multiConnection.sendMessage(subscribe);
+    peerMessages.onNext(new Result(1));
+
+    Publish publish =
+        new Publish(
+            Channel.ROOT,
+            2,
+            new MessageGeneral(
+                null, null, mock(Data.class), null, generateMessageID(), Collections.emptyList()));
+    multiConnection.sendMessage(publish);
+    verify(services.get(URL)).sendMessage(publish);
+    verify(services.get("url2")).sendMessage(publish);
+  }
+
+  private static LAOService service(
+      BehaviorSubject<GenericMessage> messages, BehaviorSubject<WebSocket.Event> events) {
+    LAOService service = mock(LAOService.class);
+    when(service.observeMessage()).thenReturn(messages);
+    when(service.observeWebsocket()).thenReturn(events);
+    return service;
+  }
+
+  private static BehaviorSubject<WebSocket.Event> opened() {
+    return BehaviorSubject.createDefault(
+        new WebSocket.Event.OnConnectionOpened<>("Fake WebSocket"));
+  }
+
+  private static MultiConnection multiConnection(Map<String, LAOService> services) {
+    BehaviorSubject<Lifecycle.State> manualState =
+        BehaviorSubject.createDefault(Lifecycle.State.Started.INSTANCE);
+    return new MultiConnection(
+        url -> new Connection(url, services.get(url), manualState), URL);
+  }
 }
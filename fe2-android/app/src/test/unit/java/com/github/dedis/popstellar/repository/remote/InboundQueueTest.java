@@ -0,0 +1,70 @@
+package com.github.dedis.popstellar.repository.remote;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.BackpressureOverflowStrategy;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subscribers.TestSubscriber;
+
+import static org.junit.Assert.assertEquals;
+
+public class InboundQueueTest {
+
+  @Test
+  public void burstDropsTheOldestQueuedMessages() {
+    // The handling thread requests 16 messages at once, on top of the queue capacity
+    InboundQueue queue = new InboundQueue(2, BackpressureOverflowStrategy.DROP_OLDEST);
+    TestScheduler scheduler = new TestScheduler();
+    PublishProcessor<Integer> messages = PublishProcessor.create();
+    TestSubscriber<Integer> handled =
+        messages
+            .compose(queue.through(scheduler))
+            .map(message -> queue.onHandled(message, scheduler))
+            .test();
+    TestObserver<Long> overflows = queue.observeOverflows().test();
+
+    for (int i = 0; i < 20; i++) {
+      messages.onNext(i);
+    }
+
+    assertEquals(2, queue.getDropped());
+    assertEquals(18, queue.getDepth());
+    overflows.assertValues(1L, 2L);
+
+    scheduler.triggerActions();
+
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < 16; i++) {
+      expected.add(i);
+    }
+    expected.add(18);
+    expected.add(19);
+    handled.assertValueSequence(expected);
+    assertEquals(0, queue.getDepth());
+  }
+
+  @Test
+  public void messagesAreHandledInOrderWithoutOverflow() {
+    InboundQueue queue = new InboundQueue();
+    TestScheduler scheduler = new TestScheduler();
+    PublishProcessor<Integer> messages = PublishProcessor.create();
+    TestSubscriber<Integer> handled =
+        messages
+            .compose(queue.through(scheduler))
+            .map(message -> queue.onHandled(message, scheduler))
+            .test();
+
+    messages.onNext(1);
+    messages.onNext(2);
+    scheduler.triggerActions();
+
+    handled.assertValues(1, 2);
+    assertEquals(0, queue.getDropped());
+    assertEquals(0, queue.getLag());
+  }
+}
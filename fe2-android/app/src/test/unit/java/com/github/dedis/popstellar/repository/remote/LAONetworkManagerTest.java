@@ -19,6 +19,7 @@ import com.github.dedis.popstellar.testutils.Base64DataUtils;
 import com.github.dedis.popstellar.utility.error.*;
 import com.github.dedis.popstellar.utility.error.keys.NoRollCallException;
 import com.github.dedis.popstellar.utility.handler.MessageHandler;
+import com.github.dedis.popstellar.utility.scheduler.SchedulerProvider;
 import com.github.dedis.popstellar.utility.scheduler.TestSchedulerProvider;
 import com.google.gson.Gson;
 import com.tinder.scarlet.WebSocket;
@@ -31,6 +32,7 @@ import org.mockito.junit.MockitoJUnit;
 import org.mockito.stubbing.Answer;
 
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -38,15 +40,18 @@ import javax.inject.Inject;
 
 import dagger.hilt.android.testing.HiltAndroidRule;
 import dagger.hilt.android.testing.HiltAndroidTest;
+import io.reactivex.Scheduler;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
 import io.reactivex.schedulers.TestScheduler;
 import io.reactivex.subjects.BehaviorSubject;
 
+import static com.github.dedis.popstellar.repository.remote.LAONetworkManager.PARKING_TIMEOUT;
 import static com.github.dedis.popstellar.repository.remote.LAONetworkManager.REPROCESSING_DELAY;
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @HiltAndroidTest
@@ -401,6 +406,334 @@ public class LAONetworkManagerTest {
     networkManager.dispose();
   }
 
+  @Test
+  public void messageWaitingForItsLaoIsReleasedWhenTheLaoIsCreated()
+      throws UnknownElectionException, UnknownRollCallException, UnknownLaoException,
+          DataHandlingException, NoRollCallException, UnknownWitnessMessageException {
+    TestSchedulerProvider schedulerProvider = new TestSchedulerProvider();
+    TestScheduler testScheduler = schedulerProvider.getTestScheduler();
+    CreateLao createLao = (CreateLao) DATA;
+    MessageGeneral create = new MessageGeneral(KEY_PAIR, createLao, gson);
+    MessageGeneral waiting = waitingMessage();
+
+    // The message fails the first time as its lao is not created yet
+    doThrow(new UnknownLaoException(createLao.getId()))
+        .doNothing()
+        .when(handler)
+        .handleMessage(any(), any(), eq(waiting));
+
+    LAONetworkManager networkManager =
+        new LAONetworkManager(
+            handler,
+            connection,
+            JsonModule.provideGson(DataRegistryModuleHelper.buildRegistry()),
+            schedulerProvider,
+            new HashSet<>());
+    testScheduler.triggerActions();
+
+    messages.onNext(new Broadcast(CHANNEL, waiting));
+    testScheduler.triggerActions();
+    verify(handler).handleMessage(networkManager, CHANNEL, waiting);
+
+    // The message is handled again as soon as the lao is created, without waiting for a delay
+    messages.onNext(new Broadcast(CHANNEL, create));
+    testScheduler.triggerActions();
+    verify(handler).handleMessage(networkManager, CHANNEL, create);
+    verify(handler, times(2)).handleMessage(networkManager, CHANNEL, waiting);
+
+    networkManager.dispose();
+  }
+
+  @Test
+  public void messageWaitingForALaoThatIsNeverCreatedIsReleasedAfterTheTimeout()
+      throws UnknownElectionException, UnknownRollCallException, UnknownLaoException,
+          DataHandlingException, NoRollCallException, UnknownWitnessMessageException {
+    TestSchedulerProvider schedulerProvider = new TestSchedulerProvider();
+    TestScheduler testScheduler = schedulerProvider.getTestScheduler();
+    MessageGeneral waiting = waitingMessage();
+
+    doThrow(new UnknownLaoException(((CreateLao) DATA).getId()))
+        .when(handler)
+        .handleMessage(any(), any(), eq(waiting));
+
+    LAONetworkManager networkManager =
+        new LAONetworkManager(
+            handler,
+            connection,
+            JsonModule.provideGson(DataRegistryModuleHelper.buildRegistry()),
+            schedulerProvider,
+            new HashSet<>());
+    testScheduler.triggerActions();
+
+    messages.onNext(new Broadcast(CHANNEL, waiting));
+    testScheduler.triggerActions();
+
+    // The message stays parked until the timeout
+    testScheduler.advanceTimeBy(PARKING_TIMEOUT - REPROCESSING_DELAY, TimeUnit.SECONDS);
+    verify(handler).handleMessage(networkManager, CHANNEL, waiting);
+
+    testScheduler.advanceTimeBy(REPROCESSING_DELAY, TimeUnit.SECONDS);
+    verify(handler, times(2)).handleMessage(networkManager, CHANNEL, waiting);
+
+    networkManager.dispose();
+  }
+
+  @Test
+  public void messageWaitingForItsLaoIsReleasedByACatchupCreatingIt()
+      throws UnknownElectionException, UnknownRollCallException, UnknownLaoException,
+          DataHandlingException, NoRollCallException, UnknownWitnessMessageException {
+    TestSchedulerProvider schedulerProvider = new TestSchedulerProvider();
+    TestScheduler testScheduler = schedulerProvider.getTestScheduler();
+    CreateLao createLao = (CreateLao) DATA;
+    MessageGeneral create = new MessageGeneral(KEY_PAIR, createLao, gson);
+    MessageGeneral waiting = waitingMessage();
+
+    doThrow(new UnknownLaoException(createLao.getId()))
+        .doNothing()
+        .when(handler)
+        .handleMessage(any(), any(), eq(waiting));
+    // The catchup retrieves the creation of the lao
+    doAnswer(
+            args -> {
+              Catchup catchup = args.getArgument(0);
+              messages.onNext(
+                  new ResultMessages(catchup.getRequestId(), Collections.singletonList(create)));
+              return null;
+            })
+        .when(connection)
+        .sendMessage(any(Catchup.class));
+
+    LAONetworkManager networkManager =
+        new LAONetworkManager(
+            handler,
+            connection,
+            JsonModule.provideGson(DataRegistryModuleHelper.buildRegistry()),
+            schedulerProvider,
+            new HashSet<>());
+    testScheduler.triggerActions();
+
+    messages.onNext(new Broadcast(CHANNEL, waiting));
+    testScheduler.triggerActions();
+    verify(handler).handleMessage(networkManager, CHANNEL, waiting);
+
+    TestObserver<Void> catchup = networkManager.catchup(CHANNEL).test();
+    testScheduler.triggerActions();
+
+    catchup.assertComplete();
+    verify(handler).handleMessage(networkManager, CHANNEL, create);
+    verify(handler, times(2)).handleMessage(networkManager, CHANNEL, waiting);
+
+    networkManager.dispose();
+  }
+
+  @Test
+  public void broadcastsWithInvalidSignatureAreNotHandled()
+      throws UnknownElectionException, UnknownRollCallException, UnknownLaoException,
+          DataHandlingException, NoRollCallException, UnknownWitnessMessageException {
+    TestSchedulerProvider schedulerProvider = new TestSchedulerProvider();
+    TestScheduler testScheduler = schedulerProvider.getTestScheduler();
+
+    LAONetworkManager networkManager =
+        new LAONetworkManager(
+            handler,
+            connection,
+            JsonModule.provideGson(DataRegistryModuleHelper.buildRegistry()),
+            schedulerProvider,
+            new HashSet<>());
+
+    MessageGeneral valid = new MessageGeneral(KEY_PAIR, DATA, gson);
+    // Same message signed by another key
+    MessageGeneral invalid =
+        new MessageGeneral(
+            valid.getSender(),
+            valid.getDataEncoded(),
+            valid.getData(),
+            new MessageGeneral(Base64DataUtils.generateKeyPair(), DATA, gson).getSignature(),
+            valid.getMessageId(),
+            valid.getWitnessSignatures());
+
+    messages.onNext(new Broadcast(CHANNEL, invalid));
+    messages.onNext(new Broadcast(CHANNEL, valid));
+    testScheduler.advanceTimeBy(REPROCESSING_DELAY, TimeUnit.SECONDS);
+
+    verify(handler).handleMessage(networkManager, CHANNEL, valid);
+    verify(handler, never()).handleMessage(networkManager, CHANNEL, invalid);
+
+    networkManager.dispose();
+  }
+
+  @Test
+  public void messagesOfALaoAreHandledInOrderAndLaosConcurrently()
+      throws UnknownElectionException, UnknownRollCallException, UnknownLaoException,
+          DataHandlingException, NoRollCallException, UnknownWitnessMessageException,
+          InterruptedException {
+    TestScheduler testScheduler = new TestScheduler();
+    // The messages are handled on real threads, the rest of the processing on the test scheduler
+    SchedulerProvider schedulerProvider =
+        new SchedulerProvider() {
+          @Override
+          public Scheduler io() {
+            return Schedulers.io();
+          }
+
+          @Override
+          public Scheduler computation() {
+            return testScheduler;
+          }
+
+          @Override
+          public Scheduler newThread() {
+            return testScheduler;
+          }
+
+          @Override
+          public Scheduler mainThread() {
+            return testScheduler;
+          }
+        };
+    Channel laoA = Channel.ROOT.subChannel("laoA");
+    Channel laoB = Channel.ROOT.subChannel("laoB");
+
+    CountDownLatch laoBHandled = new CountDownLatch(1);
+    CountDownLatch allHandled = new CountDownLatch(4);
+    AtomicBoolean concurrent = new AtomicBoolean();
+    List<MessageGeneral> handledOnA = Collections.synchronizedList(new ArrayList<>());
+    doAnswer(
+            args -> {
+              Channel channel = args.getArgument(1);
+              if (channel.equals(laoB)) {
+                laoBHandled.countDown();
+              } else {
+                // The first message of lao A waits for the one of lao B, which would never be
+                // handled if both laos shared a lane
+                if (handledOnA.isEmpty()) {
+                  concurrent.set(laoBHandled.await(5, TimeUnit.SECONDS));
+                }
+                handledOnA.add(args.getArgument(2));
+              }
+              allHandled.countDown();
+              return null;
+            })
+        .when(handler)
+        .handleMessage(any(), any(), any(MessageGeneral.class));
+
+    LAONetworkManager networkManager =
+        new LAONetworkManager(
+            handler,
+            connection,
+            JsonModule.provideGson(DataRegistryModuleHelper.buildRegistry()),
+            schedulerProvider,
+            new HashSet<>());
+    // Subscribe to the received messages
+    testScheduler.triggerActions();
+
+    List<MessageGeneral> sentOnA = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Data data = new CreateLao("Lao" + i, KEY_PAIR.getPublicKey(), new ArrayList<>());
+      sentOnA.add(new MessageGeneral(KEY_PAIR, data, gson));
+    }
+    sentOnA.forEach(msg -> messages.onNext(new Broadcast(laoA, msg)));
+    messages.onNext(new Broadcast(laoB, new MessageGeneral(KEY_PAIR, DATA, gson)));
+    testScheduler.triggerActions();
+
+    assertTrue(allHandled.await(5, TimeUnit.SECONDS));
+    assertTrue(concurrent.get());
+    assertEquals(sentOnA, handledOnA);
+
+    networkManager.dispose();
+  }
+
+  @Test
+  public void broadcastsOfALaoWaitForItsCatchupToBeHandled()
+      throws UnknownElectionException, UnknownRollCallException, UnknownLaoException,
+          DataHandlingException, NoRollCallException, UnknownWitnessMessageException,
+          InterruptedException {
+    TestScheduler testScheduler = new TestScheduler();
+    // The messages are handled on real threads, the rest of the processing on the test scheduler
+    SchedulerProvider schedulerProvider =
+        new SchedulerProvider() {
+          @Override
+          public Scheduler io() {
+            return Schedulers.io();
+          }
+
+          @Override
+          public Scheduler computation() {
+            return testScheduler;
+          }
+
+          @Override
+          public Scheduler newThread() {
+            return testScheduler;
+          }
+
+          @Override
+          public Scheduler mainThread() {
+            return testScheduler;
+          }
+        };
+    Channel lao = Channel.ROOT.subChannel("lao");
+    MessageGeneral caughtUp = new MessageGeneral(KEY_PAIR, DATA, gson);
+    MessageGeneral broadcast =
+        new MessageGeneral(
+            KEY_PAIR, new CreateLao("Lao", KEY_PAIR.getPublicKey(), new ArrayList<>()), gson);
+
+    CountDownLatch catchupStarted = new CountDownLatch(1);
+    CountDownLatch broadcastHandled = new CountDownLatch(1);
+    AtomicBoolean concurrent = new AtomicBoolean();
+    doAnswer(
+            args -> {
+              if (caughtUp.equals(args.getArgument(2))) {
+                catchupStarted.countDown();
+                // The broadcast would be handled meanwhile if the catchup did not hold the lane
+                concurrent.set(broadcastHandled.await(500, TimeUnit.MILLISECONDS));
+              } else {
+                broadcastHandled.countDown();
+              }
+              return null;
+            })
+        .when(handler)
+        .handleMessage(any(), any(), any(MessageGeneral.class));
+    doAnswer(
+            args -> {
+              Catchup catchup = args.getArgument(0);
+              messages.onNext(
+                  new ResultMessages(catchup.getRequestId(), Collections.singletonList(caughtUp)));
+              return null;
+            })
+        .when(connection)
+        .sendMessage(any(Catchup.class));
+
+    LAONetworkManager networkManager =
+        new LAONetworkManager(
+            handler,
+            connection,
+            JsonModule.provideGson(DataRegistryModuleHelper.buildRegistry()),
+            schedulerProvider,
+            new HashSet<>());
+    testScheduler.triggerActions();
+
+    TestObserver<Void> catchup = networkManager.catchup(lao).test();
+    // The processing of the catchup alternates between the io threads and the test scheduler
+    for (int i = 0; i < 500 && !catchupStarted.await(10, TimeUnit.MILLISECONDS); i++) {
+      testScheduler.triggerActions();
+    }
+    assertEquals(0, catchupStarted.getCount());
+
+    messages.onNext(new Broadcast(lao, broadcast));
+    testScheduler.triggerActions();
+
+    assertTrue(broadcastHandled.await(5, TimeUnit.SECONDS));
+    assertFalse(concurrent.get());
+    for (int i = 0; i < 500 && !catchup.isTerminated(); i++) {
+      testScheduler.triggerActions();
+      Thread.sleep(10);
+    }
+    catchup.assertComplete();
+
+    networkManager.dispose();
+  }
+
   @Test
   public void testExtendConnection() {
     TestSchedulerProvider schedulerProvider = new TestSchedulerProvider();
@@ -449,4 +782,10 @@ public class LAONetworkManagerTest {
     verify(connection, times(2)).observeConnectionEvents();
     verify(connection).close();
   }
+
+  /** A message of the lao that is handled before the lao is created */
+  private MessageGeneral waitingMessage() {
+    return new MessageGeneral(
+        KEY_PAIR, new CreateLao("Waiting", KEY_PAIR.getPublicKey(), new ArrayList<>()), gson);
+  }
 }
@@ -0,0 +1,125 @@
+package com.github.dedis.popstellar.repository.remote;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.github.dedis.popstellar.di.DataRegistryModuleHelper;
+import com.github.dedis.popstellar.di.JsonModule;
+import com.github.dedis.popstellar.model.network.method.Broadcast;
+import com.github.dedis.popstellar.model.network.method.message.MessageGeneral;
+import com.github.dedis.popstellar.model.network.method.message.data.lao.CreateLao;
+import com.github.dedis.popstellar.model.objects.Channel;
+import com.github.dedis.popstellar.model.objects.Lao;
+import com.github.dedis.popstellar.model.objects.security.KeyPair;
+import com.github.dedis.popstellar.model.objects.security.PublicKey;
+import com.google.gson.Gson;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.schedulers.Schedulers;
+
+import static com.github.dedis.popstellar.testutils.Base64DataUtils.generateKeyPair;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(AndroidJUnit4.class)
+public class MessageVerifierTest {
+
+  private static final Gson GSON = JsonModule.provideGson(DataRegistryModuleHelper.buildRegistry());
+  private static final KeyPair KEY_PAIR = generateKeyPair();
+  private static final Channel CHANNEL = Channel.ROOT.subChannel("lao");
+
+  private final MessageVerifier verifier = new MessageVerifier(Schedulers.computation(), 4);
+
+  @Test
+  public void verifyAllKeepsValidMessagesInOrder() {
+    List<MessageGeneral> messages = createMessages(3 * MessageVerifier.BATCH_SIZE + 5);
+
+    assertEquals(messages, verifier.verifyAll(messages).blockingGet());
+  }
+
+  @Test
+  public void verifyAllDropsInvalidMessages() {
+    List<MessageGeneral> messages = createMessages(2 * MessageVerifier.BATCH_SIZE);
+    List<MessageGeneral> expected = new ArrayList<>(messages);
+
+    // Tamper with a message of each batch
+    messages.set(3, tamper(messages.get(3)));
+    int second = MessageVerifier.BATCH_SIZE + 7;
+    messages.set(second, tamper(messages.get(second)));
+    expected.remove(second);
+    expected.remove(3);
+
+    assertEquals(expected, verifier.verifyAll(messages).blockingGet());
+  }
+
+  @Test
+  public void verifyAllOfEmptyListIsEmpty() {
+    assertEquals(Collections.emptyList(), verifier.verifyAll(new ArrayList<>()).blockingGet());
+  }
+
+  @Test
+  public void verifyBroadcastsDropsInvalidBroadcastsAndKeepsOrder() {
+    List<MessageGeneral> messages = createMessages(20);
+    List<Broadcast> broadcasts = new ArrayList<>();
+    List<Broadcast> expected = new ArrayList<>();
+    for (int i = 0; i < messages.size(); i++) {
+      MessageGeneral message = i % 5 == 0 ? tamper(messages.get(i)) : messages.get(i);
+      Broadcast broadcast = new Broadcast(CHANNEL, message);
+      broadcasts.add(broadcast);
+      if (i % 5 != 0) {
+        expected.add(broadcast);
+      }
+    }
+
+    Observable.fromIterable(broadcasts)
+        .compose(verifier.verifyBroadcasts())
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertValueSequence(expected)
+        .assertComplete();
+  }
+
+  private static List<MessageGeneral> createMessages(int count) {
+    List<MessageGeneral> messages = new ArrayList<>(count);
+    PublicKey organizer = KEY_PAIR.getPublicKey();
+    long creation = Instant.now().getEpochSecond();
+    for (int i = 0; i < count; i++) {
+      String name = "LAO " + i;
+      CreateLao data =
+          new CreateLao(
+              Lao.generateLaoId(organizer, creation, name),
+              name,
+              creation,
+              organizer,
+              new ArrayList<>());
+      messages.add(new MessageGeneral(KEY_PAIR, data, GSON));
+    }
+    return messages;
+  }
+
+  /** Build a copy of the message whose signature is the one of another content */
+  private static MessageGeneral tamper(MessageGeneral message) {
+    PublicKey organizer = KEY_PAIR.getPublicKey();
+    long creation = Instant.now().getEpochSecond();
+    CreateLao otherData =
+        new CreateLao(
+            Lao.generateLaoId(organizer, creation, "Other"),
+            "Other",
+            creation,
+            organizer,
+            new ArrayList<>());
+    MessageGeneral other = new MessageGeneral(KEY_PAIR, otherData, GSON);
+    return new MessageGeneral(
+        message.getSender(),
+        message.getDataEncoded(),
+        message.getData(),
+        other.getSignature(),
+        message.getMessageId(),
+        message.getWitnessSignatures());
+  }
+}
@@ -0,0 +1,97 @@
+package com.github.dedis.popstellar.repository.remote;
+
+import com.github.dedis.popstellar.model.network.method.Broadcast;
+import com.github.dedis.popstellar.model.network.method.message.MessageGeneral;
+import com.github.dedis.popstellar.model.network.method.message.data.Data;
+import com.github.dedis.popstellar.model.network.method.message.data.rollcall.CloseRollCall;
+import com.github.dedis.popstellar.model.objects.Channel;
+import com.github.dedis.popstellar.repository.remote.ParkingLot.Key;
+import com.github.dedis.popstellar.repository.remote.ParkingLot.Kind;
+import com.github.dedis.popstellar.utility.error.*;
+import com.github.dedis.popstellar.utility.error.keys.NoRollCallException;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static com.github.dedis.popstellar.testutils.Base64DataUtils.generateMessageID;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class ParkingLotTest {
+
+  private static final String LAO_ID = "lao";
+  private static final Channel CHANNEL = Channel.getLaoChannel(LAO_ID);
+
+  @Test
+  public void keyNamesTheMissingEntity() {
+    assertEquals(new Key(Kind.LAO, LAO_ID), ParkingLot.keyOf(new UnknownLaoException(LAO_ID)));
+    assertEquals(
+        new Key(Kind.ROLL_CALL, "rc"), ParkingLot.keyOf(new UnknownRollCallException("rc")));
+    assertEquals(
+        new Key(Kind.CLOSED_ROLL_CALL, LAO_ID),
+        ParkingLot.keyOf(new NoRollCallException(LAO_ID)));
+    assertEquals(
+        new Key(Kind.ELECTION, "election"),
+        ParkingLot.keyOf(new UnknownElectionException("election")));
+    // Errors without an entity are reprocessed after a delay instead
+    assertNull(ParkingLot.keyOf(new UnknownLaoException()));
+    assertNull(ParkingLot.keyOf(new InvalidDataException(mock(Data.class), "id", "0")));
+  }
+
+  @Test
+  public void closedRollCallReleasesTheMessagesWaitingForIt() {
+    ParkingLot parkingLot = new ParkingLot();
+    CloseRollCall close = new CloseRollCall(LAO_ID, "opens", 1, Collections.emptyList());
+    Broadcast waitingForUpdate = broadcast(mock(Data.class));
+    Broadcast waitingForAttendees = broadcast(mock(Data.class));
+    Broadcast waitingForElection = broadcast(mock(Data.class));
+    parkingLot.park(new Key(Kind.ROLL_CALL, close.getUpdateId()), waitingForUpdate, 0);
+    parkingLot.park(new Key(Kind.CLOSED_ROLL_CALL, LAO_ID), waitingForAttendees, 0);
+    parkingLot.park(new Key(Kind.ELECTION, "election"), waitingForElection, 0);
+
+    List<Broadcast> released = parkingLot.release(ParkingLot.createdBy(broadcast(close)));
+
+    assertEquals(
+        new HashSet<>(Arrays.asList(waitingForUpdate, waitingForAttendees)),
+        new HashSet<>(released));
+    assertEquals(1, parkingLot.size());
+  }
+
+  @Test
+  public void messagesAreReleasedAfterTheTimeout() {
+    ParkingLot parkingLot = new ParkingLot();
+    Broadcast old = broadcast(mock(Data.class));
+    Broadcast recent = broadcast(mock(Data.class));
+    parkingLot.park(new Key(Kind.LAO, LAO_ID), old, 0);
+    parkingLot.park(new Key(Kind.LAO, LAO_ID), recent, 10);
+
+    assertEquals(Collections.singletonList(old), parkingLot.expire(15, 10));
+    assertEquals(1, parkingLot.size());
+    assertEquals(Collections.singletonList(recent), parkingLot.expire(20, 10));
+    assertEquals(0, parkingLot.size());
+  }
+
+  @Test
+  public void fullLotDropsTheOldestMessage() {
+    ParkingLot parkingLot = new ParkingLot(2);
+    Broadcast oldest = broadcast(mock(Data.class));
+    Broadcast old = broadcast(mock(Data.class));
+    Broadcast recent = broadcast(mock(Data.class));
+    assertNull(parkingLot.park(new Key(Kind.ELECTION, "election"), oldest, 0));
+    assertNull(parkingLot.park(new Key(Kind.LAO, LAO_ID), old, 5));
+
+    assertEquals(oldest, parkingLot.park(new Key(Kind.LAO, LAO_ID), recent, 10));
+    assertEquals(2, parkingLot.size());
+    assertEquals(
+        Arrays.asList(old, recent),
+        parkingLot.release(Collections.singletonList(new Key(Kind.LAO, LAO_ID))));
+    assertEquals(0, parkingLot.size());
+  }
+
+  private static Broadcast broadcast(Data data) {
+    return new Broadcast(
+        CHANNEL,
+        new MessageGeneral(null, null, data, null, generateMessageID(), Collections.emptyList()));
+  }
+}
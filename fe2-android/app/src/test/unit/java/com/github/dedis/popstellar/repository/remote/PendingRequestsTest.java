@@ -0,0 +1,61 @@
+package com.github.dedis.popstellar.repository.remote;
+
+import com.github.dedis.popstellar.model.network.answer.Answer;
+import com.github.dedis.popstellar.model.network.answer.Result;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.observers.TestObserver;
+
+import static org.junit.Assert.*;
+
+public class PendingRequestsTest {
+
+  @Test
+  public void answerIsRoutedToItsRequest() {
+    PendingRequests pendingRequests = new PendingRequests();
+    AtomicInteger sent = new AtomicInteger();
+
+    TestObserver<Answer> request1 = pendingRequests.register(1, sent::incrementAndGet).test();
+    TestObserver<Answer> request2 = pendingRequests.register(2, sent::incrementAndGet).test();
+    assertEquals(2, sent.get());
+    assertEquals(2, pendingRequests.size());
+
+    Result answer = new Result(2);
+    assertTrue(pendingRequests.complete(answer));
+
+    request1.assertNoValues();
+    request2.assertValue(answer);
+    assertEquals(1, pendingRequests.size());
+  }
+
+  @Test
+  public void answerToUnknownRequestIsIgnored() {
+    PendingRequests pendingRequests = new PendingRequests();
+    TestObserver<Answer> request = pendingRequests.register(1, () -> {}).test();
+
+    assertFalse(pendingRequests.complete(new Result(3)));
+    request.assertNoValues();
+  }
+
+  @Test
+  public void disposedRequestIsRemoved() {
+    PendingRequests pendingRequests = new PendingRequests();
+    TestObserver<Answer> request = pendingRequests.register(1, () -> {}).test();
+
+    request.dispose();
+
+    assertEquals(0, pendingRequests.size());
+    assertFalse(pendingRequests.complete(new Result(1)));
+  }
+
+  @Test
+  public void answerReceivedWhileSendingIsNotMissed() {
+    PendingRequests pendingRequests = new PendingRequests();
+    Result answer = new Result(1);
+
+    pendingRequests.register(1, () -> pendingRequests.complete(answer)).test().assertValue(answer);
+  }
+}
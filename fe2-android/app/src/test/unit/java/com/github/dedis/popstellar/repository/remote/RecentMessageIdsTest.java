@@ -0,0 +1,52 @@
+package com.github.dedis.popstellar.repository.remote;
+
+import com.github.dedis.popstellar.model.objects.security.MessageID;
+
+import org.junit.Test;
+
+import static com.github.dedis.popstellar.testutils.Base64DataUtils.generateMessageID;
+import static com.github.dedis.popstellar.testutils.Base64DataUtils.generateMessageIDOtherThan;
+import static org.junit.Assert.*;
+
+public class RecentMessageIdsTest {
+
+  private static final long WINDOW = 100;
+
+  private static final MessageID ID_1 = generateMessageID();
+  private static final MessageID ID_2 = generateMessageIDOtherThan(ID_1);
+
+  @Test
+  public void copyWithinTheWindowIsDropped() {
+    RecentMessageIds ids = new RecentMessageIds(10, WINDOW);
+
+    assertTrue(ids.add(ID_1, 0));
+    assertFalse(ids.add(ID_1, WINDOW));
+    assertTrue(ids.add(ID_2, WINDOW));
+    assertEquals(2, ids.size());
+  }
+
+  @Test
+  public void idIsForgottenAfterTheWindow() {
+    RecentMessageIds ids = new RecentMessageIds(10, WINDOW);
+
+    assertTrue(ids.add(ID_1, 0));
+    assertTrue(ids.add(ID_1, WINDOW + 1));
+    assertEquals(1, ids.size());
+  }
+
+  @Test
+  public void oldestIdIsForgottenWhenTheSetIsFull() {
+    RecentMessageIds ids = new RecentMessageIds(2, WINDOW);
+    MessageID id3 = generateMessageID();
+
+    assertTrue(ids.add(ID_1, 0));
+    assertTrue(ids.add(ID_2, 1));
+    assertTrue(ids.add(id3, 2));
+    assertEquals(2, ids.size());
+
+    // The most recent ids are still known, the oldest one was evicted
+    assertFalse(ids.add(ID_2, 3));
+    assertFalse(ids.add(id3, 3));
+    assertTrue(ids.add(ID_1, 3));
+  }
+}
@@ -0,0 +1,93 @@
+package com.github.dedis.popstellar.repository.remote;
+
+import com.github.dedis.popstellar.model.objects.Channel;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import io.reactivex.Completable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.CompletableSubject;
+
+import static com.github.dedis.popstellar.repository.remote.ResubscriptionScheduler.MAX_CONCURRENT_SUBSCRIPTIONS;
+import static org.junit.Assert.*;
+
+public class ResubscriptionSchedulerTest {
+
+  private static final Channel LAO = Channel.getLaoChannel("lao");
+  private static final Channel ELECTION = LAO.subChannel("election");
+  private static final Channel COIN = LAO.subChannel("coin");
+  private static final Channel SOCIAL = LAO.subChannel("social").subChannel("reactions");
+
+  @Test
+  public void channelsAreSubscribedByPriority() {
+    ResubscriptionScheduler scheduler = new ResubscriptionScheduler();
+    List<Channel> subscribed = new ArrayList<>();
+
+    scheduler
+        .resubscribe(
+            Arrays.asList(SOCIAL, COIN, ELECTION, LAO),
+            channel -> Completable.fromAction(() -> subscribed.add(channel)))
+        .test()
+        .assertComplete();
+
+    assertEquals(LAO, subscribed.get(0));
+    assertEquals(ELECTION, subscribed.get(1));
+    assertEquals(
+        new HashSet<>(Arrays.asList(SOCIAL, COIN)), new HashSet<>(subscribed.subList(2, 4)));
+  }
+
+  @Test
+  public void concurrentSubscriptionsAreBounded() {
+    ResubscriptionScheduler scheduler = new ResubscriptionScheduler();
+    List<Channel> channels = new ArrayList<>();
+    for (int i = 0; i < 2 * MAX_CONCURRENT_SUBSCRIPTIONS; i++) {
+      channels.add(LAO.subChannel("election" + i));
+    }
+    Map<Channel, CompletableSubject> pending = new LinkedHashMap<>();
+
+    TestObserver<Void> observer =
+        scheduler
+            .resubscribe(
+                channels,
+                channel -> {
+                  CompletableSubject subject = CompletableSubject.create();
+                  pending.put(channel, subject);
+                  return subject;
+                })
+            .test();
+
+    assertEquals(MAX_CONCURRENT_SUBSCRIPTIONS, pending.size());
+    // Each completed subscription lets the next channel be subscribed to
+    pending.values().iterator().next().onComplete();
+    assertEquals(MAX_CONCURRENT_SUBSCRIPTIONS + 1, pending.size());
+
+    new ArrayList<>(pending.values()).forEach(CompletableSubject::onComplete);
+    new ArrayList<>(pending.values()).forEach(CompletableSubject::onComplete);
+    observer.assertComplete();
+  }
+
+  @Test
+  public void failedSubscriptionDoesNotStopTheOthers() {
+    ResubscriptionScheduler scheduler = new ResubscriptionScheduler();
+    TestObserver<ResubscriptionScheduler.Progress> progress =
+        scheduler.observeProgress().test();
+
+    scheduler
+        .resubscribe(
+            Arrays.asList(LAO, ELECTION, COIN),
+            channel ->
+                channel.equals(ELECTION)
+                    ? Completable.error(new IllegalStateException("timeout"))
+                    : Completable.complete())
+        .test()
+        .assertComplete();
+
+    ResubscriptionScheduler.Progress last = progress.values().get(progress.valueCount() - 1);
+    assertEquals(2, last.getCompleted());
+    assertEquals(1, last.getFailed());
+    assertEquals(3, last.getTotal());
+    assertTrue(last.isDone());
+  }
+}
@@ -0,0 +1,99 @@
+package com.github.dedis.popstellar.utility;
+
+import com.github.dedis.popstellar.utility.ChangeStream.Change;
+import com.github.dedis.popstellar.utility.ChangeStream.Type;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import io.reactivex.observers.TestObserver;
+
+import static org.junit.Assert.*;
+
+public class ChangeStreamTest {
+
+  @Test
+  public void subscriberReceivesSnapshotThenChanges() {
+    ChangeStream<String, Integer> stream = new ChangeStream<>();
+    stream.put("a", 1);
+    stream.put("b", 2);
+
+    TestObserver<List<Change<String, Integer>>> changes = stream.observe().test();
+    stream.put("a", 3);
+    stream.remove("b");
+
+    changes.assertValueCount(3);
+    List<Change<String, Integer>> snapshot = changes.values().get(0);
+    assertEquals(2, snapshot.size());
+    assertEquals(Type.ADD, snapshot.get(0).getType());
+    assertEquals("a", snapshot.get(0).getKey());
+    assertEquals("b", snapshot.get(1).getKey());
+
+    Change<String, Integer> update = changes.values().get(1).get(0);
+    assertEquals(Type.UPDATE, update.getType());
+    assertEquals(Integer.valueOf(3), update.getValue());
+    assertEquals(3, update.getSequence());
+
+    Change<String, Integer> delete = changes.values().get(2).get(0);
+    assertEquals(Type.DELETE, delete.getType());
+    assertEquals(Integer.valueOf(2), delete.getValue());
+    assertEquals(4, delete.getSequence());
+  }
+
+  @Test
+  public void emptyStreamEmitsEmptySnapshot() {
+    ChangeStream<String, Integer> stream = new ChangeStream<>();
+
+    stream.observe().test().assertValue(Collections.emptyList());
+    assertTrue(stream.isEmpty());
+  }
+
+  @Test
+  public void removingUnknownKeyPublishesNothing() {
+    ChangeStream<String, Integer> stream = new ChangeStream<>();
+    TestObserver<List<Change<String, Integer>>> changes = stream.observe().test();
+
+    assertFalse(stream.remove("a"));
+    changes.assertValueCount(1);
+  }
+
+  @Test
+  public void observeValuesFollowsModifications() {
+    ChangeStream<String, Integer> stream = new ChangeStream<>();
+    TestObserver<List<Integer>> values = stream.observeValues().test();
+
+    stream.put("a", 1);
+    stream.put("b", 2);
+    stream.remove("a");
+
+    values.assertValues(
+        Collections.emptyList(),
+        Collections.singletonList(1),
+        Arrays.asList(1, 2),
+        Collections.singletonList(2));
+  }
+
+  @Test
+  public void changeMadeByASubscriberIsEmittedAfterTheCurrentOne() {
+    ChangeStream<String, Integer> stream = new ChangeStream<>();
+    // The first subscriber reacts to a change by modifying the stream
+    stream
+        .observe()
+        .subscribe(
+            batch -> {
+              if (!batch.isEmpty() && batch.get(0).getKey().equals("a")) {
+                stream.put("b", 2);
+              }
+            });
+    TestObserver<List<Change<String, Integer>>> changes = stream.observe().test();
+
+    stream.put("a", 1);
+
+    // Every subscriber receives the changes in their order
+    changes.assertValueCount(3);
+    assertEquals("a", changes.values().get(1).get(0).getKey());
+    assertEquals("b", changes.values().get(2).get(0).getKey());
+    assertEquals(2, changes.values().get(2).get(0).getSequence());
+  }
+}
@@ -0,0 +1,31 @@
+package com.github.dedis.popstellar.utility;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class LazyTest {
+
+  @Test
+  public void valueIsComputedOnFirstUseOnly() {
+    Lazy<String> lazy = new Lazy<>();
+    AtomicInteger computations = new AtomicInteger();
+
+    String first =
+        lazy.get(
+            "value",
+            source -> {
+              computations.incrementAndGet();
+              return new String(source);
+            });
+    String second = lazy.get("other", String::toUpperCase);
+
+    assertEquals("value", first);
+    // The kept value is returned, the second computation is never run
+    assertSame(first, second);
+    assertEquals(1, computations.get());
+  }
+}
@@ -0,0 +1,96 @@
+package com.github.dedis.popstellar.utility;
+
+import com.github.dedis.popstellar.utility.Timeline.Event;
+import com.github.dedis.popstellar.utility.Timeline.Type;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import io.reactivex.observers.TestObserver;
+
+import static org.junit.Assert.*;
+
+public class TimelineTest {
+
+  @Test
+  public void eventsGiveThePositionsInTheOrder() {
+    Timeline<String, Integer> timeline = new Timeline<>(Comparator.<Integer>naturalOrder());
+    timeline.put("b", 20);
+    timeline.put("a", 10);
+
+    TestObserver<List<Event<Integer>>> events = timeline.observe().test();
+    timeline.put("c", 15);
+    timeline.put("a", 30);
+    timeline.put("c", 15);
+    timeline.remove("b");
+
+    events.assertValueCount(5);
+    List<Event<Integer>> snapshot = events.values().get(0);
+    assertEquals(Arrays.asList(10, 20), Arrays.asList(value(snapshot, 0), value(snapshot, 1)));
+    assertEquals(1, snapshot.get(1).getPosition());
+
+    assertEvent(events.values().get(1).get(0), Type.INSERT, 1, 15);
+    // Moving a value removes it from its old position before inserting it at the new one
+    assertEvent(events.values().get(2).get(0), Type.REMOVE, 0, 10);
+    assertEvent(events.values().get(2).get(1), Type.INSERT, 2, 30);
+    assertEvent(events.values().get(3).get(0), Type.CHANGE, 0, 15);
+    assertEvent(events.values().get(4).get(0), Type.REMOVE, 1, 20);
+
+    assertEquals(Arrays.asList(15, 30), timeline.values());
+  }
+
+  @Test
+  public void timelineMatchesASortedList() {
+    Timeline<Integer, Integer> timeline = new Timeline<>(Comparator.<Integer>reverseOrder());
+    List<Integer> replayed = new ArrayList<>();
+    timeline.observe().subscribe(batch -> batch.forEach(event -> apply(replayed, event)));
+
+    Random random = new Random(42);
+    TreeSet<Integer> expected = new TreeSet<>(Comparator.reverseOrder());
+    for (int i = 0; i < 5000; i++) {
+      int value = random.nextInt(2000);
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(value), timeline.remove(value));
+      } else {
+        expected.add(value);
+        timeline.put(value, value);
+      }
+    }
+
+    List<Integer> sorted = new ArrayList<>(expected);
+    assertEquals(sorted, timeline.values());
+    assertEquals(sorted, replayed);
+    assertEquals(sorted.size(), timeline.size());
+    for (int position = 0; position < sorted.size(); position += 7) {
+      assertEquals(sorted.get(position), timeline.getAt(position));
+      assertEquals(position, timeline.indexOf(sorted.get(position)));
+    }
+    assertEquals(-1, timeline.indexOf(-1));
+    assertThrows(IndexOutOfBoundsException.class, () -> timeline.getAt(sorted.size()));
+  }
+
+  private static Integer value(List<Event<Integer>> events, int index) {
+    return events.get(index).getValue();
+  }
+
+  private static void assertEvent(Event<Integer> event, Type type, int position, int value) {
+    assertEquals(type, event.getType());
+    assertEquals(position, event.getPosition());
+    assertEquals(Integer.valueOf(value), event.getValue());
+  }
+
+  private static void apply(List<Integer> list, Event<Integer> event) {
+    switch (event.getType()) {
+      case INSERT:
+        list.add(event.getPosition(), event.getValue());
+        break;
+      case REMOVE:
+        list.remove(event.getPosition());
+        break;
+      case CHANGE:
+        list.set(event.getPosition(), event.getValue());
+        break;
+    }
+  }
+}
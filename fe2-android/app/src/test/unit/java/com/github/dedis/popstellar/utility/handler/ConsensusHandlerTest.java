@@ -17,8 +17,7 @@ import com.github.dedis.popstellar.model.objects.security.*;
 import com.github.dedis.popstellar.repository.LAORepository;
 import com.github.dedis.popstellar.repository.MessageRepository;
 import com.github.dedis.popstellar.repository.database.AppDatabase;
-import com.github.dedis.popstellar.repository.database.lao.LAODao;
-import com.github.dedis.popstellar.repository.database.lao.LAOEntity;
+import com.github.dedis.popstellar.repository.database.lao.*;
 import com.github.dedis.popstellar.repository.database.message.MessageDao;
 import com.github.dedis.popstellar.repository.database.message.MessageEntity;
 import com.github.dedis.popstellar.repository.remote.MessageSender;
@@ -30,8 +29,7 @@ import com.google.gson.Gson;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.Mock;
-import org.mockito.MockitoAnnotations;
+import org.mockito.*;
 import org.mockito.internal.util.collections.Sets;
 
 import java.io.IOException;
@@ -89,9 +87,11 @@ public class ConsensusHandlerTest {
 
   @Mock AppDatabase appDatabase;
   @Mock LAODao laoDao;
+  @Mock ElectInstanceDao electInstanceDao;
   @Mock MessageDao messageDao;
   @Mock MessageSender messageSender;
   @Mock KeyManager keyManager;
+  @Captor ArgumentCaptor<List<ElectInstanceEntity>> electInstancesCaptor;
 
   @Before
   public void setup()
@@ -110,9 +110,14 @@ public class ConsensusHandlerTest {
     when(laoDao.getAllLaos()).thenReturn(Single.just(new ArrayList<>()));
     when(laoDao.insert(any(LAOEntity.class))).thenReturn(Completable.complete());
 
+    when(appDatabase.electInstanceDao()).thenReturn(electInstanceDao);
+    when(electInstanceDao.insertAll(any())).thenReturn(Completable.complete());
+
     when(appDatabase.messageDao()).thenReturn(messageDao);
     when(messageDao.takeFirstNMessages(anyInt())).thenReturn(Single.just(new ArrayList<>()));
+    when(messageDao.getAllMessageIds()).thenReturn(Single.just(new ArrayList<>()));
     when(messageDao.insert(any(MessageEntity.class))).thenReturn(Completable.complete());
+    when(messageDao.insertAll(any())).thenReturn(Completable.complete());
     when(messageDao.getMessageById(any(MessageID.class))).thenReturn(null);
 
     laoRepo = new LAORepository(appDatabase, application);
@@ -278,6 +283,29 @@ public class ConsensusHandlerTest {
     assertEquals(ACCEPTED, electInstance.getState());
   }
 
+  @Test
+  public void consensusMessagesOnlyPersistTheirElectInstance()
+      throws DataHandlingException, UnknownLaoException, UnknownRollCallException,
+          UnknownElectionException, NoRollCallException, UnknownWitnessMessageException {
+    clearInvocations(laoDao);
+    ConsensusElectAccept electAccept = new ConsensusElectAccept(INSTANCE_ID, messageId, true);
+
+    messageHandler.handleMessage(messageSender, CONSENSUS_CHANNEL, electMsg);
+    messageHandler.handleMessage(messageSender, CONSENSUS_CHANNEL, getMsg(NODE_3_KEY, electAccept));
+
+    // The lao is not written again, the instance is written in the background
+    verify(electInstanceDao, timeout(5000)).insertAll(electInstancesCaptor.capture());
+    verify(laoDao, never()).insert(any(LAOEntity.class));
+
+    List<ElectInstanceEntity> entities = electInstancesCaptor.getValue();
+    assertEquals(1, entities.size());
+    assertEquals(messageId, entities.get(0).getMessageId());
+    assertEquals(LAO_ID, entities.get(0).getLaoId());
+    assertEquals(
+        Collections.singleton(NODE_3),
+        entities.get(0).getElectInstance().getAcceptorsToMessageId().keySet());
+  }
+
   @Test
   public void handleConsensusWithInvalidMessageIdTest() {
     // When an invalid instance id is used in handler for elect_accept and learn,
@@ -20,8 +20,7 @@ import com.github.dedis.popstellar.model.objects.security.elGamal.ElectionKeyPai
 import com.github.dedis.popstellar.model.objects.security.elGamal.ElectionPublicKey;
 import com.github.dedis.popstellar.repository.*;
 import com.github.dedis.popstellar.repository.database.AppDatabase;
-import com.github.dedis.popstellar.repository.database.event.election.ElectionDao;
-import com.github.dedis.popstellar.repository.database.event.election.ElectionEntity;
+import com.github.dedis.popstellar.repository.database.event.election.*;
 import com.github.dedis.popstellar.repository.database.lao.LAODao;
 import com.github.dedis.popstellar.repository.database.lao.LAOEntity;
 import com.github.dedis.popstellar.repository.database.message.MessageDao;
@@ -52,6 +51,7 @@ import io.reactivex.Single;
 import static com.github.dedis.popstellar.testutils.Base64DataUtils.generateKeyPair;
 import static com.github.dedis.popstellar.testutils.Base64DataUtils.generateRandomBase64String;
 import static com.github.dedis.popstellar.utility.handler.data.ElectionHandler.electionSetupWitnessMessage;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -114,6 +114,7 @@ public class ElectionHandlerTest {
   @Mock LAODao laoDao;
   @Mock MessageDao messageDao;
   @Mock ElectionDao electionDao;
+  @Mock VoteDao voteDao;
   @Mock WitnessingDao witnessingDao;
   @Mock WitnessDao witnessDao;
   @Mock PendingDao pendingDao;
@@ -138,13 +139,20 @@ public class ElectionHandlerTest {
 
     when(appDatabase.messageDao()).thenReturn(messageDao);
     when(messageDao.takeFirstNMessages(anyInt())).thenReturn(Single.just(new ArrayList<>()));
+    when(messageDao.getAllMessageIds()).thenReturn(Single.just(new ArrayList<>()));
     when(messageDao.insert(any(MessageEntity.class))).thenReturn(Completable.complete());
+    when(messageDao.insertAll(any())).thenReturn(Completable.complete());
     when(messageDao.getMessageById(any(MessageID.class))).thenReturn(null);
 
     when(appDatabase.electionDao()).thenReturn(electionDao);
     when(electionDao.insert(any(ElectionEntity.class))).thenReturn(Completable.complete());
+    when(electionDao.insertAll(any())).thenReturn(Completable.complete());
     when(electionDao.getElectionsByLaoId(anyString())).thenReturn(Single.just(new ArrayList<>()));
 
+    when(appDatabase.voteDao()).thenReturn(voteDao);
+    when(voteDao.insertAll(any())).thenReturn(Completable.complete());
+    when(voteDao.getVotesByLaoId(anyString())).thenReturn(Single.just(new ArrayList<>()));
+
     when(appDatabase.witnessDao()).thenReturn(witnessDao);
     when(witnessDao.getWitnessesByLao(anyString())).thenReturn(Single.just(new ArrayList<>()));
     when(witnessDao.insertAll(any())).thenReturn(Completable.complete());
@@ -154,6 +162,7 @@ public class ElectionHandlerTest {
     when(witnessingDao.getWitnessMessagesByLao(anyString()))
         .thenReturn(Single.just(new ArrayList<>()));
     when(witnessingDao.insert(any(WitnessingEntity.class))).thenReturn(Completable.complete());
+    when(witnessingDao.insertAll(any())).thenReturn(Completable.complete());
     when(witnessingDao.deleteMessagesByIds(anyString(), any())).thenReturn(Completable.complete());
 
     when(appDatabase.pendingDao()).thenReturn(pendingDao);
@@ -251,8 +260,8 @@ public class ElectionHandlerTest {
   private void handleElectionEnd()
       throws UnknownElectionException, UnknownRollCallException, UnknownLaoException,
           DataHandlingException, NoRollCallException, UnknownWitnessMessageException {
-    // Retrieve current election to use the correct vote hash
-    Election current = electionRepo.getElection(LAO.getId(), ELECTION_ID);
+    // Retrieve current votes to use the correct vote hash
+    ElectionVotes current = electionRepo.getElectionVotes(LAO.getId(), ELECTION_ID);
     ElectionEnd endElection =
         new ElectionEnd(LAO.getId(), ELECTION_ID, current.computeRegisteredVotesHash());
 
@@ -403,9 +412,9 @@ public class ElectionHandlerTest {
 
     // The expected hash is made on the sorted vote ids
     String[] voteIds = Stream.of(VOTE1, VOTE2).map(Vote::getId).sorted().toArray(String[]::new);
-    Election election = electionRepo.getElectionByChannel(OPEN_BALLOT_ELECTION.getChannel());
+    ElectionVotes votes = electionRepo.getElectionVotes(LAO.getId(), ELECTION_ID);
 
-    assertEquals(Hash.hash(voteIds), election.computeRegisteredVotesHash());
+    assertEquals(Hash.hash(voteIds), votes.computeRegisteredVotesHash());
   }
 
   @Test
@@ -424,9 +433,9 @@ public class ElectionHandlerTest {
 
     // The expected hash is made on the sorted vote ids (check that vote2 was discarded)
     String[] voteIds = Stream.of(VOTE1, VOTE3).map(Vote::getId).sorted().toArray(String[]::new);
-    Election election = electionRepo.getElectionByChannel(OPEN_BALLOT_ELECTION.getChannel());
+    ElectionVotes votes = electionRepo.getElectionVotes(LAO.getId(), ELECTION_ID);
 
-    assertEquals(Hash.hash(voteIds), election.computeRegisteredVotesHash());
+    assertEquals(Hash.hash(voteIds), votes.computeRegisteredVotesHash());
   }
 
   @Test
@@ -445,9 +454,9 @@ public class ElectionHandlerTest {
 
     // The expected hash is made on the sorted vote ids (check that vote3 was discarded)
     String[] voteIds = Stream.of(VOTE1, VOTE2).map(Vote::getId).sorted().toArray(String[]::new);
-    Election election = electionRepo.getElectionByChannel(OPEN_BALLOT_ELECTION.getChannel());
+    ElectionVotes votes = electionRepo.getElectionVotes(LAO.getId(), ELECTION_ID);
 
-    assertEquals(Hash.hash(voteIds), election.computeRegisteredVotesHash());
+    assertEquals(Hash.hash(voteIds), votes.computeRegisteredVotesHash());
   }
 
   @Test
@@ -464,11 +473,9 @@ public class ElectionHandlerTest {
     MessageGeneral nullData = new MessageGeneral(SENDER_KEY, null, gson);
     messageRepo.addMessage(nullData, false, true);
 
-    // Update the messageMap in this election to contain the invalid message
+    // Register a ballot of the sender with the invalid message
     Election prevElection = electionRepo.getElectionByChannel(OPEN_BALLOT_ELECTION.getChannel());
-    Election updatedElection =
-        prevElection.builder().updateMessageMap(SENDER, nullData.getMessageId()).build();
-    electionRepo.updateElection(updatedElection);
+    electionRepo.addVotes(prevElection, SENDER, nullData.getMessageId(), emptyList());
 
     // Check that handling the message fails
     assertThrows(
@@ -489,11 +496,9 @@ public class ElectionHandlerTest {
     MessageGeneral invalidData = new MessageGeneral(SENDER_KEY, CREATE_LAO, gson);
     messageRepo.addMessage(invalidData, true, true);
 
-    // Update the messageMap in this election to contain the invalid message
+    // Register a ballot of the sender with the invalid message
     Election prevElection = electionRepo.getElectionByChannel(OPEN_BALLOT_ELECTION.getChannel());
-    Election updatedElection =
-        prevElection.builder().updateMessageMap(SENDER, invalidData.getMessageId()).build();
-    electionRepo.updateElection(updatedElection);
+    electionRepo.addVotes(prevElection, SENDER, invalidData.getMessageId(), emptyList());
 
     // Check that handling the message fails
     assertThrows(
@@ -512,11 +517,11 @@ public class ElectionHandlerTest {
     handleCastVote(VOTE2, SENDER_KEY, END_AT + 1);
 
     // The expected message map kept the first vote
-    Election election = electionRepo.getElectionByChannel(OPEN_BALLOT_ELECTION.getChannel());
+    ElectionVotes votes = electionRepo.getElectionVotes(LAO.getId(), ELECTION_ID);
     HashMap<PublicKey, MessageID> expectedMessageMap = new HashMap<>();
     expectedMessageMap.put(SENDER, messageID);
 
-    assertEquals(expectedMessageMap, election.getMessageMap());
+    assertEquals(expectedMessageMap, votes.getMessageMap());
   }
 
   @Test
@@ -539,8 +544,8 @@ public class ElectionHandlerTest {
 
     // The expected hash is made on the sorted vote ids
     String[] voteIds = Stream.of(vote1, vote2).map(Vote::getId).sorted().toArray(String[]::new);
-    Election election = electionRepo.getElectionByChannel(OPEN_BALLOT_ELECTION.getChannel());
+    ElectionVotes votes = electionRepo.getElectionVotes(LAO.getId(), ELECTION_ID);
 
-    assertEquals(Hash.hash(voteIds), election.computeRegisteredVotesHash());
+    assertEquals(Hash.hash(voteIds), votes.computeRegisteredVotesHash());
   }
 }
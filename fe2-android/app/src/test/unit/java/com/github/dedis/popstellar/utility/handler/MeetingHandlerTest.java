@@ -100,12 +100,15 @@ public class MeetingHandlerTest {
 
     when(appDatabase.messageDao()).thenReturn(messageDao);
     when(messageDao.takeFirstNMessages(anyInt())).thenReturn(Single.just(new ArrayList<>()));
+    when(messageDao.getAllMessageIds()).thenReturn(Single.just(new ArrayList<>()));
     when(messageDao.insert(any(MessageEntity.class))).thenReturn(Completable.complete());
+    when(messageDao.insertAll(any())).thenReturn(Completable.complete());
     when(messageDao.getMessageById(any(MessageID.class))).thenReturn(null);
 
     when(appDatabase.meetingDao()).thenReturn(meetingDao);
     when(meetingDao.getMeetingsByLaoId(anyString())).thenReturn(Single.just(new ArrayList<>()));
     when(meetingDao.insert(any(MeetingEntity.class))).thenReturn(Completable.complete());
+    when(meetingDao.insertAll(any())).thenReturn(Completable.complete());
 
     when(appDatabase.witnessDao()).thenReturn(witnessDao);
     when(witnessDao.getWitnessesByLao(anyString())).thenReturn(Single.just(new ArrayList<>()));
@@ -116,6 +119,7 @@ public class MeetingHandlerTest {
     when(witnessingDao.getWitnessMessagesByLao(anyString()))
         .thenReturn(Single.just(new ArrayList<>()));
     when(witnessingDao.insert(any(WitnessingEntity.class))).thenReturn(Completable.complete());
+    when(witnessingDao.insertAll(any())).thenReturn(Completable.complete());
     when(witnessingDao.deleteMessagesByIds(anyString(), any())).thenReturn(Completable.complete());
 
     when(appDatabase.pendingDao()).thenReturn(pendingDao);
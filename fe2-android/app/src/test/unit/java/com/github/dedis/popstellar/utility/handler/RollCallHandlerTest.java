@@ -101,12 +101,15 @@ public class RollCallHandlerTest {
 
     when(appDatabase.messageDao()).thenReturn(messageDao);
     when(messageDao.takeFirstNMessages(anyInt())).thenReturn(Single.just(new ArrayList<>()));
+    when(messageDao.getAllMessageIds()).thenReturn(Single.just(new ArrayList<>()));
     when(messageDao.insert(any(MessageEntity.class))).thenReturn(Completable.complete());
+    when(messageDao.insertAll(any())).thenReturn(Completable.complete());
     when(messageDao.getMessageById(any(MessageID.class))).thenReturn(null);
 
     when(appDatabase.rollCallDao()).thenReturn(rollCallDao);
     when(rollCallDao.getRollCallsByLaoId(anyString())).thenReturn(Single.just(new ArrayList<>()));
     when(rollCallDao.insert(any(RollCallEntity.class))).thenReturn(Completable.complete());
+    when(rollCallDao.insertAll(any())).thenReturn(Completable.complete());
 
     when(appDatabase.witnessDao()).thenReturn(witnessDao);
     when(witnessDao.getWitnessesByLao(anyString())).thenReturn(Single.just(new ArrayList<>()));
@@ -117,6 +120,7 @@ public class RollCallHandlerTest {
     when(witnessingDao.getWitnessMessagesByLao(anyString()))
         .thenReturn(Single.just(new ArrayList<>()));
     when(witnessingDao.insert(any(WitnessingEntity.class))).thenReturn(Completable.complete());
+    when(witnessingDao.insertAll(any())).thenReturn(Completable.complete());
     when(witnessingDao.deleteMessagesByIds(anyString(), any())).thenReturn(Completable.complete());
 
     when(appDatabase.pendingDao()).thenReturn(pendingDao);
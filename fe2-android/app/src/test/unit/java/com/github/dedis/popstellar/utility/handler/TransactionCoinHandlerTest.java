@@ -112,13 +112,16 @@ public class TransactionCoinHandlerTest {
 
     when(appDatabase.messageDao()).thenReturn(messageDao);
     when(messageDao.takeFirstNMessages(anyInt())).thenReturn(Single.just(new ArrayList<>()));
+    when(messageDao.getAllMessageIds()).thenReturn(Single.just(new ArrayList<>()));
     when(messageDao.insert(any(MessageEntity.class))).thenReturn(Completable.complete());
+    when(messageDao.insertAll(any())).thenReturn(Completable.complete());
     when(messageDao.getMessageById(any(MessageID.class))).thenReturn(null);
 
     when(appDatabase.transactionDao()).thenReturn(transactionDao);
     when(transactionDao.getTransactionsByLaoId(anyString()))
         .thenReturn(Single.just(new ArrayList<>()));
     when(transactionDao.insert(any(TransactionEntity.class))).thenReturn(Completable.complete());
+    when(transactionDao.insertAll(any())).thenReturn(Completable.complete());
     when(transactionDao.deleteByLaoId(anyString())).thenReturn(Completable.complete());
 
     when(appDatabase.hashDao()).thenReturn(hashDao);
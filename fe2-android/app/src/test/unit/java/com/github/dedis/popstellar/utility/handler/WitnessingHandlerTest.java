@@ -98,7 +98,9 @@ public class WitnessingHandlerTest {
 
     when(appDatabase.messageDao()).thenReturn(messageDao);
     when(messageDao.takeFirstNMessages(anyInt())).thenReturn(Single.just(new ArrayList<>()));
+    when(messageDao.getAllMessageIds()).thenReturn(Single.just(new ArrayList<>()));
     when(messageDao.insert(any(MessageEntity.class))).thenReturn(Completable.complete());
+    when(messageDao.insertAll(any())).thenReturn(Completable.complete());
     when(messageDao.getMessageById(any(MessageID.class))).thenReturn(null);
 
     when(appDatabase.witnessDao()).thenReturn(witnessDao);
@@ -110,6 +112,7 @@ public class WitnessingHandlerTest {
     when(witnessingDao.getWitnessMessagesByLao(anyString()))
         .thenReturn(Single.just(new ArrayList<>()));
     when(witnessingDao.insert(any(WitnessingEntity.class))).thenReturn(Completable.complete());
+    when(witnessingDao.insertAll(any())).thenReturn(Completable.complete());
     when(witnessingDao.deleteMessagesByIds(anyString(), any())).thenReturn(Completable.complete());
 
     when(appDatabase.pendingDao()).thenReturn(pendingDao);